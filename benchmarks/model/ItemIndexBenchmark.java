@@ -0,0 +1,76 @@
+package model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the cart operations of an Order with 10 000 lines.
+ * Needs jmh-core and jmh-generator-annprocess on the classpath, together with the classes in src.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemIndexBenchmark {
+    private static final int LINES = 10_000;
+
+    private Product[] products;
+    private Order order;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createProducts() {
+        products = new Product[LINES];
+        for (int i = 0; i < LINES; i++) {
+            products[i] = new Product(i + 1, "Product " + i, 0.5, 200);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fillOrder() {
+        order = new Order(null, null);
+        for (Product product : products) {
+            order.addOrderItem(new OrderItem(product, product.getPrice(), 1));
+        }
+    }
+
+    private Product nextProduct() {
+        next = (next + 7919) % LINES;
+        return products[next];
+    }
+
+    @Benchmark
+    public boolean addToExistingLine() {
+        return order.addOrderItem(new OrderItem(nextProduct(), 200, 1));
+    }
+
+    @Benchmark
+    public boolean updateQuantity() {
+        return order.setItemQuantity(nextProduct(), 3);
+    }
+
+    @Benchmark
+    public boolean removeAndAddBack() {
+        Product product = nextProduct();
+        OrderItem item = order.getItem(product);
+        order.removeOrderItem(item);
+        return order.addOrderItem(item);
+    }
+
+    @Benchmark
+    public double totals() {
+        return order.calculateTotalPrice() + order.calculateTotalWeight();
+    }
+
+    @Benchmark
+    public Order fillNewOrder() {
+        Order cart = new Order(null, null);
+        for (Product product : products) {
+            cart.addOrderItem(new OrderItem(product, product.getPrice(), 1));
+        }
+        return cart;
+    }
+}
@@ -0,0 +1,73 @@
+package server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of a running order server: more and more clients read their order list at the same time,
+ * after every step the number of DB sessions SQL Server has open for the server is read from /health.
+ * The session count should stay the same however many clients there are.
+ * The login of the server needs the VIEW SERVER STATE permission, otherwise SQL Server only shows one session.
+ * Run it with the URL of the server and the name and password of a store or warehouse,
+ * for example "http://localhost:8080 Warehouse1 password".
+ */
+public class OrderServerLoadTest {
+    private static final int[] CLIENTS = {1, 10, 50, 200, 500};
+    private static final Duration STEP = Duration.ofSeconds(10);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: OrderServerLoadTest <url> <name> <password>");
+            System.exit(2);
+        }
+        URI orders = URI.create(args[0] + "/orders");
+        URI health = URI.create(args[0] + "/health");
+        String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((args[1] + ":" + args[2]).getBytes(StandardCharsets.UTF_8));
+
+        System.out.printf("%8s %12s %10s %12s%n", "clients", "requests/s", "errors", "sessions");
+        for (int clients : CLIENTS) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong requests = new AtomicLong();
+            AtomicLong errors = new AtomicLong();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                // Every client has its own HTTP connection, like a separate window would
+                HttpClient client = HttpClient.newHttpClient();
+                HttpRequest request = HttpRequest.newBuilder(orders).header("Authorization", authorization).build();
+                Thread thread = new Thread(() -> {
+                    while (running.get()) {
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            (response.statusCode() == 200 ? requests : errors).incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+            // Read while the clients are still running, so every session they made the server open is counted
+            Thread.sleep(STEP.toMillis());
+            String status = HttpClient.newHttpClient()
+                    .send(HttpRequest.newBuilder(health).build(), HttpResponse.BodyHandlers.ofString()).body();
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            System.out.printf("%8d %12.1f %10d %12s%n", clients,
+                    requests.get() / (double) STEP.toSeconds(), errors.get(), Json.readObject(status).get("sessions"));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+-- Adds the change versions the store clients sync their local copy of the catalog with to an existing database.
+-- Every change of a Product, Warehouse or Provider bumps its changeVersion, deleted rows are remembered in
+-- CatalogDeletion, so a client only downloads what changed since its last sync.
+-- New databases get the columns, the table and the triggers from create_tables.sql already.
+
+ALTER TABLE Product ADD [changeVersion] rowversion;
+GO
+CREATE NONCLUSTERED INDEX [ix_Product_changeVersion] ON Product ([changeVersion] ASC);
+GO
+
+ALTER TABLE Warehouse ADD [changeVersion] rowversion;
+GO
+CREATE NONCLUSTERED INDEX [ix_Warehouse_changeVersion] ON Warehouse ([changeVersion] ASC);
+GO
+
+ALTER TABLE Provider ADD [changeVersion] rowversion;
+GO
+CREATE NONCLUSTERED INDEX [ix_Provider_changeVersion] ON Provider ([changeVersion] ASC);
+GO
+
+CREATE TABLE [CatalogDeletion]
+(
+ [kind]          varchar(16) NOT NULL ,
+ [id]            int NOT NULL ,
+ [changeVersion] rowversion ,
+
+
+ CONSTRAINT [PK_CatalogDeletion] PRIMARY KEY CLUSTERED ([changeVersion] ASC)
+);
+GO
+
+CREATE TRIGGER [tr_Product_deleted] ON Product AFTER DELETE AS
+    INSERT INTO CatalogDeletion (kind, id) SELECT 'Product', id FROM deleted;
+GO
+
+CREATE TRIGGER [tr_Warehouse_deleted] ON Warehouse AFTER DELETE AS
+    INSERT INTO CatalogDeletion (kind, id) SELECT 'Warehouse', id FROM deleted;
+GO
+
+CREATE TRIGGER [tr_Provider_deleted] ON Provider AFTER DELETE AS
+    INSERT INTO CatalogDeletion (kind, id) SELECT 'Provider', id FROM deleted;
+GO
+
+-- Warehouses and providers are sent with their address, so a changed address counts as a change of its owner
+CREATE TRIGGER [tr_Address_updated] ON Address AFTER UPDATE AS
+BEGIN
+    UPDATE Warehouse SET name = name WHERE addressID IN (SELECT id FROM inserted);
+    UPDATE Provider SET name = name WHERE addressID IN (SELECT id FROM inserted);
+END
+GO
@@ -0,0 +1,17 @@
+-- Adds what the change feed of the open screens needs to an existing database: a row version on StoreStockReport,
+-- the other tables have one already, and indexes reading the rows of one store or warehouse changed since a version.
+-- New databases get the column and the indexes from create_tables.sql already.
+
+ALTER TABLE StoreStockReport ADD [version] rowversion;
+GO
+
+CREATE NONCLUSTERED INDEX [ix_Order_warehouse_version] ON [Order] ([warehouseID] ASC, [version] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_Order_store_version] ON [Order] ([storeID] ASC, [version] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrder_version] ON WarehouseOrder ([warehouseID] ASC, [version] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_Stock_version] ON Stock ([warehouseID] ASC, [version] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_StoreStockReport_version] ON StoreStockReport ([storeID] ASC, [version] ASC);
+GO
@@ -0,0 +1,21 @@
+-- Adds the table of the saved consumption figures to an existing database.
+-- It starts empty, the figures of a Store are worked out from its history the first time they are needed.
+-- New databases get the table from create_tables.sql already.
+
+CREATE TABLE [ConsumptionSnapshot]
+(
+ [storeID]        int NOT NULL ,
+ [productID]      int NOT NULL ,
+ [lastQuantity]   int NOT NULL ,
+ [lastReport]     datetime2(7) NULL ,
+ [deliveredSince] int NOT NULL ,
+ [consumed]       bigint NOT NULL ,
+ [observedDays]   float NOT NULL ,
+ [velocity]       float NOT NULL ,
+
+
+ CONSTRAINT [PK_ConsumptionSnapshot] PRIMARY KEY CLUSTERED ([storeID] ASC, [productID] ASC),
+ CONSTRAINT [FK_180] FOREIGN KEY ([storeID])  REFERENCES [Store]([id]) ON DELETE CASCADE ON UPDATE CASCADE,
+ CONSTRAINT [FK_181] FOREIGN KEY ([productID])  REFERENCES [Product]([id]) ON DELETE CASCADE ON UPDATE CASCADE
+);
+GO
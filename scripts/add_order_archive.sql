@@ -0,0 +1,62 @@
+-- Adds the archive of closed orders to an existing database, filled by main.OrderArchiveTool.
+-- New databases get the tables and indexes from create_tables.sql already.
+
+-- The archival job finds closed orders by status and date, and their revisions and revision items by order
+CREATE NONCLUSTERED INDEX [ix_Order_status_date] ON [Order] ([status] ASC, [date] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderRevision_order] ON OrderRevision ([orderID] ASC, [date] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderItem_revision] ON OrderItem ([orderRevisionID] ASC);
+GO
+
+-- Closed orders moved out of the hot tables by the archival job, with the same columns except the rowversion.
+-- Like the ledger, the archive has no foreign keys, its rows stay when a Store, Warehouse or Product is deleted.
+CREATE TABLE [OrderArchive]
+(
+ [id]          int NOT NULL ,
+ [storeID]     int NOT NULL ,
+ [warehouseID] int NOT NULL ,
+ [status]      varchar(32) not null ,
+ [date]        datetime2(7) NOT NULL ,
+ [totalPrice]  money NOT NULL ,
+ [totalWeight] float NOT NULL ,
+ [lineCount]   int NOT NULL ,
+ [archivedAt]  datetime2(7) NOT NULL ,
+
+
+ CONSTRAINT [PK_OrderArchive] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderArchive_store] ON OrderArchive ([storeID] ASC, [date] DESC);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderArchive_warehouse] ON OrderArchive ([warehouseID] ASC, [date] DESC);
+GO
+
+CREATE TABLE [OrderRevisionArchive]
+(
+ [id]      int NOT NULL ,
+ [orderID] int NOT NULL ,
+ [status]  varchar(32) not null ,
+ [date]    datetime2(7) NOT NULL ,
+ [note]    text NOT NULL ,
+
+
+ CONSTRAINT [PK_OrderRevisionArchive] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderRevisionArchive_order] ON OrderRevisionArchive ([orderID] ASC);
+GO
+
+CREATE TABLE [OrderItemArchive]
+(
+ [orderID]         int null ,
+ [orderRevisionID] int null ,
+ [quantity]        int NOT NULL ,
+ [unitPrice]       money not null ,
+ [productID]       int NOT NULL
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderItemArchive_order] ON OrderItemArchive ([orderID] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderItemArchive_revision] ON OrderItemArchive ([orderRevisionID] ASC);
+GO
@@ -0,0 +1,31 @@
+-- Adds the stored totals to an existing database and fills them from the items.
+-- New databases get the columns from create_tables.sql already.
+
+ALTER TABLE [Order] ADD
+ [totalPrice]  money NOT NULL DEFAULT 0 ,
+ [totalWeight] float NOT NULL DEFAULT 0 ,
+ [lineCount]   int NOT NULL DEFAULT 0 ;
+GO
+
+ALTER TABLE [WarehouseOrder] ADD
+ [totalPrice]  money NOT NULL DEFAULT 0 ,
+ [totalWeight] float NOT NULL DEFAULT 0 ,
+ [lineCount]   int NOT NULL DEFAULT 0 ;
+GO
+
+UPDATE o SET o.totalPrice = t.totalPrice, o.totalWeight = t.totalWeight, o.lineCount = t.lineCount
+FROM [Order] o JOIN (
+    SELECT oi.orderID, SUM(oi.quantity * oi.unitPrice) AS totalPrice, SUM(oi.quantity * p.weight) AS totalWeight, COUNT(*) AS lineCount
+    FROM OrderItem oi JOIN Product p ON p.id = oi.productID
+    WHERE oi.orderID IS NOT NULL
+    GROUP BY oi.orderID
+) t ON t.orderID = o.id;
+GO
+
+UPDATE o SET o.totalPrice = t.totalPrice, o.totalWeight = t.totalWeight, o.lineCount = t.lineCount
+FROM [WarehouseOrder] o JOIN (
+    SELECT i.orderID, SUM(i.quantity * i.unitPrice) AS totalPrice, SUM(i.quantity * p.weight) AS totalWeight, COUNT(*) AS lineCount
+    FROM WarehouseOrderItem i JOIN Product p ON p.id = i.productID
+    GROUP BY i.orderID
+) t ON t.orderID = o.id;
+GO
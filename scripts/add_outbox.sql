@@ -0,0 +1,22 @@
+-- Adds the outbox of the domain events to an existing database.
+-- New databases get the table from create_tables.sql already.
+
+CREATE TABLE [OutboxEvent]
+(
+ [id]           bigint NOT NULL IDENTITY (1,1),
+ [type]         varchar(32) NOT NULL ,
+ [subjectID]    int NOT NULL ,
+ [storeID]      int NULL ,
+ [warehouseID]  int NULL ,
+ [productID]    int NULL ,
+ [quantity]     int NULL ,
+ [status]       varchar(32) NULL ,
+ [date]         datetime2(7) NOT NULL ,
+ [attempts]     int NOT NULL DEFAULT 0 ,
+ [claimedUntil] datetime2(7) NULL ,
+ [failed]       bit NOT NULL DEFAULT 0 ,
+
+
+ CONSTRAINT [PK_OutboxEvent] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
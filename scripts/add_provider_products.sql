@@ -0,0 +1,22 @@
+-- Adds the price lists of the Providers to an existing database, the replenishment orders every Product
+-- from the cheapest available Provider listed here. Products nobody lists are left out of the replenishment.
+-- New databases get the table from create_tables.sql already.
+
+CREATE TABLE [ProviderProduct]
+(
+ [providerID] int NOT NULL ,
+ [productID]  int NOT NULL ,
+ [unitPrice]  money NOT NULL ,
+
+
+ CONSTRAINT [PK_ProviderProduct] PRIMARY KEY CLUSTERED ([providerID] ASC, [productID] ASC),
+ CONSTRAINT [FK_190] FOREIGN KEY ([providerID])  REFERENCES [Provider]([id]) ON DELETE CASCADE ON UPDATE CASCADE,
+ CONSTRAINT [FK_191] FOREIGN KEY ([productID])  REFERENCES [Product]([id]) ON DELETE CASCADE ON UPDATE CASCADE
+);
+GO
+CREATE NONCLUSTERED INDEX [fkIdx_191] ON ProviderProduct
+ (
+  [productID] ASC,
+  [unitPrice] ASC
+ );
+GO
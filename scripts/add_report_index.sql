@@ -0,0 +1,14 @@
+-- Replaces the storeID index of StoreStockReport on an existing database with one ordered like the report pages,
+-- newest first, so a page is read from the index without sorting.
+-- New databases get the index from create_tables.sql already.
+
+DROP INDEX [fkIdx_156] ON StoreStockReport;
+GO
+
+CREATE NONCLUSTERED INDEX [fkIdx_156] ON StoreStockReport
+ (
+  [storeID] ASC,
+  [date] DESC,
+  [id] DESC
+ ) INCLUDE ([note]);
+GO
@@ -0,0 +1,12 @@
+-- Adds the Store holding a reservation to the StockReservation table of an existing database,
+-- so the order server only lets a store change or release its own reservations.
+-- Reservations only last a few minutes, the ones made before the change are dropped instead of being given a store.
+-- New databases get the column from create_tables.sql already.
+
+DELETE FROM StockReservation;
+GO
+
+ALTER TABLE StockReservation ADD [storeID] int NOT NULL;
+GO
+ALTER TABLE StockReservation ADD CONSTRAINT [FK_171] FOREIGN KEY ([storeID]) REFERENCES [Store]([id]);
+GO
@@ -0,0 +1,12 @@
+-- Adds the row versions used for optimistic concurrency to an existing database.
+-- SQL Server fills the column for the existing rows and bumps it on every change of the row.
+-- New databases get the columns from create_tables.sql already.
+
+ALTER TABLE [Order] ADD [version] rowversion;
+GO
+
+ALTER TABLE WarehouseOrder ADD [version] rowversion;
+GO
+
+ALTER TABLE Stock ADD [version] rowversion;
+GO
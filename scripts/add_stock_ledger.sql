@@ -0,0 +1,42 @@
+-- Adds the stock ledger to an existing database. Every Stock gets an OPENING movement with its current quantity,
+-- so the ledger adds up to the Stock table from the start.
+-- New databases get the tables from create_tables.sql already.
+
+CREATE TABLE [StockMovement]
+(
+ [id]          bigint NOT NULL IDENTITY (1,1),
+ [warehouseID] int NOT NULL ,
+ [productID]   int NOT NULL ,
+ [quantity]    int NOT NULL ,
+ [reason]      varchar(32) NOT NULL ,
+ [referenceID] int NULL ,
+ [date]        datetime2(7) NOT NULL ,
+
+
+ CONSTRAINT [PK_StockMovement] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_StockMovement_stock] ON StockMovement
+ (
+  [warehouseID] ASC,
+  [productID] ASC,
+  [id] ASC
+ ) INCLUDE ([quantity]);
+GO
+
+CREATE TABLE [StockSnapshot]
+(
+ [warehouseID] int NOT NULL ,
+ [productID]   int NOT NULL ,
+ [quantity]    bigint NOT NULL ,
+ [movementID]  bigint NOT NULL ,
+ [date]        datetime2(7) NOT NULL ,
+
+
+ CONSTRAINT [PK_StockSnapshot] PRIMARY KEY CLUSTERED ([warehouseID] ASC, [productID] ASC)
+);
+GO
+
+INSERT INTO StockMovement (warehouseID, productID, quantity, reason, referenceID, date)
+SELECT warehouseID, productID, quantity, 'OPENING', NULL, SYSDATETIME() FROM Stock;
+GO
@@ -18,6 +18,9 @@ GO
 
 EXEC sp_MSforeachtable 'DROP TABLE ?'
 GO
+IF EXISTS (SELECT * FROM sys.partition_schemes WHERE name = 'ps_OrderMonth') DROP PARTITION SCHEME [ps_OrderMonth];
+IF EXISTS (SELECT * FROM sys.partition_functions WHERE name = 'pf_OrderMonth') DROP PARTITION FUNCTION [pf_OrderMonth];
+GO
 CREATE TABLE [Address]
 (
  [id]         int NOT NULL IDENTITY (1,1),
@@ -41,6 +44,7 @@ CREATE TABLE [Provider]
  [email]     varchar(256) NOT NULL ,
  [available] bit NOT NULL ,
  [addressID] int NOT NULL ,
+ [changeVersion] rowversion ,
 
 
  CONSTRAINT [PK_Provider] PRIMARY KEY CLUSTERED ([id] ASC),
@@ -69,6 +73,7 @@ CREATE TABLE [Warehouse]
  [email]     varchar(256) NOT NULL UNIQUE ,
  [password]  varchar(256) NOT NULL ,
  [addressID] int NOT NULL ,
+ [changeVersion] rowversion ,
 
 
  CONSTRAINT [PK_Warehouse] PRIMARY KEY CLUSTERED ([id] ASC),
@@ -81,7 +86,8 @@ CREATE TABLE [Product]
  [id]     int NOT NULL IDENTITY (1,1),
  [name]   varchar(120) NOT NULL ,
  [weight] real NOT NULL ,
- [price]  money NOT NULL ,
+ [price]  bigint NOT NULL , -- in cents, like every price and total price
+ [changeVersion] rowversion ,
 
 
  CONSTRAINT [PK_Product] PRIMARY KEY CLUSTERED ([id] ASC)
@@ -94,6 +100,7 @@ CREATE TABLE [Stock]
  [productID]   int NOT NULL ,
  [quantity]    int NOT NULL ,
  [minQuantity] int NOT NULL ,
+ [version]     rowversion ,
 
 
  CONSTRAINT [PK_Stock] PRIMARY KEY CLUSTERED ([warehouseID] ASC, [productID] ASC),
@@ -102,48 +109,92 @@ CREATE TABLE [Stock]
 );
 GO
 
+CREATE TABLE [ProviderProduct]
+(
+ [providerID] int NOT NULL ,
+ [productID]  int NOT NULL ,
+ [unitPrice]  bigint NOT NULL ,
+
+
+ CONSTRAINT [PK_ProviderProduct] PRIMARY KEY CLUSTERED ([providerID] ASC, [productID] ASC),
+ CONSTRAINT [FK_190] FOREIGN KEY ([providerID])  REFERENCES [Provider]([id]) ON DELETE CASCADE ON UPDATE CASCADE,
+ CONSTRAINT [FK_191] FOREIGN KEY ([productID])  REFERENCES [Product]([id]) ON DELETE CASCADE ON UPDATE CASCADE
+);
+GO
+CREATE NONCLUSTERED INDEX [fkIdx_191] ON ProviderProduct
+ (
+  [productID] ASC,
+  [unitPrice] ASC
+ );
+GO
+
+-- The order history is partitioned by month on the date of the order, the items and revisions carry that date
+-- as orderDate. Every partition starts at the first day of its month; main.OrderHistoryTool adds the coming months
+-- and removes old ones. The order tables have no foreign keys between them, so a month can be truncated.
+CREATE PARTITION FUNCTION [pf_OrderMonth] (datetime2(7)) AS RANGE RIGHT FOR VALUES ();
+GO
+CREATE PARTITION SCHEME [ps_OrderMonth] AS PARTITION [pf_OrderMonth] ALL TO ([PRIMARY]);
+GO
+DECLARE @month datetime2(7) = DATEADD(MONTH, -24, DATEFROMPARTS(YEAR(SYSDATETIME()), MONTH(SYSDATETIME()), 1));
+WHILE @month <= DATEADD(MONTH, 3, SYSDATETIME())
+    BEGIN
+        ALTER PARTITION SCHEME [ps_OrderMonth] NEXT USED [PRIMARY];
+        ALTER PARTITION FUNCTION [pf_OrderMonth]() SPLIT RANGE (@month);
+        SET @month = DATEADD(MONTH, 1, @month);
+    END
+GO
+
 CREATE TABLE [Order]
 (
  [id]          int NOT NULL IDENTITY (1,1),
  [storeID]     int NOT NULL ,
  [warehouseID] int NOT NULL ,
- [status]      varchar(32) not null ,
+ [status]      tinyint NOT NULL ,
  [date]        datetime2(7) NOT NULL ,
+ [totalPrice]  bigint NOT NULL DEFAULT 0 ,
+ [totalWeight] float NOT NULL DEFAULT 0 ,
+ [lineCount]   int NOT NULL DEFAULT 0 ,
+ [version]     rowversion ,
 
 
- CONSTRAINT [PK_Order] PRIMARY KEY CLUSTERED ([id] ASC),
+ CONSTRAINT [PK_Order] PRIMARY KEY CLUSTERED ([date] ASC, [id] ASC) ON [ps_OrderMonth]([date]),
  CONSTRAINT [FK_128] FOREIGN KEY ([storeID])  REFERENCES [Store]([id]) ON UPDATE CASCADE,
  CONSTRAINT [FK_131] FOREIGN KEY ([warehouseID])  REFERENCES [Warehouse]([id]) ON UPDATE NO ACTION
-);
+) ON [ps_OrderMonth]([date]);
+GO
+CREATE NONCLUSTERED INDEX [ix_Order_id] ON [Order] ([id] ASC);
 GO
 
 CREATE TABLE [OrderRevision]
 (
- [id]      int NOT NULL IDENTITY (1,1),
- [orderID] int NOT NULL ,
- [status]  varchar(32) not null ,
- [date]    datetime2(7) NOT NULL ,
- [note]    text NOT NULL ,
+ [id]        int NOT NULL IDENTITY (1,1),
+ [orderID]   int NOT NULL ,
+ [orderDate] datetime2(7) NOT NULL ,
+ [status]    tinyint NOT NULL ,
+ [date]      datetime2(7) NOT NULL ,
+ [note]      text NOT NULL ,
 
 
- CONSTRAINT [PK_OrderStatus] PRIMARY KEY CLUSTERED ([id] ASC),
- CONSTRAINT [FK_137] FOREIGN KEY ([orderID])  REFERENCES [Order]([id]) ON DELETE CASCADE ON UPDATE CASCADE
-);
+ CONSTRAINT [PK_OrderStatus] PRIMARY KEY CLUSTERED ([orderDate] ASC, [orderID] ASC, [id] ASC) ON [ps_OrderMonth]([orderDate])
+) ON [ps_OrderMonth]([orderDate]);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderRevision_id] ON OrderRevision ([id] ASC);
 GO
 
 CREATE TABLE [OrderItem]
 (
     [orderID]   int null ,
     [orderRevisionID] int null ,
+    [orderDate] datetime2(7) NOT NULL ,
     [quantity]  int NOT NULL ,
-    [unitPrice] money not null ,
+    [unitPrice] bigint not null ,
     [productID] int NOT NULL ,
 
 
-    CONSTRAINT [FK_145] FOREIGN KEY ([orderID])  REFERENCES [Order]([id]) ON DELETE CASCADE ON UPDATE CASCADE,
-    CONSTRAINT [FK_149] FOREIGN KEY ([productID])  REFERENCES [Product]([id]) ON DELETE CASCADE ON UPDATE CASCADE,
-    CONSTRAINT [FK_150] foreign key ([orderRevisionID]) references [OrderRevision]([id]) on DELETE no action on UPDATE no action
-);
+    CONSTRAINT [FK_149] FOREIGN KEY ([productID])  REFERENCES [Product]([id]) ON DELETE CASCADE ON UPDATE CASCADE
+) ON [ps_OrderMonth]([orderDate]);
+GO
+CREATE CLUSTERED INDEX [ix_OrderItem_order] ON OrderItem ([orderDate] ASC, [orderID] ASC) ON [ps_OrderMonth]([orderDate]);
 GO
 
 CREATE TABLE [StoreStockReport]
@@ -152,6 +203,7 @@ CREATE TABLE [StoreStockReport]
  [storeID] int NOT NULL ,
  [date]    datetime2(7) NOT NULL ,
  [note]    varchar(256) NOT NULL ,
+ [version] rowversion ,
 
 
  CONSTRAINT [PK_StoreStockReport] PRIMARY KEY CLUSTERED ([id] ASC),
@@ -160,8 +212,10 @@ CREATE TABLE [StoreStockReport]
 GO
 CREATE NONCLUSTERED INDEX [fkIdx_156] ON StoreStockReport
  (
-  [storeID] ASC
- );
+  [storeID] ASC,
+  [date] DESC,
+  [id] DESC
+ ) INCLUDE ([note]);
 GO
 
 CREATE TABLE [StoreStockReportItem]
@@ -181,41 +235,316 @@ CREATE TABLE [WarehouseOrder]
 (
  [id]          int NOT NULL IDENTITY (1,1),
  [date]        datetime2(7) NOT NULL ,
- [status]      varchar(32) NOT NULL ,
+ [status]      tinyint NOT NULL ,
  [providerID]  int NOT NULL ,
  [warehouseID] int NOT NULL ,
+ [totalPrice]  bigint NOT NULL DEFAULT 0 ,
+ [totalWeight] float NOT NULL DEFAULT 0 ,
+ [lineCount]   int NOT NULL DEFAULT 0 ,
+ [version]     rowversion ,
 
 
- CONSTRAINT [PK_WarehouseOrder] PRIMARY KEY CLUSTERED ([id] ASC),
+ CONSTRAINT [PK_WarehouseOrder] PRIMARY KEY CLUSTERED ([date] ASC, [id] ASC) ON [ps_OrderMonth]([date]),
  CONSTRAINT [FK_59] FOREIGN KEY ([providerID])  REFERENCES [Provider]([id]) ON UPDATE CASCADE,
  CONSTRAINT [FK_62] FOREIGN KEY ([warehouseID])  REFERENCES [Warehouse]([id]) ON UPDATE NO ACTION
-);
+) ON [ps_OrderMonth]([date]);
+GO
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrder_id] ON WarehouseOrder ([id] ASC);
 GO
 
 CREATE TABLE [WarehouseOrderItem]
 (
  [orderID]   int NOT NULL ,
+ [orderDate] datetime2(7) NOT NULL ,
  [productID] int NOT NULL ,
  [quantity]  int NOT NULL ,
- [unitPrice] money NOT NULL ,
+ [unitPrice] bigint NOT NULL ,
 
 
- CONSTRAINT [PK_WarehouseOrderItem] PRIMARY KEY CLUSTERED ([orderID] ASC, [productID] ASC),
- CONSTRAINT [FK_92] FOREIGN KEY ([orderID])  REFERENCES [WarehouseOrder]([id]) ON DELETE CASCADE ON UPDATE CASCADE,
+ CONSTRAINT [PK_WarehouseOrderItem] PRIMARY KEY CLUSTERED ([orderDate] ASC, [orderID] ASC, [productID] ASC) ON [ps_OrderMonth]([orderDate]),
  CONSTRAINT [FK_96] FOREIGN KEY ([productID])  REFERENCES [Product]([id]) ON DELETE CASCADE ON UPDATE CASCADE
-);
+) ON [ps_OrderMonth]([orderDate]);
 GO
 
 CREATE TABLE [WarehouseOrderRevision]
 (
- [id]      int NOT NULL IDENTITY (1,1),
- [orderID] int NOT NULL ,
- [date]    datetime2(7) NOT NULL ,
- [status]  varchar(32) NOT NULL ,
- [note]    varchar(32) NOT NULL ,
+ [id]        int NOT NULL IDENTITY (1,1),
+ [orderID]   int NOT NULL ,
+ [orderDate] datetime2(7) NOT NULL ,
+ [date]      datetime2(7) NOT NULL ,
+ [status]    tinyint NOT NULL ,
+ [note]      varchar(32) NOT NULL ,
+
+
+ CONSTRAINT [PK_WarehouseOrderRevision] PRIMARY KEY CLUSTERED ([orderDate] ASC, [orderID] ASC, [id] ASC) ON [ps_OrderMonth]([orderDate])
+) ON [ps_OrderMonth]([orderDate]);
+GO
+
+-- The Store key doesn't cascade, the rows already cascade from Address through Stock and Warehouse
+CREATE TABLE [StockReservation]
+(
+ [id]          int NOT NULL IDENTITY (1,1),
+ [storeID]     int NOT NULL ,
+ [warehouseID] int NOT NULL ,
+ [productID]   int NOT NULL ,
+ [quantity]    int NOT NULL ,
+ [expires]     datetime2(7) NOT NULL ,
+
+
+ CONSTRAINT [PK_StockReservation] PRIMARY KEY CLUSTERED ([id] ASC),
+ CONSTRAINT [FK_170] FOREIGN KEY ([warehouseID], [productID])  REFERENCES [Stock]([warehouseID], [productID]) ON DELETE CASCADE ON UPDATE CASCADE,
+ CONSTRAINT [FK_171] FOREIGN KEY ([storeID])  REFERENCES [Store]([id])
+);
+GO
+CREATE NONCLUSTERED INDEX [fkIdx_170] ON StockReservation
+ (
+  [warehouseID] ASC,
+  [productID] ASC,
+  [expires] ASC
+ ) INCLUDE ([quantity]);
+GO
+
+CREATE TABLE [ConsumptionSnapshot]
+(
+ [storeID]        int NOT NULL ,
+ [productID]      int NOT NULL ,
+ [lastQuantity]   int NOT NULL ,
+ [lastReport]     datetime2(7) NULL ,
+ [deliveredSince] int NOT NULL ,
+ [consumed]       bigint NOT NULL ,
+ [observedDays]   float NOT NULL ,
+ [velocity]       float NOT NULL ,
+
+
+ CONSTRAINT [PK_ConsumptionSnapshot] PRIMARY KEY CLUSTERED ([storeID] ASC, [productID] ASC),
+ CONSTRAINT [FK_180] FOREIGN KEY ([storeID])  REFERENCES [Store]([id]) ON DELETE CASCADE ON UPDATE CASCADE,
+ CONSTRAINT [FK_181] FOREIGN KEY ([productID])  REFERENCES [Product]([id]) ON DELETE CASCADE ON UPDATE CASCADE
+);
+GO
+
+-- The ledger has no foreign keys, its rows stay when a Stock, Product or Warehouse is deleted
+CREATE TABLE [StockMovement]
+(
+ [id]          bigint NOT NULL IDENTITY (1,1),
+ [warehouseID] int NOT NULL ,
+ [productID]   int NOT NULL ,
+ [quantity]    int NOT NULL ,
+ [reason]      varchar(32) NOT NULL ,
+ [referenceID] int NULL ,
+ [date]        datetime2(7) NOT NULL ,
 
 
- CONSTRAINT [PK_WarehouseOrderRevision] PRIMARY KEY CLUSTERED ([id] ASC),
- CONSTRAINT [FK_68] FOREIGN KEY ([orderID])  REFERENCES [WarehouseOrder]([id]) ON DELETE CASCADE ON UPDATE CASCADE
+ CONSTRAINT [PK_StockMovement] PRIMARY KEY CLUSTERED ([id] ASC)
 );
-GO
\ No newline at end of file
+GO
+CREATE NONCLUSTERED INDEX [ix_StockMovement_stock] ON StockMovement
+ (
+  [warehouseID] ASC,
+  [productID] ASC,
+  [id] ASC
+ ) INCLUDE ([quantity]);
+GO
+
+CREATE TABLE [StockSnapshot]
+(
+ [warehouseID] int NOT NULL ,
+ [productID]   int NOT NULL ,
+ [quantity]    bigint NOT NULL ,
+ [movementID]  bigint NOT NULL ,
+ [date]        datetime2(7) NOT NULL ,
+
+
+ CONSTRAINT [PK_StockSnapshot] PRIMARY KEY CLUSTERED ([warehouseID] ASC, [productID] ASC)
+);
+GO
+
+-- The change feed of the open screens reads the rows of one store or warehouse changed since a version
+CREATE NONCLUSTERED INDEX [ix_Order_warehouse_version] ON [Order] ([warehouseID] ASC, [version] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_Order_store_version] ON [Order] ([storeID] ASC, [version] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrder_version] ON WarehouseOrder ([warehouseID] ASC, [version] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_Stock_version] ON Stock ([warehouseID] ASC, [version] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_StoreStockReport_version] ON StoreStockReport ([storeID] ASC, [version] ASC);
+GO
+
+CREATE NONCLUSTERED INDEX [ix_Product_changeVersion] ON Product ([changeVersion] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_Warehouse_changeVersion] ON Warehouse ([changeVersion] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_Provider_changeVersion] ON Provider ([changeVersion] ASC);
+GO
+
+CREATE TABLE [CatalogDeletion]
+(
+ [kind]          varchar(16) NOT NULL ,
+ [id]            int NOT NULL ,
+ [changeVersion] rowversion ,
+
+
+ CONSTRAINT [PK_CatalogDeletion] PRIMARY KEY CLUSTERED ([changeVersion] ASC)
+);
+GO
+
+CREATE TRIGGER [tr_Product_deleted] ON Product AFTER DELETE AS
+    INSERT INTO CatalogDeletion (kind, id) SELECT 'Product', id FROM deleted;
+GO
+
+CREATE TRIGGER [tr_Warehouse_deleted] ON Warehouse AFTER DELETE AS
+    INSERT INTO CatalogDeletion (kind, id) SELECT 'Warehouse', id FROM deleted;
+GO
+
+CREATE TRIGGER [tr_Provider_deleted] ON Provider AFTER DELETE AS
+    INSERT INTO CatalogDeletion (kind, id) SELECT 'Provider', id FROM deleted;
+GO
+
+-- Warehouses and providers are sent with their address, so a changed address counts as a change of its owner
+CREATE TRIGGER [tr_Address_updated] ON Address AFTER UPDATE AS
+BEGIN
+    UPDATE Warehouse SET name = name WHERE addressID IN (SELECT id FROM inserted);
+    UPDATE Provider SET name = name WHERE addressID IN (SELECT id FROM inserted);
+END
+GO
+
+-- Domain events written in the same transaction as the change, delivered to the subscribers by a dispatcher
+-- and deleted once every subscriber has handled them
+CREATE TABLE [OutboxEvent]
+(
+ [id]           bigint NOT NULL IDENTITY (1,1),
+ [type]         varchar(32) NOT NULL ,
+ [subjectID]    int NOT NULL ,
+ [storeID]      int NULL ,
+ [warehouseID]  int NULL ,
+ [productID]    int NULL ,
+ [quantity]     int NULL ,
+ [status]       tinyint NULL ,
+ [date]         datetime2(7) NOT NULL ,
+ [attempts]     int NOT NULL DEFAULT 0 ,
+ [claimedUntil] datetime2(7) NULL ,
+ [failed]       bit NOT NULL DEFAULT 0 ,
+
+
+ CONSTRAINT [PK_OutboxEvent] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+
+-- The open orders of a store or warehouse are counted by status, stored as the code of model.Status
+-- (1 PENDING, 2 APPROVED, 3 REJECTED, 4 PROCESSING, 5 PROCESSED, 6 IN_TRANSIT, 7 DELIVERED)
+CREATE NONCLUSTERED INDEX [ix_Order_warehouse_status] ON [Order] ([warehouseID] ASC, [status] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_Order_store_status] ON [Order] ([storeID] ASC, [status] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrder_warehouse_status] ON WarehouseOrder ([warehouseID] ASC, [status] ASC);
+GO
+
+-- The archival job finds closed orders by status and date, and their revision items by revision;
+-- the revisions are found by the clustered key of OrderRevision
+CREATE NONCLUSTERED INDEX [ix_Order_status_date] ON [Order] ([status] ASC, [date] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderItem_revision] ON OrderItem ([orderDate] ASC, [orderRevisionID] ASC);
+GO
+
+-- Closed orders moved out of the hot tables by the archival job, with the same columns except the rowversion.
+-- Like the ledger, the archive has no foreign keys, its rows stay when a Store, Warehouse or Product is deleted.
+CREATE TABLE [OrderArchive]
+(
+ [id]          int NOT NULL ,
+ [storeID]     int NOT NULL ,
+ [warehouseID] int NOT NULL ,
+ [status]      tinyint NOT NULL ,
+ [date]        datetime2(7) NOT NULL ,
+ [totalPrice]  bigint NOT NULL ,
+ [totalWeight] float NOT NULL ,
+ [lineCount]   int NOT NULL ,
+ [archivedAt]  datetime2(7) NOT NULL ,
+
+
+ CONSTRAINT [PK_OrderArchive] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderArchive_store] ON OrderArchive ([storeID] ASC, [date] DESC);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderArchive_warehouse] ON OrderArchive ([warehouseID] ASC, [date] DESC);
+GO
+
+CREATE TABLE [OrderRevisionArchive]
+(
+ [id]        int NOT NULL ,
+ [orderID]   int NOT NULL ,
+ [orderDate] datetime2(7) NOT NULL ,
+ [status]    tinyint NOT NULL ,
+ [date]      datetime2(7) NOT NULL ,
+ [note]      text NOT NULL ,
+
+
+ CONSTRAINT [PK_OrderRevisionArchive] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderRevisionArchive_order] ON OrderRevisionArchive ([orderID] ASC);
+GO
+
+CREATE TABLE [OrderItemArchive]
+(
+ [orderID]         int null ,
+ [orderRevisionID] int null ,
+ [orderDate]       datetime2(7) NOT NULL ,
+ [quantity]        int NOT NULL ,
+ [unitPrice]       bigint not null ,
+ [productID]       int NOT NULL
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderItemArchive_order] ON OrderItemArchive ([orderID] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_OrderItemArchive_revision] ON OrderItemArchive ([orderRevisionID] ASC);
+GO
+
+-- Warehouse orders of the months removed by main.OrderHistoryTool, with the same columns except the rowversion
+CREATE TABLE [WarehouseOrderArchive]
+(
+ [id]          int NOT NULL ,
+ [date]        datetime2(7) NOT NULL ,
+ [status]      tinyint NOT NULL ,
+ [providerID]  int NOT NULL ,
+ [warehouseID] int NOT NULL ,
+ [totalPrice]  bigint NOT NULL ,
+ [totalWeight] float NOT NULL ,
+ [lineCount]   int NOT NULL ,
+ [archivedAt]  datetime2(7) NOT NULL ,
+
+
+ CONSTRAINT [PK_WarehouseOrderArchive] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrderArchive_warehouse] ON WarehouseOrderArchive ([warehouseID] ASC, [date] DESC);
+GO
+
+CREATE TABLE [WarehouseOrderItemArchive]
+(
+ [orderID]   int NOT NULL ,
+ [orderDate] datetime2(7) NOT NULL ,
+ [productID] int NOT NULL ,
+ [quantity]  int NOT NULL ,
+ [unitPrice] bigint NOT NULL ,
+
+
+ CONSTRAINT [PK_WarehouseOrderItemArchive] PRIMARY KEY CLUSTERED ([orderID] ASC, [productID] ASC)
+);
+GO
+
+CREATE TABLE [WarehouseOrderRevisionArchive]
+(
+ [id]        int NOT NULL ,
+ [orderID]   int NOT NULL ,
+ [orderDate] datetime2(7) NOT NULL ,
+ [date]      datetime2(7) NOT NULL ,
+ [status]    tinyint NOT NULL ,
+ [note]      varchar(32) NOT NULL ,
+
+
+ CONSTRAINT [PK_WarehouseOrderRevisionArchive] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrderRevisionArchive_order] ON WarehouseOrderRevisionArchive ([orderID] ASC);
+GO
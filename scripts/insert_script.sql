@@ -8,11 +8,11 @@ insert into Warehouse (name, email, password, addressID)
 values ('warehouse', 'warehouse@mail.com', 'password', 2);
 GO;
 
-insert into Product (name, weight, price) VALUES ('Deodorant', 0.12, 1.20);
-insert into Product (name, weight, price) VALUES ('Shampoo', 0.2, 2.50);
-insert into Product (name, weight, price) VALUES ('Washing gel', 1, 3);
-insert into Product (name, weight, price) values ('Washing powder', 5, 2);
-insert into Product (name, weight, price) values ('Dishwaser tablets', 0.5, 5);
+insert into Product (name, weight, price) VALUES ('Deodorant', 0.12, 120);
+insert into Product (name, weight, price) VALUES ('Shampoo', 0.2, 250);
+insert into Product (name, weight, price) VALUES ('Washing gel', 1, 300);
+insert into Product (name, weight, price) values ('Washing powder', 5, 200);
+insert into Product (name, weight, price) values ('Dishwaser tablets', 0.5, 500);
 GO;
 
 
@@ -23,16 +23,16 @@ insert into Stock (warehouseID, productID, quantity, minQuantity) VALUES (1, 4,
 insert into Stock (warehouseID, productID, quantity, minQuantity) VALUES (1, 5, 200, 150);
 GO;
 
-insert into [Order] (storeID, warehouseID, status, date) values (1, 1, 'PENDING', '2012-06-18T10:34:09');
-insert into [Order] (storeID, warehouseID, status, date) values (1, 1, 'PENDING', '2012-06-18T10:34:09');
-insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID) VALUES (1, 5, 2, 4, NULL);
-insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID) VALUES (2, 4, 5, 5, NULL);
-insert into OrderRevision (orderID, status, date, note)
-VALUES (1, 'PENDING', '2012-06-18T10:34:09', 'Bring it fast');
-insert into OrderRevision (orderID, status, date, note)
-VALUES (2, 'PENDING', '2012-06-18T10:34:09', 'I do not care when you bring it');
-insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID) VALUES (NULL, 5, 2, 4, 1);
-insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID) VALUES (null, 4, 5, 5, 2);
+insert into [Order] (storeID, warehouseID, status, date) values (1, 1, 1, '2012-06-18T10:34:09');
+insert into [Order] (storeID, warehouseID, status, date) values (1, 1, 1, '2012-06-18T10:34:09');
+insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID, orderDate) VALUES (1, 5, 200, 4, NULL, '2012-06-18T10:34:09');
+insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID, orderDate) VALUES (2, 4, 500, 5, NULL, '2012-06-18T10:34:09');
+insert into OrderRevision (orderID, status, date, note, orderDate)
+VALUES (1, 1, '2012-06-18T10:34:09', 'Bring it fast', '2012-06-18T10:34:09');
+insert into OrderRevision (orderID, status, date, note, orderDate)
+VALUES (2, 1, '2012-06-18T10:34:09', 'I do not care when you bring it', '2012-06-18T10:34:09');
+insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID, orderDate) VALUES (NULL, 5, 200, 4, 1, '2012-06-18T10:34:09');
+insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID, orderDate) VALUES (null, 4, 500, 5, 2, '2012-06-18T10:34:09');
 GO;
 
 insert into Address (country, region, zipcode, city, street, number, supplement)
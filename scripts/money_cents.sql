@@ -0,0 +1,63 @@
+-- Stores every price and total price as a bigint of cents instead of money, as the clients read them into longs.
+-- New databases get bigint price columns from create_tables.sql already.
+-- Run it while the clients and the order server are stopped, with sqlcmd -b so no later batch runs after an error;
+-- amounts are rounded to whole cents. Every table is converted in its own transaction, an error rolls its table back
+-- and stops the script.
+
+DROP INDEX [fkIdx_191] ON ProviderProduct;
+GO
+
+SET XACT_ABORT ON;
+DECLARE @table sysname, @column sysname, @default bit, @constraint sysname, @sql nvarchar(max);
+DECLARE columns CURSOR LOCAL FAST_FORWARD FOR
+    SELECT t, c, d FROM (VALUES ('Product', 'price', 0), ('ProviderProduct', 'unitPrice', 0),
+                                ('Order', 'totalPrice', 1), ('OrderItem', 'unitPrice', 0),
+                                ('WarehouseOrder', 'totalPrice', 1), ('WarehouseOrderItem', 'unitPrice', 0),
+                                ('OrderArchive', 'totalPrice', 0), ('OrderItemArchive', 'unitPrice', 0),
+                                ('WarehouseOrderArchive', 'totalPrice', 0), ('WarehouseOrderItemArchive', 'unitPrice', 0)) v(t, c, d);
+OPEN columns;
+FETCH NEXT FROM columns INTO @table, @column, @default;
+WHILE @@FETCH_STATUS = 0
+    BEGIN
+        BEGIN TRANSACTION;
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' ADD [cents] bigint NULL;';
+        EXEC sp_executesql @sql;
+        SET @sql = N'UPDATE ' + QUOTENAME(@table) + N' SET [cents] = CAST(ROUND(CAST(' + QUOTENAME(@column) +
+                   N' AS decimal(19, 4)) * 100, 0) AS bigint);';
+        EXEC sp_executesql @sql;
+        -- The DEFAULT 0 of the totals has a generated name
+        SET @constraint = (SELECT d.name FROM sys.default_constraints d
+                           JOIN sys.columns c ON c.object_id = d.parent_object_id AND c.column_id = d.parent_column_id
+                           WHERE d.parent_object_id = OBJECT_ID(QUOTENAME(@table)) AND c.name = @column);
+        IF @constraint IS NOT NULL
+            BEGIN
+                SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' DROP CONSTRAINT ' + QUOTENAME(@constraint) + N';';
+                EXEC sp_executesql @sql;
+            END
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' DROP COLUMN ' + QUOTENAME(@column) + N';';
+        EXEC sp_executesql @sql;
+        SET @sql = QUOTENAME(@table) + N'.cents';
+        EXEC sp_rename @sql, @column, N'COLUMN';
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' ALTER COLUMN ' + QUOTENAME(@column) + N' bigint NOT NULL;';
+        EXEC sp_executesql @sql;
+        IF @default = 1
+            BEGIN
+                SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' ADD DEFAULT 0 FOR ' + QUOTENAME(@column) + N';';
+                EXEC sp_executesql @sql;
+            END
+        COMMIT TRANSACTION;
+        -- Gives back the space of the dropped money column
+        SET @sql = N'ALTER INDEX ALL ON ' + QUOTENAME(@table) + N' REBUILD;';
+        EXEC sp_executesql @sql;
+        FETCH NEXT FROM columns INTO @table, @column, @default;
+    END
+CLOSE columns;
+DEALLOCATE columns;
+GO
+
+CREATE NONCLUSTERED INDEX [fkIdx_191] ON ProviderProduct
+ (
+  [productID] ASC,
+  [unitPrice] ASC
+ );
+GO
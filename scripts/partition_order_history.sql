@@ -0,0 +1,131 @@
+-- Partitions the order history of an existing database by month, on the date of the order.
+-- New databases get the partitioned tables from create_tables.sql already.
+-- Run it while the clients and the order server are stopped, the tables are rebuilt.
+
+-- One partition per month, from the month of the oldest order up to three months ahead;
+-- main.OrderHistoryTool adds the following months
+CREATE PARTITION FUNCTION [pf_OrderMonth] (datetime2(7)) AS RANGE RIGHT FOR VALUES ();
+GO
+CREATE PARTITION SCHEME [ps_OrderMonth] AS PARTITION [pf_OrderMonth] ALL TO ([PRIMARY]);
+GO
+DECLARE @oldest datetime2(7) = (SELECT MIN(date) FROM (SELECT date FROM [Order] UNION ALL SELECT date FROM WarehouseOrder) d);
+DECLARE @month datetime2(7) = DATEFROMPARTS(YEAR(ISNULL(@oldest, SYSDATETIME())), MONTH(ISNULL(@oldest, SYSDATETIME())), 1);
+WHILE @month <= DATEADD(MONTH, 3, SYSDATETIME())
+    BEGIN
+        ALTER PARTITION SCHEME [ps_OrderMonth] NEXT USED [PRIMARY];
+        ALTER PARTITION FUNCTION [pf_OrderMonth]() SPLIT RANGE (@month);
+        SET @month = DATEADD(MONTH, 1, @month);
+    END
+GO
+
+-- The items and revisions carry the date of their order, the key of their partition
+ALTER TABLE OrderRevision ADD [orderDate] datetime2(7) NULL;
+ALTER TABLE OrderItem ADD [orderDate] datetime2(7) NULL;
+ALTER TABLE WarehouseOrderRevision ADD [orderDate] datetime2(7) NULL;
+ALTER TABLE WarehouseOrderItem ADD [orderDate] datetime2(7) NULL;
+ALTER TABLE OrderRevisionArchive ADD [orderDate] datetime2(7) NULL;
+ALTER TABLE OrderItemArchive ADD [orderDate] datetime2(7) NULL;
+GO
+UPDATE r SET r.orderDate = o.date FROM OrderRevision r JOIN [Order] o ON o.id = r.orderID;
+UPDATE oi SET oi.orderDate = o.date FROM OrderItem oi JOIN [Order] o ON o.id = oi.orderID;
+UPDATE oi SET oi.orderDate = r.orderDate FROM OrderItem oi JOIN OrderRevision r ON r.id = oi.orderRevisionID;
+UPDATE r SET r.orderDate = o.date FROM WarehouseOrderRevision r JOIN WarehouseOrder o ON o.id = r.orderID;
+UPDATE i SET i.orderDate = o.date FROM WarehouseOrderItem i JOIN WarehouseOrder o ON o.id = i.orderID;
+UPDATE r SET r.orderDate = o.date FROM OrderRevisionArchive r JOIN OrderArchive o ON o.id = r.orderID;
+UPDATE oi SET oi.orderDate = o.date FROM OrderItemArchive oi JOIN OrderArchive o ON o.id = oi.orderID;
+UPDATE oi SET oi.orderDate = r.orderDate FROM OrderItemArchive oi JOIN OrderRevisionArchive r ON r.id = oi.orderRevisionID;
+GO
+ALTER TABLE OrderRevision ALTER COLUMN [orderDate] datetime2(7) NOT NULL;
+ALTER TABLE OrderItem ALTER COLUMN [orderDate] datetime2(7) NOT NULL;
+ALTER TABLE WarehouseOrderRevision ALTER COLUMN [orderDate] datetime2(7) NOT NULL;
+ALTER TABLE WarehouseOrderItem ALTER COLUMN [orderDate] datetime2(7) NOT NULL;
+ALTER TABLE OrderRevisionArchive ALTER COLUMN [orderDate] datetime2(7) NOT NULL;
+ALTER TABLE OrderItemArchive ALTER COLUMN [orderDate] datetime2(7) NOT NULL;
+GO
+
+-- A partition can't be truncated while another table references it, the DAOs delete the items and revisions themselves
+ALTER TABLE OrderRevision DROP CONSTRAINT [FK_137];
+ALTER TABLE OrderItem DROP CONSTRAINT [FK_145];
+ALTER TABLE OrderItem DROP CONSTRAINT [FK_150];
+ALTER TABLE WarehouseOrderItem DROP CONSTRAINT [FK_92];
+ALTER TABLE WarehouseOrderRevision DROP CONSTRAINT [FK_68];
+GO
+DROP INDEX [ix_OrderRevision_order] ON OrderRevision;
+DROP INDEX [ix_OrderItem_revision] ON OrderItem;
+GO
+
+-- The clustered keys start with the date, every other index is built on the same partitions
+ALTER TABLE [Order] DROP CONSTRAINT [PK_Order];
+ALTER TABLE [Order] ADD CONSTRAINT [PK_Order] PRIMARY KEY CLUSTERED ([date] ASC, [id] ASC) ON [ps_OrderMonth]([date]);
+CREATE NONCLUSTERED INDEX [ix_Order_id] ON [Order] ([id] ASC);
+CREATE NONCLUSTERED INDEX [ix_Order_status_date] ON [Order] ([status] ASC, [date] ASC) WITH (DROP_EXISTING = ON) ON [ps_OrderMonth]([date]);
+CREATE NONCLUSTERED INDEX [ix_Order_warehouse_version] ON [Order] ([warehouseID] ASC, [version] ASC) WITH (DROP_EXISTING = ON) ON [ps_OrderMonth]([date]);
+CREATE NONCLUSTERED INDEX [ix_Order_store_version] ON [Order] ([storeID] ASC, [version] ASC) WITH (DROP_EXISTING = ON) ON [ps_OrderMonth]([date]);
+GO
+ALTER TABLE OrderRevision DROP CONSTRAINT [PK_OrderStatus];
+ALTER TABLE OrderRevision ADD CONSTRAINT [PK_OrderStatus] PRIMARY KEY CLUSTERED ([orderDate] ASC, [orderID] ASC, [id] ASC) ON [ps_OrderMonth]([orderDate]);
+CREATE NONCLUSTERED INDEX [ix_OrderRevision_id] ON OrderRevision ([id] ASC);
+GO
+CREATE CLUSTERED INDEX [ix_OrderItem_order] ON OrderItem ([orderDate] ASC, [orderID] ASC) ON [ps_OrderMonth]([orderDate]);
+CREATE NONCLUSTERED INDEX [ix_OrderItem_revision] ON OrderItem ([orderDate] ASC, [orderRevisionID] ASC);
+GO
+ALTER TABLE WarehouseOrder DROP CONSTRAINT [PK_WarehouseOrder];
+ALTER TABLE WarehouseOrder ADD CONSTRAINT [PK_WarehouseOrder] PRIMARY KEY CLUSTERED ([date] ASC, [id] ASC) ON [ps_OrderMonth]([date]);
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrder_id] ON WarehouseOrder ([id] ASC);
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrder_version] ON WarehouseOrder ([warehouseID] ASC, [version] ASC) WITH (DROP_EXISTING = ON) ON [ps_OrderMonth]([date]);
+GO
+ALTER TABLE WarehouseOrderItem DROP CONSTRAINT [PK_WarehouseOrderItem];
+ALTER TABLE WarehouseOrderItem ADD CONSTRAINT [PK_WarehouseOrderItem] PRIMARY KEY CLUSTERED ([orderDate] ASC, [orderID] ASC, [productID] ASC) ON [ps_OrderMonth]([orderDate]);
+GO
+ALTER TABLE WarehouseOrderRevision DROP CONSTRAINT [PK_WarehouseOrderRevision];
+ALTER TABLE WarehouseOrderRevision ADD CONSTRAINT [PK_WarehouseOrderRevision] PRIMARY KEY CLUSTERED ([orderDate] ASC, [orderID] ASC, [id] ASC) ON [ps_OrderMonth]([orderDate]);
+GO
+
+-- Warehouse orders of the months removed by main.OrderHistoryTool, with the same columns except the rowversion
+CREATE TABLE [WarehouseOrderArchive]
+(
+ [id]          int NOT NULL ,
+ [date]        datetime2(7) NOT NULL ,
+ [status]      varchar(32) NOT NULL ,
+ [providerID]  int NOT NULL ,
+ [warehouseID] int NOT NULL ,
+ [totalPrice]  money NOT NULL ,
+ [totalWeight] float NOT NULL ,
+ [lineCount]   int NOT NULL ,
+ [archivedAt]  datetime2(7) NOT NULL ,
+
+
+ CONSTRAINT [PK_WarehouseOrderArchive] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrderArchive_warehouse] ON WarehouseOrderArchive ([warehouseID] ASC, [date] DESC);
+GO
+
+CREATE TABLE [WarehouseOrderItemArchive]
+(
+ [orderID]   int NOT NULL ,
+ [orderDate] datetime2(7) NOT NULL ,
+ [productID] int NOT NULL ,
+ [quantity]  int NOT NULL ,
+ [unitPrice] money NOT NULL ,
+
+
+ CONSTRAINT [PK_WarehouseOrderItemArchive] PRIMARY KEY CLUSTERED ([orderID] ASC, [productID] ASC)
+);
+GO
+
+CREATE TABLE [WarehouseOrderRevisionArchive]
+(
+ [id]        int NOT NULL ,
+ [orderID]   int NOT NULL ,
+ [orderDate] datetime2(7) NOT NULL ,
+ [date]      datetime2(7) NOT NULL ,
+ [status]    varchar(32) NOT NULL ,
+ [note]      varchar(32) NOT NULL ,
+
+
+ CONSTRAINT [PK_WarehouseOrderRevisionArchive] PRIMARY KEY CLUSTERED ([id] ASC)
+);
+GO
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrderRevisionArchive_order] ON WarehouseOrderRevisionArchive ([orderID] ASC);
+GO
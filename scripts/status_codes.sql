@@ -0,0 +1,62 @@
+-- Stores the status of the orders, warehouse orders, their revisions, archives and the outbox as the code of
+-- model.Status instead of its name. New databases get tinyint status columns from create_tables.sql already.
+-- Run it while the clients and the order server are stopped, with sqlcmd -b so no later batch runs after an error.
+-- Every table is converted in its own transaction, a status without a code rolls its table back and stops the script.
+
+CREATE TABLE #StatusCode ([name] varchar(32) PRIMARY KEY, [code] tinyint NOT NULL);
+INSERT INTO #StatusCode VALUES ('PENDING', 1), ('APPROVED', 2), ('REJECTED', 3), ('PROCESSING', 4),
+                               ('PROCESSED', 5), ('IN_TRANSIT', 6), ('DELIVERED', 7);
+GO
+
+DROP INDEX [ix_Order_status_date] ON [Order];
+GO
+
+SET XACT_ABORT ON;
+DECLARE @table sysname, @nullable bit, @sql nvarchar(max);
+DECLARE tables CURSOR LOCAL FAST_FORWARD FOR
+    SELECT name, nullable FROM (VALUES ('Order', 0), ('OrderRevision', 0), ('WarehouseOrder', 0), ('WarehouseOrderRevision', 0),
+                                       ('OrderArchive', 0), ('OrderRevisionArchive', 0), ('WarehouseOrderArchive', 0),
+                                       ('WarehouseOrderRevisionArchive', 0), ('OutboxEvent', 1)) t(name, nullable);
+OPEN tables;
+FETCH NEXT FROM tables INTO @table, @nullable;
+WHILE @@FETCH_STATUS = 0
+    BEGIN
+        BEGIN TRANSACTION;
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' ADD [statusCode] tinyint NULL;';
+        EXEC sp_executesql @sql;
+        SET @sql = N'UPDATE t SET t.statusCode = c.code FROM ' + QUOTENAME(@table) + N' t JOIN #StatusCode c ON c.name = t.status;';
+        EXEC sp_executesql @sql;
+        -- The names are only dropped once every one of them got its code
+        SET @sql = N'IF EXISTS (SELECT 1 FROM ' + QUOTENAME(@table) + N' WHERE statusCode IS NULL AND status IS NOT NULL) ' +
+                   N'THROW 50000, ''' + REPLACE(@table, N'''', N'''''') + N' has a status without a code'', 1;';
+        EXEC sp_executesql @sql;
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' DROP COLUMN [status];';
+        EXEC sp_executesql @sql;
+        SET @sql = QUOTENAME(@table) + N'.statusCode';
+        EXEC sp_rename @sql, N'status', N'COLUMN';
+        IF @nullable = 0
+            BEGIN
+                SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' ALTER COLUMN [status] tinyint NOT NULL;';
+                EXEC sp_executesql @sql;
+            END
+        COMMIT TRANSACTION;
+        -- Gives back the space of the dropped varchar column
+        SET @sql = N'ALTER INDEX ALL ON ' + QUOTENAME(@table) + N' REBUILD;';
+        EXEC sp_executesql @sql;
+        FETCH NEXT FROM tables INTO @table, @nullable;
+    END
+CLOSE tables;
+DEALLOCATE tables;
+GO
+
+CREATE NONCLUSTERED INDEX [ix_Order_status_date] ON [Order] ([status] ASC, [date] ASC);
+GO
+-- The open orders of a store or warehouse are counted by status
+CREATE NONCLUSTERED INDEX [ix_Order_warehouse_status] ON [Order] ([warehouseID] ASC, [status] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_Order_store_status] ON [Order] ([storeID] ASC, [status] ASC);
+GO
+CREATE NONCLUSTERED INDEX [ix_WarehouseOrder_warehouse_status] ON WarehouseOrder ([warehouseID] ASC, [status] ASC);
+GO
+DROP TABLE #StatusCode;
+GO
@@ -19,7 +19,10 @@ public class AddressController {
     }
 
     public int updateAddress(Address address) throws DataAccessException {
-        return addressDB.update(address);
+        int rows = addressDB.update(address);
+        // Warehouses and providers in the catalog carry their address
+        CatalogCache.getInstance().invalidate();
+        return rows;
     }
 
     public int deleteAddress(Address address) throws DataAccessException {
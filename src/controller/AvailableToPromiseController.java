@@ -0,0 +1,318 @@
+package controller;
+
+import database.DAOFactory;
+import database.DataAccessException;
+import database.StockDAO;
+import model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the available-to-promise (ATP) quantity of every Product per Warehouse in memory.
+ * ATP is the stock on hand, minus the items of pending orders, plus the items of warehouse orders not yet delivered.
+ * A Warehouse is loaded with one query the first time it's needed and is then kept up to date by the controllers
+ * writing orders and warehouse orders of this client. The writes of other clients come in as changes, only the
+ * figures of the Products they touch are read again: the process delivering the outbox gets them as events,
+ * the others ask the change feed of every loaded Warehouse every {@link #POLL_SECONDS} seconds.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class AvailableToPromiseController {
+    private static final long POLL_SECONDS = 3;
+    private static AvailableToPromiseController instance;
+
+    // Warehouse ID -> Product ID -> figures
+    private final Map<Integer, Map<Integer, StockAvailability>> warehouses = new ConcurrentHashMap<>();
+    // Warehouse ID -> the version of the change feed the figures are up to date with
+    private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+    // Warehouse ID -> the Warehouse, to ask the DB for its changes
+    private final Map<Integer, Warehouse> loadedWarehouses = new ConcurrentHashMap<>();
+
+    private AvailableToPromiseController() {
+        ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "available-to-promise");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, POLL_SECONDS, POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static synchronized AvailableToPromiseController getInstance() {
+        if (instance == null) {
+            instance = new AvailableToPromiseController();
+        }
+        return instance;
+    }
+
+    /**
+     * Gives the quantity of a Product which can still be promised to Stores
+     *
+     * @param warehouse the Warehouse we're asking
+     * @param product   the Product we're asking for
+     * @return the available-to-promise quantity, 0 if the Warehouse doesn't stock the Product
+     * @throws ControlException when the Warehouse can't be loaded
+     */
+    public int getAvailableToPromise(Warehouse warehouse, Product product) throws ControlException {
+        Map<Integer, StockAvailability> figures = load(warehouse);
+        synchronized (figures) {
+            StockAvailability availability = figures.get(product.getId());
+            return availability == null ? 0 : availability.getAvailableToPromise();
+        }
+    }
+
+    /**
+     * Gives the available-to-promise quantity of every Product of a Warehouse
+     *
+     * @param warehouse the Warehouse we're asking
+     * @return the IDs of the Products mapped to their available-to-promise quantity
+     * @throws ControlException when the Warehouse can't be loaded
+     */
+    public Map<Integer, Integer> getAvailableToPromise(Warehouse warehouse) throws ControlException {
+        Map<Integer, StockAvailability> figures = load(warehouse);
+        Map<Integer, Integer> result = new HashMap<>();
+        synchronized (figures) {
+            for (StockAvailability availability : figures.values()) {
+                result.put(availability.getProductId(), availability.getAvailableToPromise());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the figures of a Warehouse so they are loaded again from the DB on the next request,
+     * needed when other clients changed its orders
+     *
+     * @param warehouse the Warehouse to be reloaded
+     */
+    public void refresh(Warehouse warehouse) {
+        refresh(warehouse.getId());
+    }
+
+    private void refresh(int warehouseId) {
+        warehouses.remove(warehouseId);
+        versions.remove(warehouseId);
+        loadedWarehouses.remove(warehouseId);
+    }
+
+    /**
+     * Drops the figures of every Warehouse
+     */
+    public void refreshAll() {
+        warehouses.clear();
+        versions.clear();
+        loadedWarehouses.clear();
+    }
+
+    /**
+     * Reads the figures of the Products touched by changes the change feed of a screen found, so the screen
+     * shows them without waiting for the next poll of this controller
+     *
+     * @throws ControlException when the figures can't be read
+     */
+    public void changed(Warehouse warehouse, ChangeSet changes) throws ControlException {
+        try {
+            update(warehouse, changes);
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the figures of the Products touched by the delivered events again.
+     * A redelivered event may have been applied already, the Warehouse is then loaded again instead.
+     */
+    public void eventsDelivered(List<DomainEvent> events) {
+        Map<Integer, ChangeSet> changes = new HashMap<>();
+        Set<Integer> redelivered = new HashSet<>();
+        for (DomainEvent event : events) {
+            int warehouseId = event.getWarehouseId();
+            if (!loadedWarehouses.containsKey(warehouseId)) {
+                continue;
+            }
+            if (event.isRedelivery()) {
+                redelivered.add(warehouseId);
+                continue;
+            }
+            ChangeSet changeSet = changes.computeIfAbsent(warehouseId, id ->
+                    new ChangeSet(0, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+            switch (event.getType()) {
+                case ORDER_CREATED:
+                case ORDER_STATUS_CHANGED:
+                    changeSet.getOrders().add(event.getSubjectId());
+                    break;
+                case WAREHOUSE_ORDER_CREATED:
+                case WAREHOUSE_ORDER_STATUS_CHANGED:
+                    changeSet.getWarehouseOrders().add(event.getSubjectId());
+                    break;
+                case STOCK_ADJUSTED:
+                    changeSet.getStocks().add(event.getProductId());
+                    break;
+                default:
+                    break;
+            }
+        }
+        for (int warehouseId : redelivered) {
+            refresh(warehouseId);
+            changes.remove(warehouseId);
+        }
+        for (Map.Entry<Integer, ChangeSet> change : changes.entrySet()) {
+            Warehouse warehouse = loadedWarehouses.get(change.getKey());
+            if (warehouse == null) {
+                continue;
+            }
+            try {
+                update(warehouse, change.getValue());
+            } catch (DataAccessException e) {
+                // Loaded again on the next request, so no change is lost
+                refresh(change.getKey());
+            }
+        }
+    }
+
+    /**
+     * Must be called after a new order was saved in PENDING status
+     */
+    public void orderCreated(Order order) {
+        apply(order.getWarehouse().getId(), order.getItems(), 1, 0);
+    }
+
+    /**
+     * Must be called after the status of an order was changed
+     *
+     * @param order     the order with its items loaded
+     * @param oldStatus the status the order had before the change
+     */
+    public void orderStatusChanged(Order order, Status oldStatus) {
+        int pending = (order.getStatus() == Status.PENDING ? 1 : 0) - (oldStatus == Status.PENDING ? 1 : 0);
+        apply(order.getWarehouse().getId(), order.getItems(), pending, Status.stockEffect(oldStatus, order.getStatus()));
+    }
+
+    /**
+     * Must be called after the stock was changed by the items of an order revision
+     */
+    public void revisionApplied(OrderRevision revision) {
+        apply(revision.getOrder().getWarehouse().getId(), revision.getItemsChanged(), 0, -1);
+    }
+
+    /**
+     * Must be called after a new warehouse order was saved
+     */
+    public void warehouseOrderCreated(WarehouseOrder warehouseOrder) {
+        applyInbound(warehouseOrder, 1, 0);
+    }
+
+    /**
+     * Must be called after the status of a warehouse order was changed
+     *
+     * @param warehouseOrder the warehouse order with its items loaded
+     * @param oldStatus      the status the warehouse order had before the change
+     */
+    public void warehouseOrderStatusChanged(WarehouseOrder warehouseOrder, Status oldStatus) {
+        int inbound = (isInbound(warehouseOrder.getStatus()) ? 1 : 0) - (isInbound(oldStatus) ? 1 : 0);
+        int onHand = warehouseOrder.getStatus() == Status.DELIVERED && oldStatus != Status.DELIVERED ? 1 : 0;
+        applyInbound(warehouseOrder, inbound, onHand);
+    }
+
+    private static boolean isInbound(Status status) {
+        return status != Status.DELIVERED && status != Status.REJECTED;
+    }
+
+    private void apply(int warehouseId, List<OrderItem> items, int pendingSign, int onHandSign) {
+        Map<Integer, StockAvailability> figures = warehouses.get(warehouseId);
+        // Warehouses which were never asked for are loaded fresh anyway
+        if (figures == null || (pendingSign == 0 && onHandSign == 0)) {
+            return;
+        }
+        synchronized (figures) {
+            for (OrderItem item : items) {
+                StockAvailability availability = figures.computeIfAbsent(item.getProduct().getId(),
+                        id -> new StockAvailability(id, 0, 0, 0));
+                availability.addPending(pendingSign * item.getQuantity());
+                availability.addOnHand(onHandSign * item.getQuantity());
+            }
+        }
+    }
+
+    private void applyInbound(WarehouseOrder warehouseOrder, int inboundSign, int onHandSign) {
+        Map<Integer, StockAvailability> figures = warehouses.get(warehouseOrder.getWarehouse().getId());
+        if (figures == null || (inboundSign == 0 && onHandSign == 0)) {
+            return;
+        }
+        synchronized (figures) {
+            for (WarehouseOrderItem item : warehouseOrder.getItems()) {
+                StockAvailability availability = figures.computeIfAbsent(item.getProduct().getId(),
+                        id -> new StockAvailability(id, 0, 0, 0));
+                availability.addInbound(inboundSign * item.getQuantity());
+                availability.addOnHand(onHandSign * item.getQuantity());
+            }
+        }
+    }
+
+    private Map<Integer, StockAvailability> load(Warehouse warehouse) throws ControlException {
+        Map<Integer, StockAvailability> figures = warehouses.get(warehouse.getId());
+        if (figures != null) {
+            return figures;
+        }
+        try {
+            // Changes made while loading are read again by the first poll
+            long version = DAOFactory.changeFeedDAO().getChanges(warehouse, 0).getVersion();
+            StockDAO stockDAO = DAOFactory.stockDAO();
+            Map<Integer, StockAvailability> loaded = new ConcurrentHashMap<>();
+            for (StockAvailability availability : stockDAO.getAvailability(warehouse)) {
+                loaded.put(availability.getProductId(), availability);
+            }
+            warehouses.put(warehouse.getId(), loaded);
+            versions.put(warehouse.getId(), version);
+            loadedWarehouses.put(warehouse.getId(), warehouse);
+            return loaded;
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    /**
+     * Asks the change feed of every loaded Warehouse for the changes of other clients,
+     * unless this process gets them as events
+     */
+    private void poll() {
+        if (EventBus.getInstance().isRunning()) {
+            return;
+        }
+        for (Map.Entry<Integer, Long> loaded : versions.entrySet()) {
+            Warehouse warehouse = loadedWarehouses.get(loaded.getKey());
+            if (warehouse == null) {
+                continue;
+            }
+            try {
+                ChangeSet changes = DAOFactory.changeFeedDAO().getChanges(warehouse, loaded.getValue());
+                if (!changes.isEmpty()) {
+                    update(warehouse, changes);
+                }
+                // Dropped in the meantime, the next load starts from its own version
+                versions.replace(warehouse.getId(), loaded.getValue(), changes.getVersion());
+            } catch (DataAccessException e) {
+                // Tried again with the next poll
+            }
+        }
+    }
+
+    /**
+     * Replaces the figures of the Products touched by the changes with the ones in the DB
+     */
+    private void update(Warehouse warehouse, ChangeSet changes) throws DataAccessException {
+        Map<Integer, StockAvailability> figures = warehouses.get(warehouse.getId());
+        if (figures == null) {
+            return;
+        }
+        List<StockAvailability> changed = DAOFactory.stockDAO().getAvailability(warehouse, changes);
+        synchronized (figures) {
+            for (StockAvailability availability : changed) {
+                figures.put(availability.getProductId(), availability);
+            }
+        }
+    }
+}
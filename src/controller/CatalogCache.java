@@ -0,0 +1,181 @@
+package controller;
+
+import database.CatalogDAO;
+import database.CatalogFile;
+import database.DAOFactory;
+import database.DataAccessException;
+import model.CatalogChanges;
+import model.Product;
+import model.Provider;
+import model.Warehouse;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * The products, warehouses and providers of this client, kept in a file between runs.
+ * Screens read the catalog from memory, only the rows changed since the last sync are downloaded,
+ * at most every {@link #MAX_AGE} or right after this client changed the catalog.
+ * When the catalog can't be synced the last copy is used, so the screens keep working offline.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class CatalogCache {
+    // How long changes made by other clients may take to show up
+    private static final Duration MAX_AGE = Duration.ofSeconds(30);
+
+    private static CatalogCache instance;
+
+    private final CatalogFile file;
+    private final Map<Integer, Product> products = new TreeMap<>();
+    private final Map<Integer, Warehouse> warehouses = new TreeMap<>();
+    private final Map<Integer, Provider> providers = new TreeMap<>();
+    // The change version the copy is up to date with, 0 when there is no copy
+    private long version;
+    private boolean fresh;
+    private long syncedAt;
+
+    CatalogCache(CatalogFile file) {
+        this.file = file;
+        CatalogChanges copy = file.read();
+        if (copy != null) {
+            apply(copy);
+        }
+    }
+
+    /**
+     * The file is "catalog.bin" in the ".tevos" directory of the user, or the one set with -Dtevos.catalog
+     */
+    public static synchronized CatalogCache getInstance() {
+        if (instance == null) {
+            String path = System.getProperty("tevos.catalog");
+            instance = new CatalogCache(new CatalogFile(path != null
+                    ? Paths.get(path)
+                    : Paths.get(System.getProperty("user.home"), ".tevos", "catalog.bin")));
+        }
+        return instance;
+    }
+
+    public synchronized List<Product> getProducts() throws DataAccessException {
+        refresh();
+        return new ArrayList<>(products.values());
+    }
+
+    /**
+     * @param ids the IDs of the products, IDs of deleted products are skipped
+     * @return the products in the order of their IDs
+     */
+    public synchronized List<Product> getProducts(List<Integer> ids) throws DataAccessException {
+        refresh();
+        if (!products.keySet().containsAll(ids)) {
+            syncMissing();
+        }
+        List<Product> found = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                found.add(product);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the product or null if there is no such product
+     */
+    public synchronized Product getProduct(int id) throws DataAccessException {
+        return getProducts(List.of(id)).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * @return every warehouse, without their passwords
+     */
+    public synchronized List<Warehouse> getWarehouses() throws DataAccessException {
+        refresh();
+        return new ArrayList<>(warehouses.values());
+    }
+
+    public synchronized List<Provider> getProviders() throws DataAccessException {
+        refresh();
+        return new ArrayList<>(providers.values());
+    }
+
+    /**
+     * @return the provider or null if there is no such provider
+     */
+    public synchronized Provider getProvider(int id) throws DataAccessException {
+        refresh();
+        if (!providers.containsKey(id)) {
+            syncMissing();
+        }
+        return providers.get(id);
+    }
+
+    /**
+     * Makes the next read sync the catalog, called after this client changed it
+     */
+    public synchronized void invalidate() {
+        fresh = false;
+    }
+
+    private void refresh() throws DataAccessException {
+        if (fresh && System.nanoTime() - syncedAt < MAX_AGE.toNanos()) {
+            return;
+        }
+        try {
+            sync();
+        } catch (DataAccessException e) {
+            if (version == 0) {
+                throw e;
+            }
+            // Offline, the copy is used until the next try
+            fresh = true;
+            syncedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Syncs for a row added since the last sync, offline the row is just missing
+     */
+    private void syncMissing() {
+        try {
+            sync();
+        } catch (DataAccessException e) {
+            // Stays missing until the catalog can be synced again
+        }
+    }
+
+    private void sync() throws DataAccessException {
+        CatalogDAO catalogDAO = DAOFactory.catalogDAO();
+        boolean first = version == 0;
+        CatalogChanges changes = catalogDAO.getChanges(version);
+        apply(changes);
+        fresh = true;
+        syncedAt = System.nanoTime();
+        if (first || !changes.isEmpty()) {
+            save();
+        }
+    }
+
+    private void apply(CatalogChanges changes) {
+        changes.getDeletedProducts().forEach(products::remove);
+        changes.getDeletedWarehouses().forEach(warehouses::remove);
+        changes.getDeletedProviders().forEach(providers::remove);
+        changes.getProducts().forEach(product -> products.put(product.getId(), product));
+        changes.getWarehouses().forEach(warehouse -> warehouses.put(warehouse.getId(), warehouse));
+        changes.getProviders().forEach(provider -> providers.put(provider.getId(), provider));
+        version = changes.getVersion();
+    }
+
+    private void save() {
+        try {
+            file.write(new CatalogChanges(version, new ArrayList<>(products.values()),
+                    new ArrayList<>(warehouses.values()), new ArrayList<>(providers.values()),
+                    List.of(), List.of(), List.of()));
+        } catch (IOException e) {
+            // The copy in memory is still right, the file is written again with the next change
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package controller;
+
+import database.DAOFactory;
+import database.DataAccessException;
+import model.ChangeSet;
+import model.Store;
+import model.User;
+import model.Warehouse;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells the open screens which orders, warehouse orders, stocks and reports of the logged in user changed,
+ * so they update those rows instead of reloading everything.
+ * One background thread asks for the changes since the previous poll every {@link #POLL_SECONDS} seconds,
+ * as long as a screen is listening. Listeners are called on that thread.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class ChangeFeed {
+    private static final long POLL_SECONDS = 3;
+
+    private static ChangeFeed instance;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private User user;
+    private long version;
+
+    /**
+     * Gets the changes found by a poll
+     */
+    public interface Listener {
+        void changed(ChangeSet changes);
+    }
+
+    private ChangeFeed() {
+        ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, POLL_SECONDS, POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static synchronized ChangeFeed getInstance() {
+        if (instance == null) {
+            instance = new ChangeFeed();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts watching the rows of a user, changes made from now on are reported.
+     * Called when the user logs in, before any screen loads its rows.
+     */
+    public synchronized void start(User user) {
+        this.user = user instanceof Store || user instanceof Warehouse ? user : null;
+        version = 0;
+        if (this.user != null) {
+            try {
+                version = DAOFactory.changeFeedDAO().getChanges(this.user, 0).getVersion();
+            } catch (DataAccessException e) {
+                // The first poll starts watching instead
+            }
+        }
+    }
+
+    /**
+     * Stops watching, called when the user logs out
+     */
+    public synchronized void stop() {
+        user = null;
+        version = 0;
+    }
+
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private synchronized void poll() {
+        // Without listeners the version stays, the next poll reports everything changed meanwhile
+        if (user == null || listeners.isEmpty()) {
+            return;
+        }
+        ChangeSet changes;
+        try {
+            changes = DAOFactory.changeFeedDAO().getChanges(user, version);
+        } catch (DataAccessException e) {
+            // Tried again with the next poll
+            return;
+        }
+        boolean starting = version == 0;
+        version = changes.getVersion();
+        if (starting || changes.isEmpty()) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.changed(changes);
+            } catch (RuntimeException e) {
+                // A broken screen doesn't stop the others from updating
+            }
+        }
+    }
+}
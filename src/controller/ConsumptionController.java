@@ -0,0 +1,188 @@
+package controller;
+
+import database.ConsumptionDAO;
+import database.ConsumptionDB;
+import database.DAOFactory;
+import database.DataAccessException;
+import model.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the consumption figures of every Product per Store in memory, see {@link Consumption}.
+ * A Store is loaded the first time it's needed, from its snapshot, or by replaying its whole history when there is
+ * no snapshot yet. After that the figures are only updated by the events of the filed reports and the delivered orders,
+ * and the changed pairs are saved to the snapshot straight away, so the history never has to be read again.
+ * Only the process delivering the events keeps and saves figures, every other process reads the saved ones.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class ConsumptionController {
+    private static ConsumptionController instance;
+
+    private final ConsumptionIndex index = new ConsumptionIndex();
+    private final Set<Integer> loadedStores = new HashSet<>();
+    // Stores whose snapshot misses a change, they are replayed from the history on the next load
+    private final Set<Integer> staleStores = new HashSet<>();
+
+    private ConsumptionController() {/* Private constructor, use getInstance() */}
+
+    public static synchronized ConsumptionController getInstance() {
+        if (instance == null) {
+            instance = new ConsumptionController();
+        }
+        return instance;
+    }
+
+    /**
+     * Gives the consumption figures of every Product a Store ever reported
+     *
+     * @param store the Store we're asking
+     * @return the figures of every Product of the Store
+     * @throws ControlException when the Store can't be loaded
+     */
+    public List<Consumption> getConsumption(Store store) throws ControlException {
+        if (EventBus.getInstance().isRunning()) {
+            synchronized (this) {
+                load(store.getId());
+                return index.getByStore(store.getId());
+            }
+        }
+        // Another process follows the events, its figures are read as they are now and never saved from here
+        try {
+            return DAOFactory.consumptionDAO().getConsumption(store.getId());
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    /**
+     * Follows the filed reports and the delivered orders, subscribed to the {@link EventBus}.
+     * An event which may have been handled before only drops the figures of its Store, they're worked out from the
+     * history on the next request, so a report or delivery is never counted twice.
+     */
+    public synchronized void eventsDelivered(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            boolean delivered = event.getType() == EventType.ORDER_STATUS_CHANGED && event.getStatus() == Status.DELIVERED;
+            if (!delivered && event.getType() != EventType.REPORT_FILED) {
+                continue;
+            }
+            if (event.isRedelivery()) {
+                forget(event.getStoreId());
+                continue;
+            }
+            try {
+                if (delivered) {
+                    orderDelivered(DAOFactory.orderDAO().selectByID(event.getSubjectId(), true));
+                } else {
+                    reportFiled(DAOFactory.storeStockReportDAO().selectByID(event.getSubjectId()));
+                }
+            } catch (ControlException | DataAccessException e) {
+                // The figures of the store are worked out from its history on the next request
+                forget(event.getStoreId());
+            }
+        }
+    }
+
+    /**
+     * Counts a new report which was saved
+     *
+     * @throws ControlException when the Store can't be loaded or the snapshot can't be saved
+     */
+    private void reportFiled(StoreStockReport report) throws ControlException {
+        int storeId = report.getStore().getId();
+        try {
+            if (load(storeId)) {
+                // The replayed history already has the report
+                return;
+            }
+            List<Consumption> changed = new ArrayList<>();
+            for (StoreStockReportItem item : report.getItems()) {
+                index.report(storeId, item.getProduct().getId(), report.getDate(), item.getQuantity());
+                changed.add(index.get(storeId, item.getProduct().getId()));
+            }
+            ConsumptionDAO consumptionDAO = new ConsumptionDB();
+            consumptionDAO.saveSnapshot(changed);
+        } catch (ControlException | DataAccessException e) {
+            forget(storeId);
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    /**
+     * Counts an order which was moved to DELIVERED
+     *
+     * @param order the order with its items loaded
+     * @throws ControlException when the Store can't be loaded or the snapshot can't be saved
+     */
+    private void orderDelivered(Order order) throws ControlException {
+        int storeId = order.getStore().getId();
+        try {
+            if (load(storeId)) {
+                // The replayed history already has the delivery
+                return;
+            }
+            List<Consumption> changed = new ArrayList<>();
+            for (OrderItem item : order.getItems()) {
+                index.deliver(storeId, item.getProduct().getId(), item.getQuantity());
+                changed.add(index.get(storeId, item.getProduct().getId()));
+            }
+            ConsumptionDAO consumptionDAO = new ConsumptionDB();
+            consumptionDAO.saveSnapshot(changed);
+        } catch (ControlException | DataAccessException e) {
+            forget(storeId);
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    /**
+     * Works the figures of a Store out again from its history and overwrites its snapshot,
+     * needed when reports or orders were changed outside of the controllers
+     *
+     * @throws ControlException when the history can't be read or the snapshot can't be saved
+     */
+    public synchronized void rebuild(Store store) throws ControlException {
+        index.removeStore(store.getId());
+        loadedStores.remove(store.getId());
+        staleStores.add(store.getId());
+        load(store.getId());
+    }
+
+    /**
+     * Loads the figures of a Store if they aren't in memory yet
+     *
+     * @return true if the figures were worked out from the history, so they already count every saved report and order
+     */
+    private boolean load(int storeId) throws ControlException {
+        if (loadedStores.contains(storeId)) {
+            return false;
+        }
+        try {
+            ConsumptionDAO consumptionDAO = new ConsumptionDB();
+            boolean replayed = staleStores.contains(storeId) || !consumptionDAO.loadSnapshot(storeId, index);
+            if (replayed) {
+                index.removeStore(storeId);
+                consumptionDAO.replayHistory(storeId, index);
+                consumptionDAO.saveSnapshot(index.getByStore(storeId));
+                staleStores.remove(storeId);
+            }
+            loadedStores.add(storeId);
+            return replayed;
+        } catch (DataAccessException e) {
+            index.removeStore(storeId);
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    /**
+     * Drops a Store whose snapshot misses a change, it's replayed from its history on the next request
+     */
+    private void forget(int storeId) {
+        index.removeStore(storeId);
+        loadedStores.remove(storeId);
+        staleStores.add(storeId);
+    }
+}
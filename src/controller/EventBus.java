@@ -0,0 +1,251 @@
+package controller;
+
+import database.ConnectionPool;
+import database.DataAccessException;
+import database.OutboxDAO;
+import database.OutboxDB;
+import database.ProcessLock;
+import model.DomainEvent;
+import model.EventType;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Delivers the domain events of the outbox to the subscribers of this process, so the slow work following a change
+ * happens after the user's request instead of during it.
+ * A dispatcher thread claims the events in batches, every subscriber gets its events of a batch as one list,
+ * the subscribers of a batch run at the same time, each on its own connection. An event is removed once every
+ * subscriber handled it; when one fails, the event is handed out again after its lease, to all of them.
+ * So a subscriber can get an event twice, see {@link DomainEvent#isRedelivery()}.
+ * Only the process holding the {@value #LOCK} lock of the DB delivers.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class EventBus {
+    private static final int BATCH_SIZE = 100;
+    private static final long POLL_MILLIS = 1000;
+    // How long a claimed batch may take before another dispatcher hands it out again
+    private static final int LEASE_SECONDS = 60;
+    // After this many attempts an event is put aside instead of blocking the outbox forever
+    private static final int MAX_ATTEMPTS = 10;
+    private static final int DELIVERY_THREADS = 2;
+    private static final String LOCK = "EventBus";
+
+    private static EventBus instance;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private ProcessLock lock;
+    private ConnectionPool connections;
+    private ExecutorService deliveries;
+    private Thread dispatcher;
+
+    /**
+     * Handles the events of one batch, in the order they happened.
+     * Throwing makes every event of the list be delivered again later.
+     */
+    public interface Subscriber {
+        void handle(List<DomainEvent> events) throws ControlException;
+    }
+
+    private static class Subscription {
+        private final Set<EventType> types;
+        private final Subscriber subscriber;
+
+        private Subscription(Set<EventType> types, Subscriber subscriber) {
+            this.types = types;
+            this.subscriber = subscriber;
+        }
+    }
+
+    private EventBus() {
+        // The consumption figures follow the delivered orders and the filed reports
+        subscribe(events -> ConsumptionController.getInstance().eventsDelivered(events),
+                EventType.ORDER_STATUS_CHANGED, EventType.REPORT_FILED);
+        // The available-to-promise figures follow the orders, warehouse orders and stock of every client
+        subscribe(events -> AvailableToPromiseController.getInstance().eventsDelivered(events),
+                EventType.ORDER_CREATED, EventType.ORDER_STATUS_CHANGED, EventType.WAREHOUSE_ORDER_CREATED,
+                EventType.WAREHOUSE_ORDER_STATUS_CHANGED, EventType.STOCK_ADJUSTED);
+    }
+
+    public static synchronized EventBus getInstance() {
+        if (instance == null) {
+            instance = new EventBus();
+        }
+        return instance;
+    }
+
+    /**
+     * @param subscriber gets the events of the given types
+     */
+    public void subscribe(Subscriber subscriber, EventType type, EventType... more) {
+        subscriptions.add(new Subscription(EnumSet.of(type, more), subscriber));
+    }
+
+    /**
+     * Starts delivering. Only one process may deliver, the order server or the EventBusTool: the subscribers keep
+     * what they worked out in memory, and a second process would overwrite it with figures missing its events.
+     * So the process takes the lock of the bus in the DB and keeps it while it delivers.
+     *
+     * @throws ControlException when another process delivers already or the connections can't be opened
+     */
+    public synchronized void start() throws ControlException {
+        if (dispatcher != null) {
+            return;
+        }
+        try {
+            lock = ProcessLock.acquire(LOCK);
+        } catch (DataAccessException e) {
+            throw new ControlException("Can't start delivering events\n" + e.getMessage());
+        }
+        try {
+            connections = new ConnectionPool(DELIVERY_THREADS + 1);
+        } catch (DataAccessException e) {
+            lock.close();
+            lock = null;
+            throw new ControlException("Can't start delivering events\n" + e.getMessage());
+        }
+        deliveries = Executors.newFixedThreadPool(DELIVERY_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "event-delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ProcessLock held = lock;
+        dispatcher = new Thread(() -> dispatchLoop(held), "event-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * @return true if this process delivers the events
+     */
+    public synchronized boolean isRunning() {
+        return dispatcher != null;
+    }
+
+    /**
+     * Stops delivering, the events of an unfinished batch are handed out again after their lease
+     */
+    public synchronized void stop() {
+        if (dispatcher == null) {
+            return;
+        }
+        dispatcher.interrupt();
+        deliveries.shutdownNow();
+        connections.close();
+        lock.close();
+        lock = null;
+        dispatcher = null;
+    }
+
+    private void dispatchLoop(ProcessLock held) {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (!held.isHeld()) {
+                // The session of the lock was lost, another process may deliver by now
+                lockLost();
+                return;
+            }
+            int claimed;
+            try {
+                claimed = dispatch();
+            } catch (ControlException e) {
+                // The outbox can't be reached, tried again after the pause
+                claimed = 0;
+            }
+            if (claimed < BATCH_SIZE) {
+                try {
+                    Thread.sleep(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private synchronized void lockLost() {
+        if (dispatcher == Thread.currentThread()) {
+            stop();
+        }
+    }
+
+    /**
+     * Delivers one batch
+     *
+     * @return the number of events claimed, a full batch means more are waiting
+     */
+    private int dispatch() throws ControlException {
+        List<DomainEvent> events = onConnection(outbox -> outbox.claim(BATCH_SIZE, LEASE_SECONDS));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Map<Subscription, List<DomainEvent>> batches = new LinkedHashMap<>();
+        for (DomainEvent event : events) {
+            for (Subscription subscription : subscriptions) {
+                if (subscription.types.contains(event.getType())) {
+                    batches.computeIfAbsent(subscription, key -> new ArrayList<>()).add(event);
+                }
+            }
+        }
+        Map<Future<?>, List<DomainEvent>> running = new LinkedHashMap<>();
+        for (Map.Entry<Subscription, List<DomainEvent>> batch : batches.entrySet()) {
+            running.put(deliveries.submit(() -> deliver(batch.getKey().subscriber, batch.getValue())), batch.getValue());
+        }
+
+        Set<Long> undelivered = new HashSet<>();
+        for (Map.Entry<Future<?>, List<DomainEvent>> delivery : running.entrySet()) {
+            try {
+                delivery.getKey().get();
+            } catch (ExecutionException e) {
+                delivery.getValue().forEach(event -> undelivered.add(event.getId()));
+            } catch (InterruptedException e) {
+                // Stopping, the lease runs out and the batch is handed out again
+                Thread.currentThread().interrupt();
+                return events.size();
+            }
+        }
+
+        List<Long> delivered = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        for (DomainEvent event : events) {
+            if (!undelivered.contains(event.getId())) {
+                delivered.add(event.getId());
+            } else if (event.getAttempts() >= MAX_ATTEMPTS) {
+                failed.add(event.getId());
+            }
+        }
+        onConnection(outbox -> {
+            outbox.delivered(delivered);
+            outbox.failed(failed);
+            return null;
+        });
+        return events.size();
+    }
+
+    private Void deliver(Subscriber subscriber, List<DomainEvent> events) throws ControlException, DataAccessException {
+        connections.borrow();
+        try {
+            subscriber.handle(events);
+            return null;
+        } finally {
+            connections.release();
+        }
+    }
+
+    private interface OutboxWork<T> {
+        T run(OutboxDAO outbox) throws DataAccessException;
+    }
+
+    private <T> T onConnection(OutboxWork<T> work) throws ControlException {
+        try {
+            connections.borrow();
+            try {
+                return work.run(new OutboxDB());
+            } finally {
+                connections.release();
+            }
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package controller;
 
+import database.DAOFactory;
 import database.DataAccessException;
 import database.LoginDAO;
-import database.LoginDB;
 import model.Address;
 import model.User;
 
@@ -39,14 +39,29 @@ public class LoginController {
      * @throws ControlException    if the given credentials don't match anything from the DB
      */
     public static boolean logIn(String username, String password) throws DataAccessException, ControlException {
-        LoginDAO loginDB = new LoginDB();
+        // Remote calls are made as the user logging in, starting with the check of the credentials
+        DAOFactory.setCredentials(username, password);
+        loggedInUser = checkCredentials(username, password);
+        ChangeFeed.getInstance().start(loggedInUser);
+        return true;
+    }
+
+    /**
+     * Finds the user with the given credentials without logging it in, for callers serving many users at once
+     *
+     * @param username the username of the user
+     * @param password the password of the user
+     * @return the Store or Warehouse with the given credentials
+     * @throws DataAccessException if there is some error on the DAO layer
+     * @throws ControlException    if the given credentials don't match anything from the DB
+     */
+    public static User checkCredentials(String username, String password) throws DataAccessException, ControlException {
+        LoginDAO loginDB = DAOFactory.loginDAO();
         User user = loginDB.getByCredentials(username, password);
-        if (user != null) {
-            loggedInUser = user;
-            return true;
-        } else {
+        if (user == null) {
             throw new ControlException("The entered username or password doesn't match our records.");
         }
+        return user;
     }
 
     /**
@@ -57,6 +72,7 @@ public class LoginController {
     public static boolean logOut() {
         if (loggedInUser != null) {
             loggedInUser = null;
+            ChangeFeed.getInstance().stop();
             return true;
         } else {
             return false;
@@ -4,8 +4,7 @@ import database.*;
 import model.*;
 
 import java.time.LocalDateTime;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Controller class which connects the GUI with the DAO
@@ -15,9 +14,11 @@ import java.util.List;
 public class OrderController {
     private final OrderDAO orderDAO;
     private Order order;
+    // Stock held for the items of the order being created, by product ID
+    private final Map<Integer, StockReservation> reservations = new HashMap<>();
 
     public OrderController() throws DataAccessException {
-        this.orderDAO = new OrderDB();
+        this.orderDAO = DAOFactory.orderDAO();
     }
 
 
@@ -31,10 +32,19 @@ public class OrderController {
         if (store == null || warehouse == null) {
             throw new ControlException("Provide valid information");
         } else {
+            releaseReservations();
             this.order = new Order(store, warehouse);
         }
     }
 
+    /**
+     * Throws away the order being created and gives back the stock held for it
+     */
+    public void cancelOrder() {
+        releaseReservations();
+        this.order = null;
+    }
+
     /**
      * Decrements amount of products in OrderItem
      * or removes OrderItem if amount is bigger than quantity
@@ -48,17 +58,18 @@ public class OrderController {
             throw new IllegalStateException("There's no Order object initialized. Please call createOrder() method first.");
         }
 
-        for (OrderItem orderItem : order.getItems()) {
-            if (orderItem.getProduct().equals(product)) {
-                if (orderItem.getQuantity() > amount) {
-                    orderItem.setQuantity(orderItem.getQuantity() - amount);
-                } else {
-                    order.removeOrderItem(orderItem);
-                }
-                return true;
-            }
+        OrderItem orderItem = order.getItem(product);
+        if (orderItem == null) {
+            return false;
         }
-        return false;
+        if (orderItem.getQuantity() > amount) {
+            order.setItemQuantity(product, orderItem.getQuantity() - amount);
+            shrinkReservation(product, orderItem.getQuantity());
+        } else {
+            order.removeOrderItem(orderItem);
+            StockReservationController.getInstance().release(reservations.remove(product.getId()));
+        }
+        return true;
     }
 
     /**
@@ -68,12 +79,12 @@ public class OrderController {
      * @return the value of {@link Order#removeOrderItem(OrderItem)}
      */
     public boolean removeProduct(Product product) {
-        for (OrderItem orderItem : order.getItems()) {
-            if (product.equals(orderItem.getProduct())) {
-                return order.removeOrderItem(orderItem);
-            }
+        OrderItem orderItem = order.getItem(product);
+        if (orderItem == null) {
+            return false;
         }
-        return false;
+        StockReservationController.getInstance().release(reservations.remove(product.getId()));
+        return order.removeOrderItem(orderItem);
     }
 
     /*
@@ -93,6 +104,81 @@ public class OrderController {
         }
     }
 
+    /**
+     * Gets the rows of the order list of the logged in Warehouse or Store, without loading the whole orders
+     *
+     * @return the summaries of the orders, newest first
+     */
+    public List<OrderSummary> getOrderSummaries() throws ControlException {
+        return getOrderSummaries(LoginController.getLoggedInUser());
+    }
+
+    /**
+     * Gets the rows of the order list of a Warehouse or Store, without loading the whole orders
+     *
+     * @param user the Warehouse or Store whose orders are listed
+     * @return the summaries of the orders, newest first
+     */
+    public List<OrderSummary> getOrderSummaries(User user) throws ControlException {
+        return getOrderSummaries(user, false);
+    }
+
+    /**
+     * Gets the rows of the order list of a Warehouse or Store, with the archived orders when asked
+     *
+     * @param user           the Warehouse or Store whose orders are listed
+     * @param includeArchive true to list the archived orders too
+     * @return the summaries of the orders, newest first
+     */
+    public List<OrderSummary> getOrderSummaries(User user, boolean includeArchive) throws ControlException {
+        try {
+            if (user instanceof Warehouse || user instanceof Store) {
+                return orderDAO.getOrderSummaries(user, includeArchive);
+            }
+            return new LinkedList<>();
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the rows of the orders of a Warehouse or Store made in a period, only the months of the period are read
+     *
+     * @param user           the Warehouse or Store whose orders are listed
+     * @param from           the first moment of the period
+     * @param to             the end of the period, not included
+     * @param includeArchive true to list the archived orders too
+     * @return the summaries of the orders, newest first
+     */
+    public List<OrderSummary> getOrderSummaries(User user, LocalDateTime from, LocalDateTime to, boolean includeArchive) throws ControlException {
+        try {
+            if (user instanceof Warehouse || user instanceof Store) {
+                return orderDAO.getOrderSummaries(user, from, to, includeArchive);
+            }
+            return new LinkedList<>();
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the rows of some orders of the logged in Warehouse or Store, to update the rows of an open order list
+     *
+     * @param orderIds the IDs of the changed orders
+     * @return the summaries of the orders, newest first
+     */
+    public List<OrderSummary> getOrderSummaries(List<Integer> orderIds) throws ControlException {
+        User user = LoginController.getLoggedInUser();
+        try {
+            if (user instanceof Warehouse || user instanceof Store) {
+                return orderDAO.getOrderSummaries(user, orderIds);
+            }
+            return new LinkedList<>();
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+
     /**
      * Adds a given amount of products to the order
      *
@@ -104,32 +190,60 @@ public class OrderController {
         if (order == null || product == null || amount <= 0) {
             throw new IllegalStateException("There's no Order object initialized. Please call createOrder() method first.");
         }
-        ProductDAO productDAO;
-        try {
-            productDAO = new ProductDB();
-            for (OrderItem orderItem : order.getItems()) {
-                if (orderItem.getProduct().getId() == product.getId()) {
-                    if (productDAO.checkAvailability(order.getWarehouse(), product, amount + orderItem.getQuantity())) {
-                        orderItem.setQuantity(amount + orderItem.getQuantity());
-                        return true;
-                    } else {
-                        throw new ControlException("There are not enough items in stock.\nPlease enter a smaller amount.");
-                    }
-                }
-            }
-            if (productDAO.checkAvailability(order.getWarehouse(), product, amount)) {
-                OrderItem orderItem = new OrderItem(product, product.getPrice(), amount);
-                return order.addOrderItem(orderItem);
-            } else {
-                throw new ControlException("There are not enough items in stock.\nPlease enter a smaller amount.");
+        OrderItem existing = order.getItem(product);
+        if (existing != null) {
+            holdStock(product, amount + existing.getQuantity());
+            return order.setItemQuantity(product, amount + existing.getQuantity());
+        }
+        holdStock(product, amount);
+        OrderItem orderItem = new OrderItem(product, product.getPrice(), amount);
+        return order.addOrderItem(orderItem);
+    }
+
+    /**
+     * Makes sure the given quantity of a product is reserved for the order
+     *
+     * @param product  the product of the order item
+     * @param quantity the new quantity of the order item
+     * @throws ControlException when there isn't enough stock left
+     */
+    private void holdStock(Product product, int quantity) throws ControlException {
+        StockReservationController reservationController = StockReservationController.getInstance();
+        StockReservation reservation = reservations.get(product.getId());
+        if (reservation == null) {
+            reservation = reservationController.reserve(order.getStore(), order.getWarehouse(), product, quantity);
+        } else {
+            reservation = reservationController.changeQuantity(reservation, quantity);
+        }
+        reservations.put(product.getId(), reservation);
+    }
+
+    /**
+     * Lowers the reserved quantity of a product, if that fails the whole reservation is given back
+     */
+    private void shrinkReservation(Product product, int quantity) {
+        StockReservation reservation = reservations.get(product.getId());
+        if (reservation != null) {
+            try {
+                reservations.put(product.getId(), StockReservationController.getInstance().changeQuantity(reservation, quantity));
+            } catch (ControlException e) {
+                StockReservationController.getInstance().release(reservations.remove(product.getId()));
             }
-        } catch (DataAccessException e) {
-            throw new ControlException("Unable to connect to server.\n" + e.getMessage());
         }
     }
 
+    private void releaseReservations() {
+        for (StockReservation reservation : reservations.values()) {
+            StockReservationController.getInstance().release(reservation);
+        }
+        reservations.clear();
+    }
+
+    /**
+     * @return the order, from the archive when it isn't live anymore, or null if there is no such order
+     */
     public Order getOrder(int id) throws DataAccessException {
-        return orderDAO.selectByID(id);
+        return orderDAO.selectByID(id, true);
     }
 
     public Order getOrder() {
@@ -154,6 +268,7 @@ public class OrderController {
         if (order.getItems().isEmpty()) {
             throw new ControlException("Please add items to your order");
         }
+        checkCartAvailability();
         order.calculateTotalPrice();
 
         OrderRevision revision = new OrderRevision(
@@ -161,7 +276,7 @@ public class OrderController {
                 Status.PENDING,
                 "Order created",
                 order,
-                order.getItems()
+                new LinkedList<>(order.getItems())
         );
 
         order.addRevision(revision);
@@ -169,75 +284,181 @@ public class OrderController {
         order.setStatus(Status.PENDING);
 
         try {
-            return orderDAO.create(order);
+            int orderId = orderDAO.create(order);
+            // Availability checks count the items of pending orders, so the reservations aren't needed anymore
+            releaseReservations();
+            AvailableToPromiseController.getInstance().orderCreated(order);
+            return orderId;
         } catch (DataAccessException e) {
             throw new ControlException(e.getMessage());
         }
     }
 
-    public boolean updateOrder(Order order) throws ControlException {
+    /**
+     * Checks every item of the order against the stock of the warehouse with a single query
+     *
+     * @throws ControlException when some items are not available, listing every missing product
+     */
+    private void checkCartAvailability() throws ControlException {
+        Map<Integer, Integer> amounts = new HashMap<>();
+        Map<Integer, Product> products = new HashMap<>();
+        for (OrderItem orderItem : order.getItems()) {
+            amounts.merge(orderItem.getProduct().getId(), orderItem.getQuantity(), Integer::sum);
+            products.put(orderItem.getProduct().getId(), orderItem.getProduct());
+        }
+
+        Map<Integer, Integer> shortfalls;
         try {
-            Status oldStatus = orderDAO.getOrderStatus(order.getId());
-            for (OrderRevision orderRevision : order.getRevisions()) {
-                if (orderRevision.getId() == 0) {
-                    updateStock(orderRevision);
-                }
+            ProductDAO productDAO = DAOFactory.productDAO();
+            shortfalls = productDAO.getShortfalls(order.getWarehouse(), amounts);
+        } catch (DataAccessException e) {
+            throw new ControlException("Unable to connect to server.\n" + e.getMessage());
+        }
+
+        if (!shortfalls.isEmpty()) {
+            StringBuilder message = new StringBuilder("There are not enough items in stock:");
+            for (Map.Entry<Integer, Integer> shortfall : shortfalls.entrySet()) {
+                message.append("\n").append(products.get(shortfall.getKey()).getName())
+                        .append(" (").append(shortfall.getValue()).append(" pcs missing)");
             }
-            if (orderDAO.update(order) != 0) {
-                if (oldStatus.equals(Status.PENDING) && !order.getStatus().equals(Status.REJECTED)) {
-                    order = orderDAO.selectByID(order.getId());
-                    updateStock(order, true);
+            throw new ControlException(message.toString());
+        }
+    }
+
+    /**
+     * Saves the changes made to an order, with its new revisions.
+     * When someone else changed the order since it was loaded, the order is loaded again and the new revisions
+     * are applied on top of it, as long as its status can still be moved to the new one.
+     *
+     * @param order the changed order, with the version it was loaded with
+     * @return UPDATED or MERGED when the changes are saved, CONFLICT or INVALID_TRANSITION when they couldn't be
+     * put on top of the changes of someone else, NOT_FOUND when the order doesn't exist anymore
+     * @throws ControlException when the order couldn't be saved
+     */
+    public TransitionOutcome updateOrder(Order order) throws ControlException {
+        try {
+            try {
+                return saveOrder(order) ? TransitionOutcome.UPDATED : TransitionOutcome.NOT_FOUND;
+            } catch (VersionConflictException e) {
+                Order current = orderDAO.selectByID(order.getId());
+                if (current == null) {
+                    return TransitionOutcome.NOT_FOUND;
                 }
-                if (!oldStatus.equals(Status.PENDING) && order.getStatus().equals(Status.REJECTED)) {
-                    order = orderDAO.selectByID(order.getId());
-                    updateStock(order, false);
+                TransitionOutcome outcome = rebase(order, current);
+                if (outcome != TransitionOutcome.MERGED) {
+                    return outcome;
                 }
-                return true;
-            } else {
-                return false;
+                return saveOrder(current) ? TransitionOutcome.MERGED : TransitionOutcome.NOT_FOUND;
             }
+        } catch (VersionConflictException e) {
+            // Changed again while merging, the user has to look at it
+            return TransitionOutcome.CONFLICT;
         } catch (DataAccessException e) {
             throw new ControlException("Can't update order\n" + e.getMessage());
         }
     }
 
-    // Call this method ONLY when Warehouse Manager approves order or rejects accepted order
-    public boolean updateStock(Order order, boolean decrease) throws ControlException {
-        try {
-            StockDAO stockDAO = new StockDB();
-
-            for (OrderItem orderItem : order.getItems()) {
-                Stock stock = stockDAO.getStock(order.getWarehouse().getId(), orderItem.getProduct().getId());
-                int quantity = stock.getQuantity();
-                if (decrease) {
-                    quantity = quantity - orderItem.getQuantity();
-                } else {
-                    quantity = quantity + orderItem.getQuantity();
+    /**
+     * Moves the unsaved revisions of an order onto a newer copy of it.
+     * The item changes of the revisions are differences, so they are added to the current quantities.
+     *
+     * @return MERGED when the current copy now holds the changes
+     */
+    private TransitionOutcome rebase(Order order, Order current) {
+        Status status = order.getStatus();
+        if (status != current.getStatus() && !current.getStatus().canTransitionTo(status)) {
+            return TransitionOutcome.INVALID_TRANSITION;
+        }
+        for (OrderRevision revision : order.getRevisions()) {
+            if (revision.getId() != 0) {
+                continue;
+            }
+            for (OrderItem change : revision.getItemsChanged()) {
+                OrderItem item = current.getItem(change.getProduct());
+                if (item == null || item.getQuantity() + change.getQuantity() < 0) {
+                    return TransitionOutcome.CONFLICT;
                 }
-                stock.setQuantity(quantity);
-                stockDAO.update(stock);
+                current.setItemQuantity(change.getProduct(), item.getQuantity() + change.getQuantity());
+            }
+            current.addRevision(revision);
+        }
+        current.setStatus(status);
+        return TransitionOutcome.MERGED;
+    }
+
+    /**
+     * Writes the order, the DB moves the stock of its new revisions and its status change with it
+     *
+     * @return false when the order doesn't exist anymore
+     */
+    private boolean saveOrder(Order order) throws DataAccessException, ControlException {
+        Status oldStatus = orderDAO.getOrderStatus(order.getId());
+        if (oldStatus == null) {
+            return false;
+        }
+        List<OrderRevision> added = new ArrayList<>();
+        for (OrderRevision orderRevision : order.getRevisions()) {
+            if (orderRevision.getId() == 0) {
+                added.add(orderRevision);
             }
-        } catch (DataAccessException e) {
-            throw new ControlException(e.getMessage());
+        }
+        if (orderDAO.update(order) == 0) {
+            return false;
+        }
+        AvailableToPromiseController availableToPromise = AvailableToPromiseController.getInstance();
+        for (OrderRevision orderRevision : added) {
+            availableToPromise.revisionApplied(orderRevision);
+        }
+        if (oldStatus != order.getStatus()) {
+            availableToPromise.orderStatusChanged(order, oldStatus);
         }
         return true;
     }
 
-    // Call this method every time orderRevision contains items
-    public boolean updateStock(OrderRevision orderRevision) throws ControlException {
+    /**
+     * Moves many orders to the same status at once, for example approving every selected order.
+     * Orders which can't be moved to the given status are skipped, the rest is updated in one transaction.
+     *
+     * @param orderIds the IDs of the orders to be updated
+     * @param status   the new status of the orders
+     * @param note     the note of the revision added to every updated order
+     * @return the outcome for every given order ID, in the given order
+     * @throws ControlException when the orders couldn't be updated
+     */
+    public Map<Integer, TransitionOutcome> updateOrders(List<Integer> orderIds, Status status, String note) throws ControlException {
+        if (orderIds == null || status == null) {
+            throw new ControlException("Provide valid information");
+        }
+        Map<Integer, TransitionOutcome> outcomes = new LinkedHashMap<>();
         try {
-            StockDAO stockDAO = new StockDB();
-
-            for (OrderItem orderItem : orderRevision.getItemsChanged()) {
-                Stock stock = stockDAO.getStock(orderRevision.getOrder().getWarehouse().getId(), orderItem.getProduct().getId());
-                int quantity = stock.getQuantity();
-                quantity = quantity - orderItem.getQuantity();
-                stock.setQuantity(quantity);
-                stockDAO.update(stock);
+            Map<Integer, Status> current = orderDAO.getOrderStatuses(new ArrayList<>(new LinkedHashSet<>(orderIds)));
+            Map<Integer, Status> allowed = new LinkedHashMap<>();
+            for (int id : orderIds) {
+                Status oldStatus = current.get(id);
+                if (oldStatus == null) {
+                    outcomes.put(id, TransitionOutcome.NOT_FOUND);
+                } else if (!oldStatus.canTransitionTo(status)) {
+                    outcomes.put(id, TransitionOutcome.INVALID_TRANSITION);
+                } else {
+                    allowed.put(id, oldStatus);
+                    outcomes.put(id, TransitionOutcome.UPDATED);
+                }
+            }
+            if (!allowed.isEmpty()) {
+                Set<Integer> updated = orderDAO.updateOrderStatuses(allowed, status, note);
+                if (!updated.isEmpty()) {
+                    // The items of the updated orders are not loaded here, so the figures are loaded again when needed
+                    AvailableToPromiseController.getInstance().refreshAll();
+                }
+                for (int id : allowed.keySet()) {
+                    if (!updated.contains(id)) {
+                        outcomes.put(id, TransitionOutcome.CONFLICT);
+                    }
+                }
             }
         } catch (DataAccessException e) {
-            throw new ControlException(e.getMessage());
+            throw new ControlException("Can't update orders\n" + e.getMessage());
         }
-        return true;
+        return outcomes;
     }
 }
@@ -1,11 +1,12 @@
 package controller;
 
+import database.DAOFactory;
 import database.DataAccessException;
 import database.ProductDAO;
-import database.ProductDB;
 import model.Product;
 import model.Warehouse;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -14,6 +15,10 @@ import java.util.List;
  * @author dmai0919-group3@UCNDK.onmicrosoft.com
  */
 public class ProductController {
+    // Loader threads of several screens ask for the products of a warehouse at the same time, by warehouse ID
+    private static final SingleFlight<Integer, List<Integer>> warehouseProducts =
+            new SingleFlight<>("Warehouse products", Duration.ofSeconds(2));
+
     private final ProductDAO productDAO;
 
     /**
@@ -22,7 +27,7 @@ public class ProductController {
      * @throws DataAccessException
      */
     public ProductController() throws DataAccessException {
-        productDAO = new ProductDB();
+        productDAO = DAOFactory.productDAO();
     }
 
     /**
@@ -34,6 +39,7 @@ public class ProductController {
      */
     public Product createProduct(Product product) throws DataAccessException {
         int id = productDAO.create(product);
+        CatalogCache.getInstance().invalidate();
         return productDAO.selectByID(id);
     }
 
@@ -44,18 +50,22 @@ public class ProductController {
      * @throws DataAccessException
      */
     public int deleteProduct(Product product) throws DataAccessException {
-        return productDAO.delete(product);
+        int rows = productDAO.delete(product);
+        CatalogCache.getInstance().invalidate();
+        warehouseProducts.invalidateAll();
+        return rows;
     }
 
     /**
-     * Finds all Products in a given Warehouse
+     * Finds all Products in a given Warehouse, only their IDs are read, the products come from the local catalog
      *
      * @param warehouse the warehouse we're searching for
      * @return the List of Products in the Warehouse
      * @throws DataAccessException
      */
     public List<Product> getProducts(Warehouse warehouse) throws DataAccessException {
-        return productDAO.getProducts(warehouse);
+        List<Integer> ids = warehouseProducts.get(warehouse.getId(), () -> productDAO.getProductIds(warehouse));
+        return CatalogCache.getInstance().getProducts(ids);
     }
 
     /**
@@ -66,7 +76,7 @@ public class ProductController {
      * @throws DataAccessException
      */
     public Product getProductByID(int id) throws DataAccessException {
-        return productDAO.selectByID(id);
+        return CatalogCache.getInstance().getProduct(id);
     }
 
     /**
@@ -76,7 +86,7 @@ public class ProductController {
      * @throws DataAccessException
      */
     public List<Product> all() throws DataAccessException {
-        return productDAO.all();
+        return CatalogCache.getInstance().getProducts();
     }
 
     /**
@@ -93,6 +103,8 @@ public class ProductController {
     }
 
     public int updateProduct(Product p) throws DataAccessException {
-        return productDAO.update(p);
+        int rows = productDAO.update(p);
+        CatalogCache.getInstance().invalidate();
+        return rows;
     }
 }
@@ -18,28 +18,34 @@ public class ProviderController {
     }
 
     public int createProvider(Provider value) throws DataAccessException {
-        return providerDAO.create(value);
+        int id = providerDAO.create(value);
+        CatalogCache.getInstance().invalidate();
+        return id;
     }
 
     public Provider getProviderByID(int id) throws DataAccessException {
-        return providerDAO.selectByID(id);
+        return CatalogCache.getInstance().getProvider(id);
     }
 
     public int deleteProvider(Provider value) throws DataAccessException {
-        return providerDAO.delete(value);
+        int rows = providerDAO.delete(value);
+        CatalogCache.getInstance().invalidate();
+        return rows;
     }
 
     public List<Provider> all() throws DataAccessException {
-        return providerDAO.all();
+        return CatalogCache.getInstance().getProviders();
     }
 
     public List<Provider> getAvailableProviders() throws DataAccessException {
-        List<Provider> all = providerDAO.all();
+        List<Provider> all = CatalogCache.getInstance().getProviders();
         Stream<Provider> providers = all.stream();
         return providers.filter(Provider::isAvailable).collect(Collectors.toList());
     }
 
     public int updateProvider(Provider value) throws DataAccessException {
-        return providerDAO.update(value);
+        int rows = providerDAO.update(value);
+        CatalogCache.getInstance().invalidate();
+        return rows;
     }
 }
@@ -0,0 +1,140 @@
+package controller;
+
+import database.DAOFactory;
+import database.DataAccessException;
+import database.StockDAO;
+import database.WarehouseOrderDAO;
+import model.ReplenishmentDraft;
+import model.ReplenishmentLine;
+import model.ReplenishmentResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reorders the Stock of every Warehouse which runs below its minimum quantity.
+ * One query finds the low Stock of all Warehouses together with the cheapest available Provider of each Product,
+ * the lines are grouped into one WarehouseOrder per Warehouse and Provider, and all of them are saved in one
+ * batched transaction. The orders are created in PENDING status, so buyers still approve them as usual.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class ReplenishmentController {
+    // Stock is reordered up to this many times its minimum quantity
+    public static final int TARGET_FACTOR = 2;
+    public static final String NOTE = "Automatic replenishment";
+
+    private static ReplenishmentController instance;
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> schedule;
+    private ReplenishmentResult lastResult;
+    private ControlException lastError;
+
+    private ReplenishmentController() {/* Private constructor, use getInstance() */}
+
+    public static synchronized ReplenishmentController getInstance() {
+        if (instance == null) {
+            instance = new ReplenishmentController();
+        }
+        return instance;
+    }
+
+    /**
+     * Runs the replenishment once
+     *
+     * @return the created orders and figures of the run
+     * @throws ControlException when the stock can't be read or the orders can't be saved, no order is saved then
+     */
+    public synchronized ReplenishmentResult run() throws ControlException {
+        long start = System.nanoTime();
+        try {
+            StockDAO stockDAO = DAOFactory.stockDAO();
+            List<ReplenishmentLine> lines = stockDAO.getReplenishmentLines(TARGET_FACTOR);
+
+            // The lines come ordered by warehouse and provider, so the drafts keep that order
+            Map<Long, ReplenishmentDraft> drafts = new LinkedHashMap<>();
+            int unsourced = 0;
+            for (ReplenishmentLine line : lines) {
+                if (line.getProviderId() == 0) {
+                    unsourced++;
+                    continue;
+                }
+                long key = ((long) line.getWarehouseId() << 32) | line.getProviderId();
+                drafts.computeIfAbsent(key, k -> new ReplenishmentDraft(line.getWarehouseId(), line.getProviderId()))
+                        .addLine(line);
+            }
+
+            List<Integer> orderIds = Collections.emptyList();
+            if (!drafts.isEmpty()) {
+                WarehouseOrderDAO warehouseOrderDAO = DAOFactory.warehouseOrderDAO();
+                orderIds = warehouseOrderDAO.createDrafts(new ArrayList<>(drafts.values()), LocalDateTime.now(), NOTE);
+                // The new orders are inbound stock of their warehouses
+                AvailableToPromiseController.getInstance().refreshAll();
+            }
+            lastResult = new ReplenishmentResult(orderIds, lines.size() - unsourced, unsourced,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            lastError = null;
+            return lastResult;
+        } catch (DataAccessException e) {
+            lastError = new ControlException("Replenishment failed\n" + e.getMessage());
+            throw lastError;
+        }
+    }
+
+    /**
+     * Runs the replenishment in the background at a fixed delay, replacing the previous schedule
+     *
+     * @param delay the time between the end of a run and the start of the next one
+     * @param unit  the unit of the delay
+     */
+    public synchronized void start(long delay, TimeUnit unit) {
+        stop();
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replenishment");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        schedule = scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                run();
+            } catch (ControlException e) {
+                // Kept in lastError, the next run tries again
+            }
+        }, 0, delay, unit);
+    }
+
+    /**
+     * Stops the background runs, a run in progress is finished
+     */
+    public synchronized void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+            schedule = null;
+        }
+    }
+
+    /**
+     * @return the result of the last successful run, null before the first one
+     */
+    public synchronized ReplenishmentResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * @return the error of the last run, null if it succeeded
+     */
+    public synchronized ControlException getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,178 @@
+package controller;
+
+import database.DataAccessException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets concurrent callers asking for the same key share one query instead of each sending its own.
+ * The first caller runs the query, everyone arriving while it runs waits for its result.
+ * A finished result can be handed out again for a short time (the reuse time), a reuse time of zero only
+ * shares queries which are still running. The results are shared, so callers must not change them.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the result
+ */
+public class SingleFlight<K, V> {
+    @FunctionalInterface
+    public interface Query<V> {
+        V run() throws DataAccessException;
+    }
+
+    private static class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final long generation;
+        volatile long finishedAt;
+
+        Flight(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private static final List<SingleFlight<?, ?>> instances = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final Map<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    // Raised by invalidate(), results of older flights are never handed out again
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long reuseNanos;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * @param name      the name shown with the metrics
+     * @param reuseTime how long a finished result is handed out again
+     */
+    public SingleFlight(String name, Duration reuseTime) {
+        this.name = name;
+        setReuseTime(reuseTime);
+        instances.add(this);
+    }
+
+    /**
+     * @return every SingleFlight created so far, so their metrics can be printed
+     */
+    public static List<SingleFlight<?, ?>> getInstances() {
+        return instances;
+    }
+
+    public void setReuseTime(Duration reuseTime) {
+        this.reuseNanos = reuseTime.toNanos();
+    }
+
+    /**
+     * Gives the result for a key, running the query only if no other caller is already doing it
+     *
+     * @param key   identifies the query, callers with equal keys share the result
+     * @param query loads the result from the DB
+     * @return the result of the query
+     * @throws DataAccessException when the shared query failed
+     */
+    public V get(K key, Query<V> query) throws DataAccessException {
+        requests.incrementAndGet();
+        Flight<V> mine = new Flight<>(generation.get());
+        Flight<V> flight = flights.compute(key, (k, old) -> old != null && isUsable(old) ? old : mine);
+
+        if (flight == mine) {
+            queries.incrementAndGet();
+            try {
+                V value = query.run();
+                mine.finishedAt = System.nanoTime();
+                mine.result.complete(value);
+                if (reuseNanos <= 0) {
+                    flights.remove(key, mine);
+                }
+                return value;
+            } catch (DataAccessException | RuntimeException e) {
+                flights.remove(key, mine);
+                mine.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        if (flight.result.isDone()) {
+            reused.incrementAndGet();
+        } else {
+            joined.incrementAndGet();
+        }
+        try {
+            return flight.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DataAccessException) {
+                throw new DataAccessException(e.getCause().getMessage());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Forgets the result of a key, must be called after a write changing it
+     */
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        flights.remove(key);
+    }
+
+    /**
+     * Forgets every result
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        flights.clear();
+    }
+
+    private boolean isUsable(Flight<V> flight) {
+        if (flight.generation != generation.get()) {
+            return false;
+        }
+        if (!flight.result.isDone()) {
+            return true;
+        }
+        return !flight.result.isCompletedExceptionally() && System.nanoTime() - flight.finishedAt < reuseNanos;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getQueries() {
+        return queries.get();
+    }
+
+    /**
+     * @return the number of requests which waited for a query started by another caller
+     */
+    public long getJoined() {
+        return joined.get();
+    }
+
+    /**
+     * @return the number of requests answered with a finished result still within the reuse time
+     */
+    public long getReused() {
+        return reused.get();
+    }
+
+    /**
+     * @return the number of queries which didn't have to be sent
+     */
+    public long getSaved() {
+        return joined.get() + reused.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + getRequests() + " requests, " + getQueries() + " queries, "
+                + getJoined() + " joined, " + getReused() + " reused";
+    }
+}
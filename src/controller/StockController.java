@@ -1,10 +1,15 @@
 package controller;
 
+import database.DAOFactory;
 import database.DataAccessException;
-import database.StockDB;
+import database.StockDAO;
+import database.VersionConflictException;
 import model.Stock;
+import model.TransitionOutcome;
 import model.Warehouse;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -13,6 +18,9 @@ import java.util.List;
  * @author dmai0919-group3@UCNDK.onmicrosoft.com
  */
 public class StockController {
+    // Stock changes with every order, so results are only reused for a moment
+    private static final SingleFlight<Integer, List<Stock>> stockFlight =
+            new SingleFlight<>("Warehouse stock", Duration.ofMillis(500));
 
     private StockController() {/* Private constructor to hide the implicit public one */}
 
@@ -22,16 +30,97 @@ public class StockController {
      * @return List of Stock
      */
     public static List<Stock> getStocks() throws ControlException {
+        return getStocks((Warehouse) LoginController.getLoggedInUser());
+    }
+
+    /**
+     * Get stocks of a warehouse
+     *
+     * @param warehouse the warehouse whose stock is listed
+     * @return List of Stock
+     */
+    public static List<Stock> getStocks(Warehouse warehouse) throws ControlException {
         // Get stocks
         List<Stock> stocks = null;
         try {
-            StockDB stockDB = new StockDB();
+            StockDAO stockDAO = DAOFactory.stockDAO();
 
-            stocks = stockDB.getStocks((Warehouse) LoginController.getLoggedInUser());
+            stocks = new ArrayList<>(stockFlight.get(warehouse.getId(), () -> stockDAO.getStocks(warehouse)));
         } catch (DataAccessException e1) {
             throw new ControlException(e1.getMessage());
         }
 
         return stocks;
     }
+
+    /**
+     * Get the changed stocks of the current warehouse logged in, to update the rows of an open stock list
+     *
+     * @param productIds the IDs of the products whose stock changed
+     * @return the stocks of those products which still exist
+     */
+    public static List<Stock> getStocks(List<Integer> productIds) throws ControlException {
+        Warehouse warehouse = (Warehouse) LoginController.getLoggedInUser();
+        try {
+            List<Stock> stocks = DAOFactory.stockDAO().getStocks(warehouse, productIds);
+            stockFlight.invalidate(warehouse.getId());
+            return stocks;
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the quantity of a Stock after counting it, the difference to the current quantity in the DB is written
+     * to the stock ledger as a correction
+     *
+     * @param stock    the Stock which was counted, gets the counted quantity
+     * @param quantity the counted quantity
+     * @throws ControlException when the correction couldn't be written
+     */
+    public static void correctStock(Stock stock, int quantity) throws ControlException {
+        StockLedger.getInstance().correct(stock.getWarehouse().getId(), stock.getProduct().getId(), quantity);
+        stock.setQuantity(quantity);
+        stockFlight.invalidate(stock.getWarehouse().getId());
+    }
+
+    /**
+     * Sets the minimum quantity of a Stock.
+     * The quantity of a Stock changes with every order, which changes its version too, so when the Stock was changed
+     * since it was read the new minimum is still saved as long as nobody else changed the minimum in the meantime.
+     *
+     * @param stock       the Stock as it was read
+     * @param minQuantity the new minimum quantity
+     * @return UPDATED or MERGED when the minimum is saved, CONFLICT when someone else changed the minimum,
+     * NOT_FOUND when the Stock doesn't exist anymore
+     * @throws ControlException when the Stock couldn't be saved
+     */
+    public static TransitionOutcome setMinQuantity(Stock stock, int minQuantity) throws ControlException {
+        try {
+            StockDAO stockDAO = DAOFactory.stockDAO();
+            int loadedMinQuantity = stock.getMinQuantity();
+            stock.setMinQuantity(minQuantity);
+            try {
+                return stockDAO.update(stock) == 0 ? TransitionOutcome.NOT_FOUND : TransitionOutcome.UPDATED;
+            } catch (VersionConflictException e) {
+                Stock current = stockDAO.getStock(stock.getWarehouse().getId(), stock.getProduct().getId());
+                if (current == null) {
+                    return TransitionOutcome.NOT_FOUND;
+                }
+                if (current.getMinQuantity() != loadedMinQuantity) {
+                    stock.setMinQuantity(current.getMinQuantity());
+                    return TransitionOutcome.CONFLICT;
+                }
+                stock.setQuantity(current.getQuantity());
+                stock.setVersion(current.getVersion());
+                return stockDAO.update(stock) == 0 ? TransitionOutcome.NOT_FOUND : TransitionOutcome.MERGED;
+            }
+        } catch (VersionConflictException e) {
+            return TransitionOutcome.CONFLICT;
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        } finally {
+            stockFlight.invalidate(stock.getWarehouse().getId());
+        }
+    }
 }
@@ -0,0 +1,281 @@
+package controller;
+
+import database.DAOFactory;
+import database.DBConnection;
+import database.DataAccessException;
+import database.StockMovementDAO;
+import database.StockMovementDB;
+import model.StockDiscrepancy;
+import model.StockMovement;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Writes every change of the stock to the StockMovement ledger, the Stock quantities follow from the ledger.
+ * Movements are committed in groups: callers queue their movements and wait, a single writer thread takes everything
+ * queued so far and writes it in one transaction on its own connection, then wakes the callers up.
+ * Under load many callers share one commit, when it's quiet a group is a single caller.
+ * The order server takes a snapshot of the ledger every {@link #SNAPSHOT_INTERVAL_MINUTES}, so verifying and
+ * rebuilding the Stock only replays the movements added since.
+ * Clients working through an order server send their movements and corrections to the server instead,
+ * the server checks them against the user and writes them.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class StockLedger {
+    private static final int MAX_GROUP_SIZE = 5000;
+    private static final long SNAPSHOT_INTERVAL_MINUTES = 60;
+    // Warehouses replayed at the same time by verify() and rebuild(), each on its own connection
+    private static final int REPLAY_THREADS = 4;
+
+    private static StockLedger instance;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private ScheduledExecutorService snapshots;
+
+    /**
+     * Movements of one caller waiting for their commit
+     */
+    private static class Pending {
+        private final List<StockMovement> movements;
+        private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+        private Pending(List<StockMovement> movements) {
+            this.movements = movements;
+        }
+    }
+
+    private StockLedger() {
+        Thread writer = new Thread(this::writeLoop, "stock-ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static synchronized StockLedger getInstance() {
+        if (instance == null) {
+            instance = new StockLedger();
+        }
+        return instance;
+    }
+
+    /**
+     * Takes a snapshot every {@link #SNAPSHOT_INTERVAL_MINUTES} from now on.
+     * A snapshot locks the whole ledger, so only the order server takes them, the clients never do.
+     */
+    public synchronized void scheduleSnapshots() {
+        if (snapshots != null) {
+            return;
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshots.scheduleWithFixedDelay(() -> {
+            try {
+                takeSnapshot();
+            } catch (ControlException e) {
+                // The next snapshot covers these movements as well
+            }
+        }, SNAPSHOT_INTERVAL_MINUTES, SNAPSHOT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Writes the movements and applies them to the Stock, returns when they are committed
+     *
+     * @param movements the movements to be written, all or none of them are committed
+     * @throws ControlException when the movements couldn't be written
+     */
+    public void record(List<StockMovement> movements) throws ControlException {
+        if (movements.isEmpty()) {
+            return;
+        }
+        if (DAOFactory.isRemote()) {
+            try {
+                DAOFactory.stockMovementDAO().append(new ArrayList<>(movements));
+            } catch (DataAccessException e) {
+                throw new ControlException("Can't update the stock\n" + e.getMessage());
+            }
+            return;
+        }
+        Pending pending = new Pending(new ArrayList<>(movements));
+        queue.add(pending);
+        try {
+            pending.committed.get();
+        } catch (ExecutionException e) {
+            throw new ControlException("Can't update the stock\n" + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ControlException("Interrupted while updating the stock");
+        }
+    }
+
+    public void record(StockMovement movement) throws ControlException {
+        record(List.of(movement));
+    }
+
+    private void writeLoop() {
+        Connection connection = null;
+        while (true) {
+            List<Pending> group = new ArrayList<>();
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            int size = group.get(0).movements.size();
+            Pending next;
+            while (size < MAX_GROUP_SIZE && (next = queue.poll()) != null) {
+                group.add(next);
+                size += next.movements.size();
+            }
+
+            List<StockMovement> movements = new ArrayList<>(size);
+            for (Pending pending : group) {
+                movements.addAll(pending.movements);
+            }
+            try {
+                if (connection == null || connection.isClosed()) {
+                    connection = DBConnection.getInstance().openConnection();
+                }
+                new StockMovementDB(connection).append(movements);
+                group.forEach(pending -> pending.committed.complete(null));
+            } catch (DataAccessException | SQLException e) {
+                // The connection may be broken, a new one is opened for the next group
+                connection = close(connection);
+                group.forEach(pending -> pending.committed.completeExceptionally(e));
+            }
+        }
+    }
+
+    /**
+     * Sets the quantity of a Stock to a counted quantity, writing the difference to the current quantity
+     * as a correction. It's computed by the DB, so movements written since the Stock was read are taken into account.
+     *
+     * @return the difference written to the ledger
+     * @throws ControlException when the correction couldn't be written
+     */
+    public int correct(int warehouseId, int productId, int quantity) throws ControlException {
+        if (DAOFactory.isRemote()) {
+            try {
+                return DAOFactory.stockMovementDAO().correct(warehouseId, productId, quantity);
+            } catch (DataAccessException e) {
+                throw new ControlException("Can't update the stock\n" + e.getMessage());
+            }
+        }
+        Connection connection = null;
+        try {
+            connection = DBConnection.getInstance().openConnection();
+            return new StockMovementDB(connection).correct(warehouseId, productId, quantity);
+        } catch (DataAccessException e) {
+            throw new ControlException("Can't update the stock\n" + e.getMessage());
+        } finally {
+            close(connection);
+        }
+    }
+
+    /**
+     * Folds the movements added since the last snapshot into the snapshot
+     *
+     * @throws ControlException when the snapshot couldn't be taken
+     */
+    public void takeSnapshot() throws ControlException {
+        Connection connection = null;
+        try {
+            connection = DBConnection.getInstance().openConnection();
+            new StockMovementDB(connection).takeSnapshot();
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        } finally {
+            close(connection);
+        }
+    }
+
+    /**
+     * Compares the quantity of every Stock with the ledger, several warehouses at a time
+     *
+     * @return the Stock whose quantity doesn't match the ledger
+     * @throws ControlException when the ledger couldn't be read
+     */
+    public List<StockDiscrepancy> verify() throws ControlException {
+        List<StockDiscrepancy> discrepancies = new ArrayList<>();
+        for (List<StockDiscrepancy> warehouse : replay(StockMovementDAO::verify)) {
+            discrepancies.addAll(warehouse);
+        }
+        return discrepancies;
+    }
+
+    /**
+     * Sets the quantity of every Stock to the quantity in the ledger, several warehouses at a time
+     *
+     * @return the number of Stock rows fixed
+     * @throws ControlException when the ledger couldn't be read or the Stock couldn't be updated
+     */
+    public int rebuild() throws ControlException {
+        int fixed = 0;
+        for (int warehouse : replay(StockMovementDAO::rebuild)) {
+            fixed += warehouse;
+        }
+        // The quantities changed under the cached figures
+        AvailableToPromiseController.getInstance().refreshAll();
+        return fixed;
+    }
+
+    private interface WarehouseReplay<T> {
+        T replay(StockMovementDAO dao, int warehouseId) throws DataAccessException;
+    }
+
+    /**
+     * Runs the task for every warehouse on a pool of threads, every thread works on its own connection
+     */
+    private <T> List<T> replay(WarehouseReplay<T> task) throws ControlException {
+        ExecutorService pool = Executors.newFixedThreadPool(REPLAY_THREADS);
+        ThreadLocal<Connection> connections = new ThreadLocal<>();
+        List<Connection> opened = new CopyOnWriteArrayList<>();
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int warehouseId : new StockMovementDB().getWarehouseIds()) {
+                futures.add(pool.submit(() -> {
+                    Connection connection = connections.get();
+                    if (connection == null) {
+                        connection = DBConnection.getInstance().openConnection();
+                        connections.set(connection);
+                        opened.add(connection);
+                    }
+                    return task.replay(new StockMovementDB(connection), warehouseId);
+                }));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw new ControlException(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ControlException("Interrupted while replaying the stock ledger");
+        } finally {
+            pool.shutdownNow();
+            opened.forEach(StockLedger::close);
+        }
+    }
+
+    private static Connection close(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Nothing left to do with it
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package controller;
+
+import database.DAOFactory;
+import database.DataAccessException;
+import database.StockReservationDAO;
+import model.Product;
+import model.StockReservation;
+import model.Store;
+import model.Warehouse;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds stock for Orders which are still being put together, so two stores can't take the same last units.
+ * Reservations are written to the StockReservation table, every check of the available stock is done by the DB
+ * in the same statement as the write, so clients of different stores can't both pass the check.
+ * Clients working through an order server reserve through it too, where a store can only touch its own reservations.
+ * Every reservation expires after {@link #HOLD_TIME} on the clock of the DB, a background sweeper deletes the expired ones.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class StockReservationController {
+    public static final Duration HOLD_TIME = Duration.ofMinutes(15);
+    private static final long SWEEP_INTERVAL_SECONDS = 30;
+
+    private static StockReservationController instance;
+
+    private StockReservationController() {
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static synchronized StockReservationController getInstance() {
+        if (instance == null) {
+            instance = new StockReservationController();
+        }
+        return instance;
+    }
+
+    /**
+     * Reserves a given amount of a Product in a Warehouse for a Store
+     *
+     * @param store     the Store building the order
+     * @param warehouse the Warehouse the stock is taken from
+     * @param product   the Product to be reserved
+     * @param amount    the amount to be reserved
+     * @return the new reservation
+     * @throws ControlException when there isn't enough stock left or the DB can't be reached
+     */
+    public StockReservation reserve(Store store, Warehouse warehouse, Product product, int amount) throws ControlException {
+        StockReservation reservation = new StockReservation(store, warehouse, product, amount, null);
+        try {
+            StockReservationDAO reservationDAO = DAOFactory.stockReservationDAO();
+            if (!reservationDAO.reserve(reservation, (int) HOLD_TIME.getSeconds())) {
+                throw new ControlException("There are not enough items in stock.\nPlease enter a smaller amount.");
+            }
+        } catch (DataAccessException e) {
+            throw new ControlException("Unable to connect to server.\n" + e.getMessage());
+        }
+        return reservation;
+    }
+
+    /**
+     * Changes the amount of an existing reservation and renews its expiry.
+     * Growing a reservation needs the extra amount to be available, shrinking it always works.
+     * If the reservation already expired, a new one is made for the whole amount.
+     *
+     * @param reservation the reservation to be changed
+     * @param quantity    the new amount
+     * @return the reservation holding the new amount
+     * @throws ControlException when there isn't enough stock left or the DB can't be reached
+     */
+    public StockReservation changeQuantity(StockReservation reservation, int quantity) throws ControlException {
+        if (quantity <= 0) {
+            release(reservation);
+            return null;
+        }
+        try {
+            StockReservationDAO reservationDAO = DAOFactory.stockReservationDAO();
+            if (reservationDAO.resize(reservation, quantity, (int) HOLD_TIME.getSeconds())) {
+                return reservation;
+            }
+            if (reservationDAO.selectByID(reservation.getId()) != null) {
+                throw new ControlException("There are not enough items in stock.\nPlease enter a smaller amount.");
+            }
+        } catch (DataAccessException e) {
+            throw new ControlException("Unable to connect to server.\n" + e.getMessage());
+        }
+        // Expired or swept away, the whole amount has to be reserved again
+        return reserve(reservation.getStore(), reservation.getWarehouse(), reservation.getProduct(), quantity);
+    }
+
+    /**
+     * Gives the reserved stock back. Releasing an already released or expired reservation does nothing.
+     *
+     * @param reservation the reservation to be released
+     */
+    public void release(StockReservation reservation) {
+        if (reservation == null) {
+            return;
+        }
+        try {
+            StockReservationDAO reservationDAO = DAOFactory.stockReservationDAO();
+            reservationDAO.delete(reservation);
+        } catch (DataAccessException e) {
+            // The row expires on its own, the sweeper of any client deletes it later
+        }
+    }
+
+    /**
+     * Deletes every expired reservation from the DB
+     */
+    void sweep() {
+        try {
+            StockReservationDAO reservationDAO = DAOFactory.stockReservationDAO();
+            reservationDAO.deleteExpired();
+        } catch (DataAccessException e) {
+            // Nothing to do here, the next run tries again
+        }
+    }
+}
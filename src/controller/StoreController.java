@@ -5,6 +5,8 @@ import database.DataAccessException;
 import database.StoreDB;
 import model.Store;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -14,6 +16,9 @@ import java.util.List;
  */
 
 public class StoreController {
+    private static final SingleFlight<Boolean, List<Store>> stores =
+            new SingleFlight<>("Stores", Duration.ofSeconds(2));
+
     private DAOInterface<Store> storeDB;
 
     public StoreController() throws DataAccessException {
@@ -21,19 +26,25 @@ public class StoreController {
     }
 
     public int createStore(Store store) throws DataAccessException {
-        return storeDB.create(store);
+        int id = storeDB.create(store);
+        stores.invalidateAll();
+        return id;
     }
 
     public boolean updateStore(Store store) throws DataAccessException {
-        return (storeDB.update(store) == 1);
+        int rows = storeDB.update(store);
+        stores.invalidateAll();
+        return (rows == 1);
     }
 
     public int deleteStore(Store store) throws DataAccessException {
-        return storeDB.delete(store);
+        int rows = storeDB.delete(store);
+        stores.invalidateAll();
+        return rows;
     }
 
     public List<Store> getStores() throws DataAccessException {
-        return storeDB.all();
+        return new ArrayList<>(stores.get(Boolean.TRUE, storeDB::all));
     }
 
     public Store getStoreByID(int id) throws DataAccessException {
@@ -1,8 +1,8 @@
 package controller;
 
+import database.DAOFactory;
 import database.DataAccessException;
 import database.StoreStockReportDAO;
-import database.StoreStockReportDB;
 import model.Product;
 import model.Store;
 import model.StoreStockReport;
@@ -28,9 +28,9 @@ public class StoreStockReportController {
         // Get reports
         List<StoreStockReport> reports = null;
         try {
-            StoreStockReportDB storeStockReportDB = new StoreStockReportDB();
+            StoreStockReportDAO storeStockReportDAO = DAOFactory.storeStockReportDAO();
 
-            reports = storeStockReportDB.getByStore((Store) LoginController.getLoggedInUser());
+            reports = storeStockReportDAO.getByStore((Store) LoginController.getLoggedInUser());
         } catch (DataAccessException e1) {
             throw new ControlException(e1.getMessage());
         }
@@ -49,9 +49,9 @@ public class StoreStockReportController {
         // Get reports
         List<StoreStockReport> reports = null;
         try {
-            StoreStockReportDB storeStockReportDB = new StoreStockReportDB();
+            StoreStockReportDAO storeStockReportDAO = DAOFactory.storeStockReportDAO();
 
-            reports = storeStockReportDB.getByStore(store);
+            reports = storeStockReportDAO.getByStore(store);
         } catch (DataAccessException e1) {
             throw new ControlException(e1.getMessage());
         }
@@ -59,6 +59,27 @@ public class StoreStockReportController {
         return reports;
     }
 
+    /**
+     * Finds one page of the reports of a store, newest first
+     *
+     * @param store the store we're searching for
+     * @param from  the earliest date of the reports, null for no lower bound
+     * @param to    the reports are older than this date, null for no upper bound
+     * @param after the last report of the previous page, null for the first page
+     * @param limit the maximum number of reports
+     * @return the reports of the page, empty after the last page
+     * @throws ControlException when there were an exception thrown by StoreStockReportDB.getByStore() method
+     */
+    public static List<StoreStockReport> getReportPage(Store store, LocalDateTime from, LocalDateTime to,
+                                                       StoreStockReport after, int limit) throws ControlException {
+        try {
+            StoreStockReportDAO storeStockReportDAO = DAOFactory.storeStockReportDAO();
+            return storeStockReportDAO.getByStore(store, from, to, after, limit);
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+
     /**
      * Creates a new report for a given store
      *
@@ -92,17 +113,16 @@ public class StoreStockReportController {
             throw new IllegalStateException("There's no Report object initialized. Please call createReport() method first.");
         }
 
-        for (StoreStockReportItem reportItem : report.getItems()) {
-            if (reportItem.getProduct().equals(product)) {
-                if (reportItem.getQuantity() > amount) {
-                    reportItem.setQuantity(reportItem.getQuantity() - amount);
-                } else {
-                    report.removeReportItem(reportItem);
-                }
-                return true;
-            }
+        StoreStockReportItem reportItem = report.getItem(product);
+        if (reportItem == null) {
+            return false;
+        }
+        if (reportItem.getQuantity() > amount) {
+            report.setItemQuantity(product, reportItem.getQuantity() - amount);
+        } else {
+            report.removeReportItem(reportItem);
         }
-        return false;
+        return true;
     }
 
     /**
@@ -113,12 +133,8 @@ public class StoreStockReportController {
      * @return the value of {@link StoreStockReport#removeReportItem(StoreStockReportItem)} (reportItem)}
      */
     public boolean removeProduct(Product product) {
-        for (StoreStockReportItem reportItem : report.getItems()) {
-            if (product.equals(reportItem.getProduct())) {
-                return report.removeReportItem(reportItem);
-            }
-        }
-        return false;
+        StoreStockReportItem reportItem = report.getItem(product);
+        return reportItem != null && report.removeReportItem(reportItem);
     }
 
     /**
@@ -132,20 +148,8 @@ public class StoreStockReportController {
         if (report == null || product == null || amount <= 0) {
             throw new IllegalStateException("There's no Report object initialized. Please call createOrder() method first.");
         }
-        StoreStockReportDAO reportDAO; //TODO This line is unnecessary and should be removed, pls check!
-        try {
-            reportDAO = new StoreStockReportDB(); //TODO This line is unnecessary and should be removed, pls check!
-            for (StoreStockReportItem reportItem : report.getItems()) {
-                if (reportItem.getProduct().getId() == product.getId()) {
-                    reportItem.setQuantity(reportItem.getQuantity() + amount);
-                    return true;
-                }
-            }
-            StoreStockReportItem reportItem = new StoreStockReportItem(product, amount);
-            return report.addItem(reportItem);
-        } catch (DataAccessException e) {
-            throw new ControlException("Unable to connect to server.\n" + e.getMessage());
-        }
+        // Adds the amount to the existing line of the product if there is one
+        return report.addItem(new StoreStockReportItem(product, amount));
     }
 
     public StoreStockReport getReport() {
@@ -173,8 +177,9 @@ public class StoreStockReportController {
         report.setDate(LocalDateTime.now());
 
         try {
-            StoreStockReportDAO reportDAO = new StoreStockReportDB();
+            StoreStockReportDAO reportDAO = DAOFactory.storeStockReportDAO();
 
+            // The consumption figures follow the report through its event
             return reportDAO.create(report);
         } catch (DataAccessException e) {
             throw new ControlException(e.getMessage());
@@ -1,21 +1,17 @@
 package controller;
 
-import database.DAOInterface;
 import database.DataAccessException;
-import database.WarehouseDB;
 import model.Warehouse;
 
 import java.util.List;
 
 public class WarehouseController {
 
-    private DAOInterface<Warehouse> warehouseDAO;
-
     public WarehouseController() throws DataAccessException {
-        warehouseDAO = new WarehouseDB();
+        //Empty constructor which allows DataAccessException to be thrown
     }
 
     public List<Warehouse> getWarehouses() throws DataAccessException {
-        return warehouseDAO.all();
+        return CatalogCache.getInstance().getWarehouses();
     }
 }
@@ -4,6 +4,7 @@ import database.*;
 import model.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -12,7 +13,7 @@ public class WarehouseOrderController {
     private WarehouseOrder warehouseOrder;
 
     public WarehouseOrderController() throws DataAccessException {
-        this.warehouseOrderDAO = new WarehouseOrderDB();
+        this.warehouseOrderDAO = DAOFactory.warehouseOrderDAO();
     }
 
     /**
@@ -35,17 +36,16 @@ public class WarehouseOrderController {
             throw new IllegalStateException("There's no Warehouse order object initialized. Please call createWarehouseOrder() method first.");
         }
 
-        for (WarehouseOrderItem warehouseOrderItem : warehouseOrder.getItems()) {
-            if (warehouseOrderItem.getProduct().equals(product)) {
-                if (warehouseOrderItem.getQuantity() > amount) {
-                    warehouseOrderItem.setQuantity(warehouseOrderItem.getQuantity() - amount);
-                } else {
-                    warehouseOrder.removeWarehouseOrderItem(warehouseOrderItem);
-                }
-                return true;
-            }
+        WarehouseOrderItem warehouseOrderItem = warehouseOrder.getItem(product);
+        if (warehouseOrderItem == null) {
+            return false;
         }
-        return false;
+        if (warehouseOrderItem.getQuantity() > amount) {
+            warehouseOrder.setItemQuantity(product, warehouseOrderItem.getQuantity() - amount);
+        } else {
+            warehouseOrder.removeWarehouseOrderItem(warehouseOrderItem);
+        }
+        return true;
     }
 
     /**
@@ -55,12 +55,8 @@ public class WarehouseOrderController {
      * @return the value of {@link WarehouseOrder#removeWarehouseOrderItem(WarehouseOrderItem)}
      */
     public boolean removeProduct(Product product) {
-        for (WarehouseOrderItem warehouseOrderItem : warehouseOrder.getItems()) {
-            if (product.equals(warehouseOrderItem.getProduct())) {
-                return warehouseOrder.removeWarehouseOrderItem(warehouseOrderItem);
-            }
-        }
-        return false;
+        WarehouseOrderItem warehouseOrderItem = warehouseOrder.getItem(product);
+        return warehouseOrderItem != null && warehouseOrder.removeWarehouseOrderItem(warehouseOrderItem);
     }
 
     /*
@@ -68,7 +64,7 @@ public class WarehouseOrderController {
      */
     public List<WarehouseOrder> getWarehouseOrders() throws ControlException {
         try {
-            WarehouseOrderDAO warehouseOrderDAO = new WarehouseOrderDB();
+            WarehouseOrderDAO warehouseOrderDAO = DAOFactory.warehouseOrderDAO();
             User loggedInUser = LoginController.getLoggedInUser();
             if (loggedInUser instanceof Warehouse) {
                 return warehouseOrderDAO.getWarehouseOrders((Warehouse) LoginController.getLoggedInUser());
@@ -79,7 +75,34 @@ public class WarehouseOrderController {
         }
     }
 
-    public boolean addProduct(Product product, double unitPrice, int amount) throws ControlException {
+    /**
+     * Gets the rows of the warehouse order list of the logged in Warehouse, without loading the whole orders
+     *
+     * @return the summaries of the warehouse orders, newest first
+     */
+    public List<WarehouseOrderSummary> getWarehouseOrderSummaries() throws ControlException {
+        User loggedInUser = LoginController.getLoggedInUser();
+        if (loggedInUser instanceof Warehouse) {
+            return getWarehouseOrderSummaries((Warehouse) loggedInUser);
+        }
+        return new LinkedList<>();
+    }
+
+    /**
+     * Gets the rows of the warehouse order list of a Warehouse, without loading the whole orders
+     *
+     * @param warehouse the Warehouse whose orders are listed
+     * @return the summaries of the warehouse orders, newest first
+     */
+    public List<WarehouseOrderSummary> getWarehouseOrderSummaries(Warehouse warehouse) throws ControlException {
+        try {
+            return warehouseOrderDAO.getWarehouseOrderSummaries(warehouse);
+        } catch (DataAccessException e) {
+            throw new ControlException(e.getMessage());
+        }
+    }
+
+    public boolean addProduct(Product product, long unitPrice, int amount) throws ControlException {
         if (warehouseOrder == null || product == null || amount <= 0) {
             throw new IllegalStateException("There's no Warehouse Order object initialized. Please call createWarehouseOrder() method first.");
         }
@@ -117,45 +140,91 @@ public class WarehouseOrderController {
         warehouseOrder.setStatus(Status.PENDING);
 
         try {
-            WarehouseOrderDAO warehouseOrderDAO = new WarehouseOrderDB();
+            WarehouseOrderDAO warehouseOrderDAO = DAOFactory.warehouseOrderDAO();
 
-            return warehouseOrderDAO.create(warehouseOrder);
+            int id = warehouseOrderDAO.create(warehouseOrder);
+            AvailableToPromiseController.getInstance().warehouseOrderCreated(warehouseOrder);
+            return id;
         } catch (DataAccessException e) {
             throw new ControlException(e.getMessage());
         }
     }
 
-    public boolean updateWarehouseOrder(WarehouseOrder warehouseOrder) throws ControlException {
+    /**
+     * Saves the changes made to a warehouse order, with its new revisions.
+     * When someone else changed the order since it was loaded, the order is loaded again and the new revisions
+     * and items are put on top of it, as long as its status can still be moved to the new one.
+     *
+     * @param warehouseOrder the changed order, with the version it was loaded with
+     * @return UPDATED or MERGED when the changes are saved, INVALID_TRANSITION or CONFLICT when they couldn't be
+     * put on top of the changes of someone else, NOT_FOUND when the order doesn't exist anymore
+     * @throws ControlException when the order couldn't be saved
+     */
+    public TransitionOutcome updateWarehouseOrder(WarehouseOrder warehouseOrder) throws ControlException {
         try {
-            if (warehouseOrderDAO.update(warehouseOrder) != 0) {
-                if (warehouseOrder.getStatus().equals(Status.DELIVERED)) {
-                    warehouseOrder = warehouseOrderDAO.selectByID(warehouseOrder.getId());
-                    updateStock(warehouseOrder);
+            try {
+                return saveWarehouseOrder(warehouseOrder) ? TransitionOutcome.UPDATED : TransitionOutcome.NOT_FOUND;
+            } catch (VersionConflictException e) {
+                WarehouseOrder current = warehouseOrderDAO.selectByID(warehouseOrder.getId());
+                if (current == null) {
+                    return TransitionOutcome.NOT_FOUND;
+                }
+                Status status = warehouseOrder.getStatus();
+                if (status != current.getStatus() && !current.getStatus().canTransitionTo(status)) {
+                    return TransitionOutcome.INVALID_TRANSITION;
                 }
-                return true;
-            } else {
-                return false;
+                for (WarehouseOrderItem item : warehouseOrder.getItems()) {
+                    if (current.getItem(item.getProduct()) == null) {
+                        current.addWarehouseOrderItem(item);
+                    }
+                }
+                for (WarehouseOrderRevision revision : warehouseOrder.getRevisions()) {
+                    if (revision.getId() == 0) {
+                        current.addRevision(revision);
+                    }
+                }
+                current.setStatus(status);
+                return saveWarehouseOrder(current) ? TransitionOutcome.MERGED : TransitionOutcome.NOT_FOUND;
             }
+        } catch (VersionConflictException e) {
+            // Changed again while merging, the user has to look at it
+            return TransitionOutcome.CONFLICT;
         } catch (DataAccessException e) {
             throw new ControlException("Can't update warehouse order\n" + e.getMessage());
         }
     }
 
+    /**
+     * Writes the warehouse order and applies the stock changes of its status change
+     *
+     * @return false when the order doesn't exist anymore
+     */
+    private boolean saveWarehouseOrder(WarehouseOrder warehouseOrder) throws DataAccessException, ControlException {
+        Status oldStatus = warehouseOrderDAO.getWarehouseOrderStatus(warehouseOrder.getId());
+        if (warehouseOrderDAO.update(warehouseOrder) == 0) {
+            return false;
+        }
+        if (warehouseOrder.getStatus().equals(Status.DELIVERED) && !Status.DELIVERED.equals(oldStatus)) {
+            warehouseOrder = warehouseOrderDAO.selectByID(warehouseOrder.getId());
+            updateStock(warehouseOrder);
+        }
+        if (oldStatus != null && oldStatus != warehouseOrder.getStatus()) {
+            AvailableToPromiseController.getInstance().warehouseOrderStatusChanged(warehouseOrder, oldStatus);
+        }
+        return true;
+    }
+
     public boolean updateStock(WarehouseOrder warehouseOrder) throws ControlException {
-        StockDAO stockDAO = null;
-        try {
-            stockDAO = new StockDB();
-
-            for (WarehouseOrderItem warehouseOrderItem : warehouseOrder.getItems()) {
-                Stock stock = stockDAO.getStock(warehouseOrder.getWarehouse().getId(), warehouseOrderItem.getProduct().getId());
-                int quantity = stock.getQuantity();
-                quantity = quantity + warehouseOrderItem.getQuantity();
-                stock.setQuantity(quantity);
-                stockDAO.update(stock);
-            }
-        } catch (DataAccessException e) {
-            throw new ControlException(e.getMessage());
+        List<StockMovement> movements = new ArrayList<>();
+        for (WarehouseOrderItem warehouseOrderItem : warehouseOrder.getItems()) {
+            movements.add(new StockMovement(
+                    warehouseOrder.getWarehouse().getId(),
+                    warehouseOrderItem.getProduct().getId(),
+                    warehouseOrderItem.getQuantity(),
+                    MovementReason.WAREHOUSE_ORDER_DELIVERED,
+                    warehouseOrder.getId()));
         }
+        StockLedger.getInstance().record(movements);
         return true;
     }
 
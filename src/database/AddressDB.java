@@ -73,16 +73,7 @@ public class AddressDB implements DAOInterface<Address> {
 
             ResultSet rs = db.executeSelect(s);
             if (rs.next()) {
-                return new Address(
-                        rs.getInt("id"),
-                        rs.getString("number"),
-                        rs.getString("supplement"),
-                        rs.getString("street"),
-                        rs.getString("city"),
-                        rs.getString("zipcode"),
-                        rs.getString("region"),
-                        rs.getString("country")
-                );
+                return Mappers.ADDRESS.reader(rs).read();
             }
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -145,22 +136,7 @@ public class AddressDB implements DAOInterface<Address> {
         String query = "SELECT * FROM Address;";
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             ResultSet rs = db.executeSelect(s);
-            List<Address> resultList = new ArrayList<>();
-
-            while (rs.next()) {
-                Address address = new Address(
-                        rs.getInt("id"),
-                        rs.getString("number"),
-                        rs.getString("supplement"),
-                        rs.getString("street"),
-                        rs.getString("city"),
-                        rs.getString("zipcode"),
-                        rs.getString("region"),
-                        rs.getString("country")
-                );
-                resultList.add(address);
-            }
-            return resultList;
+            return Mappers.ADDRESS.mapAll(rs);
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
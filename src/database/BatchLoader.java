@@ -0,0 +1,107 @@
+package database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects the IDs of one kind of entity and loads them all with one {@code WHERE id IN (...)} query.
+ * Callers get a future for every ID right away, the futures are completed by {@link #dispatch()}.
+ * An ID which was asked for before returns the same future, so every row is read once per loader.
+ * Not thread safe, a loader is meant to live for one DAO call.
+ *
+ * @param <T> the type of the entity
+ */
+public class BatchLoader<T> {
+    /**
+     * Attaches related entities to a freshly read entity, e.g. queues its Address on another loader
+     */
+    @FunctionalInterface
+    public interface Linker<T> {
+        void link(T value, RowMapper.Row row) throws SQLException;
+    }
+
+    private final String table;
+    private final RowMapper<T> mapper;
+    private final Linker<T> linker;
+    private final Map<Integer, CompletableFuture<T>> futures = new HashMap<>();
+    // IDs asked for since the last dispatch
+    private final List<Integer> queue = new ArrayList<>();
+
+    /**
+     * @param table  the table the entities are read from, it must have an int id column
+     * @param mapper builds the entity from the current row
+     */
+    public BatchLoader(String table, RowMapper<T> mapper) {
+        this(table, mapper, (value, row) -> {});
+    }
+
+    /**
+     * @param table  the table the entities are read from, it must have an int id column
+     * @param mapper builds the entity from the current row
+     * @param linker called with every entity read, before its future is completed
+     */
+    public BatchLoader(String table, RowMapper<T> mapper, Linker<T> linker) {
+        this.table = table;
+        this.mapper = mapper;
+        this.linker = linker;
+    }
+
+    /**
+     * @param id the ID of the entity
+     * @return a future completed with the entity on the next dispatch, or with null if it doesn't exist
+     */
+    public CompletableFuture<T> load(int id) {
+        CompletableFuture<T> future = futures.get(id);
+        if (future == null) {
+            future = new CompletableFuture<>();
+            futures.put(id, future);
+            queue.add(id);
+        }
+        return future;
+    }
+
+    public boolean hasPending() {
+        return !queue.isEmpty();
+    }
+
+    /**
+     * Loads every queued ID, split into chunks which stay under the parameter limit of the DB
+     *
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    public void dispatch() throws DataAccessException {
+        if (queue.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(queue);
+        queue.clear();
+
+        DBConnection db = DBConnection.getInstance();
+        for (int from = 0; from < ids.size(); from += DBConnection.MAX_PARAMETERS) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + DBConnection.MAX_PARAMETERS, ids.size()));
+            String query = "SELECT * FROM [" + table + "] WHERE id IN (" + DBConnection.placeholders(chunk.size()) + ");";
+
+            try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    s.setInt(i + 1, chunk.get(i));
+                }
+                ResultSet rs = db.executeSelect(s);
+                RowMapper.Reader<T> reader = mapper.reader(rs);
+                while (rs.next()) {
+                    T value = reader.read();
+                    linker.link(value, reader.row());
+                    futures.get(reader.row().getInt("id")).complete(value);
+                }
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+        // Rows which weren't found are null, the same as selectByID()
+        for (int id : ids) {
+            futures.get(id).complete(null);
+        }
+    }
+}
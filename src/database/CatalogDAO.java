@@ -0,0 +1,18 @@
+package database;
+
+import model.CatalogChanges;
+
+/**
+ * This DAO interface is used by the CatalogCache to keep the local copy of the catalog up to date
+ *
+ * @see controller.CatalogCache
+ */
+public interface CatalogDAO {
+
+    /**
+     * @param since the change version of the local copy, 0 for the whole catalog
+     * @return the products, warehouses and providers changed or deleted since then
+     */
+    CatalogChanges getChanges(long since) throws DataAccessException;
+
+}
@@ -0,0 +1,111 @@
+package database;
+
+import model.CatalogChanges;
+import model.Product;
+import model.Provider;
+import model.Warehouse;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the changes of the catalog by the changeVersion rowversion of Product, Warehouse and Provider.
+ * Rowversions are numbered across the whole database, so one version covers all three tables.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class CatalogDB implements CatalogDAO {
+    DBConnection db = DBConnection.getInstance();
+
+    public CatalogDB() throws DataAccessException {
+        //This constructor is empty because it only exists to pass along DataAccessException from DBConnection.getInstance()
+    }
+
+    @Override
+    public CatalogChanges getChanges(long since) throws DataAccessException {
+        try {
+            // Transactions still running can commit rows with a lower version than rows already committed,
+            // so the changes only go up to the lowest version still in use and the next sync starts there
+            long upTo;
+            try (PreparedStatement s = db.getDBConn().prepareStatement("SELECT MIN_ACTIVE_ROWVERSION() AS version;");
+                 ResultSet rs = s.executeQuery()) {
+                rs.next();
+                upTo = DBConnection.getVersion(rs);
+            }
+
+            DataLoader loader = new DataLoader();
+            List<Product> products = new ArrayList<>();
+            try (PreparedStatement s = changed("SELECT id, name, weight, price FROM Product", since, upTo);
+                 ResultSet rs = s.executeQuery()) {
+                RowMapper.Reader<Product> reader = Mappers.PRODUCT.reader(rs);
+                while (rs.next()) {
+                    products.add(reader.read());
+                }
+            }
+            // The password of a warehouse stays on the server
+            List<Warehouse> warehouses = new ArrayList<>();
+            try (PreparedStatement s = changed("SELECT id, name, NULL AS password, email, addressID FROM Warehouse", since, upTo);
+                 ResultSet rs = s.executeQuery()) {
+                RowMapper.Reader<Warehouse> reader = Mappers.WAREHOUSE.reader(rs);
+                while (rs.next()) {
+                    Warehouse warehouse = reader.read();
+                    loader.address(reader.row().getInt("addressID")).thenAccept(warehouse::setAddress);
+                    warehouses.add(warehouse);
+                }
+            }
+            List<Provider> providers = new ArrayList<>();
+            try (PreparedStatement s = changed("SELECT id, name, email, available, addressID FROM Provider", since, upTo);
+                 ResultSet rs = s.executeQuery()) {
+                RowMapper.Reader<Provider> reader = Mappers.PROVIDER.reader(rs);
+                while (rs.next()) {
+                    Provider provider = reader.read();
+                    loader.address(reader.row().getInt("addressID")).thenAccept(provider::setAddress);
+                    providers.add(provider);
+                }
+            }
+            loader.dispatch();
+
+            List<Integer> deletedProducts = new ArrayList<>();
+            List<Integer> deletedWarehouses = new ArrayList<>();
+            List<Integer> deletedProviders = new ArrayList<>();
+            // A copy made from nothing has no deleted rows to forget
+            if (since > 0) {
+                try (PreparedStatement s = changed("SELECT kind, id FROM CatalogDeletion", since, upTo);
+                     ResultSet rs = s.executeQuery()) {
+                    while (rs.next()) {
+                        switch (rs.getString("kind")) {
+                            case "Product":
+                                deletedProducts.add(rs.getInt("id"));
+                                break;
+                            case "Warehouse":
+                                deletedWarehouses.add(rs.getInt("id"));
+                                break;
+                            case "Provider":
+                                deletedProviders.add(rs.getInt("id"));
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                }
+            }
+            return new CatalogChanges(upTo, products, warehouses, providers,
+                    deletedProducts, deletedWarehouses, deletedProviders);
+        } catch (SQLException e) {
+            throw new DataAccessException("Can't read the changes of the catalog");
+        }
+    }
+
+    /**
+     * Prepares a select of the rows of a table changed in [since, upTo)
+     */
+    private PreparedStatement changed(String select, long since, long upTo) throws SQLException {
+        PreparedStatement s = db.getDBConn().prepareStatement(select + " WHERE changeVersion >= ? AND changeVersion < ? ORDER BY id;");
+        DBConnection.setVersion(s, 1, since);
+        DBConnection.setVersion(s, 2, upTo);
+        return s;
+    }
+}
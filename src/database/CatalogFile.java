@@ -0,0 +1,96 @@
+package database;
+
+import model.CatalogChanges;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * The local copy of the catalog on the disk of a client, in the compact encoding of the remote DAOs.
+ * A new copy is written next to the old one and then moved over it, so a crash never leaves half a catalog behind.
+ * The file isn't memory mapped: a mapping stays until it is garbage collected, and on Windows a mapped file
+ * can't be replaced.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class CatalogFile {
+    private static final int MAGIC = 0x54564354;
+    // 2 since prices are written as cents
+    private static final int FORMAT = 2;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    private final Path path;
+
+    /**
+     * @param path where the copy is kept, the directory is created when the copy is written
+     */
+    public CatalogFile(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the copy of the catalog, as changes since version 0, or null when there is none or it can't be read
+     */
+    public CatalogChanges read() {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() < HEADER_SIZE) {
+                return null;
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                return null;
+            }
+            int length = buffer.getInt();
+            if (length != buffer.remaining()) {
+                return null;
+            }
+            ModelCodec.Reader reader = new ModelCodec.Reader(new DataInputStream(
+                    new ByteArrayInputStream(buffer.array(), buffer.position(), length)));
+            Object catalog = reader.read();
+            return catalog instanceof CatalogChanges ? (CatalogChanges) catalog : null;
+        } catch (IOException | RuntimeException e) {
+            // A damaged copy is downloaded again
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the copy of the catalog
+     *
+     * @param catalog the whole catalog, as changes since version 0
+     * @throws IOException when the copy can't be written, the old copy stays then
+     */
+    public void write(CatalogChanges catalog) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        new ModelCodec.Writer(out).write(catalog);
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+                buffer.putInt(MAGIC).putInt(FORMAT).putInt(payload.length).put(payload).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package database;
+
+import model.ChangeSet;
+import model.User;
+
+/**
+ * This DAO interface is used by the ChangeFeed polling for the changes shown on the open screens
+ *
+ * @see controller.ChangeFeed
+ */
+public interface ChangeFeedDAO {
+
+    /**
+     * @param user  the Store or Warehouse whose rows are watched
+     * @param since the version of the previous changes, 0 to start watching from now
+     * @return the rows changed since then, none when starting
+     */
+    ChangeSet getChanges(User user, long since) throws DataAccessException;
+
+}
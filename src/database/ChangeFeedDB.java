@@ -0,0 +1,91 @@
+package database;
+
+import model.ChangeSet;
+import model.Store;
+import model.User;
+import model.Warehouse;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the changed rows by the rowversion columns of [Order], WarehouseOrder, Stock and StoreStockReport.
+ * Rowversions are numbered across the whole database, so one version covers all four tables
+ * and a poll is a single query reading only the index of the changed rows.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class ChangeFeedDB implements ChangeFeedDAO {
+    private static final String CHANGES = "SELECT 'Order' AS kind, id FROM [Order] " +
+            "WHERE (warehouseID = ? OR storeID = ?) AND version >= ? AND version < ? " +
+            "UNION ALL SELECT 'WarehouseOrder', id FROM WarehouseOrder WHERE warehouseID = ? AND version >= ? AND version < ? " +
+            "UNION ALL SELECT 'Stock', productID FROM Stock WHERE warehouseID = ? AND version >= ? AND version < ? " +
+            "UNION ALL SELECT 'StoreStockReport', id FROM StoreStockReport WHERE storeID = ? AND version >= ? AND version < ?;";
+
+    DBConnection db = DBConnection.getInstance();
+
+    public ChangeFeedDB() throws DataAccessException {
+        //This constructor is empty because it only exists to pass along DataAccessException from DBConnection.getInstance()
+    }
+
+    @Override
+    public ChangeSet getChanges(User user, long since) throws DataAccessException {
+        List<Integer> orders = new ArrayList<>();
+        List<Integer> warehouseOrders = new ArrayList<>();
+        List<Integer> stocks = new ArrayList<>();
+        List<Integer> reports = new ArrayList<>();
+        try {
+            // Transactions still running can commit rows with a lower version than rows already committed,
+            // so the changes only go up to the lowest version still in use and the next poll starts there
+            long upTo;
+            try (PreparedStatement s = db.getDBConn().prepareStatement("SELECT MIN_ACTIVE_ROWVERSION() AS version;");
+                 ResultSet rs = s.executeQuery()) {
+                rs.next();
+                upTo = DBConnection.getVersion(rs);
+            }
+            if (since <= 0) {
+                return new ChangeSet(upTo, orders, warehouseOrders, stocks, reports);
+            }
+
+            // Stores and warehouses are numbered separately, the ID of the other kind never matches
+            int warehouseId = user instanceof Warehouse ? user.getId() : -1;
+            int storeId = user instanceof Store ? user.getId() : -1;
+            try (PreparedStatement s = db.getDBConn().prepareStatement(CHANGES)) {
+                s.setInt(1, warehouseId);
+                s.setInt(2, storeId);
+                int index = 3;
+                for (int table = 0; table < 4; table++) {
+                    if (table > 0) {
+                        s.setInt(index++, table == 3 ? storeId : warehouseId);
+                    }
+                    DBConnection.setVersion(s, index++, since);
+                    DBConnection.setVersion(s, index++, upTo);
+                }
+                try (ResultSet rs = s.executeQuery()) {
+                    while (rs.next()) {
+                        switch (rs.getString("kind")) {
+                            case "Order":
+                                orders.add(rs.getInt("id"));
+                                break;
+                            case "WarehouseOrder":
+                                warehouseOrders.add(rs.getInt("id"));
+                                break;
+                            case "Stock":
+                                stocks.add(rs.getInt("id"));
+                                break;
+                            default:
+                                reports.add(rs.getInt("id"));
+                                break;
+                        }
+                    }
+                }
+            }
+            return new ChangeSet(upTo, orders, warehouseOrders, stocks, reports);
+        } catch (SQLException e) {
+            throw new DataAccessException("Can't read the latest changes");
+        }
+    }
+}
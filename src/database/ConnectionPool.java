@@ -0,0 +1,109 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A fixed number of connections shared by many threads, for running the controllers behind a server.
+ * A thread borrows a connection for the work of one request, while it holds it every DB class uses it
+ * through {@link DBConnection#getDBConn()}. Threads wait when every connection is lent out, so the number
+ * of connections stays the same however many clients there are.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class ConnectionPool {
+    private final DBConnection db;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Connection> idle;
+
+    /**
+     * Opens all connections of the pool
+     *
+     * @param size the number of connections
+     * @throws DataAccessException when a connection can't be opened
+     */
+    public ConnectionPool(int size) throws DataAccessException {
+        db = DBConnection.getInstance();
+        idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            Connection connection = db.openConnection();
+            connections.add(connection);
+            idle.add(connection);
+        }
+    }
+
+    /**
+     * Lends a connection to the current thread, waiting for one when all are in use
+     *
+     * @throws DataAccessException when the thread is interrupted while waiting
+     */
+    public void borrow() throws DataAccessException {
+        try {
+            db.bind(idle.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for a connection");
+        }
+    }
+
+    /**
+     * Gives back the connection of the current thread, a transaction left open by a failed request is rolled back
+     */
+    public void release() {
+        Connection connection = db.getDBConn();
+        db.unbind();
+        if (!connections.contains(connection)) {
+            return;
+        }
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idle.add(connection);
+        } catch (SQLException e) {
+            // A broken connection is replaced, so the pool keeps its size
+            connections.remove(connection);
+            try {
+                Connection fresh = db.openConnection();
+                connections.add(fresh);
+                idle.add(fresh);
+            } catch (DataAccessException reopen) {
+                System.err.println("Connection pool lost a connection: " + reopen.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the number of open connections of the pool
+     */
+    public int size() {
+        return connections.size();
+    }
+
+    /**
+     * @return the number of connections lent out right now
+     */
+    public int inUse() {
+        return connections.size() - idle.size();
+    }
+
+    /**
+     * Closes every connection, the connections lent out are closed too
+     */
+    public void close() {
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Closing anyway
+            }
+        }
+        connections.clear();
+        idle.clear();
+    }
+}
@@ -0,0 +1,37 @@
+package database;
+
+import model.Consumption;
+import model.ConsumptionIndex;
+
+import java.util.List;
+
+/**
+ * Reads the history the consumption figures are worked out from, and keeps snapshots of the figures
+ *
+ * @see controller.ConsumptionController
+ */
+public interface ConsumptionDAO {
+
+    /**
+     * Puts the saved figures of a Store into the index
+     *
+     * @return false if there is no snapshot of the Store yet
+     */
+    boolean loadSnapshot(int storeId, ConsumptionIndex index) throws DataAccessException;
+
+    /**
+     * Replays every report and delivered order of a Store into the index, oldest first
+     */
+    void replayHistory(int storeId, ConsumptionIndex index) throws DataAccessException;
+
+    /**
+     * Reads the figures of a Store as they are saved, worked out from its history without saving them
+     * when there is no snapshot yet. For the processes which don't deliver the events.
+     */
+    List<Consumption> getConsumption(int storeId) throws DataAccessException;
+
+    /**
+     * Saves the given figures, replacing the saved figures of the same (Store, Product) pairs
+     */
+    void saveSnapshot(List<Consumption> figures) throws DataAccessException;
+}
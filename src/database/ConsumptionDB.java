@@ -0,0 +1,139 @@
+package database;
+
+import model.Consumption;
+import model.ConsumptionIndex;
+import model.Status;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * DAO class for the consumption figures of the Stores via ConsumptionDAO
+ */
+public class ConsumptionDB implements ConsumptionDAO {
+    DBConnection db = DBConnection.getInstance();
+
+    public ConsumptionDB() throws DataAccessException {
+        //This constructor is empty because it only exists to pass along DataAccessException from DBConnection.getInstance()
+    }
+
+    @Override
+    public boolean loadSnapshot(int storeId, ConsumptionIndex index) throws DataAccessException {
+        String query = "SELECT * FROM ConsumptionSnapshot WHERE storeID = ?;";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, storeId);
+            ResultSet rs = db.executeSelect(s);
+            boolean found = false;
+            while (rs.next()) {
+                Timestamp lastReport = rs.getTimestamp("lastReport");
+                index.restore(new Consumption(
+                        storeId,
+                        rs.getInt("productID"),
+                        rs.getInt("lastQuantity"),
+                        lastReport == null ? null : lastReport.toLocalDateTime(),
+                        rs.getInt("deliveredSince"),
+                        rs.getLong("consumed"),
+                        rs.getDouble("observedDays"),
+                        rs.getDouble("velocity")
+                ));
+                found = true;
+            }
+            return found;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Reports and deliveries come back in one stream ordered by date, archived deliveries count as well.
+     * A delivery at the same time as a report is replayed first, as the report already counts it.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public void replayHistory(int storeId, ConsumptionIndex index) throws DataAccessException {
+        String query = "SELECT 1 AS kind, r.date, i.productID, i.quantity FROM StoreStockReport r " +
+                "JOIN StoreStockReportItem i ON i.storeStockReportID = r.id WHERE r.storeID = ? " +
+                "UNION ALL " +
+                "SELECT 0 AS kind, d.date, oi.productID, oi.quantity FROM [Order] o " +
+                "JOIN (SELECT orderDate, orderID, MAX(date) AS date FROM OrderRevision WHERE status = " + Status.DELIVERED.code + " " +
+                "GROUP BY orderDate, orderID) d ON d.orderDate = o.date AND d.orderID = o.id " +
+                "JOIN OrderItem oi ON oi.orderDate = o.date AND oi.orderID = o.id WHERE o.storeID = ? AND o.status = " + Status.DELIVERED.code + " " +
+                "UNION ALL " +
+                "SELECT 0 AS kind, d.date, oi.productID, oi.quantity FROM OrderArchive o " +
+                "JOIN (SELECT orderDate, orderID, MAX(date) AS date FROM OrderRevisionArchive WHERE status = " + Status.DELIVERED.code + " " +
+                "GROUP BY orderDate, orderID) d ON d.orderDate = o.date AND d.orderID = o.id " +
+                "JOIN OrderItemArchive oi ON oi.orderDate = o.date AND oi.orderID = o.id WHERE o.storeID = ? AND o.status = " + Status.DELIVERED.code + " " +
+                "ORDER BY date, kind;";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, storeId);
+            s.setInt(2, storeId);
+            s.setInt(3, storeId);
+            ResultSet rs = db.executeSelect(s);
+            while (rs.next()) {
+                if (rs.getInt("kind") == 1) {
+                    index.report(storeId, rs.getInt("productID"), rs.getTimestamp("date").toLocalDateTime(), rs.getInt("quantity"));
+                } else {
+                    index.deliver(storeId, rs.getInt("productID"), rs.getInt("quantity"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Consumption> getConsumption(int storeId) throws DataAccessException {
+        ConsumptionIndex index = new ConsumptionIndex();
+        if (!loadSnapshot(storeId, index)) {
+            replayHistory(storeId, index);
+        }
+        return index.getByStore(storeId);
+    }
+
+    @Override
+    public void saveSnapshot(List<Consumption> figures) throws DataAccessException {
+        if (figures.isEmpty()) {
+            return;
+        }
+        String query = "MERGE ConsumptionSnapshot AS t " +
+                "USING (VALUES (?, ?, ?, ?, ?, ?, ?, ?)) " +
+                "AS s (storeID, productID, lastQuantity, lastReport, deliveredSince, consumed, observedDays, velocity) " +
+                "ON t.storeID = s.storeID AND t.productID = s.productID " +
+                "WHEN MATCHED THEN UPDATE SET t.lastQuantity = s.lastQuantity, t.lastReport = s.lastReport, " +
+                "t.deliveredSince = s.deliveredSince, t.consumed = s.consumed, t.observedDays = s.observedDays, " +
+                "t.velocity = s.velocity " +
+                "WHEN NOT MATCHED THEN INSERT (storeID, productID, lastQuantity, lastReport, deliveredSince, consumed, observedDays, velocity) " +
+                "VALUES (s.storeID, s.productID, s.lastQuantity, s.lastReport, s.deliveredSince, s.consumed, s.observedDays, s.velocity);";
+
+        db.setAutoCommit(false);
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            for (Consumption consumption : figures) {
+                s.setInt(1, consumption.getStoreId());
+                s.setInt(2, consumption.getProductId());
+                s.setInt(3, consumption.getLastQuantity());
+                if (consumption.getLastReport() == null) {
+                    s.setNull(4, Types.TIMESTAMP);
+                } else {
+                    s.setTimestamp(4, Timestamp.valueOf(consumption.getLastReport()));
+                }
+                s.setInt(5, consumption.getDeliveredSince());
+                s.setLong(6, consumption.getConsumed());
+                s.setDouble(7, consumption.getObservedDays());
+                s.setDouble(8, consumption.getVelocity());
+                s.addBatch();
+            }
+            s.executeBatch();
+            db.getDBConn().commit();
+            db.setAutoCommit(true);
+        } catch (SQLException | DataAccessException e) {
+            db.rollback();
+            db.setAutoCommit(true);
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+}
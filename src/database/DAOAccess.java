@@ -0,0 +1,350 @@
+package database;
+
+import model.*;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Decides which remote DAO calls a logged in Store or Warehouse may make, used by the DAOEndpoint.
+ * Only the calls the desktop application makes are allowed, every other call is refused.
+ * Calls naming a Store or Warehouse must name the caller, and calls on an order, warehouse order, report or reservation
+ * only reach the rows of the caller: reads of other rows return nothing, writes to them are refused.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+class DAOAccess {
+    /**
+     * Makes one call on behalf of a user
+     */
+    private interface Rule {
+        Object apply(User user, Object[] args, Call call) throws DataAccessException;
+    }
+
+    private interface Call {
+        Object run(Object[] args) throws DataAccessException;
+    }
+
+    private final Map<Class<?>, Object> implementations;
+    // Interface and signature of a method -> its rule
+    private final Map<String, Rule> rules = new HashMap<>();
+
+    DAOAccess(Map<Class<?>, Object> implementations) {
+        this.implementations = implementations;
+        Rule anyone = (user, args, call) -> call.run(args);
+        Rule self = (user, args, call) -> {
+            if (!isSelf(user, args[0])) {
+                throw refused();
+            }
+            return call.run(args);
+        };
+
+        allow(OrderDAO.class, "create", (user, args, call) -> {
+            if (!(args[0] instanceof Order) || !isSelf(user, ((Order) args[0]).getStore())) {
+                throw refused();
+            }
+            return call.run(args);
+        }, Object.class);
+        allow(OrderDAO.class, "selectByID", (user, args, call) -> ownOrder(user, call.run(args)), int.class);
+        allow(OrderDAO.class, "selectByID", (user, args, call) -> ownOrder(user, call.run(args)), int.class, boolean.class);
+        allow(OrderDAO.class, "update", (user, args, call) -> {
+            if (!(args[0] instanceof Order)) {
+                throw refused();
+            }
+            Order order = (Order) args[0];
+            Order current = ownOrder(user, dao(OrderDAO.class).selectByID(order.getId()));
+            if (current == null || !sameUser(current.getStore(), order.getStore())
+                    || !sameUser(current.getWarehouse(), order.getWarehouse()) || !allowedChange(user, current, order)) {
+                throw refused();
+            }
+            return call.run(args);
+        }, Object.class);
+        allow(OrderDAO.class, "getOrders", self, Warehouse.class);
+        allow(OrderDAO.class, "getOrders", self, Store.class);
+        allow(OrderDAO.class, "getOrderSummaries", self, User.class);
+        allow(OrderDAO.class, "getOrderSummaries", self, User.class, List.class);
+        allow(OrderDAO.class, "getOrderSummaries", self, User.class, boolean.class);
+        allow(OrderDAO.class, "getOrderSummaries", self, User.class, java.time.LocalDateTime.class,
+                java.time.LocalDateTime.class, boolean.class);
+        allow(OrderDAO.class, "getOrdersAmount", self, User.class);
+        allow(OrderDAO.class, "getPendingOrdersAmount", self, User.class);
+        allow(OrderDAO.class, "getOrderStatus", (user, args, call) ->
+                ownOrderIds(user, List.of((Integer) args[0])).isEmpty() ? null : call.run(args), int.class);
+        allow(OrderDAO.class, "getOrderStatuses", (user, args, call) ->
+                call.run(new Object[]{ownOrderIds(user, integers(args[0]))}), List.class);
+        allow(OrderDAO.class, "updateOrderStatuses", (user, args, call) -> {
+            if (!(user instanceof Warehouse) || !(args[0] instanceof Map)) {
+                throw refused();
+            }
+            // Orders of other warehouses are left alone like orders which changed in the meantime
+            Map<Integer, Status> orders = new HashMap<>();
+            Map<?, ?> requested = (Map<?, ?>) args[0];
+            for (Integer id : ownOrderIds(user, integers(new ArrayList<>(requested.keySet())))) {
+                orders.put(id, (Status) requested.get(id));
+            }
+            return call.run(new Object[]{orders, args[1], args[2]});
+        }, Map.class, Status.class, String.class);
+
+        allow(StockDAO.class, "update", (user, args, call) -> {
+            if (!(args[0] instanceof Stock) || !isSelf(user, ((Stock) args[0]).getWarehouse())) {
+                throw refused();
+            }
+            return call.run(args);
+        }, Object.class);
+        allow(StockDAO.class, "getStocks", self, Warehouse.class);
+        allow(StockDAO.class, "getStocks", self, Warehouse.class, List.class);
+        allow(StockDAO.class, "getStock", (user, args, call) -> {
+            if (!(user instanceof Warehouse) || user.getId() != (Integer) args[0]) {
+                throw refused();
+            }
+            return call.run(args);
+        }, int.class, int.class);
+        allow(StockDAO.class, "getStocksAmount", self, Warehouse.class);
+        allow(StockDAO.class, "getStocksBelowMinQuantityAmount", self, Warehouse.class);
+        // Stores ask for the figures of the warehouse they order from
+        allow(StockDAO.class, "getAvailability", anyone, Warehouse.class);
+        allow(StockDAO.class, "getAvailability", anyone, Warehouse.class, ChangeSet.class);
+
+        Rule warehouses = (user, args, call) -> {
+            if (!(user instanceof Warehouse)) {
+                throw refused();
+            }
+            return call.run(args);
+        };
+        allow(ProductDAO.class, "selectByID", anyone, int.class);
+        allow(ProductDAO.class, "all", anyone);
+        allow(ProductDAO.class, "getProducts", anyone, Warehouse.class);
+        allow(ProductDAO.class, "getProductIds", anyone, Warehouse.class);
+        allow(ProductDAO.class, "checkAvailability", anyone, Warehouse.class, Product.class, int.class);
+        allow(ProductDAO.class, "getShortfalls", anyone, Warehouse.class, Map.class);
+        allow(ProductDAO.class, "create", warehouses, Object.class);
+        allow(ProductDAO.class, "update", warehouses, Object.class);
+        allow(ProductDAO.class, "delete", warehouses, Object.class);
+
+        allow(WarehouseOrderDAO.class, "create", (user, args, call) -> {
+            if (!(args[0] instanceof WarehouseOrder) || !isSelf(user, ((WarehouseOrder) args[0]).getWarehouse())) {
+                throw refused();
+            }
+            return call.run(args);
+        }, Object.class);
+        allow(WarehouseOrderDAO.class, "selectByID", (user, args, call) -> ownWarehouseOrder(user, call.run(args)), int.class);
+        allow(WarehouseOrderDAO.class, "update", (user, args, call) -> {
+            if (!(args[0] instanceof WarehouseOrder)) {
+                throw refused();
+            }
+            WarehouseOrder warehouseOrder = (WarehouseOrder) args[0];
+            WarehouseOrder current = ownWarehouseOrder(user, dao(WarehouseOrderDAO.class).selectByID(warehouseOrder.getId()));
+            if (current == null || !sameUser(current.getWarehouse(), warehouseOrder.getWarehouse())) {
+                throw refused();
+            }
+            return call.run(args);
+        }, Object.class);
+        allow(WarehouseOrderDAO.class, "getWarehouseOrders", self, Warehouse.class);
+        allow(WarehouseOrderDAO.class, "getWarehouseOrderSummaries", self, Warehouse.class);
+        allow(WarehouseOrderDAO.class, "getWarehouseOrderStatus", (user, args, call) ->
+                ownWarehouseOrder(user, dao(WarehouseOrderDAO.class).selectByID((Integer) args[0])) == null ? null : call.run(args),
+                int.class);
+
+        allow(StoreStockReportDAO.class, "create", (user, args, call) -> {
+            if (!(args[0] instanceof StoreStockReport) || !isSelf(user, ((StoreStockReport) args[0]).getStore())) {
+                throw refused();
+            }
+            return call.run(args);
+        }, Object.class);
+        allow(StoreStockReportDAO.class, "selectByID", (user, args, call) -> {
+            Object report = call.run(args);
+            return report instanceof StoreStockReport && isSelf(user, ((StoreStockReport) report).getStore()) ? report : null;
+        }, int.class);
+        allow(StoreStockReportDAO.class, "getByStore", self, Store.class);
+
+        allow(StockReservationDAO.class, "reserve", (user, args, call) -> {
+            if (!(args[0] instanceof StockReservation) || !isSelf(user, ((StockReservation) args[0]).getStore())) {
+                throw refused();
+            }
+            return call.run(args);
+        }, StockReservation.class, int.class);
+        Rule ownReservation = (user, args, call) -> {
+            if (!(args[0] instanceof StockReservation) || ownReservation(user,
+                    dao(StockReservationDAO.class).selectByID(((StockReservation) args[0]).getId())) == null) {
+                throw refused();
+            }
+            return call.run(args);
+        };
+        allow(StockReservationDAO.class, "resize", ownReservation, StockReservation.class, int.class, int.class);
+        allow(StockReservationDAO.class, "delete", ownReservation, Object.class);
+        allow(StockReservationDAO.class, "selectByID", (user, args, call) -> ownReservation(user, call.run(args)), int.class);
+        allow(StockReservationDAO.class, "deleteExpired", anyone);
+
+        // Orders move the stock when they are saved, so only warehouses append the movements of their own stock
+        allow(StockMovementDAO.class, "append", (user, args, call) -> {
+            for (Object movement : (List<?>) args[0]) {
+                if (!ownMovement(user, (StockMovement) movement)) {
+                    throw refused();
+                }
+            }
+            return call.run(args);
+        }, List.class);
+        allow(StockMovementDAO.class, "correct", (user, args, call) -> {
+            if (!(user instanceof Warehouse) || user.getId() != (Integer) args[0]) {
+                throw refused();
+            }
+            return call.run(args);
+        }, int.class, int.class, int.class);
+
+        // Warehouses look at the consumption of every store, a store only at its own
+        allow(ConsumptionDAO.class, "getConsumption", (user, args, call) -> {
+            if (!(user instanceof Warehouse) && user.getId() != (Integer) args[0]) {
+                throw refused();
+            }
+            return call.run(args);
+        }, int.class);
+
+        allow(LoginDAO.class, "getByCredentials", anyone, String.class, String.class);
+        allow(CatalogDAO.class, "getChanges", anyone, long.class);
+        // Stores follow the changes of the warehouses they order from, for their available-to-promise figures
+        allow(ChangeFeedDAO.class, "getChanges", (user, args, call) -> {
+            if (!(args[0] instanceof Warehouse) && !isSelf(user, args[0])) {
+                throw refused();
+            }
+            return call.run(args);
+        }, User.class, long.class);
+    }
+
+    /**
+     * Makes a call if the user may make it
+     *
+     * @throws DataAccessException when the call isn't allowed or fails
+     */
+    Object call(User user, Class<?> daoInterface, Method method, Object[] args) throws DataAccessException {
+        Rule rule = rules.get(key(daoInterface, method));
+        if (rule == null || user == null) {
+            throw new DataAccessException(daoInterface.getSimpleName() + "." + method.getName() + " can't be called remotely");
+        }
+        Object implementation = implementations.get(daoInterface);
+        if (implementation == null) {
+            throw new DataAccessException(daoInterface.getSimpleName() + " is not available");
+        }
+        try {
+            return rule.apply(user, args, changedArgs -> DAOEndpoint.invoke(method, implementation, changedArgs));
+        } catch (ClassCastException | NullPointerException e) {
+            // Arguments of the wrong shape
+            throw refused();
+        }
+    }
+
+    private void allow(Class<?> daoInterface, String name, Rule rule, Class<?>... parameterTypes) {
+        try {
+            rules.put(key(daoInterface, daoInterface.getMethod(name, parameterTypes)), rule);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(daoInterface.getSimpleName() + " has no method " + name, e);
+        }
+    }
+
+    private static String key(Class<?> daoInterface, Method method) {
+        return daoInterface.getName() + "." + RemoteDAO.signature(method);
+    }
+
+    private <T> T dao(Class<T> daoInterface) throws DataAccessException {
+        Object implementation = implementations.get(daoInterface);
+        if (implementation == null) {
+            throw new DataAccessException(daoInterface.getSimpleName() + " is not available");
+        }
+        return daoInterface.cast(implementation);
+    }
+
+    private List<Integer> ownOrderIds(User user, List<Integer> orderIds) throws DataAccessException {
+        List<Integer> own = new ArrayList<>();
+        for (OrderSummary summary : dao(OrderDAO.class).getOrderSummaries(user, orderIds)) {
+            own.add(summary.getId());
+        }
+        return own;
+    }
+
+    private static Order ownOrder(User user, Object order) {
+        if (order instanceof Order && (isSelf(user, ((Order) order).getStore()) || isSelf(user, ((Order) order).getWarehouse()))) {
+            return (Order) order;
+        }
+        return null;
+    }
+
+    private static WarehouseOrder ownWarehouseOrder(User user, Object warehouseOrder) {
+        if (warehouseOrder instanceof WarehouseOrder && isSelf(user, ((WarehouseOrder) warehouseOrder).getWarehouse())) {
+            return (WarehouseOrder) warehouseOrder;
+        }
+        return null;
+    }
+
+    private static StockReservation ownReservation(User user, Object reservation) {
+        if (reservation instanceof StockReservation && isSelf(user, ((StockReservation) reservation).getStore())) {
+            return (StockReservation) reservation;
+        }
+        return null;
+    }
+
+    /**
+     * A warehouse moves its own stock, but not for orders, whose movements the DB works out when they are saved
+     */
+    private static boolean ownMovement(User user, StockMovement movement) {
+        return user instanceof Warehouse && movement.getWarehouseId() == user.getId()
+                && movement.getReason() != MovementReason.ORDER_APPROVED
+                && movement.getReason() != MovementReason.ORDER_REJECTED
+                && movement.getReason() != MovementReason.ORDER_REVISION;
+    }
+
+    /**
+     * The warehouse moves its orders along the allowed status transitions.
+     * A store only edits its order while it is PENDING, or confirms the delivery of an order IN_TRANSIT,
+     * where the quantities may only go down for the missing items.
+     */
+    private static boolean allowedChange(User user, Order current, Order order) {
+        for (OrderItem item : order.getItems()) {
+            if (item.getQuantity() < 0) {
+                return false;
+            }
+        }
+        Status from = current.getStatus();
+        Status to = order.getStatus();
+        if (user instanceof Warehouse) {
+            return from == to || from.canTransitionTo(to);
+        }
+        if (from == Status.PENDING && to == Status.PENDING) {
+            return true;
+        }
+        if (from != Status.IN_TRANSIT || to != Status.DELIVERED) {
+            return false;
+        }
+        for (OrderItem item : order.getItems()) {
+            OrderItem stored = current.getItem(item.getProduct());
+            if (stored != null && item.getQuantity() > stored.getQuantity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Integer> integers(Object list) throws DataAccessException {
+        if (!(list instanceof List)) {
+            throw refused();
+        }
+        List<Integer> integers = new ArrayList<>();
+        for (Object element : (List<?>) list) {
+            integers.add((Integer) element);
+        }
+        return integers;
+    }
+
+    /**
+     * @return true if the value is the Store or Warehouse of the user
+     */
+    private static boolean isSelf(User user, Object value) {
+        return value instanceof User && value.getClass() == user.getClass() && ((User) value).getId() == user.getId();
+    }
+
+    private static boolean sameUser(User a, User b) {
+        return a != null && b != null && a.getClass() == b.getClass() && a.getId() == b.getId();
+    }
+
+    private static DataAccessException refused() {
+        return new DataAccessException("Not allowed for this user");
+    }
+}
@@ -0,0 +1,101 @@
+package database;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import model.User;
+
+/**
+ * The server side of the remote DAOs: decodes a batch of calls, makes them on the real DAOs
+ * and encodes their results in the same order.
+ * A failed call only fails itself, the other calls of the batch still run.
+ * Every call is checked by the DAOAccess rules against the logged in user first.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class DAOEndpoint {
+    private final DAOAccess access;
+
+    /**
+     * @param implementations the DAO to call for every interface, an interface without one fails its calls
+     */
+    public DAOEndpoint(Map<Class<?>, Object> implementations) {
+        this.access = new DAOAccess(new HashMap<>(implementations));
+    }
+
+    /**
+     * @return an endpoint calling the JDBC DAOs
+     * @throws DataAccessException when the DAOs can't connect to the database
+     */
+    public static DAOEndpoint jdbc() throws DataAccessException {
+        Map<Class<?>, Object> implementations = new HashMap<>();
+        implementations.put(OrderDAO.class, new OrderDB());
+        implementations.put(StockDAO.class, new StockDB());
+        implementations.put(ProductDAO.class, new ProductDB());
+        implementations.put(WarehouseOrderDAO.class, new WarehouseOrderDB());
+        implementations.put(StoreStockReportDAO.class, new StoreStockReportDB());
+        implementations.put(LoginDAO.class, new LoginDB());
+        implementations.put(CatalogDAO.class, new CatalogDB());
+        implementations.put(ChangeFeedDAO.class, new ChangeFeedDB());
+        implementations.put(StockReservationDAO.class, new StockReservationDB());
+        implementations.put(StockMovementDAO.class, new StockMovementDB());
+        implementations.put(ConsumptionDAO.class, new ConsumptionDB());
+        return new DAOEndpoint(implementations);
+    }
+
+    /**
+     * Makes the calls of one batch
+     *
+     * @param user    the logged in Store or Warehouse making the calls
+     * @param request the encoded batch
+     * @return the encoded results
+     * @throws IOException when the batch can't be decoded
+     */
+    public byte[] handle(User user, byte[] request) throws IOException {
+        ModelCodec.Reader reader = new ModelCodec.Reader(new DataInputStream(new ByteArrayInputStream(request)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ModelCodec.Writer writer = new ModelCodec.Writer(out);
+
+        int count = reader.readInt();
+        writer.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            int number = reader.readInt();
+            Object[] args = new Object[reader.readInt()];
+            for (int j = 0; j < args.length; j++) {
+                args[j] = reader.read();
+            }
+            if (number < 0 || number >= RemoteDAO.CALL_METHODS.size()) {
+                throw new IOException("Unknown method " + number);
+            }
+            Method method = RemoteDAO.CALL_METHODS.get(number);
+            try {
+                Object result = access.call(user, RemoteDAO.CALL_INTERFACES.get(number), method, args);
+                writer.writeInt(RemoteBatcher.OK);
+                writer.write(result);
+                RemoteBatcher.writeChanges(writer, args);
+            } catch (DataAccessException e) {
+                writer.writeInt(e instanceof VersionConflictException ? RemoteBatcher.CONFLICT : RemoteBatcher.FAILED);
+                writer.write(e.getMessage());
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static Object invoke(Method method, Object implementation, Object[] args) throws DataAccessException {
+        try {
+            return method.invoke(implementation, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof DataAccessException) {
+                throw (DataAccessException) e.getCause();
+            }
+            throw new DataAccessException(method.getName() + " failed\n" + e.getCause());
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            throw new DataAccessException("Can't call " + method.getName() + "\n" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Gives the DAOs the controllers and windows work with: the JDBC DAOs by default,
+ * or the remote DAOs talking to an order server once useRemote was called.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public final class DAOFactory {
+    // How long the first remote call waits for other calls to send with it
+    private static final long BATCH_WINDOW_MILLIS = 2;
+    private static final ExecutorService loaders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "remote-dao-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile RemoteBatcher batcher;
+
+    private DAOFactory() {/* Private constructor to hide the implicit public one */}
+
+    /**
+     * A DAO call which can be made together with other calls
+     */
+    public interface Load<T> {
+        T run() throws DataAccessException;
+    }
+
+    /**
+     * Sends the calls of the DAOs to an order server from now on
+     *
+     * @param transport carries the calls to the server, null goes back to the database
+     */
+    public static void useRemote(RemoteTransport transport) {
+        batcher = transport == null ? null : new RemoteBatcher(transport, BATCH_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean isRemote() {
+        return batcher != null;
+    }
+
+    /**
+     * Sets the name and password the remote calls are made with, nothing happens with the database
+     */
+    public static void setCredentials(String username, String password) {
+        RemoteBatcher current = batcher;
+        if (current != null) {
+            current.getTransport().setCredentials(username, password);
+        }
+    }
+
+    public static OrderDAO orderDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(OrderDAO.class, current) : new OrderDB();
+    }
+
+    public static StockDAO stockDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(StockDAO.class, current) : new StockDB();
+    }
+
+    public static ProductDAO productDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(ProductDAO.class, current) : new ProductDB();
+    }
+
+    public static WarehouseOrderDAO warehouseOrderDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(WarehouseOrderDAO.class, current) : new WarehouseOrderDB();
+    }
+
+    public static StoreStockReportDAO storeStockReportDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(StoreStockReportDAO.class, current) : new StoreStockReportDB();
+    }
+
+    public static LoginDAO loginDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(LoginDAO.class, current) : new LoginDB();
+    }
+
+    public static CatalogDAO catalogDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(CatalogDAO.class, current) : new CatalogDB();
+    }
+
+    public static ChangeFeedDAO changeFeedDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(ChangeFeedDAO.class, current) : new ChangeFeedDB();
+    }
+
+    public static StockReservationDAO stockReservationDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(StockReservationDAO.class, current) : new StockReservationDB();
+    }
+
+    public static StockMovementDAO stockMovementDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(StockMovementDAO.class, current) : new StockMovementDB();
+    }
+
+    public static ConsumptionDAO consumptionDAO() throws DataAccessException {
+        RemoteBatcher current = batcher;
+        return current != null ? RemoteDAO.create(ConsumptionDAO.class, current) : new ConsumptionDB();
+    }
+
+    /**
+     * Makes independent calls, at the same time when they are remote so they are sent in one request,
+     * one after the other with the database
+     *
+     * @param loads the calls
+     * @return the results in the order of the calls
+     * @throws DataAccessException the first exception thrown by a call
+     */
+    @SafeVarargs
+    public static <T> List<T> together(Load<? extends T>... loads) throws DataAccessException {
+        List<T> results = new ArrayList<>(loads.length);
+        if (!isRemote()) {
+            for (Load<? extends T> load : loads) {
+                results.add(load.run());
+            }
+            return results;
+        }
+
+        List<Future<? extends T>> futures = new ArrayList<>(loads.length);
+        for (Load<? extends T> load : loads) {
+            futures.add(loaders.submit(load::run));
+        }
+        for (Future<? extends T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof DataAccessException) {
+                    throw (DataAccessException) e.getCause();
+                }
+                throw new DataAccessException(String.valueOf(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataAccessException("Interrupted while loading");
+            }
+        }
+        return results;
+    }
+}
@@ -1,6 +1,9 @@
 package database;
 
+import model.Status;
+
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.sql.*;
 import java.util.Properties;
 
@@ -8,8 +11,18 @@ import java.util.Properties;
  * This class handles the database connection via a JDBC driver
  */
 public class DBConnection {
+    // SQL Server allows 2100 parameters per statement, we stay well below it
+    static final int MAX_PARAMETERS = 1000;
+    // The codes of the statuses of closed orders, for the IN lists of the queries
+    static final String CLOSED_STATUSES = Status.DELIVERED.code + ", " + Status.REJECTED.code;
+    // Every connection of this process tells SQL Server this name, so its sessions can be told apart from the others
+    private static final String APPLICATION_NAME = "TEVOS-" + ProcessHandle.current().pid();
+
     private static DBConnection instance;
     private Connection connection;
+    // Connection lent to the current thread by a ConnectionPool, used instead of the main connection
+    private final ThreadLocal<Connection> borrowed = new ThreadLocal<>();
+    private String jdbcUrl;
     private String jdbcHostname;
     private String jdbcDatabase;
     private String jdbcUsername;
@@ -52,8 +65,9 @@ public class DBConnection {
                     "A 'config.properties' file has been created. Please set the database credentials and try again.");
             System.exit(-1);
         }
+        jdbcUrl = jdbc_url + "applicationName=" + APPLICATION_NAME + ";";
         try {
-            connection = DriverManager.getConnection(jdbc_url);
+            connection = DriverManager.getConnection(jdbcUrl);
             connection.setAutoCommit(true);
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -86,13 +100,73 @@ public class DBConnection {
         instance = null;
     }
 
+    /**
+     * @return the connection lent to the current thread by a ConnectionPool, otherwise the main connection
+     */
     public Connection getDBConn() {
-        return connection;
+        Connection own = borrowed.get();
+        return own != null ? own : connection;
+    }
+
+    /**
+     * Makes every DB class running on the current thread use the given connection, until it's unbound
+     */
+    void bind(Connection own) {
+        borrowed.set(own);
+    }
+
+    void unbind() {
+        borrowed.remove();
+    }
+
+    /**
+     * Opens a separate connection to the same database, for background work which must not share the transactions
+     * of the main connection. The caller has to close it.
+     *
+     * @return a new connection in auto-commit mode
+     * @throws DataAccessException when the connection can't be opened
+     */
+    public Connection openConnection() throws DataAccessException {
+        try {
+            return DriverManager.getConnection(jdbcUrl);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Counts the sessions SQL Server has open for the connections of this process.
+     * Without the VIEW SERVER STATE permission SQL Server only shows the session asking.
+     *
+     * @throws DataAccessException when the sessions can't be read
+     */
+    public int countSessions() throws DataAccessException {
+        try (PreparedStatement s = getDBConn().prepareStatement("SELECT COUNT(*) AS sessions FROM sys.dm_exec_sessions WHERE program_name = ?;")) {
+            s.setString(1, APPLICATION_NAME);
+            ResultSet rs = s.executeQuery();
+            rs.next();
+            return rs.getInt("sessions");
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
     }
 
     public void setAutoCommit(boolean autoCommit) throws DataAccessException {
         try {
-            this.connection.setAutoCommit(autoCommit);
+            getDBConn().setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Rolls back the current transaction, used when a multi-statement write fails half way through
+     *
+     * @throws DataAccessException when the rollback itself fails
+     */
+    public void rollback() throws DataAccessException {
+        try {
+            getDBConn().rollback();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -171,6 +245,130 @@ public class DBConnection {
 
     // HERE STARTS THE QUERY EXECUTION METHODS
 
+    /**
+     * Creates a comma separated list of question marks for an IN clause
+     *
+     * @param count the number of parameters
+     * @return a String like "?, ?, ?"
+     */
+    static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append("?");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return "(?, ?), (?, ?)" for 2 rows of 2 columns
+     */
+    static String valueRows(int rows, int columns) {
+        String row = "(" + placeholders(columns) + ")";
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            builder.append(i == 0 ? row : ", " + row);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Sets the parameters of one row of a multi-row statement
+     */
+    interface RowBinder {
+        void bind(PreparedStatement s, int firstIndex, int row) throws SQLException;
+    }
+
+    /**
+     * Writes rows with multi-row VALUES statements, for example "INSERT INTO T (a, b) VALUES ".
+     * Every full chunk uses the same statement, so they are sent as one JDBC batch, the remaining rows go in one
+     * last statement. The statement may go on after the VALUES list with the suffix.
+     *
+     * @param connection the connection, the caller handles the transaction
+     * @param prefix     the statement up to the VALUES list
+     * @param suffix     the rest of the statement after the VALUES list
+     * @param columns    the number of parameters of a row
+     * @param count      the number of rows
+     * @param binder     sets the parameters of a row
+     */
+    static void writeRows(Connection connection, String prefix, String suffix, int columns, int count, RowBinder binder)
+            throws SQLException {
+        int chunkSize = MAX_PARAMETERS / columns;
+        int fullChunks = count / chunkSize;
+        if (fullChunks > 0) {
+            try (PreparedStatement s = connection.prepareStatement(prefix + valueRows(chunkSize, columns) + suffix)) {
+                for (int chunk = 0; chunk < fullChunks; chunk++) {
+                    for (int i = 0; i < chunkSize; i++) {
+                        binder.bind(s, i * columns + 1, chunk * chunkSize + i);
+                    }
+                    s.addBatch();
+                }
+                s.executeBatch();
+            }
+        }
+        int rest = count - fullChunks * chunkSize;
+        if (rest > 0) {
+            try (PreparedStatement s = connection.prepareStatement(prefix + valueRows(rest, columns) + suffix)) {
+                for (int i = 0; i < rest; i++) {
+                    binder.bind(s, i * columns + 1, fullChunks * chunkSize + i);
+                }
+                s.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Reads the rowversion column "version" of the current row as a number
+     */
+    static long getVersion(ResultSet rs) throws SQLException {
+        byte[] version = rs.getBytes("version");
+        return version == null ? 0 : ByteBuffer.wrap(version).getLong();
+    }
+
+    /**
+     * Sets a parameter compared with a rowversion column
+     */
+    static void setVersion(PreparedStatement s, int index, long version) throws SQLException {
+        s.setBytes(index, ByteBuffer.allocate(Long.BYTES).putLong(version).array());
+    }
+
+    /**
+     * Reads a status column stored as the code of the Status
+     *
+     * @return the Status or null when the column is NULL
+     */
+    static Status getStatus(ResultSet rs, String column) throws SQLException {
+        return Status.of(rs.getInt(column));
+    }
+
+    /**
+     * Sets a parameter compared with or written to a status column, null writes NULL
+     */
+    static void setStatus(PreparedStatement s, int index, Status status) throws SQLException {
+        if (status == null) {
+            s.setNull(index, Types.TINYINT);
+        } else {
+            s.setByte(index, (byte) status.code);
+        }
+    }
+
+    /**
+     * Reads the current version of a row by its id, inside the running transaction
+     *
+     * @param table the table, never taken from user input
+     * @return the version or null when there is no such row
+     */
+    Long rowVersion(String table, int id) throws SQLException {
+        try (PreparedStatement s = getDBConn().prepareStatement("SELECT version FROM " + table + " WHERE id=?;")) {
+            s.setInt(1, id);
+            try (ResultSet rs = s.executeQuery()) {
+                return rs.next() ? getVersion(rs) : null;
+            }
+        }
+    }
+
     /**
      * Executes a given select query on the database
      *
@@ -189,6 +387,49 @@ public class DBConnection {
         return rs;
     }
 
+    /**
+     * Executes a statement made of several SELECT queries, so their results come back in one round trip
+     *
+     * @param query is a valid SQL PreparedStatement containing one or more SELECT queries
+     * @return the ResultSet of the first query, the following ones are read with nextResultSet()
+     * @throws DataAccessException when there is a problem connection to the database or the given query is not valid
+     */
+    public ResultSet executeMultiSelect(PreparedStatement query) throws DataAccessException {
+        try {
+            boolean isResultSet = query.execute();
+            // Skip update counts, only the result sets are interesting
+            while (!isResultSet && query.getUpdateCount() != -1) {
+                isResultSet = query.getMoreResults();
+            }
+            return query.getResultSet();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Moves to the result of the next SELECT query of a statement run by executeMultiSelect(),
+     * which closes the ResultSet read before
+     *
+     * @param query the PreparedStatement given to executeMultiSelect()
+     * @return the next ResultSet
+     * @throws DataAccessException when there are no more result sets or the connection fails
+     */
+    public ResultSet nextResultSet(PreparedStatement query) throws DataAccessException {
+        try {
+            boolean isResultSet = query.getMoreResults();
+            while (!isResultSet && query.getUpdateCount() != -1) {
+                isResultSet = query.getMoreResults();
+            }
+            if (!isResultSet) {
+                throw new DataAccessException("The statement returned fewer result sets than expected.");
+            }
+            return query.getResultSet();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
     /**
      * Executes a given update or delete query on the database
      *
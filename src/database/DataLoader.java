@@ -0,0 +1,64 @@
+package database;
+
+import model.*;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Batches the ID lookups of the shared entities while a DAO reads a list of rows.
+ * Ask for the related entities of every row first, attach them with {@code thenAccept}, then call {@link #dispatch()}
+ * once. Every entity type is loaded with one query instead of one query per row:
+ * <pre>
+ * Order order = new Order(id, null, null, date, status);
+ * loader.store(rs.getInt("storeID")).thenAccept(order::setStore);
+ * ...
+ * loader.dispatch();
+ * </pre>
+ */
+public class DataLoader {
+    private final BatchLoader<Address> addresses = new BatchLoader<>("Address", Mappers.ADDRESS);
+    private final BatchLoader<Product> products = new BatchLoader<>("Product", Mappers.PRODUCT);
+    private final BatchLoader<Store> stores = new BatchLoader<>("Store", Mappers.STORE,
+            (store, row) -> address(row.getInt("addressID")).thenAccept(store::setAddress));
+    private final BatchLoader<Warehouse> warehouses = new BatchLoader<>("Warehouse", Mappers.WAREHOUSE,
+            (warehouse, row) -> address(row.getInt("addressID")).thenAccept(warehouse::setAddress));
+    private final BatchLoader<Provider> providers = new BatchLoader<>("Provider", Mappers.PROVIDER,
+            (provider, row) -> address(row.getInt("addressID")).thenAccept(provider::setAddress));
+
+    public CompletableFuture<Address> address(int id) {
+        return addresses.load(id);
+    }
+
+    public CompletableFuture<Product> product(int id) {
+        return products.load(id);
+    }
+
+    public CompletableFuture<Store> store(int id) {
+        return stores.load(id);
+    }
+
+    public CompletableFuture<Warehouse> warehouse(int id) {
+        return warehouses.load(id);
+    }
+
+    public CompletableFuture<Provider> provider(int id) {
+        return providers.load(id);
+    }
+
+    /**
+     * Loads everything asked for so far. Stores, warehouses and providers ask for their addresses while they are read,
+     * so addresses are loaded after them.
+     *
+     * @throws DataAccessException when one of the queries fails
+     */
+    public void dispatch() throws DataAccessException {
+        do {
+            stores.dispatch();
+            warehouses.dispatch();
+            providers.dispatch();
+            products.dispatch();
+            addresses.dispatch();
+        } while (stores.hasPending() || warehouses.hasPending() || providers.hasPending()
+                || products.hasPending() || addresses.hasPending());
+    }
+}
@@ -0,0 +1,56 @@
+package database;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Sends the encoded DAO calls to the /dao resource of an order server
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class HttpTransport implements RemoteTransport {
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final URI uri;
+    private volatile String authorization;
+
+    /**
+     * @param baseUrl the address of the order server, for example "http://localhost:8080"
+     */
+    public HttpTransport(String baseUrl) {
+        this.uri = URI.create(baseUrl.replaceAll("/+$", "") + "/dao");
+    }
+
+    @Override
+    public void setCredentials(String username, String password) {
+        authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public byte[] exchange(byte[] request) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(request));
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        try {
+            HttpResponse<byte[]> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                // Errors come back as the JSON of the server, which is readable enough to show as it is
+                throw new IOException(new String(response.body(), StandardCharsets.UTF_8));
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the order server");
+        }
+    }
+}
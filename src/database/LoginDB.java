@@ -44,26 +44,20 @@ public class LoginDB implements LoginDAO {
             ResultSet rs = db.executeSelect(s);
             AddressDB addressDB = new AddressDB();
             if (rs.next()) {
-                return new Store(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("password"),
-                        rs.getString("email"),
-                        addressDB.selectByID(rs.getInt("addressID"))
-                );
+                RowMapper.Reader<Store> reader = Mappers.STORE.reader(rs);
+                Store store = reader.read();
+                store.setAddress(addressDB.selectByID(reader.row().getInt("addressID")));
+                return store;
             } else {
                 try (PreparedStatement ps = db.getDBConn().prepareStatement(queryWarehouse)) {
                     ps.setString(1, username);
                     ps.setString(2, password);
                     rs = db.executeSelect(ps);
                     if (rs.next()) {
-                        return new Warehouse(
-                                rs.getInt("id"),
-                                rs.getString("name"),
-                                rs.getString("password"),
-                                rs.getString("email"),
-                                addressDB.selectByID(rs.getInt("addressID"))
-                        );
+                        RowMapper.Reader<Warehouse> reader = Mappers.WAREHOUSE.reader(rs);
+                        Warehouse warehouse = reader.read();
+                        warehouse.setAddress(addressDB.selectByID(reader.row().getInt("addressID")));
+                        return warehouse;
                     }
                 }
                 return null;
@@ -0,0 +1,37 @@
+package database;
+
+import model.User;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passes the encoded calls straight to a DAOEndpoint in the same process.
+ * The calls still go through the encoding and the batching, so tests can use it in place of the order service,
+ * with the JDBC DAOs or with stand-ins behind the endpoint. The calls are made as the given user.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class LoopbackTransport implements RemoteTransport {
+    private final DAOEndpoint endpoint;
+    private final User user;
+    private final AtomicInteger roundTrips = new AtomicInteger();
+
+    public LoopbackTransport(DAOEndpoint endpoint, User user) {
+        this.endpoint = endpoint;
+        this.user = user;
+    }
+
+    @Override
+    public byte[] exchange(byte[] request) throws IOException {
+        roundTrips.incrementAndGet();
+        return endpoint.handle(user, request);
+    }
+
+    /**
+     * @return the number of exchanges so far, one for every batch of calls
+     */
+    public int getRoundTrips() {
+        return roundTrips.get();
+    }
+}
@@ -0,0 +1,64 @@
+package database;
+
+import model.*;
+
+import java.sql.SQLException;
+
+/**
+ * The one RowMapper of every entity, shared by all DB classes.
+ * Stores, Warehouses and Providers are built without their Address, the caller loads it from the addressID column.
+ */
+final class Mappers {
+    static final RowMapper<Address> ADDRESS = new RowMapper<>(
+            "id", "number", "supplement", "street", "city", "zipcode", "region", "country") {
+        @Override
+        protected Address map(Row row) throws SQLException {
+            return new Address(row.getInt(0), row.getString(1), row.getString(2), row.getString(3),
+                    row.getString(4), row.getString(5), row.getString(6), row.getString(7));
+        }
+    };
+
+    static final RowMapper<Product> PRODUCT = new RowMapper<>("id", "name", "weight", "price") {
+        @Override
+        protected Product map(Row row) throws SQLException {
+            // A product without a name is a row of an outer join which didn't match
+            if (row.getString(1) == null) {
+                return null;
+            }
+            return new Product(row.getInt(0), row.getString(1), row.getDouble(2), row.getLong(3));
+        }
+    };
+
+    static final RowMapper<Store> STORE = new RowMapper<>("id", "name", "password", "email") {
+        @Override
+        protected Store map(Row row) throws SQLException {
+            return new Store(row.getInt(0), row.getString(1), row.getString(2), row.getString(3), null);
+        }
+    };
+
+    static final RowMapper<Warehouse> WAREHOUSE = new RowMapper<>("id", "name", "password", "email") {
+        @Override
+        protected Warehouse map(Row row) throws SQLException {
+            return new Warehouse(row.getInt(0), row.getString(1), row.getString(2), row.getString(3), null);
+        }
+    };
+
+    static final RowMapper<Provider> PROVIDER = new RowMapper<>("id", "name", "email", "available") {
+        @Override
+        protected Provider map(Row row) throws SQLException {
+            return new Provider(row.getInt(0), row.getString(1), row.getString(2), row.getBoolean(3), null);
+        }
+    };
+
+    /**
+     * Builds the report without its Store and items, the caller adds them
+     */
+    static final RowMapper<StoreStockReport> STORE_STOCK_REPORT = new RowMapper<>("id", "date", "note") {
+        @Override
+        protected StoreStockReport map(Row row) throws SQLException {
+            return new StoreStockReport(row.getInt(0), row.getDateTime(1), row.getString(2), null, null);
+        }
+    };
+
+    private Mappers() {/* Only holds the mappers */}
+}
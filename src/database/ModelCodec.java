@@ -0,0 +1,637 @@
+package database;
+
+import model.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Compact binary encoding of the values passed to and returned from the DAOs, used by the remote DAOs.
+ * Every value starts with a one byte tag, whole numbers are written as variable length integers,
+ * and a Product, Address, Store, Warehouse or Provider met a second time in the same message is written as a
+ * reference to the first one, so a list of items repeating a few products stays small.
+ * A writer and a reader are only used for a single message.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+class ModelCodec {
+    private static final int NULL = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int TRUE = 4;
+    private static final int FALSE = 5;
+    private static final int STRING = 6;
+    private static final int DATE = 7;
+    private static final int STATUS = 8;
+    private static final int LIST = 9;
+    private static final int SET = 10;
+    private static final int MAP = 11;
+    private static final int REFERENCE = 12;
+    private static final int ADDRESS = 13;
+    private static final int PRODUCT = 14;
+    private static final int STORE = 15;
+    private static final int WAREHOUSE = 16;
+    private static final int USER = 17;
+    private static final int PROVIDER = 18;
+    private static final int ORDER = 19;
+    private static final int ORDER_ITEM = 20;
+    private static final int ORDER_REVISION = 21;
+    private static final int ORDER_SUMMARY = 22;
+    private static final int ORDER_TOTALS = 23;
+    private static final int STOCK = 24;
+    private static final int STOCK_AVAILABILITY = 25;
+    private static final int REPLENISHMENT_LINE = 26;
+    private static final int REPLENISHMENT_DRAFT = 27;
+    private static final int WAREHOUSE_ORDER = 28;
+    private static final int WAREHOUSE_ORDER_ITEM = 29;
+    private static final int WAREHOUSE_ORDER_REVISION = 30;
+    private static final int WAREHOUSE_ORDER_SUMMARY = 31;
+    private static final int REPORT = 32;
+    private static final int REPORT_ITEM = 33;
+    private static final int CATALOG_CHANGES = 34;
+    private static final int CHANGE_SET = 35;
+    private static final int STOCK_RESERVATION = 36;
+    private static final int STOCK_MOVEMENT = 37;
+    private static final int CONSUMPTION = 38;
+
+    private static final Status[] STATUSES = Status.values();
+    private static final MovementReason[] REASONS = MovementReason.values();
+
+    private ModelCodec() {/* Private constructor to hide the implicit public one */}
+
+    /**
+     * Writes the values of one message
+     */
+    static final class Writer {
+        private final DataOutputStream out;
+        // The shared entities written so far, by identity
+        private final Map<Object, Integer> written = new IdentityHashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeInt(int value) throws IOException {
+            writeLong(value);
+        }
+
+        /**
+         * Zigzag variable length integer, small numbers of either sign take one byte
+         */
+        void writeLong(long value) throws IOException {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.writeByte((int) zigzag);
+        }
+
+        private void writeText(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeList(Collection<?> values) throws IOException {
+            writeInt(values.size());
+            for (Object value : values) {
+                write(value);
+            }
+        }
+
+        /**
+         * @return true when the entity was written before and a reference to it was written now
+         */
+        private boolean writeReference(Object entity) throws IOException {
+            Integer index = written.get(entity);
+            if (index != null) {
+                out.writeByte(REFERENCE);
+                writeInt(index);
+                return true;
+            }
+            written.put(entity, written.size());
+            return false;
+        }
+
+        void write(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Integer) {
+                out.writeByte(INT);
+                writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                writeLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof String) {
+                out.writeByte(STRING);
+                writeText((String) value);
+            } else if (value instanceof LocalDateTime) {
+                LocalDateTime date = (LocalDateTime) value;
+                out.writeByte(DATE);
+                writeLong(date.toEpochSecond(ZoneOffset.UTC));
+                writeInt(date.getNano());
+            } else if (value instanceof Status) {
+                out.writeByte(STATUS);
+                out.writeByte(((Status) value).ordinal());
+            } else if (value instanceof List) {
+                out.writeByte(LIST);
+                writeList((List<?>) value);
+            } else if (value instanceof Set) {
+                out.writeByte(SET);
+                writeList((Set<?>) value);
+            } else if (value instanceof Map) {
+                out.writeByte(MAP);
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    write(entry.getKey());
+                    write(entry.getValue());
+                }
+            } else if (!(isShared(value) && writeReference(value))) {
+                writeModel(value);
+            }
+        }
+
+        private static boolean isShared(Object value) {
+            return value instanceof Product || value instanceof Address || value instanceof User || value instanceof Provider;
+        }
+
+        private void writeModel(Object value) throws IOException {
+            if (value instanceof Address) {
+                Address address = (Address) value;
+                out.writeByte(ADDRESS);
+                writeInt(address.getId());
+                write(address.getNumber());
+                write(address.getSupplement());
+                write(address.getStreet());
+                write(address.getCity());
+                write(address.getZipcode());
+                write(address.getRegion());
+                write(address.getCountry());
+            } else if (value instanceof Product) {
+                Product product = (Product) value;
+                out.writeByte(PRODUCT);
+                writeInt(product.getId());
+                write(product.getName());
+                out.writeDouble(product.getWeight());
+                writeLong(product.getPrice());
+            } else if (value instanceof User) {
+                User user = (User) value;
+                out.writeByte(user instanceof Store ? STORE : user instanceof Warehouse ? WAREHOUSE : USER);
+                writeInt(user.getId());
+                write(user.getName());
+                // Passwords never leave the server, like CatalogDB leaves them out for warehouses
+                write(null);
+                write(user.getEmail());
+                write(user.getAddress());
+            } else if (value instanceof Provider) {
+                Provider provider = (Provider) value;
+                out.writeByte(PROVIDER);
+                writeInt(provider.getId());
+                write(provider.getName());
+                write(provider.getEmail());
+                out.writeBoolean(provider.isAvailable());
+                write(provider.getAddress());
+            } else if (value instanceof Order) {
+                Order order = (Order) value;
+                out.writeByte(ORDER);
+                writeInt(order.getId());
+                write(order.getDate());
+                write(order.getStatus());
+                write(order.getWarehouse());
+                write(order.getStore());
+                writeList(order.getItems());
+                // The revisions point back to the order, they are written without it
+                List<OrderRevision> revisions = order.getRevisions() == null ? List.of() : order.getRevisions();
+                writeInt(revisions.size());
+                for (OrderRevision revision : revisions) {
+                    writeRevision(revision);
+                }
+                write(order.getTotals());
+                writeLong(order.getVersion());
+            } else if (value instanceof OrderItem) {
+                OrderItem item = (OrderItem) value;
+                out.writeByte(ORDER_ITEM);
+                write(item.getProduct());
+                writeLong(item.getUnitPrice());
+                writeInt(item.getQuantity());
+            } else if (value instanceof OrderRevision) {
+                out.writeByte(ORDER_REVISION);
+                writeRevision((OrderRevision) value);
+            } else if (value instanceof OrderSummary) {
+                OrderSummary summary = (OrderSummary) value;
+                out.writeByte(ORDER_SUMMARY);
+                writeInt(summary.getId());
+                write(summary.getDate());
+                write(summary.getStatus());
+                write(summary.getCounterpart());
+                write(summary.getTotals());
+            } else if (value instanceof OrderTotals) {
+                OrderTotals totals = (OrderTotals) value;
+                out.writeByte(ORDER_TOTALS);
+                writeLong(totals.getTotalPrice());
+                out.writeDouble(totals.getTotalWeight());
+                writeInt(totals.getLineCount());
+            } else if (value instanceof Stock) {
+                Stock stock = (Stock) value;
+                out.writeByte(STOCK);
+                writeInt(stock.getQuantity());
+                writeInt(stock.getMinQuantity());
+                write(stock.getProduct());
+                write(stock.getWarehouse());
+                writeLong(stock.getVersion());
+            } else if (value instanceof StockAvailability) {
+                StockAvailability availability = (StockAvailability) value;
+                out.writeByte(STOCK_AVAILABILITY);
+                writeInt(availability.getProductId());
+                writeInt(availability.getOnHand());
+                writeInt(availability.getPending());
+                writeInt(availability.getInbound());
+            } else if (value instanceof ReplenishmentLine) {
+                ReplenishmentLine line = (ReplenishmentLine) value;
+                out.writeByte(REPLENISHMENT_LINE);
+                writeInt(line.getWarehouseId());
+                writeInt(line.getProductId());
+                writeInt(line.getProviderId());
+                writeLong(line.getUnitPrice());
+                out.writeDouble(line.getWeight());
+                writeInt(line.getQuantity());
+            } else if (value instanceof ReplenishmentDraft) {
+                ReplenishmentDraft draft = (ReplenishmentDraft) value;
+                out.writeByte(REPLENISHMENT_DRAFT);
+                writeInt(draft.getWarehouseId());
+                writeInt(draft.getProviderId());
+                writeList(draft.getLines());
+            } else if (value instanceof WarehouseOrder) {
+                WarehouseOrder order = (WarehouseOrder) value;
+                out.writeByte(WAREHOUSE_ORDER);
+                writeInt(order.getId());
+                write(order.getDate());
+                write(order.getStatus());
+                write(order.getWarehouse());
+                write(order.getProvider());
+                writeList(order.getItems());
+                List<WarehouseOrderRevision> revisions = order.getRevisions() == null ? List.of() : order.getRevisions();
+                writeInt(revisions.size());
+                for (WarehouseOrderRevision revision : revisions) {
+                    writeRevision(revision);
+                }
+                write(order.getTotals());
+                writeLong(order.getVersion());
+            } else if (value instanceof WarehouseOrderItem) {
+                WarehouseOrderItem item = (WarehouseOrderItem) value;
+                out.writeByte(WAREHOUSE_ORDER_ITEM);
+                writeInt(item.getQuantity());
+                writeLong(item.getUnitPrice());
+                write(item.getProduct());
+            } else if (value instanceof WarehouseOrderRevision) {
+                out.writeByte(WAREHOUSE_ORDER_REVISION);
+                writeRevision((WarehouseOrderRevision) value);
+            } else if (value instanceof WarehouseOrderSummary) {
+                WarehouseOrderSummary summary = (WarehouseOrderSummary) value;
+                out.writeByte(WAREHOUSE_ORDER_SUMMARY);
+                writeInt(summary.getId());
+                write(summary.getDate());
+                write(summary.getStatus());
+                write(summary.getProvider());
+                write(summary.getTotals());
+            } else if (value instanceof StoreStockReport) {
+                StoreStockReport report = (StoreStockReport) value;
+                out.writeByte(REPORT);
+                writeInt(report.getId());
+                write(report.getDate());
+                write(report.getNote());
+                write(report.getStore());
+                writeList(report.getItems());
+            } else if (value instanceof StoreStockReportItem) {
+                StoreStockReportItem item = (StoreStockReportItem) value;
+                out.writeByte(REPORT_ITEM);
+                write(item.getProduct());
+                writeInt(item.getQuantity());
+            } else if (value instanceof CatalogChanges) {
+                CatalogChanges changes = (CatalogChanges) value;
+                out.writeByte(CATALOG_CHANGES);
+                writeLong(changes.getVersion());
+                writeList(changes.getProducts());
+                writeList(changes.getWarehouses());
+                writeList(changes.getProviders());
+                writeList(changes.getDeletedProducts());
+                writeList(changes.getDeletedWarehouses());
+                writeList(changes.getDeletedProviders());
+            } else if (value instanceof ChangeSet) {
+                ChangeSet changes = (ChangeSet) value;
+                out.writeByte(CHANGE_SET);
+                writeLong(changes.getVersion());
+                writeList(changes.getOrders());
+                writeList(changes.getWarehouseOrders());
+                writeList(changes.getStocks());
+                writeList(changes.getReports());
+            } else if (value instanceof StockReservation) {
+                StockReservation reservation = (StockReservation) value;
+                out.writeByte(STOCK_RESERVATION);
+                writeInt(reservation.getId());
+                write(reservation.getStore());
+                write(reservation.getWarehouse());
+                write(reservation.getProduct());
+                writeInt(reservation.getQuantity());
+                write(reservation.getExpires());
+            } else if (value instanceof StockMovement) {
+                StockMovement movement = (StockMovement) value;
+                out.writeByte(STOCK_MOVEMENT);
+                writeInt(movement.getWarehouseId());
+                writeInt(movement.getProductId());
+                writeInt(movement.getQuantity());
+                out.writeByte(movement.getReason().ordinal());
+                writeInt(movement.getReferenceId());
+                write(movement.getDate());
+            } else if (value instanceof Consumption) {
+                Consumption consumption = (Consumption) value;
+                out.writeByte(CONSUMPTION);
+                writeInt(consumption.getStoreId());
+                writeInt(consumption.getProductId());
+                writeInt(consumption.getLastQuantity());
+                write(consumption.getLastReport());
+                writeInt(consumption.getDeliveredSince());
+                writeLong(consumption.getConsumed());
+                out.writeDouble(consumption.getObservedDays());
+                out.writeDouble(consumption.getVelocity());
+            } else {
+                throw new IOException("Can't encode " + value.getClass().getName());
+            }
+        }
+
+        private void writeRevision(OrderRevision revision) throws IOException {
+            writeInt(revision.getId());
+            write(revision.getDate());
+            write(revision.getStatus());
+            write(revision.getNote());
+            write(revision.getItemsChanged());
+        }
+
+        private void writeRevision(WarehouseOrderRevision revision) throws IOException {
+            writeInt(revision.getId());
+            write(revision.getDate());
+            write(revision.getStatus());
+            write(revision.getNote());
+        }
+    }
+
+    /**
+     * Reads the values of one message
+     */
+    static final class Reader {
+        private final DataInputStream in;
+        // The shared entities read so far, in the order they were written
+        private final List<Object> read = new ArrayList<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        int readInt() throws IOException {
+            return (int) readLong();
+        }
+
+        long readLong() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.readUnsignedByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        private String readText() throws IOException {
+            byte[] bytes = new byte[readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> List<T> readList() throws IOException {
+            int size = readInt();
+            List<T> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add((T) read());
+            }
+            return values;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T read(Class<T> type) throws IOException {
+            return (T) read();
+        }
+
+        Object read() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case INT:
+                    return readInt();
+                case LONG:
+                    return readLong();
+                case DOUBLE:
+                    return in.readDouble();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case STRING:
+                    return readText();
+                case DATE:
+                    long seconds = readLong();
+                    return LocalDateTime.ofEpochSecond(seconds, readInt(), ZoneOffset.UTC);
+                case STATUS:
+                    return STATUSES[in.readUnsignedByte()];
+                case LIST:
+                    return readList();
+                case SET:
+                    return new LinkedHashSet<>(readList());
+                case MAP:
+                    int size = readInt();
+                    Map<Object, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        map.put(read(), read());
+                    }
+                    return map;
+                case REFERENCE:
+                    return read.get(readInt());
+                default:
+                    return readModel(tag);
+            }
+        }
+
+        private Object readModel(int tag) throws IOException {
+            switch (tag) {
+                case ADDRESS: {
+                    int index = reserve();
+                    return keep(index, new Address(readInt(), read(String.class), read(String.class), read(String.class),
+                            read(String.class), read(String.class), read(String.class), read(String.class)));
+                }
+                case PRODUCT: {
+                    int index = reserve();
+                    return keep(index, new Product(readInt(), read(String.class), in.readDouble(), readLong()));
+                }
+                case STORE:
+                case WAREHOUSE:
+                case USER: {
+                    int index = reserve();
+                    int id = readInt();
+                    String name = read(String.class);
+                    String password = read(String.class);
+                    String email = read(String.class);
+                    Address address = read(Address.class);
+                    User user = tag == STORE ? new Store(id, name, password, email, address)
+                            : tag == WAREHOUSE ? new Warehouse(id, name, password, email, address)
+                            : new User(id, name, password, email, address);
+                    return keep(index, user);
+                }
+                case PROVIDER: {
+                    int index = reserve();
+                    return keep(index, new Provider(readInt(), read(String.class), read(String.class),
+                            in.readBoolean(), read(Address.class)));
+                }
+                case ORDER: {
+                    int id = readInt();
+                    LocalDateTime date = read(LocalDateTime.class);
+                    Status status = read(Status.class);
+                    Warehouse warehouse = read(Warehouse.class);
+                    Store store = read(Store.class);
+                    List<OrderItem> items = readList();
+                    int revisionCount = readInt();
+                    List<OrderRevision> revisions = new LinkedList<>();
+                    for (int i = 0; i < revisionCount; i++) {
+                        revisions.add(readOrderRevision());
+                    }
+                    Order order = new Order(id, date, status, warehouse, store, items, revisions);
+                    for (OrderRevision revision : revisions) {
+                        revision.setOrder(order);
+                    }
+                    order.setTotals(read(OrderTotals.class));
+                    order.setVersion(readLong());
+                    return order;
+                }
+                case ORDER_ITEM:
+                    return new OrderItem(read(Product.class), readLong(), readInt());
+                case ORDER_REVISION:
+                    return readOrderRevision();
+                case ORDER_SUMMARY:
+                    return new OrderSummary(readInt(), read(LocalDateTime.class), read(Status.class),
+                            read(String.class), read(OrderTotals.class));
+                case ORDER_TOTALS:
+                    return new OrderTotals(readLong(), in.readDouble(), readInt());
+                case STOCK: {
+                    Stock stock = new Stock(readInt(), readInt(), read(Product.class), read(Warehouse.class));
+                    stock.setVersion(readLong());
+                    return stock;
+                }
+                case STOCK_AVAILABILITY:
+                    return new StockAvailability(readInt(), readInt(), readInt(), readInt());
+                case REPLENISHMENT_LINE:
+                    return new ReplenishmentLine(readInt(), readInt(), readInt(), readLong(), in.readDouble(), readInt());
+                case REPLENISHMENT_DRAFT: {
+                    ReplenishmentDraft draft = new ReplenishmentDraft(readInt(), readInt());
+                    for (Object line : readList()) {
+                        draft.addLine((ReplenishmentLine) line);
+                    }
+                    return draft;
+                }
+                case WAREHOUSE_ORDER: {
+                    int id = readInt();
+                    LocalDateTime date = read(LocalDateTime.class);
+                    Status status = read(Status.class);
+                    Warehouse warehouse = read(Warehouse.class);
+                    Provider provider = read(Provider.class);
+                    List<WarehouseOrderItem> items = readList();
+                    int revisionCount = readInt();
+                    List<WarehouseOrderRevision> revisions = new LinkedList<>();
+                    for (int i = 0; i < revisionCount; i++) {
+                        revisions.add(readWarehouseOrderRevision());
+                    }
+                    WarehouseOrder order = new WarehouseOrder(id, date, status, warehouse, provider, items, revisions);
+                    for (WarehouseOrderRevision revision : revisions) {
+                        revision.setWarehouseOrder(order);
+                    }
+                    order.setTotals(read(OrderTotals.class));
+                    order.setVersion(readLong());
+                    return order;
+                }
+                case WAREHOUSE_ORDER_ITEM:
+                    return new WarehouseOrderItem(readInt(), readLong(), read(Product.class));
+                case WAREHOUSE_ORDER_REVISION:
+                    return readWarehouseOrderRevision();
+                case WAREHOUSE_ORDER_SUMMARY:
+                    return new WarehouseOrderSummary(readInt(), read(LocalDateTime.class), read(Status.class),
+                            read(String.class), read(OrderTotals.class));
+                case REPORT:
+                    return new StoreStockReport(readInt(), read(LocalDateTime.class), read(String.class),
+                            read(Store.class), readList());
+                case REPORT_ITEM:
+                    return new StoreStockReportItem(read(Product.class), readInt());
+                case CATALOG_CHANGES:
+                    return new CatalogChanges(readLong(), readList(), readList(), readList(),
+                            readList(), readList(), readList());
+                case CHANGE_SET:
+                    return new ChangeSet(readLong(), readList(), readList(), readList(), readList());
+                case STOCK_RESERVATION:
+                    return new StockReservation(readInt(), read(Store.class), read(Warehouse.class), read(Product.class),
+                            readInt(), read(LocalDateTime.class));
+                case STOCK_MOVEMENT:
+                    return new StockMovement(readInt(), readInt(), readInt(), REASONS[in.readUnsignedByte()], readInt(),
+                            read(LocalDateTime.class));
+                case CONSUMPTION:
+                    return new Consumption(readInt(), readInt(), readInt(), read(LocalDateTime.class), readInt(), readLong(),
+                            in.readDouble(), in.readDouble());
+                default:
+                    throw new IOException("Unknown tag " + tag);
+            }
+        }
+
+        private OrderRevision readOrderRevision() throws IOException {
+            return new OrderRevision(readInt(), read(LocalDateTime.class), read(Status.class), read(String.class),
+                    null, new LinkedList<>(this.<OrderItem>readListValue()));
+        }
+
+        private WarehouseOrderRevision readWarehouseOrderRevision() throws IOException {
+            int id = readInt();
+            LocalDateTime date = read(LocalDateTime.class);
+            Status status = read(Status.class);
+            return new WarehouseOrderRevision(id, date, read(String.class), status, null);
+        }
+
+        /**
+         * Reads a list written with write(), which may be null
+         */
+        @SuppressWarnings("unchecked")
+        private <T> List<T> readListValue() throws IOException {
+            List<T> list = (List<T>) read();
+            return list == null ? new ArrayList<>() : list;
+        }
+
+        private int reserve() {
+            read.add(null);
+            return read.size() - 1;
+        }
+
+        private Object keep(int index, Object entity) {
+            read.set(index, entity);
+            return entity;
+        }
+    }
+}
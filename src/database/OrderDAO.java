@@ -2,7 +2,10 @@ package database;
 
 import model.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This DAO interface is used by the OrderController
@@ -15,6 +18,26 @@ public interface OrderDAO extends DAOInterface<Order> {
 
     List<Order> getOrders(Store store) throws DataAccessException;
 
+    List<OrderSummary> getOrderSummaries(User user) throws DataAccessException;
+
+    List<OrderSummary> getOrderSummaries(User user, List<Integer> orderIds) throws DataAccessException;
+
+    /**
+     * @param includeArchive true to list the archived orders too, the other reads only see live orders
+     */
+    List<OrderSummary> getOrderSummaries(User user, boolean includeArchive) throws DataAccessException;
+
+    /**
+     * @param from the first moment of the period
+     * @param to   the end of the period, not included
+     */
+    List<OrderSummary> getOrderSummaries(User user, LocalDateTime from, LocalDateTime to, boolean includeArchive) throws DataAccessException;
+
+    /**
+     * @param includeArchive true to look for the order in the archive when it isn't live anymore
+     */
+    Order selectByID(int id, boolean includeArchive) throws DataAccessException;
+
     List<OrderItem> getOrderItems(int orderID) throws DataAccessException;
 
     List<OrderRevision> getOrderRevisions(Order order) throws DataAccessException;
@@ -30,4 +53,14 @@ public interface OrderDAO extends DAOInterface<Order> {
     int getPendingOrdersAmount(User user) throws DataAccessException;
 
     Status getOrderStatus(int orderId) throws DataAccessException;
+
+    Map<Integer, Status> getOrderStatuses(List<Integer> orderIds) throws DataAccessException;
+
+    Set<Integer> updateOrderStatuses(Map<Integer, Status> orders, Status status, String note) throws DataAccessException;
+
+    List<Integer> verifyTotals() throws DataAccessException;
+
+    int rebuildTotals() throws DataAccessException;
+
+    int archiveOrders(LocalDateTime closedBefore, int batchSize) throws DataAccessException;
 }
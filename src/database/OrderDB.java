@@ -3,8 +3,8 @@ package database;
 import model.*;
 
 import java.sql.*;
-import java.util.LinkedList;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
 
 /**
  * DAO class for Order via OrderDAO
@@ -12,6 +12,36 @@ import java.util.List;
  * @author dmai0919-group3@UCNDK.onmicrosoft.com
  */
 public class OrderDB implements OrderDAO {
+    // Totals of every Order calculated from its own items, revision items have no orderID
+    private static final String ITEM_TOTALS = "SELECT o.id, ISNULL(SUM(oi.quantity * oi.unitPrice), 0) AS totalPrice, " +
+            "ISNULL(SUM(oi.quantity * p.weight), 0) AS totalWeight, COUNT(oi.productID) AS lineCount FROM [Order] o " +
+            "LEFT JOIN OrderItem oi ON oi.orderDate = o.date AND oi.orderID = o.id LEFT JOIN Product p ON p.id = oi.productID GROUP BY o.id";
+    private static final String TOTALS_DIFFER = "(o.totalPrice <> t.totalPrice OR ABS(o.totalWeight - t.totalWeight) > 0.001 " +
+            "OR o.lineCount <> t.lineCount)";
+
+    /**
+     * An Order with its products, addresses, store, warehouse, items, revisions and revision items, as one batch.
+     * The tables are given as the order, item and revision table, so archived orders are read the same way.
+     * The items and revisions are looked up with the date of the Order too, so only its month is read.
+     * Takes the ID of the Order 11 times.
+     */
+    private static final String ORDER_BATCH = "SET NOCOUNT ON;" +
+            "DECLARE @date datetime2(7) = (SELECT date FROM %1$s WHERE id=?);" +
+            "SELECT * FROM Product WHERE id IN (SELECT productID FROM %2$s WHERE orderDate=@date AND orderID=? " +
+            "UNION SELECT oi.productID FROM %2$s oi JOIN %3$s r ON r.orderDate = oi.orderDate AND r.id = oi.orderRevisionID " +
+            "WHERE r.orderDate=@date AND r.orderID=?);" +
+            "SELECT a.* FROM Address a WHERE a.id IN (SELECT s.addressID FROM Store s JOIN %1$s o ON o.storeID = s.id WHERE o.id=? " +
+            "UNION SELECT w.addressID FROM Warehouse w JOIN %1$s o ON o.warehouseID = w.id WHERE o.id=?);" +
+            "SELECT * FROM %1$s WHERE id=?;" +
+            "SELECT s.* FROM Store s JOIN %1$s o ON o.storeID = s.id WHERE o.id=?;" +
+            "SELECT w.* FROM Warehouse w JOIN %1$s o ON o.warehouseID = w.id WHERE o.id=?;" +
+            "SELECT * FROM %2$s WHERE orderDate=@date AND orderID=?;" +
+            "SELECT * FROM %3$s WHERE orderDate=@date AND orderID=? ORDER BY id;" +
+            "SELECT oi.* FROM %2$s oi JOIN %3$s r ON r.orderDate = oi.orderDate AND r.id = oi.orderRevisionID " +
+            "WHERE r.orderDate=@date AND r.orderID=?;";
+    // The live and the archived orders together, with the columns of the order lists
+    private static final String WITH_ARCHIVE = "(SELECT id, storeID, warehouseID, status, date, totalPrice, totalWeight, lineCount FROM [Order] " +
+            "UNION ALL SELECT id, storeID, warehouseID, status, date, totalPrice, totalWeight, lineCount FROM OrderArchive)";
 
     DBConnection db = DBConnection.getInstance();
 
@@ -34,59 +64,47 @@ public class OrderDB implements OrderDAO {
      */
     @Override
     public int create(Order value) throws DataAccessException {
-        String query = "INSERT INTO [Order] (storeID, warehouseID, status, date) VALUES (?,?,?,?);";
-        String orderItemQuery = "insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID) VALUES (?, ?, ?, ?, ?);";
-        String orderRevisionQuery = "insert into OrderRevision (orderID, status, date, note)" +
-                "VALUES (?, ?, ?, ?);";
+        String query = "INSERT INTO [Order] (storeID, warehouseID, status, date, totalPrice, totalWeight, lineCount) " +
+                "VALUES (?,?,?,?,?,?,?);";
+        String orderRevisionQuery = "insert into OrderRevision (orderID, status, date, note, orderDate)" +
+                "VALUES (?, ?, ?, ?, ?);";
 
         int orderID = -1;
+        Timestamp orderDate = Timestamp.valueOf(value.getDate());
         db.setAutoCommit(false);
         try (PreparedStatement s = db.getDBConn().prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
             s.setInt(1, value.getStore().getId());
             s.setInt(2, value.getWarehouse().getId());
-            s.setString(3, value.getStatus().toString());
-            s.setTimestamp(4, Timestamp.valueOf(value.getDate()));
+            DBConnection.setStatus(s, 3, value.getStatus());
+            s.setTimestamp(4, orderDate);
+            OrderTotals totals = calculateTotals(value.getItems());
+            s.setLong(5, totals.getTotalPrice());
+            s.setDouble(6, totals.getTotalWeight());
+            s.setInt(7, totals.getLineCount());
 
             orderID = db.executeInsertWithID(s);
 
-            for (OrderItem orderItem : value.getItems()) {
-                try (PreparedStatement orderItemStatement = db.getDBConn().prepareStatement(orderItemQuery)) {
-                    orderItemStatement.setInt(1, orderID);
-                    orderItemStatement.setInt(2, orderItem.getQuantity());
-                    orderItemStatement.setDouble(3, orderItem.getUnitPrice());
-                    orderItemStatement.setInt(4, orderItem.getProduct().getId());
-                    orderItemStatement.setString(5, null);
-
-                    db.executeQuery(orderItemStatement);
-                }
-            }
+            writeItems(value.getItems(), orderID, null, orderDate);
 
             for (OrderRevision revision : value.getRevisions()) {
                 try (PreparedStatement revisionStatement = db.getDBConn().prepareStatement(orderRevisionQuery, Statement.RETURN_GENERATED_KEYS)) {
 
                     revisionStatement.setInt(1, orderID);
-                    revisionStatement.setString(2, revision.getStatus().toString());
+                    DBConnection.setStatus(revisionStatement, 2, revision.getStatus());
                     revisionStatement.setTimestamp(3, Timestamp.valueOf(revision.getDate()));
                     revisionStatement.setString(4, revision.getNote());
+                    revisionStatement.setTimestamp(5, orderDate);
 
                     int revisionId = db.executeInsertWithID(revisionStatement);
 
-                    for (OrderItem orderItem : value.getItems()) {
-                        try (PreparedStatement orderItemStatement = db.getDBConn().prepareStatement(orderItemQuery)) {
-                            orderItemStatement.setString(1, null);
-                            orderItemStatement.setInt(2, orderItem.getQuantity());
-                            orderItemStatement.setDouble(3, orderItem.getUnitPrice());
-                            orderItemStatement.setInt(4, orderItem.getProduct().getId());
-                            orderItemStatement.setInt(5, revisionId);
-
-                            db.executeQuery(orderItemStatement);
-
-                        }
-                    }
+                    writeItems(value.getItems(), null, revisionId, orderDate);
                 }
             }
+            OutboxDB.append(db.getDBConn(), DomainEvent.orderCreated(orderID, value.getStore().getId(),
+                    value.getWarehouse().getId(), value.getStatus()));
             db.getDBConn().commit();
             db.setAutoCommit(true);
+            value.setTotals(totals);
         } catch (SQLException|DataAccessException e) {
             db.setAutoCommit(true);
             throw new DataAccessException(e.getMessage());
@@ -96,7 +114,9 @@ public class OrderDB implements OrderDAO {
     }
 
     /**
-     * Finds an order with a given ID
+     * Finds an order with a given ID together with its store, warehouse, items and revisions.
+     * Everything is read with one batch of queries returning several result sets, so the whole Order
+     * costs a single round trip. The products of all items come from one IN lookup inside the batch.
      *
      * @param id is the ID which we want to search for in the database
      * @return the Order object with the given ID or null if it doesn't exist
@@ -104,68 +124,235 @@ public class OrderDB implements OrderDAO {
      */
     @Override
     public Order selectByID(int id) throws DataAccessException {
-        DAOInterface<Store> storeDAOInterface = new StoreDB();
-        DAOInterface<Warehouse> warehouseDAOInterface = new WarehouseDB();
+        return selectByID(id, false);
+    }
+
+    /**
+     * Finds an order like {@link #selectByID(int)}, an order which isn't live anymore is looked for in the archive
+     * when asked, the archived order has no version then
+     *
+     * @param includeArchive true to look in the archive too
+     * @return the Order object with the given ID or null if it doesn't exist
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public Order selectByID(int id, boolean includeArchive) throws DataAccessException {
+        Order order = readOrder(id, false);
+        if (order == null && includeArchive) {
+            order = readOrder(id, true);
+        }
+        return order;
+    }
 
-        String query = "SELECT TOP 1 * FROM [Order] WHERE id=?;";
+    private Order readOrder(int id, boolean archived) throws DataAccessException {
+        String query = String.format(ORDER_BATCH, archived ? "OrderArchive" : "[Order]",
+                archived ? "OrderItemArchive" : "OrderItem", archived ? "OrderRevisionArchive" : "OrderRevision");
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
-            s.setInt(1, id);
-            ResultSet rs = db.executeSelect(s);
+            for (int i = 1; i <= 11; i++) {
+                s.setInt(i, id);
+            }
+
+            Map<Integer, Product> products = new HashMap<>();
+            ResultSet rs = db.executeMultiSelect(s);
+            RowMapper.Reader<Product> productReader = Mappers.PRODUCT.reader(rs);
+            while (rs.next()) {
+                Product product = productReader.read();
+                products.put(product.getId(), product);
+            }
+
+            Map<Integer, Address> addresses = new HashMap<>();
+            rs = db.nextResultSet(s);
+            RowMapper.Reader<Address> addressReader = Mappers.ADDRESS.reader(rs);
+            while (rs.next()) {
+                Address address = addressReader.read();
+                addresses.put(address.getId(), address);
+            }
+
+            rs = db.nextResultSet(s);
+            if (!rs.next()) {
+                return null;
+            }
+            int orderId = rs.getInt("id");
+            LocalDateTime date = rs.getTimestamp("date").toLocalDateTime();
+            Status status = DBConnection.getStatus(rs, "status");
+            OrderTotals totals = readTotals(rs);
+            long version = archived ? 0 : DBConnection.getVersion(rs);
+
+            rs = db.nextResultSet(s);
+            RowMapper.Reader<Store> storeReader = Mappers.STORE.reader(rs);
+            Store store = null;
             if (rs.next()) {
-                Order order = new Order(
+                store = storeReader.read();
+                store.setAddress(addresses.get(storeReader.row().getInt("addressID")));
+            }
+
+            rs = db.nextResultSet(s);
+            RowMapper.Reader<Warehouse> warehouseReader = Mappers.WAREHOUSE.reader(rs);
+            Warehouse warehouse = null;
+            if (rs.next()) {
+                warehouse = warehouseReader.read();
+                warehouse.setAddress(addresses.get(warehouseReader.row().getInt("addressID")));
+            }
+
+            List<OrderItem> items = new LinkedList<>();
+            rs = db.nextResultSet(s);
+            while (rs.next()) {
+                items.add(buildOrderItem(rs, products));
+            }
+
+            Order order = new Order(orderId, date, status, warehouse, store, items, null);
+            order.setTotals(totals);
+            order.setVersion(version);
+
+            List<OrderRevision> revisions = new LinkedList<>();
+            Map<Integer, List<OrderItem>> revisionItems = new HashMap<>();
+            rs = db.nextResultSet(s);
+            while (rs.next()) {
+                OrderRevision revision = new OrderRevision(
                         rs.getInt("id"),
                         rs.getTimestamp("date").toLocalDateTime(),
-                        Status.valueOf(rs.getString("status")),
-                        warehouseDAOInterface.selectByID(rs.getInt("warehouseID")),
-                        storeDAOInterface.selectByID(rs.getInt("storeID")),
-                        getOrderItems(id),
-                        null);
-                order.setRevisions(getOrderRevisions(order));
-                return order;
+                        DBConnection.getStatus(rs, "status"),
+                        rs.getString("note"),
+                        order,
+                        new LinkedList<>()
+                );
+                revisionItems.put(revision.getId(), revision.getItemsChanged());
+                revisions.add(revision);
             }
+
+            rs = db.nextResultSet(s);
+            while (rs.next()) {
+                List<OrderItem> changed = revisionItems.get(rs.getInt("orderRevisionID"));
+                if (changed != null) {
+                    changed.add(buildOrderItem(rs, products));
+                }
+            }
+            order.setRevisions(revisions);
+            return order;
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
-        return null;
     }
 
     /**
-     * Takes a given Order object and updates it in the DB
+     * Takes a given Order object and updates it in the DB.
+     * The order row is only updated when it still has the version the Order was read with,
+     * after the update the Order gets the new version.
+     * The date of an Order is the key of its partition and is never changed.
+     * The stock movements of the changed quantities and status are written in the same transaction.
      *
      * @param value it's the given Order object
-     * @return the number of rows changed in the DB
-     * @throws DataAccessException when there is an SQLException caught inside the method
+     * @return the number of rows changed in the DB, 0 when the order doesn't exist anymore
+     * @throws VersionConflictException when the order was changed by someone else since it was read
+     * @throws DataAccessException      when there is an SQLException caught inside the method
      */
     @Override
     public int update(Order value) throws DataAccessException {
-        String query = "UPDATE [Order] SET storeID=?, warehouseID=?, date=?, status=? WHERE id=?;";
-        String queryItems = "UPDATE OrderItem SET quantity=? WHERE OrderID=? AND ProductID=?";
+        String query = "UPDATE [Order] SET storeID=?, warehouseID=?, status=? OUTPUT DELETED.status, DELETED.date WHERE id=? AND version=?;";
+        String queryItems = "UPDATE OrderItem SET quantity=? WHERE orderDate=? AND orderID=? AND productID=?";
+        String queryQuantities = "SELECT productID, quantity FROM OrderItem WHERE orderDate=? AND orderID=?";
         db.setAutoCommit(false);
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, value.getStore().getId());
             s.setInt(2, value.getWarehouse().getId());
-            s.setTimestamp(3, Timestamp.valueOf(value.getDate()));
-            s.setString(4, value.getStatus().toString());
-            s.setInt(5, value.getId());
-            int rows = db.executeQuery(s);
+            DBConnection.setStatus(s, 3, value.getStatus());
+            s.setInt(4, value.getId());
+            DBConnection.setVersion(s, 5, value.getVersion());
+            ResultSet updated = db.executeSelect(s);
+            Status oldStatus = null;
+            Timestamp orderDate = null;
+            if (updated.next()) {
+                oldStatus = DBConnection.getStatus(updated, "status");
+                orderDate = updated.getTimestamp("date");
+            }
+            int rows = oldStatus == null ? 0 : 1;
+            if (rows == 0) {
+                if (db.rowVersion("[Order]", value.getId()) != null) {
+                    throw new VersionConflictException("The order was changed by someone else");
+                }
+                db.rollback();
+                db.setAutoCommit(true);
+                return 0;
+            }
+            Map<Integer, Integer> oldQuantities = new HashMap<>();
+            try (PreparedStatement ps = db.getDBConn().prepareStatement(queryQuantities)) {
+                ps.setTimestamp(1, orderDate);
+                ps.setInt(2, value.getId());
+                ResultSet rs = db.executeSelect(ps);
+                while (rs.next()) {
+                    oldQuantities.put(rs.getInt("productID"), rs.getInt("quantity"));
+                }
+            }
             for (OrderItem item : value.getItems()) {
                 try (PreparedStatement ps = db.getDBConn().prepareStatement(queryItems)) {
                     ps.setInt(1, item.getQuantity());
-                    ps.setInt(2, value.getId());
-                    ps.setInt(3, item.getProduct().getId());
+                    ps.setTimestamp(2, orderDate);
+                    ps.setInt(3, value.getId());
+                    ps.setInt(4, item.getProduct().getId());
                     rows += db.executeQuery(ps);
                 }
             }
             insertOrderRevision(value.getRevisions(), value.getId());
+            refreshTotals(value.getId());
+            StockMovementDB.write(db.getDBConn(), stockMovements(value, oldStatus, oldQuantities));
+            if (oldStatus != value.getStatus() || (oldStatus == Status.PENDING && itemsChanged(value, oldQuantities))) {
+                OutboxDB.append(db.getDBConn(), DomainEvent.orderStatusChanged(value.getId(), value.getStore().getId(),
+                        value.getWarehouse().getId(), value.getStatus()));
+            }
+            Long version = db.rowVersion("[Order]", value.getId());
             db.getDBConn().commit();
             db.setAutoCommit(true);
+            value.setTotals(calculateTotals(value.getItems()));
+            value.setVersion(version);
             return rows;
         } catch (SQLException|DataAccessException e) {
+            db.rollback();
             db.setAutoCommit(true);
+            if (e instanceof VersionConflictException) {
+                throw (VersionConflictException) e;
+            }
             throw new DataAccessException(e.getMessage());
         }
     }
 
+    private static boolean itemsChanged(Order order, Map<Integer, Integer> oldQuantities) {
+        for (OrderItem item : order.getItems()) {
+            Integer oldQuantity = oldQuantities.get(item.getProduct().getId());
+            if (oldQuantity != null && oldQuantity != item.getQuantity()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The stock movements of saving an Order, worked out from its stored quantities and status.
+     * Item changes only move the stock while the order holds it, a status change takes or gives back all of it.
+     */
+    private static List<StockMovement> stockMovements(Order order, Status oldStatus, Map<Integer, Integer> oldQuantities) {
+        List<StockMovement> movements = new ArrayList<>();
+        int warehouseId = order.getWarehouse().getId();
+        boolean holdsStock = oldStatus != Status.PENDING && oldStatus != Status.REJECTED;
+        int effect = Status.stockEffect(oldStatus, order.getStatus());
+        for (OrderItem item : order.getItems()) {
+            Integer oldQuantity = oldQuantities.get(item.getProduct().getId());
+            if (oldQuantity == null) {
+                // Items which aren't stored aren't updated either
+                continue;
+            }
+            int productId = item.getProduct().getId();
+            if (holdsStock && oldQuantity != item.getQuantity()) {
+                movements.add(new StockMovement(warehouseId, productId, oldQuantity - item.getQuantity(),
+                        MovementReason.ORDER_REVISION, order.getId()));
+            }
+            if (effect != 0 && item.getQuantity() != 0) {
+                movements.add(new StockMovement(warehouseId, productId, effect * item.getQuantity(),
+                        effect < 0 ? MovementReason.ORDER_APPROVED : MovementReason.ORDER_REJECTED, order.getId()));
+            }
+        }
+        return movements;
+    }
+
     /**
      * Takes an Order object and deletes it from the Database
      *
@@ -175,12 +362,26 @@ public class OrderDB implements OrderDAO {
      */
     @Override
     public int delete(Order value) throws DataAccessException {
-        String query = "DELETE FROM [Order] WHERE id=?";
-        //We don't need OrderItem and OrderStatus queries because of the cascade rules on the tables in the DB
+        // The order tables have no foreign keys between them since they are partitioned, so no cascade either
+        String query = "SET NOCOUNT ON;" +
+                "DECLARE @date datetime2(7) = (SELECT date FROM [Order] WHERE id=?);" +
+                "DELETE FROM OrderItem WHERE orderDate=@date AND (orderID=? " +
+                "OR orderRevisionID IN (SELECT id FROM OrderRevision WHERE orderDate=@date AND orderID=?));" +
+                "DELETE FROM OrderRevision WHERE orderDate=@date AND orderID=?;" +
+                "SET NOCOUNT OFF;" +
+                "DELETE FROM [Order] WHERE date=@date AND id=?;";
+        db.setAutoCommit(false);
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
-            s.setInt(1, value.getId());
-            return db.executeQuery(s);
+            for (int i = 1; i <= 5; i++) {
+                s.setInt(i, value.getId());
+            }
+            int rows = db.executeQuery(s);
+            db.getDBConn().commit();
+            db.setAutoCommit(true);
+            return rows;
         } catch (SQLException e) {
+            db.rollback();
+            db.setAutoCommit(true);
             throw new DataAccessException(e.getMessage());
         }
     }
@@ -193,23 +394,16 @@ public class OrderDB implements OrderDAO {
      */
     @Override
     public List<Order> all() throws DataAccessException {
-        DAOInterface<Store> storeDAOInterface = new StoreDB();
-        DAOInterface<Warehouse> warehouseDAOInterface = new WarehouseDB();
         String query = "SELECT * FROM [Order];";
         List<Order> orders = new LinkedList<>();
+        DataLoader loader = new DataLoader();
 
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             ResultSet rs = db.executeSelect(s);
             while (rs.next()) {
-                Order order = new Order(
-                        rs.getInt("id"),
-                        storeDAOInterface.selectByID(rs.getInt("storeID")),
-                        warehouseDAOInterface.selectByID(rs.getInt("warehouseID")),
-                        rs.getTimestamp("date").toLocalDateTime(),
-                        Status.valueOf(rs.getString("status"))
-                );
-                orders.add(order);
+                orders.add(buildListOrder(rs, loader));
             }
+            loader.dispatch();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -229,21 +423,15 @@ public class OrderDB implements OrderDAO {
         String query = "SELECT * FROM [Order] " +
                 "WHERE warehouseID=?;";
         List<Order> orders = new LinkedList<>();
-        DAOInterface<Warehouse> warehouseDAO = new WarehouseDB();
-        DAOInterface<Store> storeDAO = new StoreDB();
+        DataLoader loader = new DataLoader();
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, warehouse.getId());
 
             ResultSet rs = db.executeSelect(s);
             while (rs.next()) {
-                orders.add(new Order(
-                        rs.getInt("id"),
-                        storeDAO.selectByID(rs.getInt("storeID")),
-                        warehouseDAO.selectByID(rs.getInt("warehouseID")),
-                        rs.getTimestamp("date").toLocalDateTime(),
-                        Status.valueOf(rs.getString("status"))
-                ));
+                orders.add(buildListOrder(rs, loader));
             }
+            loader.dispatch();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -262,26 +450,118 @@ public class OrderDB implements OrderDAO {
         String query = "SELECT * FROM [Order] " +
                 "WHERE storeID=?;";
         List<Order> orders = new LinkedList<>();
-        DAOInterface<Warehouse> warehouseDAO = new WarehouseDB();
-        DAOInterface<Store> storeDAO = new StoreDB();
+        DataLoader loader = new DataLoader();
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, store.getId());
 
             ResultSet rs = db.executeSelect(s);
             while (rs.next()) {
-                Order order = new Order(
+                orders.add(buildListOrder(rs, loader));
+            }
+            loader.dispatch();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+        return orders;
+    }
+
+    /**
+     * Gets the list rows of all Orders of a Warehouse or a Store.
+     * Only the columns shown in the lists are read, the Store or Warehouse on the other side is joined in by name.
+     *
+     * @param user the Warehouse or Store whose Orders we are searching for
+     * @return a List containing all results, newest first
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<OrderSummary> getOrderSummaries(User user) throws DataAccessException {
+        return readSummaries(user, "[Order]", "", List.of());
+    }
+
+    /**
+     * Gets the list rows like {@link #getOrderSummaries(User)}, with the archived Orders when asked
+     *
+     * @param includeArchive true to list the archived Orders too
+     * @return a List containing all results, newest first
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<OrderSummary> getOrderSummaries(User user, boolean includeArchive) throws DataAccessException {
+        return readSummaries(user, includeArchive ? WITH_ARCHIVE : "[Order]", "", List.of());
+    }
+
+    /**
+     * Gets the list rows of the Orders of a Warehouse or a Store made in a period.
+     * The period is a plain range on the date of the Orders, so only the months it covers are read.
+     *
+     * @param from           the first moment of the period
+     * @param to             the end of the period, not included
+     * @param includeArchive true to list the archived Orders too
+     * @return a List containing all results, newest first
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<OrderSummary> getOrderSummaries(User user, LocalDateTime from, LocalDateTime to, boolean includeArchive) throws DataAccessException {
+        return readSummaries(user, includeArchive ? WITH_ARCHIVE : "[Order]", "AND o.date >= ? AND o.date < ? ",
+                List.of(Timestamp.valueOf(from), Timestamp.valueOf(to)));
+    }
+
+    /**
+     * Gets the list rows of some Orders of a Warehouse or a Store, to refresh the rows of orders changed since the list
+     * was read. Orders of other users are skipped.
+     *
+     * @param user     the Warehouse or Store whose Orders we are searching for
+     * @param orderIds the IDs of the Orders
+     * @return a List containing the found rows, newest first
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<OrderSummary> getOrderSummaries(User user, List<Integer> orderIds) throws DataAccessException {
+        List<OrderSummary> summaries = new ArrayList<>();
+        // One parameter is taken by the user
+        int chunkSize = DBConnection.MAX_PARAMETERS - 1;
+        for (int from = 0; from < orderIds.size(); from += chunkSize) {
+            List<Integer> chunk = orderIds.subList(from, Math.min(from + chunkSize, orderIds.size()));
+            summaries.addAll(readSummaries(user, "[Order]", "AND o.id IN (" + DBConnection.placeholders(chunk.size()) + ") ", chunk));
+        }
+        summaries.sort(Comparator.comparing(OrderSummary::getDate).reversed());
+        return summaries;
+    }
+
+    /**
+     * @param orders     the table the Orders are read from, the live orders or the live orders with the archive
+     * @param parameters the parameters of the filter
+     */
+    private List<OrderSummary> readSummaries(User user, String orders, String filter, List<?> parameters) throws DataAccessException {
+        boolean warehouse = user instanceof Warehouse;
+        String query = "SELECT o.id, o.date, o.status, o.totalPrice, o.totalWeight, o.lineCount, " +
+                "c.name, a.city, a.street FROM " + orders + " o " +
+                (warehouse ? "JOIN Store c ON c.id = o.storeID " : "JOIN Warehouse c ON c.id = o.warehouseID ") +
+                "JOIN Address a ON a.id = c.addressID " +
+                (warehouse ? "WHERE o.warehouseID=? " : "WHERE o.storeID=? ") +
+                filter +
+                "ORDER BY o.date DESC;";
+        List<OrderSummary> summaries = new ArrayList<>();
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, user.getId());
+            for (int i = 0; i < parameters.size(); i++) {
+                s.setObject(i + 2, parameters.get(i));
+            }
+
+            ResultSet rs = db.executeSelect(s);
+            while (rs.next()) {
+                summaries.add(new OrderSummary(
                         rs.getInt("id"),
-                        storeDAO.selectByID(rs.getInt("storeID")),
-                        warehouseDAO.selectByID(rs.getInt("warehouseID")),
                         rs.getTimestamp("date").toLocalDateTime(),
-                        Status.valueOf(rs.getString("status"))
-                );
-                orders.add(order);
+                        DBConnection.getStatus(rs, "status"),
+                        rs.getString("name") + " (" + rs.getString("city") + ", " + rs.getString("street") + ")",
+                        readTotals(rs)
+                ));
             }
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
-        return orders;
+        return summaries;
     }
 
     /**
@@ -293,20 +573,18 @@ public class OrderDB implements OrderDAO {
      */
     @Override
     public List<OrderItem> getOrderItems(int orderID) throws DataAccessException {
-        String query = "SELECT * FROM OrderItem WHERE orderID=?";
-        ProductDB productDB = new ProductDB();
+        String query = "SELECT oi.* FROM [Order] o JOIN OrderItem oi ON oi.orderDate = o.date AND oi.orderID = o.id WHERE o.id=?";
         List<OrderItem> items = new LinkedList<>();
+        DataLoader loader = new DataLoader();
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, orderID);
             ResultSet rs = db.executeSelect(s);
             while (rs.next()) {
-                OrderItem item = new OrderItem(
-                        productDB.selectByID(rs.getInt("productID")),
-                        rs.getDouble("unitPrice"),
-                        rs.getInt("quantity")
-                );
+                OrderItem item = new OrderItem(null, rs.getLong("unitPrice"), rs.getInt("quantity"));
+                loader.product(rs.getInt("productID")).thenAccept(item::setProduct);
                 items.add(item);
             }
+            loader.dispatch();
             return items;
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -322,23 +600,38 @@ public class OrderDB implements OrderDAO {
      */
     @Override
     public List<OrderRevision> getOrderRevisions(Order order) throws DataAccessException {
-        String query = "SELECT * FROM OrderRevision WHERE orderID=?";
+        String query = "SELECT r.* FROM [Order] o JOIN OrderRevision r ON r.orderDate = o.date AND r.orderID = o.id WHERE o.id=?";
+        String itemQuery = "SELECT oi.* FROM [Order] o JOIN OrderRevision r ON r.orderDate = o.date AND r.orderID = o.id " +
+                "JOIN OrderItem oi ON oi.orderDate = r.orderDate AND oi.orderRevisionID = r.id WHERE o.id=?";
         List<OrderRevision> items = new LinkedList<>();
-        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+        Map<Integer, List<OrderItem>> revisionItems = new HashMap<>();
+        DataLoader loader = new DataLoader();
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query);
+             PreparedStatement itemStatement = db.getDBConn().prepareStatement(itemQuery)) {
             s.setInt(1, order.getId());
             ResultSet rs = db.executeSelect(s);
             while (rs.next()) {
                 OrderRevision item = new OrderRevision(
                         rs.getInt("id"),
                         rs.getTimestamp("date").toLocalDateTime(),
-                        Status.valueOf(rs.getString("status")),
+                        DBConnection.getStatus(rs, "status"),
                         rs.getString("note"),
                         order,
-                        null
+                        new LinkedList<>()
                 );
-                item.setItemsChanged(getOrderRevisionItems(item.getId()));
+                revisionItems.put(item.getId(), item.getItemsChanged());
                 items.add(item);
             }
+
+            // The items of every revision are read at once instead of one query per revision
+            itemStatement.setInt(1, order.getId());
+            rs = db.executeSelect(itemStatement);
+            while (rs.next()) {
+                OrderItem orderItem = new OrderItem(null, rs.getLong("unitPrice"), rs.getInt("quantity"));
+                loader.product(rs.getInt("productID")).thenAccept(orderItem::setProduct);
+                revisionItems.get(rs.getInt("orderRevisionID")).add(orderItem);
+            }
+            loader.dispatch();
             return items;
 
         } catch (SQLException e) {
@@ -348,20 +641,19 @@ public class OrderDB implements OrderDAO {
 
     @Override
     public List<OrderItem> getOrderRevisionItems(int orderRevisionId) throws DataAccessException {
-        String query = "SELECT * FROM OrderItem WHERE orderRevisionID=?";
-        ProductDB productDB = new ProductDB();
+        String query = "SELECT oi.* FROM OrderRevision r " +
+                "JOIN OrderItem oi ON oi.orderDate = r.orderDate AND oi.orderRevisionID = r.id WHERE r.id=?";
         List<OrderItem> items = new LinkedList<>();
+        DataLoader loader = new DataLoader();
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, orderRevisionId);
             ResultSet rs = db.executeSelect(s);
             while (rs.next()) {
-                OrderItem item = new OrderItem(
-                        productDB.selectByID(rs.getInt("productID")),
-                        rs.getDouble("unitPrice"),
-                        rs.getInt("quantity")
-                );
+                OrderItem item = new OrderItem(null, rs.getLong("unitPrice"), rs.getInt("quantity"));
+                loader.product(rs.getInt("productID")).thenAccept(item::setProduct);
                 items.add(item);
             }
+            loader.dispatch();
             return items;
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -370,17 +662,18 @@ public class OrderDB implements OrderDAO {
 
     @Override
     public int insertOrderRevision(List<OrderRevision> orderRevisions, int orderId) throws DataAccessException {
-        String insertQuery = "insert into OrderRevision (orderID, status, date, note)" +
-                "VALUES (?, ?, ?, ?);";
+        // The revision takes the date of its Order, the key of its partition
+        String insertQuery = "insert into OrderRevision (orderID, status, date, note, orderDate) " +
+                "SELECT id, ?, ?, ?, date FROM [Order] WHERE id=?;";
 
         for (OrderRevision orderRevision : orderRevisions) {
             if (orderRevision.getId() == 0) { // TODO Why is this if here?
                 try (PreparedStatement statement = db.getDBConn().prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
 
-                    statement.setInt(1, orderId);
-                    statement.setString(2, orderRevision.getStatus().toString());
-                    statement.setTimestamp(3, Timestamp.valueOf(orderRevision.getDate()));
-                    statement.setString(4, orderRevision.getNote());
+                    DBConnection.setStatus(statement, 1, orderRevision.getStatus());
+                    statement.setTimestamp(2, Timestamp.valueOf(orderRevision.getDate()));
+                    statement.setString(3, orderRevision.getNote());
+                    statement.setInt(4, orderId);
 
                     int id = db.executeInsertWithID(statement);
 
@@ -397,21 +690,22 @@ public class OrderDB implements OrderDAO {
 
     @Override
     public int insertOrderRevisionItems(List<OrderItem> orderItems, int revisionId) throws DataAccessException {
-        String insertQuery = "insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID) VALUES (?, ?, ?, ?, ?);";
+        String insertQuery = "insert into OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID, orderDate) " +
+                "SELECT NULL, ?, ?, ?, id, orderDate FROM OrderRevision WHERE id=?;";
         int updated = 0;
-        for (OrderItem orderItem : orderItems) {
-            try (PreparedStatement statement = db.getDBConn().prepareStatement(insertQuery)) {
-
-                statement.setString(1, null);
-                statement.setInt(2, orderItem.getQuantity());
-                statement.setDouble(3, orderItem.getUnitPrice());
-                statement.setInt(4, orderItem.getProduct().getId());
-                statement.setInt(5, revisionId);
-
-                updated += db.executeQuery(statement);
-            } catch (SQLException throwables) {
-                throw new DataAccessException(throwables.getMessage());
+        try (PreparedStatement statement = db.getDBConn().prepareStatement(insertQuery)) {
+            for (OrderItem orderItem : orderItems) {
+                statement.setInt(1, orderItem.getQuantity());
+                statement.setLong(2, orderItem.getUnitPrice());
+                statement.setInt(3, orderItem.getProduct().getId());
+                statement.setInt(4, revisionId);
+                statement.addBatch();
             }
+            for (int count : statement.executeBatch()) {
+                updated += count;
+            }
+        } catch (SQLException throwables) {
+            throw new DataAccessException(throwables.getMessage());
         }
         return updated;
     }
@@ -442,9 +736,9 @@ public class OrderDB implements OrderDAO {
     public int getPendingOrdersAmount(User user) throws DataAccessException {
         String query;
         if (user instanceof Warehouse) {
-            query = "SELECT count(*) as total FROM [Order] where warehouseID=? and status not in ('DELIVERED', 'REJECTED')";
+            query = "SELECT count(*) as total FROM [Order] where warehouseID=? and status not in (" + DBConnection.CLOSED_STATUSES + ")";
         } else {
-            query = "select count(*) as total from [Order] where storeID=? and status not in ('DELIVERED', 'REJECTED')";
+            query = "select count(*) as total from [Order] where storeID=? and status not in (" + DBConnection.CLOSED_STATUSES + ")";
         }
 
         try (PreparedStatement statement = db.getDBConn().prepareStatement(query)) {
@@ -470,11 +764,302 @@ public class OrderDB implements OrderDAO {
 
             ResultSet resultSet = db.executeSelect(statement);
             if (resultSet.next()) {
-                return Status.valueOf(resultSet.getString("status"));
+                return DBConnection.getStatus(resultSet, "status");
             }
             return null;
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
+
+    /**
+     * Finds the current status of many orders with as few queries as possible
+     *
+     * @param orderIds the IDs of the orders we're searching for
+     * @return a Map with the status of every order which exists in the DB
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public Map<Integer, Status> getOrderStatuses(List<Integer> orderIds) throws DataAccessException {
+        Map<Integer, Status> statuses = new HashMap<>();
+        for (int from = 0; from < orderIds.size(); from += DBConnection.MAX_PARAMETERS) {
+            List<Integer> chunk = orderIds.subList(from, Math.min(from + DBConnection.MAX_PARAMETERS, orderIds.size()));
+            String query = "SELECT id, status FROM [Order] WHERE id IN (" + DBConnection.placeholders(chunk.size()) + ");";
+
+            try (PreparedStatement statement = db.getDBConn().prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setInt(i + 1, chunk.get(i));
+                }
+                ResultSet resultSet = db.executeSelect(statement);
+                while (resultSet.next()) {
+                    statuses.put(resultSet.getInt("id"), DBConnection.getStatus(resultSet, "status"));
+                }
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Moves many orders to a new status in one transaction.
+     * Every order is only updated if it still has the status given in the map, so orders changed by someone else
+     * in the meantime are left alone. The revisions and the stock changes are written with batched statements.
+     *
+     * @param orders the IDs of the orders mapped to the status they are expected to have
+     * @param status the new status of the orders
+     * @param note   the note of the revision created for every updated order
+     * @return the IDs of the orders which were actually updated
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public Set<Integer> updateOrderStatuses(Map<Integer, Status> orders, Status status, String note) throws DataAccessException {
+        String statusQuery = "UPDATE [Order] SET status=? WHERE id=? AND status=?;";
+        String revisionQuery = "INSERT INTO OrderRevision (orderID, status, date, note, orderDate) " +
+                "SELECT id, ?, ?, ?, date FROM [Order] WHERE id=?;";
+        // Creates missing Stock rows like StockMovementDB.append, so the Stock always matches the ledger
+        String stockQuery = "MERGE Stock AS s USING (SELECT o.warehouseID, oi.productID, ? * SUM(oi.quantity) AS quantity " +
+                "FROM [Order] o JOIN OrderItem oi ON oi.orderDate = o.date AND oi.orderID = o.id WHERE o.id=? " +
+                "GROUP BY o.warehouseID, oi.productID) AS d (warehouseID, productID, quantity) " +
+                "ON s.warehouseID = d.warehouseID AND s.productID = d.productID " +
+                "WHEN MATCHED THEN UPDATE SET s.quantity = s.quantity + d.quantity " +
+                "WHEN NOT MATCHED THEN INSERT (warehouseID, productID, quantity, minQuantity) " +
+                "VALUES (d.warehouseID, d.productID, d.quantity, 0);";
+        String ledgerQuery = "INSERT INTO StockMovement (warehouseID, productID, quantity, reason, referenceID, date) " +
+                "SELECT o.warehouseID, oi.productID, ? * SUM(oi.quantity), ?, o.id, ? FROM [Order] o " +
+                "JOIN OrderItem oi ON oi.orderDate = o.date AND oi.orderID = o.id WHERE o.id=? GROUP BY o.warehouseID, oi.productID, o.id;";
+
+        List<Integer> ids = new ArrayList<>(orders.keySet());
+        Set<Integer> updated = new LinkedHashSet<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        db.setAutoCommit(false);
+        try (PreparedStatement statusStatement = db.getDBConn().prepareStatement(statusQuery);
+             PreparedStatement revisionStatement = db.getDBConn().prepareStatement(revisionQuery);
+             PreparedStatement stockStatement = db.getDBConn().prepareStatement(stockQuery);
+             PreparedStatement ledgerStatement = db.getDBConn().prepareStatement(ledgerQuery)) {
+            for (int id : ids) {
+                DBConnection.setStatus(statusStatement, 1, status);
+                statusStatement.setInt(2, id);
+                DBConnection.setStatus(statusStatement, 3, orders.get(id));
+                statusStatement.addBatch();
+            }
+            int[] rows = statusStatement.executeBatch();
+
+            boolean stockChanged = false;
+            for (int i = 0; i < ids.size(); i++) {
+                if (rows[i] == 0) {
+                    continue;
+                }
+                int id = ids.get(i);
+                updated.add(id);
+
+                DBConnection.setStatus(revisionStatement, 1, status);
+                revisionStatement.setTimestamp(2, now);
+                revisionStatement.setString(3, note);
+                revisionStatement.setInt(4, id);
+                revisionStatement.addBatch();
+
+                int effect = Status.stockEffect(orders.get(id), status);
+                if (effect != 0) {
+                    stockStatement.setInt(1, effect);
+                    stockStatement.setInt(2, id);
+                    stockStatement.addBatch();
+                    // The same change goes to the stock ledger, in the same transaction
+                    ledgerStatement.setInt(1, effect);
+                    ledgerStatement.setString(2, (effect < 0 ? MovementReason.ORDER_APPROVED : MovementReason.ORDER_REJECTED).name());
+                    ledgerStatement.setTimestamp(3, now);
+                    ledgerStatement.setInt(4, id);
+                    ledgerStatement.addBatch();
+                    stockChanged = true;
+                }
+            }
+            if (!updated.isEmpty()) {
+                revisionStatement.executeBatch();
+            }
+            if (stockChanged) {
+                ledgerStatement.executeBatch();
+                stockStatement.executeBatch();
+            }
+            OutboxDB.appendOrderStatuses(db.getDBConn(), new ArrayList<>(updated), now);
+            db.getDBConn().commit();
+            db.setAutoCommit(true);
+            return updated;
+        } catch (SQLException | DataAccessException e) {
+            db.rollback();
+            db.setAutoCommit(true);
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the orders whose stored totals don't match their items
+     *
+     * @return the IDs of the orders with wrong totals
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<Integer> verifyTotals() throws DataAccessException {
+        String query = "SELECT o.id FROM [Order] o JOIN (" + ITEM_TOTALS + ") t ON t.id = o.id WHERE " + TOTALS_DIFFER + ";";
+        List<Integer> ids = new LinkedList<>();
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            ResultSet rs = db.executeSelect(s);
+            while (rs.next()) {
+                ids.add(rs.getInt("id"));
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Calculates the stored totals of every order again from its items
+     *
+     * @return the number of orders whose totals were wrong and got fixed
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public int rebuildTotals() throws DataAccessException {
+        String query = "UPDATE o SET o.totalPrice = t.totalPrice, o.totalWeight = t.totalWeight, o.lineCount = t.lineCount " +
+                "FROM [Order] o JOIN (" + ITEM_TOTALS + ") t ON t.id = o.id WHERE " + TOTALS_DIFFER + ";";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            return db.executeQuery(s);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Moves one batch of DELIVERED and REJECTED orders without revisions since the given date to the archive tables,
+     * with their revisions and items, in one transaction. Other writers skip the locked orders instead of waiting.
+     *
+     * @param closedBefore only orders whose last revision is older are moved
+     * @param batchSize    the largest number of orders moved
+     * @return the number of orders moved, less than the batch size when there are no more to move
+     * @throws DataAccessException when there is an SQLException caught inside the method, nothing is moved then
+     */
+    @Override
+    public int archiveOrders(LocalDateTime closedBefore, int batchSize) throws DataAccessException {
+        String query = "SET NOCOUNT ON;" +
+                "DECLARE @batch TABLE (date datetime2(7), id int, PRIMARY KEY (date, id));" +
+                "INSERT INTO @batch SELECT TOP (?) o.date, o.id FROM [Order] o WITH (UPDLOCK, READPAST) " +
+                "WHERE o.status IN (" + DBConnection.CLOSED_STATUSES + ") AND o.date < ? " +
+                "AND NOT EXISTS (SELECT 1 FROM OrderRevision r WHERE r.orderDate = o.date AND r.orderID = o.id AND r.date >= ?) " +
+                "ORDER BY o.date, o.id;" +
+                "INSERT INTO OrderArchive (id, storeID, warehouseID, status, date, totalPrice, totalWeight, lineCount, archivedAt) " +
+                "SELECT o.id, o.storeID, o.warehouseID, o.status, o.date, o.totalPrice, o.totalWeight, o.lineCount, SYSDATETIME() " +
+                "FROM [Order] o JOIN @batch b ON b.date = o.date AND b.id = o.id;" +
+                "INSERT INTO OrderRevisionArchive (id, orderID, status, date, note, orderDate) " +
+                "SELECT r.id, r.orderID, r.status, r.date, r.note, r.orderDate FROM OrderRevision r " +
+                "JOIN @batch b ON b.date = r.orderDate AND b.id = r.orderID;" +
+                "INSERT INTO OrderItemArchive (orderID, orderRevisionID, quantity, unitPrice, productID, orderDate) " +
+                "SELECT oi.orderID, oi.orderRevisionID, oi.quantity, oi.unitPrice, oi.productID, oi.orderDate FROM OrderItem oi " +
+                "JOIN @batch b ON b.date = oi.orderDate AND b.id = oi.orderID " +
+                "UNION ALL SELECT oi.orderID, oi.orderRevisionID, oi.quantity, oi.unitPrice, oi.productID, oi.orderDate FROM OrderItem oi " +
+                "JOIN OrderRevision r ON r.orderDate = oi.orderDate AND r.id = oi.orderRevisionID " +
+                "JOIN @batch b ON b.date = r.orderDate AND b.id = r.orderID;" +
+                // Nothing cascades between the partitioned tables, the children are deleted first
+                "DELETE oi FROM OrderItem oi JOIN OrderRevision r ON r.orderDate = oi.orderDate AND r.id = oi.orderRevisionID " +
+                "JOIN @batch b ON b.date = r.orderDate AND b.id = r.orderID;" +
+                "DELETE oi FROM OrderItem oi JOIN @batch b ON b.date = oi.orderDate AND b.id = oi.orderID;" +
+                "DELETE r FROM OrderRevision r JOIN @batch b ON b.date = r.orderDate AND b.id = r.orderID;" +
+                "DELETE o FROM [Order] o JOIN @batch b ON b.date = o.date AND b.id = o.id;" +
+                "SELECT COUNT(*) AS moved FROM @batch;";
+        Timestamp cutoff = Timestamp.valueOf(closedBefore);
+        db.setAutoCommit(false);
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, batchSize);
+            s.setTimestamp(2, cutoff);
+            s.setTimestamp(3, cutoff);
+            ResultSet rs = db.executeSelect(s);
+            int moved = rs.next() ? rs.getInt("moved") : 0;
+            db.getDBConn().commit();
+            db.setAutoCommit(true);
+            return moved;
+        } catch (SQLException | DataAccessException e) {
+            db.rollback();
+            db.setAutoCommit(true);
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Calculates the stored totals of one order again from its items, used after its items were changed
+     */
+    private void refreshTotals(int orderId) throws DataAccessException {
+        String query = "UPDATE o SET " +
+                "totalPrice = (SELECT ISNULL(SUM(oi.quantity * oi.unitPrice), 0) FROM OrderItem oi " +
+                "WHERE oi.orderDate = o.date AND oi.orderID = o.id), " +
+                "totalWeight = (SELECT ISNULL(SUM(oi.quantity * p.weight), 0) FROM OrderItem oi " +
+                "JOIN Product p ON p.id = oi.productID WHERE oi.orderDate = o.date AND oi.orderID = o.id), " +
+                "lineCount = (SELECT COUNT(*) FROM OrderItem oi WHERE oi.orderDate = o.date AND oi.orderID = o.id) " +
+                "FROM [Order] o WHERE o.id = ?;";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, orderId);
+            db.executeQuery(s);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Inserts the items of an order or of one of its revisions with multi-row statements
+     *
+     * @param orderID    the ID of the order, null for the items of a revision
+     * @param revisionID the ID of the revision, null for the items of the order itself
+     */
+    private void writeItems(List<OrderItem> items, Integer orderID, Integer revisionID, Timestamp orderDate) throws SQLException {
+        DBConnection.writeRows(db.getDBConn(),
+                "INSERT INTO OrderItem (orderID, quantity, unitPrice, productID, orderRevisionID, orderDate) VALUES ", ";",
+                6, items.size(), (s, index, row) -> {
+                    OrderItem item = items.get(row);
+                    s.setObject(index, orderID, Types.INTEGER);
+                    s.setInt(index + 1, item.getQuantity());
+                    s.setLong(index + 2, item.getUnitPrice());
+                    s.setInt(index + 3, item.getProduct().getId());
+                    s.setObject(index + 4, revisionID, Types.INTEGER);
+                    s.setTimestamp(index + 5, orderDate);
+                });
+    }
+
+    private static OrderTotals calculateTotals(List<OrderItem> items) {
+        long price = 0;
+        double weight = 0;
+        for (OrderItem item : items) {
+            price += item.getUnitPrice() * item.getQuantity();
+            weight += item.getProduct().getWeight() * item.getQuantity();
+        }
+        return new OrderTotals(price, weight, items.size());
+    }
+
+    /**
+     * Builds an Order of a list without items, its Store and Warehouse are filled in by the loader
+     */
+    private static Order buildListOrder(ResultSet rs, DataLoader loader) throws SQLException {
+        Order order = new Order(
+                rs.getInt("id"),
+                null,
+                null,
+                rs.getTimestamp("date").toLocalDateTime(),
+                DBConnection.getStatus(rs, "status")
+        );
+        order.setTotals(readTotals(rs));
+        order.setVersion(DBConnection.getVersion(rs));
+        loader.store(rs.getInt("storeID")).thenAccept(order::setStore);
+        loader.warehouse(rs.getInt("warehouseID")).thenAccept(order::setWarehouse);
+        return order;
+    }
+
+    private static OrderItem buildOrderItem(ResultSet rs, Map<Integer, Product> products) throws SQLException {
+        return new OrderItem(
+                products.get(rs.getInt("productID")),
+                rs.getLong("unitPrice"),
+                rs.getInt("quantity")
+        );
+    }
+
+    private static OrderTotals readTotals(ResultSet rs) throws SQLException {
+        return new OrderTotals(rs.getLong("totalPrice"), rs.getDouble("totalWeight"), rs.getInt("lineCount"));
+    }
 }
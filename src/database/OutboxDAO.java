@@ -0,0 +1,35 @@
+package database;
+
+import model.DomainEvent;
+
+import java.util.List;
+
+/**
+ * This DAO interface is used by the EventBus delivering the events of the outbox.
+ * The events are written by the DB classes themselves, in the transaction of the change.
+ *
+ * @see controller.EventBus
+ */
+public interface OutboxDAO {
+
+    /**
+     * Hands out the oldest events nobody is delivering right now, every call counts as an attempt
+     *
+     * @param max          the largest number of events to hand out
+     * @param leaseSeconds how long the events are held back from other dispatchers, they're handed out again
+     *                     after that unless they were delivered
+     * @return the events, oldest first
+     */
+    List<DomainEvent> claim(int max, int leaseSeconds) throws DataAccessException;
+
+    /**
+     * Removes the events every subscriber has handled
+     */
+    void delivered(List<Long> ids) throws DataAccessException;
+
+    /**
+     * Keeps events which failed too often out of the deliveries, they stay in the outbox to be looked at
+     */
+    void failed(List<Long> ids) throws DataAccessException;
+
+}
@@ -0,0 +1,149 @@
+package database;
+
+import model.DomainEvent;
+import model.EventType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * DAO class for the OutboxEvent table via OutboxDAO.
+ * The static methods write events on the connection of a transaction which is already open, so an event is saved
+ * exactly when the change it tells about is.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class OutboxDB implements OutboxDAO {
+    private static final String INSERT = "INSERT INTO OutboxEvent (type, subjectID, storeID, warehouseID, productID, quantity, status, date) VALUES ";
+
+    DBConnection db = DBConnection.getInstance();
+
+    public OutboxDB() throws DataAccessException {
+        //This constructor is empty because it only exists to pass along DataAccessException from DBConnection.getInstance()
+    }
+
+    /**
+     * Several dispatchers may work on the same outbox, rows claimed by another one are skipped instead of waited for
+     *
+     * @inheritDoc
+     */
+    @Override
+    public List<DomainEvent> claim(int max, int leaseSeconds) throws DataAccessException {
+        String query = "WITH batch AS (SELECT TOP (?) * FROM OutboxEvent WITH (UPDLOCK, READPAST, ROWLOCK) " +
+                "WHERE failed = 0 AND (claimedUntil IS NULL OR claimedUntil < SYSDATETIME()) ORDER BY id) " +
+                "UPDATE batch SET attempts = attempts + 1, claimedUntil = DATEADD(second, ?, SYSDATETIME()) " +
+                "OUTPUT INSERTED.id, INSERTED.type, INSERTED.subjectID, INSERTED.storeID, INSERTED.warehouseID, " +
+                "INSERTED.productID, INSERTED.quantity, INSERTED.status, INSERTED.date, INSERTED.attempts;";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, max);
+            s.setInt(2, leaseSeconds);
+            ResultSet rs = s.executeQuery();
+            List<DomainEvent> events = new ArrayList<>();
+            while (rs.next()) {
+                events.add(new DomainEvent(
+                        rs.getLong("id"),
+                        EventType.valueOf(rs.getString("type")),
+                        rs.getInt("subjectID"),
+                        rs.getInt("storeID"),
+                        rs.getInt("warehouseID"),
+                        rs.getInt("productID"),
+                        rs.getInt("quantity"),
+                        DBConnection.getStatus(rs, "status"),
+                        rs.getTimestamp("date").toLocalDateTime(),
+                        rs.getInt("attempts")));
+            }
+            // OUTPUT doesn't keep the order of the batch
+            events.sort(Comparator.comparingLong(DomainEvent::getId));
+            return events;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void delivered(List<Long> ids) throws DataAccessException {
+        byIds("DELETE FROM OutboxEvent WHERE id IN (%s);", ids);
+    }
+
+    @Override
+    public void failed(List<Long> ids) throws DataAccessException {
+        byIds("UPDATE OutboxEvent SET failed = 1, claimedUntil = NULL WHERE id IN (%s);", ids);
+    }
+
+    private void byIds(String query, List<Long> ids) throws DataAccessException {
+        try {
+            for (int from = 0; from < ids.size(); from += DBConnection.MAX_PARAMETERS) {
+                List<Long> chunk = ids.subList(from, Math.min(from + DBConnection.MAX_PARAMETERS, ids.size()));
+                try (PreparedStatement s = db.getDBConn().prepareStatement(String.format(query, DBConnection.placeholders(chunk.size())))) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        s.setLong(i + 1, chunk.get(i));
+                    }
+                    s.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes events to the outbox
+     *
+     * @param connection the connection of the transaction making the change, the caller commits
+     */
+    static void append(Connection connection, List<DomainEvent> events) throws SQLException {
+        DBConnection.writeRows(connection, INSERT, ";", 8, events.size(), (s, index, row) -> {
+            DomainEvent event = events.get(row);
+            s.setString(index, event.getType().name());
+            s.setInt(index + 1, event.getSubjectId());
+            setId(s, index + 2, event.getStoreId());
+            setId(s, index + 3, event.getWarehouseId());
+            setId(s, index + 4, event.getProductId());
+            s.setInt(index + 5, event.getQuantity());
+            DBConnection.setStatus(s, index + 6, event.getStatus());
+            s.setTimestamp(index + 7, Timestamp.valueOf(event.getDate()));
+        });
+    }
+
+    static void append(Connection connection, DomainEvent event) throws SQLException {
+        append(connection, List.of(event));
+    }
+
+    /**
+     * Writes an ORDER_STATUS_CHANGED event for every given order with the status it has now,
+     * the store and warehouse are taken from the order rows
+     *
+     * @param connection the connection of the transaction making the change, the caller commits
+     */
+    static void appendOrderStatuses(Connection connection, List<Integer> orderIds, Timestamp date) throws SQLException {
+        String query = "INSERT INTO OutboxEvent (type, subjectID, storeID, warehouseID, quantity, status, date) " +
+                "SELECT ?, id, storeID, warehouseID, 0, status, ? FROM [Order] WHERE id IN (%s);";
+        int chunkSize = DBConnection.MAX_PARAMETERS - 2;
+        for (int from = 0; from < orderIds.size(); from += chunkSize) {
+            List<Integer> chunk = orderIds.subList(from, Math.min(from + chunkSize, orderIds.size()));
+            try (PreparedStatement s = connection.prepareStatement(String.format(query, DBConnection.placeholders(chunk.size())))) {
+                s.setString(1, EventType.ORDER_STATUS_CHANGED.name());
+                s.setTimestamp(2, date);
+                for (int i = 0; i < chunk.size(); i++) {
+                    s.setInt(i + 3, chunk.get(i));
+                }
+                s.executeUpdate();
+            }
+        }
+    }
+
+    private static void setId(PreparedStatement s, int index, int id) throws SQLException {
+        if (id == 0) {
+            s.setNull(index, Types.INTEGER);
+        } else {
+            s.setInt(index, id);
+        }
+    }
+}
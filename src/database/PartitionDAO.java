@@ -0,0 +1,37 @@
+package database;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * This DAO interface is used by the OrderHistoryTool to look after the monthly partitions of the order history:
+ * [Order], OrderItem, OrderRevision, WarehouseOrder, WarehouseOrderItem and WarehouseOrderRevision.
+ *
+ * @see main.OrderHistoryTool
+ */
+public interface PartitionDAO {
+
+    /**
+     * @return the first day of every month with a partition of its own mapped to the number of orders in it,
+     * oldest first; orders older than the first month are in a partition without a month
+     */
+    Map<LocalDate, Long> getMonths() throws DataAccessException;
+
+    /**
+     * Gives a month a partition of its own, meant for months without orders yet, otherwise their rows are moved
+     *
+     * @param month any day of the month
+     */
+    void addMonth(LocalDate month) throws DataAccessException;
+
+    /**
+     * Moves the orders and warehouse orders of a month to the archive tables and removes the partition of the month
+     *
+     * @param month any day of the month, the month and the next one must have a partition
+     * @return the number of orders and warehouse orders moved
+     * @throws DataAccessException when the month still has open orders or isn't a partition of its own,
+     *                             nothing is moved then
+     */
+    int removeMonth(LocalDate month) throws DataAccessException;
+
+}
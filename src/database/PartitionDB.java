@@ -0,0 +1,150 @@
+package database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DAO class for the monthly partitions of the order history via PartitionDAO.
+ * A partition holds the rows from the first day of its month, the order tables are all partitioned the same way
+ * and have no foreign keys between them, so a whole month is truncated without touching the other months.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class PartitionDB implements PartitionDAO {
+    private static final String[] TABLES = {"OrderItem", "OrderRevision", "[Order]",
+            "WarehouseOrderItem", "WarehouseOrderRevision", "WarehouseOrder"};
+
+    DBConnection db = DBConnection.getInstance();
+
+    public PartitionDB() throws DataAccessException {
+        //This constructor is empty because it only exists to pass along DataAccessException from DBConnection.getInstance()
+    }
+
+    @Override
+    public Map<LocalDate, Long> getMonths() throws DataAccessException {
+        // With RANGE RIGHT the partition after a boundary starts at it, so its number is one more than the boundary's
+        String query = "SELECT CAST(v.value AS datetime2(7)) AS month, ISNULL(p.rows, 0) AS orders " +
+                "FROM sys.partition_range_values v JOIN sys.partition_functions f ON f.function_id = v.function_id " +
+                "LEFT JOIN sys.partitions p ON p.object_id = OBJECT_ID('[Order]') AND p.index_id = 1 " +
+                "AND p.partition_number = v.boundary_id + 1 " +
+                "WHERE f.name = 'pf_OrderMonth' ORDER BY v.boundary_id;";
+        Map<LocalDate, Long> months = new LinkedHashMap<>();
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            ResultSet rs = db.executeSelect(s);
+            while (rs.next()) {
+                months.put(rs.getTimestamp("month").toLocalDateTime().toLocalDate(), rs.getLong("orders"));
+            }
+            return months;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void addMonth(LocalDate month) throws DataAccessException {
+        String query = "ALTER PARTITION SCHEME [ps_OrderMonth] NEXT USED [PRIMARY];" +
+                "ALTER PARTITION FUNCTION [pf_OrderMonth]() SPLIT RANGE ('" + month.withDayOfMonth(1) + "');";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            db.executeQuery(s);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * The rows are copied to the archive with range queries reading only the partition of the month,
+     * then the partition is truncated and merged away, which only changes metadata.
+     * The partition isn't switched out: the archive tables have other columns than the order tables, and switching
+     * would need staging tables repeating every index of the six tables, so the copy stays in the transaction.
+     * The open orders are counted WITH (UPDLOCK, HOLDLOCK), so no order of the month is reopened or added meanwhile.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public int removeMonth(LocalDate month) throws DataAccessException {
+        LocalDate first = month.withDayOfMonth(1);
+        Map<LocalDate, Long> months = getMonths();
+        if (!months.containsKey(first) || !months.containsKey(first.plusMonths(1))) {
+            throw new DataAccessException(first + " is not a partition of its own");
+        }
+        Timestamp from = Timestamp.valueOf(first.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(first.plusMonths(1).atStartOfDay());
+
+        String openQuery = "SELECT (SELECT COUNT(*) FROM [Order] WITH (UPDLOCK, HOLDLOCK) WHERE date >= ? AND date < ? " +
+                "AND status NOT IN (" + DBConnection.CLOSED_STATUSES + ")) + (SELECT COUNT(*) FROM WarehouseOrder WITH (UPDLOCK, HOLDLOCK) " +
+                "WHERE date >= ? AND date < ? " +
+                "AND status NOT IN (" + DBConnection.CLOSED_STATUSES + ")) AS open, $PARTITION.pf_OrderMonth(?) AS number;";
+        String archiveQuery = "SET NOCOUNT ON;" +
+                "DECLARE @moved int;" +
+                "INSERT INTO OrderArchive (id, storeID, warehouseID, status, date, totalPrice, totalWeight, lineCount, archivedAt) " +
+                "SELECT id, storeID, warehouseID, status, date, totalPrice, totalWeight, lineCount, SYSDATETIME() " +
+                "FROM [Order] WHERE date >= ? AND date < ?;" +
+                "SET @moved = @@ROWCOUNT;" +
+                "INSERT INTO OrderRevisionArchive (id, orderID, status, date, note, orderDate) " +
+                "SELECT id, orderID, status, date, note, orderDate FROM OrderRevision WHERE orderDate >= ? AND orderDate < ?;" +
+                "INSERT INTO OrderItemArchive (orderID, orderRevisionID, quantity, unitPrice, productID, orderDate) " +
+                "SELECT orderID, orderRevisionID, quantity, unitPrice, productID, orderDate FROM OrderItem " +
+                "WHERE orderDate >= ? AND orderDate < ?;" +
+                "INSERT INTO WarehouseOrderArchive (id, date, status, providerID, warehouseID, totalPrice, totalWeight, lineCount, archivedAt) " +
+                "SELECT id, date, status, providerID, warehouseID, totalPrice, totalWeight, lineCount, SYSDATETIME() " +
+                "FROM WarehouseOrder WHERE date >= ? AND date < ?;" +
+                "SET @moved = @moved + @@ROWCOUNT;" +
+                "INSERT INTO WarehouseOrderRevisionArchive (id, orderID, orderDate, date, status, note) " +
+                "SELECT id, orderID, orderDate, date, status, note FROM WarehouseOrderRevision WHERE orderDate >= ? AND orderDate < ?;" +
+                "INSERT INTO WarehouseOrderItemArchive (orderID, orderDate, productID, quantity, unitPrice) " +
+                "SELECT orderID, orderDate, productID, quantity, unitPrice FROM WarehouseOrderItem " +
+                "WHERE orderDate >= ? AND orderDate < ?;" +
+                "SELECT @moved AS moved;";
+
+        db.setAutoCommit(false);
+        try {
+            int partition;
+            try (PreparedStatement s = db.getDBConn().prepareStatement(openQuery)) {
+                s.setTimestamp(1, from);
+                s.setTimestamp(2, to);
+                s.setTimestamp(3, from);
+                s.setTimestamp(4, to);
+                s.setTimestamp(5, from);
+                ResultSet rs = db.executeSelect(s);
+                rs.next();
+                if (rs.getInt("open") > 0) {
+                    throw new DataAccessException(first + " still has open orders");
+                }
+                partition = rs.getInt("number");
+            }
+
+            int moved;
+            try (PreparedStatement s = db.getDBConn().prepareStatement(archiveQuery)) {
+                for (int i = 1; i <= 12; i += 2) {
+                    s.setTimestamp(i, from);
+                    s.setTimestamp(i + 1, to);
+                }
+                ResultSet rs = db.executeSelect(s);
+                moved = rs.next() ? rs.getInt("moved") : 0;
+            }
+
+            StringBuilder truncate = new StringBuilder();
+            for (String table : TABLES) {
+                truncate.append("TRUNCATE TABLE ").append(table).append(" WITH (PARTITIONS (").append(partition).append("));");
+            }
+            // The partition is empty now, so merging it moves no rows
+            truncate.append("ALTER PARTITION FUNCTION [pf_OrderMonth]() MERGE RANGE ('").append(first).append("');");
+            try (PreparedStatement s = db.getDBConn().prepareStatement(truncate.toString())) {
+                db.executeQuery(s);
+            }
+
+            db.getDBConn().commit();
+            db.setAutoCommit(true);
+            return moved;
+        } catch (SQLException | DataAccessException e) {
+            db.rollback();
+            db.setAutoCommit(true);
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+}
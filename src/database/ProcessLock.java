@@ -0,0 +1,83 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * An exclusive application lock of SQL Server, for work only one process at a time may do.
+ * The lock is held by a session of its own, so it goes away with the process even when the process dies.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class ProcessLock implements AutoCloseable {
+    private final Connection connection;
+    private final String resource;
+
+    private ProcessLock(Connection connection, String resource) {
+        this.connection = connection;
+        this.resource = resource;
+    }
+
+    /**
+     * Takes the lock without waiting
+     *
+     * @param resource the name of the lock
+     * @throws DataAccessException when another process holds the lock or the DB can't be reached
+     */
+    public static ProcessLock acquire(String resource) throws DataAccessException {
+        String query = "SET NOCOUNT ON;" +
+                "DECLARE @result int;" +
+                "EXEC @result = sp_getapplock @Resource = ?, @LockMode = 'Exclusive', @LockOwner = 'Session', @LockTimeout = 0;" +
+                "SELECT @result AS result;";
+        Connection connection = DBConnection.getInstance().openConnection();
+        try (PreparedStatement s = connection.prepareStatement(query)) {
+            s.setString(1, resource);
+            ResultSet rs = s.executeQuery();
+            if (rs.next() && rs.getInt("result") >= 0) {
+                return new ProcessLock(connection, resource);
+            }
+        } catch (SQLException e) {
+            close(connection);
+            throw new DataAccessException(e.getMessage());
+        }
+        close(connection);
+        throw new DataAccessException("Another process holds the lock " + resource);
+    }
+
+    /**
+     * @return true while the session of the lock still holds it, false once the session was lost
+     */
+    public boolean isHeld() {
+        try (PreparedStatement s = connection.prepareStatement("SELECT APPLOCK_MODE('public', ?, 'Session') AS mode")) {
+            s.setString(1, resource);
+            ResultSet rs = s.executeQuery();
+            return rs.next() && "Exclusive".equals(rs.getString("mode"));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives the lock back and closes its session
+     */
+    @Override
+    public void close() {
+        try (PreparedStatement s = connection.prepareStatement("EXEC sp_releaseapplock @Resource = ?, @LockOwner = 'Session'")) {
+            s.setString(1, resource);
+            s.execute();
+        } catch (SQLException e) {
+            // Closing the session gives the lock back as well
+        }
+        close(connection);
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Nothing left to give back
+        }
+    }
+}
@@ -4,6 +4,7 @@ import model.Product;
 import model.Warehouse;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * This DAO interface is used by the ProductController
@@ -14,6 +15,10 @@ public interface ProductDAO extends DAOInterface<Product> {
 
     List<Product> getProducts(Warehouse warehouse) throws DataAccessException;
 
+    List<Integer> getProductIds(Warehouse warehouse) throws DataAccessException;
+
     boolean checkAvailability(Warehouse warehouse, Product product, int amount) throws DataAccessException;
 
+    Map<Integer, Integer> getShortfalls(Warehouse warehouse, Map<Integer, Integer> amounts) throws DataAccessException;
+
 }
@@ -8,7 +8,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO class for Product via DAOInterface and ProductDAO
@@ -41,7 +43,7 @@ public class ProductDB implements ProductDAO {
         try (PreparedStatement s = db.getDBConn().prepareStatement(queryProd, Statement.RETURN_GENERATED_KEYS)) {
             s.setString(1, value.getName()); // name
             s.setDouble(2, value.getWeight()); // weight
-            s.setDouble(3, value.getPrice()); // price
+            s.setLong(3, value.getPrice()); // price in cents
             productID = db.executeInsertWithID(s);
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -62,13 +64,7 @@ public class ProductDB implements ProductDAO {
             s.setInt(1, id);
             ResultSet rs = db.executeSelect(s);
             if (rs.next()) {
-                if (rs.getString("name") != null) {
-                    return new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getDouble("weight"),
-                            rs.getDouble("price"));
-                } else return null;
+                return Mappers.PRODUCT.reader(rs).read();
             } else return null;
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -86,16 +82,7 @@ public class ProductDB implements ProductDAO {
         try {
             PreparedStatement s = db.getDBConn().prepareStatement(query);
             ResultSet rs = db.executeSelect(s);
-            List<Product> resultList = new ArrayList<>();
-
-            while (rs.next()) {
-                resultList.add(new Product(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getDouble("weight"),
-                        rs.getDouble("price")));
-            }
-            return resultList;
+            return Mappers.PRODUCT.mapAll(rs);
 
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -114,7 +101,7 @@ public class ProductDB implements ProductDAO {
         try (PreparedStatement s = db.getDBConn().prepareStatement(queryProduct)) {
             s.setString(1, value.getName());
             s.setDouble(2, value.getWeight());
-            s.setDouble(3, value.getPrice());
+            s.setLong(3, value.getPrice());
             s.setInt(4, value.getId());
             return db.executeQuery(s);
         } catch (SQLException e) {
@@ -155,23 +142,41 @@ public class ProductDB implements ProductDAO {
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, warehouse.getId());
             ResultSet rs = db.executeSelect(s);
-            List<Product> resultList = new ArrayList<>();
-
-            while (rs.next()) {
-                resultList.add(new Product(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getDouble("weight"),
-                        rs.getDouble("price")));
-            }
-            return resultList;
+            return Mappers.PRODUCT.mapAll(rs);
+
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
 
+    /**
+     * Only the IDs of the products the warehouse has a stock of, for clients having the products themselves already
+     *
+     * @param warehouse the warehouse
+     * @return the IDs of the products of the warehouse
+     * @throws DataAccessException when SQLException inside the method
+     */
+    @Override
+    public List<Integer> getProductIds(Warehouse warehouse) throws DataAccessException {
+        String query = "SELECT productID FROM Stock WHERE warehouseID = ? ORDER BY productID;";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, warehouse.getId());
+            try (ResultSet rs = s.executeQuery()) {
+                List<Integer> ids = new ArrayList<>();
+                while (rs.next()) {
+                    ids.add(rs.getInt("productID"));
+                }
+                return ids;
+            }
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
 
     /**
+     * Active reservations of other carts and the items of pending orders are subtracted from the stock quantity,
+     * so the same units can't be promised twice.
+     *
      * @param warehouse Where you want to check the availability of a product
      * @param product   Product to check
      * @param amount    Amount of product needed
@@ -181,14 +186,15 @@ public class ProductDB implements ProductDAO {
      */
     @Override
     public boolean checkAvailability(Warehouse warehouse, Product product, int amount) throws DataAccessException {
-        String query = "SELECT TOP 1 * FROM Product p " +
-                "JOIN Stock s ON p.id = s.productID " +
-                "JOIN Warehouse w ON s.warehouseID = w.id " +
-                "WHERE w.id = ? AND ? <= s.quantity;";
+        String query = "SELECT TOP 1 s.quantity FROM Stock s " +
+                "WHERE s.warehouseID = ? AND s.productID = ? AND ? <= s.quantity - " +
+                StockReservationDB.PENDING + " - (SELECT ISNULL(SUM(r.quantity), 0) FROM StockReservation r " +
+                "WHERE r.warehouseID = s.warehouseID AND r.productID = s.productID AND r.expires > SYSDATETIME());";
 
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, warehouse.getId());
-            s.setInt(2, amount);
+            s.setInt(2, product.getId());
+            s.setInt(3, amount);
             ResultSet rs = db.executeSelect(s);
 
             return (rs.next());
@@ -196,4 +202,52 @@ public class ProductDB implements ProductDAO {
             throw new DataAccessException(e.getMessage());
         }
     }
+
+    /**
+     * Checks a whole cart against the Stock of a Warehouse in one query.
+     * The requested amounts are sent as a table value constructor and joined with the Stock table,
+     * so only the lines which can't be fulfilled come back.
+     * The items of pending orders are subtracted from the stock, the reservations aren't, as the cart holds its own.
+     *
+     * @param warehouse the Warehouse we're checking
+     * @param amounts   the IDs of the Products mapped to the needed amounts
+     * @return the IDs of the Products which are short mapped to the missing amount, empty if everything is available
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public Map<Integer, Integer> getShortfalls(Warehouse warehouse, Map<Integer, Integer> amounts) throws DataAccessException {
+        Map<Integer, Integer> shortfalls = new HashMap<>();
+        List<Map.Entry<Integer, Integer>> lines = new ArrayList<>(amounts.entrySet());
+        // Every line takes two parameters
+        int chunkSize = DBConnection.MAX_PARAMETERS / 2;
+
+        for (int from = 0; from < lines.size(); from += chunkSize) {
+            List<Map.Entry<Integer, Integer>> chunk = lines.subList(from, Math.min(from + chunkSize, lines.size()));
+            StringBuilder values = new StringBuilder();
+            for (int i = 0; i < chunk.size(); i++) {
+                values.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            }
+            String query = "SELECT c.productID, c.amount - a.available AS missing " +
+                    "FROM (VALUES " + values + ") AS c (productID, amount) " +
+                    "LEFT JOIN Stock s ON s.productID = c.productID AND s.warehouseID = ? " +
+                    "CROSS APPLY (SELECT ISNULL(s.quantity, 0) - " + StockReservationDB.PENDING + " AS available) a " +
+                    "WHERE a.available < c.amount;";
+
+            try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+                int index = 1;
+                for (Map.Entry<Integer, Integer> line : chunk) {
+                    s.setInt(index++, line.getKey());
+                    s.setInt(index++, line.getValue());
+                }
+                s.setInt(index, warehouse.getId());
+                ResultSet rs = db.executeSelect(s);
+                while (rs.next()) {
+                    shortfalls.put(rs.getInt("productID"), rs.getInt("missing"));
+                }
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+        return shortfalls;
+    }
 }
@@ -56,12 +56,10 @@ public class ProviderDB implements DAOInterface<Provider> {
             ResultSet rs = db.executeSelect(s);
             AddressDB addressDB = new AddressDB();
             if (rs.next()) {
-                return new Provider(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("email"),
-                        rs.getBoolean("available"),
-                        addressDB.selectByID(rs.getInt("addressID")));
+                RowMapper.Reader<Provider> reader = Mappers.PROVIDER.reader(rs);
+                Provider provider = reader.read();
+                provider.setAddress(addressDB.selectByID(reader.row().getInt("addressID")));
+                return provider;
             }
 
         } catch (SQLException e) {
@@ -78,18 +76,17 @@ public class ProviderDB implements DAOInterface<Provider> {
     public List<Provider> all() throws DataAccessException {
         String query = "SELECT * FROM Provider;";
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
-            AddressDB addressDB = new AddressDB();
+            DataLoader loader = new DataLoader();
             ResultSet rs = db.executeSelect(s);
             List<Provider> resultList = new ArrayList<>();
+            RowMapper.Reader<Provider> reader = Mappers.PROVIDER.reader(rs);
 
             while (rs.next()) {
-                resultList.add(new Provider(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("email"),
-                        rs.getBoolean("available"),
-                        addressDB.selectByID(rs.getInt("addressID"))));
+                Provider provider = reader.read();
+                loader.address(reader.row().getInt("addressID")).thenAccept(provider::setAddress);
+                resultList.add(provider);
             }
+            loader.dispatch();
             return resultList;
 
         } catch (SQLException e) {
@@ -0,0 +1,203 @@
+package database;
+
+import model.Order;
+import model.OrderTotals;
+import model.Stock;
+import model.StockReservation;
+import model.WarehouseOrder;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects the remote DAO calls made at about the same time and sends them in one request.
+ * The first call of a batch waits for a short window, every call made by other threads meanwhile joins it,
+ * then the first caller sends the batch and hands every caller its own result.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+class RemoteBatcher {
+    static final int OK = 0;
+    static final int FAILED = 1;
+    static final int CONFLICT = 2;
+
+    private final RemoteTransport transport;
+    private final long windowNanos;
+    // The batch waiting to be sent, null when there is none
+    private List<Call> pending;
+
+    private static final class Call {
+        private final int method;
+        private final Object[] args;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Object result;
+        private DataAccessException error;
+
+        private Call(int method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    /**
+     * @param transport sends the batches
+     * @param window    how long the first call of a batch waits for other calls, 0 sends every call alone
+     */
+    RemoteBatcher(RemoteTransport transport, long window, TimeUnit unit) {
+        this.transport = transport;
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    RemoteTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Makes a call as part of the current batch and waits for its result
+     *
+     * @param method the number of the method
+     * @param args   the arguments of the call, the rows changed by the call are updated in them
+     * @return the result of the call
+     * @throws DataAccessException the exception thrown by the DAO on the other side, or when it can't be reached
+     */
+    Object call(int method, Object[] args) throws DataAccessException {
+        Call call = new Call(method, args);
+        boolean first;
+        synchronized (this) {
+            first = pending == null;
+            if (first) {
+                pending = new ArrayList<>();
+            }
+            pending.add(call);
+        }
+        if (first) {
+            if (windowNanos > 0) {
+                LockSupport.parkNanos(windowNanos);
+            }
+            List<Call> batch;
+            synchronized (this) {
+                batch = pending;
+                pending = null;
+            }
+            send(batch);
+        }
+        try {
+            call.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for the order service");
+        }
+        if (call.error != null) {
+            throw call.error;
+        }
+        return call.result;
+    }
+
+    private void send(List<Call> batch) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            ModelCodec.Writer writer = new ModelCodec.Writer(out);
+            writer.writeInt(batch.size());
+            for (Call call : batch) {
+                writer.writeInt(call.method);
+                writer.writeInt(call.args.length);
+                for (Object arg : call.args) {
+                    writer.write(arg);
+                }
+            }
+            out.flush();
+
+            byte[] response = transport.exchange(bytes.toByteArray());
+            ModelCodec.Reader reader = new ModelCodec.Reader(new DataInputStream(new ByteArrayInputStream(response)));
+            if (reader.readInt() != batch.size()) {
+                throw new IOException("The order service answered a different number of calls");
+            }
+            for (Call call : batch) {
+                int outcome = reader.readInt();
+                if (outcome == OK) {
+                    call.result = reader.read();
+                    readChanges(reader, call.args);
+                } else {
+                    String message = reader.read(String.class);
+                    call.error = outcome == CONFLICT ? new VersionConflictException(message) : new DataAccessException(message);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Call call : batch) {
+                if (call.error == null) {
+                    call.error = new DataAccessException("Can't reach the order service\n" + e.getMessage());
+                }
+            }
+        } finally {
+            for (Call call : batch) {
+                call.done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Writes what a DAO changed in the arguments of a call, which are the version and totals of the saved rows,
+     * or the ID, quantity and expiry of a reservation
+     */
+    static void writeChanges(ModelCodec.Writer writer, Object[] args) throws IOException {
+        int changed = 0;
+        for (Object arg : args) {
+            if (arg instanceof Order || arg instanceof WarehouseOrder || arg instanceof Stock || arg instanceof StockReservation) {
+                changed++;
+            }
+        }
+        writer.writeInt(changed);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Order) {
+                writer.writeInt(i);
+                writer.writeLong(((Order) args[i]).getVersion());
+                writer.write(((Order) args[i]).getTotals());
+            } else if (args[i] instanceof WarehouseOrder) {
+                writer.writeInt(i);
+                writer.writeLong(((WarehouseOrder) args[i]).getVersion());
+                writer.write(((WarehouseOrder) args[i]).getTotals());
+            } else if (args[i] instanceof Stock) {
+                writer.writeInt(i);
+                writer.writeLong(((Stock) args[i]).getVersion());
+                writer.write(null);
+            } else if (args[i] instanceof StockReservation) {
+                StockReservation reservation = (StockReservation) args[i];
+                writer.writeInt(i);
+                writer.writeLong(reservation.getId());
+                // The expiry is null until the reservation is made
+                writer.write(Arrays.asList(reservation.getQuantity(), reservation.getExpires()));
+            }
+        }
+    }
+
+    private static void readChanges(ModelCodec.Reader reader, Object[] args) throws IOException {
+        int changed = reader.readInt();
+        for (int i = 0; i < changed; i++) {
+            Object arg = args[reader.readInt()];
+            long version = reader.readLong();
+            Object changes = reader.read();
+            if (arg instanceof Order) {
+                ((Order) arg).setVersion(version);
+                ((Order) arg).setTotals((OrderTotals) changes);
+            } else if (arg instanceof WarehouseOrder) {
+                ((WarehouseOrder) arg).setVersion(version);
+                ((WarehouseOrder) arg).setTotals((OrderTotals) changes);
+            } else if (arg instanceof Stock) {
+                ((Stock) arg).setVersion(version);
+            } else if (arg instanceof StockReservation) {
+                // The version stands for the ID here
+                List<?> quantityAndExpiry = (List<?>) changes;
+                ((StockReservation) arg).setId((int) version);
+                ((StockReservation) arg).setQuantity((Integer) quantityAndExpiry.get(0));
+                ((StockReservation) arg).setExpires((LocalDateTime) quantityAndExpiry.get(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package database;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Implements the DAO interfaces by sending their calls to the order service instead of the database.
+ * The calls of all remote DAOs go through one RemoteBatcher, which sends the calls made at about the same time
+ * in one request.
+ * Both sides number the methods of the interfaces the same way, so a call is sent as the number of its method
+ * followed by its arguments.
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public final class RemoteDAO {
+    // The interfaces which can be called remotely, the order must be the same on both sides
+    static final List<Class<?>> INTERFACES = List.of(
+            OrderDAO.class, StockDAO.class, ProductDAO.class, WarehouseOrderDAO.class, StoreStockReportDAO.class, LoginDAO.class,
+            CatalogDAO.class, ChangeFeedDAO.class, StockReservationDAO.class, StockMovementDAO.class,
+            ConsumptionDAO.class);
+    // The interface and method of every method number
+    static final List<Class<?>> CALL_INTERFACES = new ArrayList<>();
+    static final List<Method> CALL_METHODS = new ArrayList<>();
+    private static final Map<Class<?>, Map<Method, Integer>> numbers = new HashMap<>();
+
+    static {
+        for (Class<?> daoInterface : INTERFACES) {
+            Method[] methods = daoInterface.getMethods();
+            Arrays.sort(methods, Comparator.comparing(RemoteDAO::signature));
+            Map<Method, Integer> interfaceNumbers = new HashMap<>();
+            for (Method method : methods) {
+                interfaceNumbers.put(method, CALL_METHODS.size());
+                CALL_INTERFACES.add(daoInterface);
+                CALL_METHODS.add(method);
+            }
+            numbers.put(daoInterface, interfaceNumbers);
+        }
+    }
+
+    private RemoteDAO() {/* Private constructor to hide the implicit public one */}
+
+    static String signature(Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
+    }
+
+    /**
+     * Creates a DAO whose calls are sent through the given batcher
+     *
+     * @param daoInterface one of the DAO interfaces which can be called remotely
+     * @param batcher      sends the calls
+     * @return the remote implementation of the interface
+     */
+    static <T> T create(Class<T> daoInterface, RemoteBatcher batcher) {
+        Map<Method, Integer> interfaceNumbers = numbers.get(daoInterface);
+        if (interfaceNumbers == null) {
+            throw new IllegalArgumentException(daoInterface.getName() + " can't be called remotely");
+        }
+        Object proxy = Proxy.newProxyInstance(daoInterface.getClassLoader(), new Class<?>[]{daoInterface},
+                (self, method, args) -> {
+                    Integer number = interfaceNumbers.get(method);
+                    if (number != null) {
+                        return batcher.call(number, args == null ? new Object[0] : args);
+                    }
+                    switch (method.getName()) {
+                        case "equals":
+                            return self == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        case "toString":
+                            return "Remote " + daoInterface.getSimpleName();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return daoInterface.cast(proxy);
+    }
+}
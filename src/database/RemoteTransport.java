@@ -0,0 +1,19 @@
+package database;
+
+import java.io.IOException;
+
+/**
+ * Carries an encoded batch of DAO calls to the order service and brings back the encoded results
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public interface RemoteTransport {
+    byte[] exchange(byte[] request) throws IOException;
+
+    /**
+     * Sets the name and password of the Store or Warehouse the calls are made for
+     */
+    default void setCredentials(String username, String password) {
+        // Transports which don't leave the process don't need them
+    }
+}
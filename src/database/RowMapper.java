@@ -0,0 +1,156 @@
+package database;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds objects of one type from the rows of a ResultSet.
+ * A mapper lists the columns it reads, and {@link #reader(ResultSet, String)} finds their position in the ResultSet once,
+ * so reading a row doesn't look any column up by name. Columns missing from the ResultSet read as 0 or null,
+ * which allows narrow projections. A prefix picks aliased columns of a join, for example "p_" reads p_id, p_name...
+ * One mapper is shared per entity, see {@link Mappers}.
+ *
+ * @param <T> the type of the objects built
+ */
+public abstract class RowMapper<T> {
+    private final String[] columns;
+
+    /**
+     * @param columns the labels of the columns the mapper reads, {@link #map(Row)} refers to them by their position here
+     */
+    protected RowMapper(String... columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Builds the object from the current row
+     *
+     * @param row the current row, its columns are read by the position given in the constructor
+     */
+    protected abstract T map(Row row) throws SQLException;
+
+    public Reader<T> reader(ResultSet rs) throws SQLException {
+        return reader(rs, "");
+    }
+
+    public Reader<T> reader(ResultSet rs, String prefix) throws SQLException {
+        return new Reader<>(this, new Row(rs, prefix, columns));
+    }
+
+    /**
+     * Builds an object from every remaining row of a ResultSet
+     */
+    public List<T> mapAll(ResultSet rs) throws SQLException {
+        Reader<T> reader = reader(rs);
+        List<T> result = new ArrayList<>();
+        while (rs.next()) {
+            result.add(reader.read());
+        }
+        return result;
+    }
+
+    /**
+     * A mapper bound to one ResultSet
+     */
+    public static final class Reader<T> {
+        private final RowMapper<T> mapper;
+        private final Row row;
+
+        private Reader(RowMapper<T> mapper, Row row) {
+            this.mapper = mapper;
+            this.row = row;
+        }
+
+        /**
+         * @return the object built from the current row
+         */
+        public T read() throws SQLException {
+            return mapper.map(row);
+        }
+
+        /**
+         * @return the current row, for reading columns the mapper doesn't know about
+         */
+        public Row row() {
+            return row;
+        }
+    }
+
+    /**
+     * The current row of a ResultSet with the column positions already resolved
+     */
+    public static final class Row {
+        private final ResultSet rs;
+        private final String prefix;
+        // Lower case label -> position, only used when reading columns by name
+        private final Map<String, Integer> labels = new HashMap<>();
+        // Position in the ResultSet of every column of the mapper, 0 if it's missing
+        private final int[] index;
+
+        private Row(ResultSet rs, String prefix, String[] columns) throws SQLException {
+            this.rs = rs;
+            this.prefix = prefix.toLowerCase(Locale.ROOT);
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = metaData.getColumnCount(); i > 0; i--) {
+                // Going backwards keeps the first of duplicated labels, like ResultSet.findColumn()
+                labels.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+            }
+            index = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                index[i] = position(columns[i]);
+            }
+        }
+
+        private int position(String column) {
+            return labels.getOrDefault(prefix + column.toLowerCase(Locale.ROOT), 0);
+        }
+
+        public boolean has(int column) {
+            return index[column] > 0;
+        }
+
+        public int getInt(int column) throws SQLException {
+            return index[column] > 0 ? rs.getInt(index[column]) : 0;
+        }
+
+        public double getDouble(int column) throws SQLException {
+            return index[column] > 0 ? rs.getDouble(index[column]) : 0;
+        }
+
+        public long getLong(int column) throws SQLException {
+            return index[column] > 0 ? rs.getLong(index[column]) : 0;
+        }
+
+        public boolean getBoolean(int column) throws SQLException {
+            return index[column] > 0 && rs.getBoolean(index[column]);
+        }
+
+        public String getString(int column) throws SQLException {
+            return index[column] > 0 ? rs.getString(index[column]) : null;
+        }
+
+        public LocalDateTime getDateTime(int column) throws SQLException {
+            if (index[column] == 0) {
+                return null;
+            }
+            Timestamp timestamp = rs.getTimestamp(index[column]);
+            return timestamp == null ? null : timestamp.toLocalDateTime();
+        }
+
+        /**
+         * Reads a column the mapper doesn't list, by its label (the prefix is added)
+         */
+        public int getInt(String column) throws SQLException {
+            int position = position(column);
+            return position > 0 ? rs.getInt(position) : 0;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package database;
 
+import model.ChangeSet;
+import model.ReplenishmentLine;
 import model.Stock;
+import model.StockAvailability;
 import model.Warehouse;
 
 import java.util.List;
@@ -14,10 +17,21 @@ public interface StockDAO extends DAOInterface<Stock> {
 
     List<Stock> getStocks(Warehouse warehouse) throws DataAccessException;
 
+    List<Stock> getStocks(Warehouse warehouse, List<Integer> productIds) throws DataAccessException;
+
     Stock getStock(int warehouseId, int productId) throws DataAccessException;
 
     int getStocksAmount(Warehouse warehouse) throws DataAccessException;
 
     int getStocksBelowMinQuantityAmount(Warehouse warehouse) throws DataAccessException;
 
+    List<StockAvailability> getAvailability(Warehouse warehouse) throws DataAccessException;
+
+    /**
+     * Loads the figures of only the Products of a Warehouse touched by the changes
+     */
+    List<StockAvailability> getAvailability(Warehouse warehouse, ChangeSet changes) throws DataAccessException;
+
+    List<ReplenishmentLine> getReplenishmentLines(int targetFactor) throws DataAccessException;
+
 }
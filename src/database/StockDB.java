@@ -1,7 +1,12 @@
 package database;
 
+import model.ChangeSet;
+import model.DomainEvent;
 import model.Product;
+import model.ReplenishmentLine;
+import model.Status;
 import model.Stock;
+import model.StockAvailability;
 import model.Warehouse;
 
 import java.sql.PreparedStatement;
@@ -18,6 +23,20 @@ import java.util.List;
  * @author dmai0919-group3@UCNDK.onmicrosoft.com
  */
 public class StockDB implements StockDAO {
+    /**
+     * The on hand, pending and inbound quantities of the Stock of a Warehouse. The three filters narrow down
+     * the order items, the warehouse order items and the Stock rows, the ID of the Warehouse is taken 3 times.
+     */
+    private static final String AVAILABILITY = "SELECT s.productID, s.quantity, ISNULL(p.quantity, 0) AS pending, ISNULL(i.quantity, 0) AS inbound " +
+            "FROM Stock s " +
+            "LEFT JOIN (SELECT oi.productID, SUM(oi.quantity) AS quantity FROM [Order] o " +
+            "  JOIN OrderItem oi ON oi.orderDate = o.date AND oi.orderID = o.id " +
+            "  WHERE o.warehouseID = ? AND o.status = " + Status.PENDING.code + " %1$sGROUP BY oi.productID) p ON p.productID = s.productID " +
+            "LEFT JOIN (SELECT wi.productID, SUM(wi.quantity) AS quantity FROM WarehouseOrder wo " +
+            "  JOIN WarehouseOrderItem wi ON wi.orderDate = wo.date AND wi.orderID = wo.id " +
+            "  WHERE wo.warehouseID = ? AND wo.status NOT IN (" + DBConnection.CLOSED_STATUSES + ") %2$sGROUP BY wi.productID) i ON i.productID = s.productID " +
+            "WHERE s.warehouseID = ? %3$s;";
+
     DBConnection db = DBConnection.getInstance();
 
     /**
@@ -77,11 +96,13 @@ public class StockDB implements StockDAO {
                 Product product = productDB.selectByID(rs.getInt("productID"));
                 WarehouseDB warehouseDB = new WarehouseDB();
                 Warehouse warehouse = warehouseDB.selectByID(rs.getInt("warehouseID"));
-                return new Stock(
+                Stock stock = new Stock(
                         rs.getInt("quantity"),
                         rs.getInt("minQuantity"),
                         product,
                         warehouse);
+                stock.setVersion(DBConnection.getVersion(rs));
+                return stock;
             }
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -101,18 +122,16 @@ public class StockDB implements StockDAO {
             PreparedStatement s = db.getDBConn().prepareStatement(query);
             ResultSet rs = db.executeSelect(s);
             List<Stock> resultList = new ArrayList<>();
+            DataLoader loader = new DataLoader();
 
             while (rs.next()) {
-                ProductDB productDB = new ProductDB();
-                Product product = productDB.selectByID(rs.getInt("productID"));
-                WarehouseDB warehouseDB = new WarehouseDB();
-                Warehouse warehouse = warehouseDB.selectByID(rs.getInt("warehouseID"));
-                resultList.add(new Stock(
-                        rs.getInt("quantity"),
-                        rs.getInt("minQuantity"),
-                        product,
-                        warehouse));
+                Stock stock = new Stock(rs.getInt("quantity"), rs.getInt("minQuantity"), null, null);
+                stock.setVersion(DBConnection.getVersion(rs));
+                loader.product(rs.getInt("productID")).thenAccept(stock::setProduct);
+                loader.warehouse(rs.getInt("warehouseID")).thenAccept(stock::setWarehouse);
+                resultList.add(stock);
             }
+            loader.dispatch();
             return resultList;
 
         } catch (SQLException e) {
@@ -121,32 +140,56 @@ public class StockDB implements StockDAO {
     }
 
     /**
+     * Only the minimum quantity is updated, the quantity is changed through the stock ledger.
+     * The row is only updated when it still has the version the Stock was read with, after the update the Stock
+     * gets the new version. Ledger movements change the version as well, since they change the row.
+     *
      * @param value it's the given T type object (in this case Stock)
-     * @return the number of rows affected by the update
+     * @return the number of rows affected by the update, 0 when the stock doesn't exist anymore
+     * @throws VersionConflictException when the stock was changed since it was read
      * @inheritDoc
-     * @see DBConnection executeQuery() method
+     * @see controller.StockLedger
      */
     @Override
     public int update(Stock value) throws DataAccessException {
-        String queryStock = "UPDATE Stock SET quantity=?, minQuantity=? " +
-                "WHERE productID=? AND warehouseID=?;";
+        String queryStock = "UPDATE Stock SET minQuantity=? OUTPUT INSERTED.version " +
+                "WHERE productID=? AND warehouseID=? AND version=?;";
+        String queryExists = "SELECT 1 FROM Stock WHERE productID=? AND warehouseID=?;";
         // There are two keys which point to product and a warehouse.
         // Since stock is attached to only one product and one warehouse it's enough
         // We DO NOT update warehouseID nor productID
-        int rows = 0;
+        db.setAutoCommit(false);
         try (PreparedStatement s = db.getDBConn().prepareStatement(queryStock)) {
-            s.setInt(1, value.getQuantity());
-            s.setInt(2, value.getMinQuantity());
-            s.setInt(3, value.getProduct().getId());
-            s.setInt(4, value.getWarehouse().getId());
-            rows = db.executeQuery(s);
-            if (rows == 0 && create(value) != -1) {
+            s.setInt(1, value.getMinQuantity());
+            s.setInt(2, value.getProduct().getId());
+            s.setInt(3, value.getWarehouse().getId());
+            DBConnection.setVersion(s, 4, value.getVersion());
+            ResultSet rs = db.executeSelect(s);
+            if (rs.next()) {
+                long version = DBConnection.getVersion(rs);
+                OutboxDB.append(db.getDBConn(), DomainEvent.stockAdjusted(value.getWarehouse().getId(), value.getProduct().getId(), 0));
+                db.getDBConn().commit();
+                db.setAutoCommit(true);
+                value.setVersion(version);
                 return 1;
             }
+            db.rollback();
+            db.setAutoCommit(true);
+        } catch (SQLException | DataAccessException e) {
+            db.rollback();
+            db.setAutoCommit(true);
+            throw new DataAccessException(e.getMessage());
+        }
+        try (PreparedStatement s = db.getDBConn().prepareStatement(queryExists)) {
+            s.setInt(1, value.getProduct().getId());
+            s.setInt(2, value.getWarehouse().getId());
+            if (db.executeSelect(s).next()) {
+                throw new VersionConflictException("The stock was changed by someone else");
+            }
+            return 0;
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
-        return rows;
     }
 
     /**
@@ -176,25 +219,50 @@ public class StockDB implements StockDAO {
      */
     @Override
     public List<Stock> getStocks(Warehouse warehouse) throws DataAccessException {
-        String query = "SELECT * FROM Stock s " +
-                "WHERE warehouseID = ?;";
+        return readStocks(warehouse, "", List.of());
+    }
+
+    /**
+     * Reads some Stocks of a warehouse, to refresh the rows of stocks changed since the list was read
+     *
+     * @param warehouse  the warehouse of the stocks
+     * @param productIds the IDs of the products of the stocks
+     * @return the stocks found
+     * @throws DataAccessException when SQLException inside the method
+     */
+    @Override
+    public List<Stock> getStocks(Warehouse warehouse, List<Integer> productIds) throws DataAccessException {
+        List<Stock> stocks = new LinkedList<>();
+        // One parameter is taken by the warehouse
+        int chunkSize = DBConnection.MAX_PARAMETERS - 1;
+        for (int from = 0; from < productIds.size(); from += chunkSize) {
+            List<Integer> chunk = productIds.subList(from, Math.min(from + chunkSize, productIds.size()));
+            stocks.addAll(readStocks(warehouse, " AND productID IN (" + DBConnection.placeholders(chunk.size()) + ")", chunk));
+        }
+        return stocks;
+    }
 
+    private List<Stock> readStocks(Warehouse warehouse, String filter, List<Integer> productIds) throws DataAccessException {
+        String query = "SELECT * FROM Stock s " +
+                "WHERE warehouseID = ?" + filter + ";";
 
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, warehouse.getId());
+            for (int i = 0; i < productIds.size(); i++) {
+                s.setInt(i + 2, productIds.get(i));
+            }
             ResultSet rs = db.executeSelect(s);
 
-            ProductDAO productDB = new ProductDB();
+            DataLoader loader = new DataLoader();
             List<Stock> resultList = new LinkedList<>();
 
             while (rs.next()) {
-                Product product = productDB.selectByID(rs.getInt("productID"));
-                resultList.add(new Stock(
-                        rs.getInt("quantity"),
-                        rs.getInt("minQuantity"),
-                        product,
-                        warehouse));
+                Stock stock = new Stock(rs.getInt("quantity"), rs.getInt("minQuantity"), null, warehouse);
+                stock.setVersion(DBConnection.getVersion(rs));
+                loader.product(rs.getInt("productID")).thenAccept(stock::setProduct);
+                resultList.add(stock);
             }
+            loader.dispatch();
             return resultList;
 
         } catch (SQLException e) {
@@ -221,7 +289,7 @@ public class StockDB implements StockDAO {
     }
 
     public int getStocksBelowMinQuantityAmount(Warehouse warehouse) throws DataAccessException {
-        String query = "SELECT count(*) as total from Stock where warehouseID=? and quantity > minQuantity";
+        String query = "SELECT count(*) as total from Stock where warehouseID=? and quantity < minQuantity";
 
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, warehouse.getId());
@@ -235,4 +303,116 @@ public class StockDB implements StockDAO {
             throw new DataAccessException(e.getMessage());
         }
     }
+
+    /**
+     * Loads the on hand, pending and inbound quantities of every Product of a Warehouse in one query
+     *
+     * @param warehouse the Warehouse we're searching for
+     * @return a List containing the figures of every Stock of the Warehouse
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<StockAvailability> getAvailability(Warehouse warehouse) throws DataAccessException {
+        return readAvailability(String.format(AVAILABILITY, "", "", ""), warehouse.getId(), List.of());
+    }
+
+    /**
+     * The Products are the changed Stock rows and the items of the changed orders and warehouse orders,
+     * only their pending and inbound items are summed. Too many changes for one query load the whole Warehouse.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public List<StockAvailability> getAvailability(Warehouse warehouse, ChangeSet changes) throws DataAccessException {
+        List<Integer> parameters = new ArrayList<>(changes.getStocks());
+        parameters.addAll(changes.getOrders());
+        parameters.addAll(changes.getWarehouseOrders());
+        if (parameters.size() > DBConnection.MAX_PARAMETERS) {
+            return getAvailability(warehouse);
+        }
+        String products = "SET NOCOUNT ON;" +
+                "DECLARE @products TABLE (productID int PRIMARY KEY);" +
+                "INSERT INTO @products SELECT id FROM Product WHERE id IN (" + in(changes.getStocks().size()) + ") " +
+                "UNION SELECT oi.productID FROM [Order] o JOIN OrderItem oi ON oi.orderDate = o.date AND oi.orderID = o.id " +
+                "  WHERE o.id IN (" + in(changes.getOrders().size()) + ") " +
+                "UNION SELECT wi.productID FROM WarehouseOrder wo JOIN WarehouseOrderItem wi ON wi.orderDate = wo.date AND wi.orderID = wo.id " +
+                "  WHERE wo.id IN (" + in(changes.getWarehouseOrders().size()) + ");";
+        String filter = "AND %s.productID IN (SELECT productID FROM @products) ";
+        return readAvailability(products + String.format(AVAILABILITY, String.format(filter, "oi"), String.format(filter, "wi"),
+                String.format(filter, "s")), warehouse.getId(), parameters);
+    }
+
+    // The placeholders of an IN clause, a list without elements matches nothing
+    private static String in(int count) {
+        return count == 0 ? "NULL" : DBConnection.placeholders(count);
+    }
+
+    private List<StockAvailability> readAvailability(String query, int warehouseId, List<Integer> parameters) throws DataAccessException {
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            int index = 1;
+            for (int parameter : parameters) {
+                s.setInt(index++, parameter);
+            }
+            s.setInt(index, warehouseId);
+            s.setInt(index + 1, warehouseId);
+            s.setInt(index + 2, warehouseId);
+            ResultSet rs = db.executeSelect(s);
+            List<StockAvailability> resultList = new ArrayList<>();
+            while (rs.next()) {
+                resultList.add(new StockAvailability(
+                        rs.getInt("productID"),
+                        rs.getInt("quantity"),
+                        rs.getInt("pending"),
+                        rs.getInt("inbound")));
+            }
+            return resultList;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the Stock of every Warehouse which runs below its minimum quantity, in one query.
+     * The quantity still inbound from warehouse orders counts as stock, so a Product which is already reordered
+     * doesn't come back. Every line gets the cheapest available Provider of its Product.
+     *
+     * @param targetFactor the stock is reordered up to this many times its minimum quantity
+     * @return the lines ordered by Warehouse and Provider, with provider 0 where no Provider sells the Product
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<ReplenishmentLine> getReplenishmentLines(int targetFactor) throws DataAccessException {
+        String query = "WITH inbound AS (SELECT wo.warehouseID, wi.productID, SUM(wi.quantity) AS quantity " +
+                "  FROM WarehouseOrder wo JOIN WarehouseOrderItem wi ON wi.orderDate = wo.date AND wi.orderID = wo.id " +
+                "  WHERE wo.status NOT IN (" + DBConnection.CLOSED_STATUSES + ") GROUP BY wo.warehouseID, wi.productID), " +
+                "cheapest AS (SELECT pp.productID, pp.providerID, pp.unitPrice, " +
+                "  ROW_NUMBER() OVER (PARTITION BY pp.productID ORDER BY pp.unitPrice, pp.providerID) AS priceRank " +
+                "  FROM ProviderProduct pp JOIN Provider pr ON pr.id = pp.providerID WHERE pr.available = 1) " +
+                "SELECT s.warehouseID, s.productID, ISNULL(c.providerID, 0) AS providerID, ISNULL(c.unitPrice, 0) AS unitPrice, " +
+                "p.weight, ? * s.minQuantity - s.quantity - ISNULL(i.quantity, 0) AS quantity " +
+                "FROM Stock s " +
+                "JOIN Product p ON p.id = s.productID " +
+                "LEFT JOIN inbound i ON i.warehouseID = s.warehouseID AND i.productID = s.productID " +
+                "LEFT JOIN cheapest c ON c.productID = s.productID AND c.priceRank = 1 " +
+                "WHERE s.quantity + ISNULL(i.quantity, 0) < s.minQuantity " +
+                "ORDER BY s.warehouseID, providerID, s.productID;";
+
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, targetFactor);
+            ResultSet rs = db.executeSelect(s);
+            List<ReplenishmentLine> resultList = new ArrayList<>();
+            while (rs.next()) {
+                resultList.add(new ReplenishmentLine(
+                        rs.getInt("warehouseID"),
+                        rs.getInt("productID"),
+                        rs.getInt("providerID"),
+                        rs.getLong("unitPrice"),
+                        rs.getDouble("weight"),
+                        rs.getInt("quantity")));
+            }
+            return resultList;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
 }
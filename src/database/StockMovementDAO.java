@@ -0,0 +1,47 @@
+package database;
+
+import model.StockDiscrepancy;
+import model.StockMovement;
+
+import java.util.List;
+
+/**
+ * The append-only ledger of the stock movements. The quantity of a Stock is its snapshot plus the movements added
+ * after the snapshot, the Stock table only keeps the result.
+ *
+ * @see controller.StockLedger
+ */
+public interface StockMovementDAO {
+
+    /**
+     * Adds the movements to the ledger and applies them to the Stock in one transaction
+     */
+    void append(List<StockMovement> movements) throws DataAccessException;
+
+    /**
+     * Sets the quantity of a Stock to a counted quantity, the difference to the current quantity is written to the
+     * ledger as a correction in the same transaction. A missing Stock row is created.
+     *
+     * @return the difference written to the ledger, 0 when the quantity was already right
+     */
+    int correct(int warehouseId, int productId, int quantity) throws DataAccessException;
+
+    /**
+     * Folds every movement added since the last snapshot into the snapshot
+     */
+    void takeSnapshot() throws DataAccessException;
+
+    List<Integer> getWarehouseIds() throws DataAccessException;
+
+    /**
+     * @return the Stock of the Warehouse whose quantity doesn't match the ledger
+     */
+    List<StockDiscrepancy> verify(int warehouseId) throws DataAccessException;
+
+    /**
+     * Sets the quantity of every Stock of the Warehouse to the quantity in the ledger
+     *
+     * @return the number of Stock rows fixed
+     */
+    int rebuild(int warehouseId) throws DataAccessException;
+}
@@ -0,0 +1,274 @@
+package database;
+
+import model.DomainEvent;
+import model.MovementReason;
+import model.StockDiscrepancy;
+import model.StockMovement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO class for the StockMovement ledger via StockMovementDAO.
+ * It works on the connection of the current thread by default, background writers pass their own connection.
+ */
+public class StockMovementDB implements StockMovementDAO {
+    /**
+     * The quantity of every Stock of a Warehouse according to the ledger, next to the quantity in the Stock table.
+     * Takes the ID of the Warehouse twice.
+     */
+    private static final String LEDGER_QUANTITIES = "SELECT s.warehouseID, s.productID, s.quantity AS stockQuantity, " +
+            "ISNULL(ss.quantity, 0) + ISNULL(d.quantity, 0) AS ledgerQuantity FROM Stock s " +
+            "LEFT JOIN StockSnapshot ss ON ss.warehouseID = s.warehouseID AND ss.productID = s.productID " +
+            "LEFT JOIN (SELECT m.productID, SUM(CAST(m.quantity AS bigint)) AS quantity FROM StockMovement m " +
+            "  LEFT JOIN StockSnapshot ms ON ms.warehouseID = m.warehouseID AND ms.productID = m.productID " +
+            "  WHERE m.warehouseID = ? AND m.id > ISNULL(ms.movementID, 0) GROUP BY m.productID) d ON d.productID = s.productID " +
+            "WHERE s.warehouseID = ?";
+
+    private final DBConnection db;
+    private final Connection ownConnection;
+
+    public StockMovementDB() throws DataAccessException {
+        this.db = DBConnection.getInstance();
+        this.ownConnection = null;
+    }
+
+    /**
+     * @param connection the connection to work on, the caller closes it
+     */
+    public StockMovementDB(Connection connection) {
+        this.db = null;
+        this.ownConnection = connection;
+    }
+
+    /**
+     * @return the connection given to the constructor, otherwise the connection of the current thread
+     */
+    private Connection connection() {
+        return ownConnection != null ? ownConnection : db.getDBConn();
+    }
+
+    /**
+     * The movements are inserted with multi-row inserts, then the sum of the movements of every Stock is added to
+     * its quantity, so concurrent writers never overwrite each other. Missing Stock rows are created.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public void append(List<StockMovement> movements) throws DataAccessException {
+        if (movements.isEmpty()) {
+            return;
+        }
+        try {
+            connection().setAutoCommit(false);
+            write(connection(), movements);
+            connection().commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new DataAccessException(e.getMessage());
+        } finally {
+            autoCommit();
+        }
+    }
+
+    /**
+     * Writes the movements like {@link #append(List)} inside the transaction of the caller,
+     * for DAOs changing the stock together with their own rows
+     */
+    static void write(Connection connection, List<StockMovement> movements) throws SQLException {
+        if (movements.isEmpty()) {
+            return;
+        }
+        // (Warehouse ID, Product ID) -> change of the quantity
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        for (StockMovement movement : movements) {
+            long key = ((long) movement.getWarehouseId() << 32) | (movement.getProductId() & 0xFFFFFFFFL);
+            changes.merge(key, movement.getQuantity(), Integer::sum);
+        }
+        List<Long> keys = new ArrayList<>(changes.keySet());
+
+        DBConnection.writeRows(connection,
+                "INSERT INTO StockMovement (warehouseID, productID, quantity, reason, referenceID, date) VALUES ", ";",
+                6, movements.size(), (s, index, row) -> {
+                    StockMovement movement = movements.get(row);
+                    s.setInt(index, movement.getWarehouseId());
+                    s.setInt(index + 1, movement.getProductId());
+                    s.setInt(index + 2, movement.getQuantity());
+                    s.setString(index + 3, movement.getReason().name());
+                    if (movement.getReferenceId() == 0) {
+                        s.setNull(index + 4, Types.INTEGER);
+                    } else {
+                        s.setInt(index + 4, movement.getReferenceId());
+                    }
+                    s.setTimestamp(index + 5, Timestamp.valueOf(movement.getDate()));
+                });
+        DBConnection.writeRows(connection, "MERGE Stock AS s USING (VALUES ",
+                ") AS d (warehouseID, productID, quantity) ON s.warehouseID = d.warehouseID AND s.productID = d.productID " +
+                        "WHEN MATCHED THEN UPDATE SET s.quantity = s.quantity + d.quantity " +
+                        "WHEN NOT MATCHED THEN INSERT (warehouseID, productID, quantity, minQuantity) " +
+                        "VALUES (d.warehouseID, d.productID, d.quantity, 0);",
+                3, keys.size(), (s, index, row) -> {
+                    long key = keys.get(row);
+                    s.setInt(index, (int) (key >>> 32));
+                    s.setInt(index + 1, (int) key);
+                    s.setInt(index + 2, changes.get(key));
+                });
+        List<DomainEvent> events = new ArrayList<>(keys.size());
+        for (long key : keys) {
+            events.add(DomainEvent.stockAdjusted((int) (key >>> 32), (int) key, changes.get(key)));
+        }
+        OutboxDB.append(connection, events);
+    }
+
+    /**
+     * The Stock row is read WITH (UPDLOCK, HOLDLOCK), so movements committed by other clients in the meantime
+     * can't slip in between reading the current quantity and writing the difference.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public int correct(int warehouseId, int productId, int quantity) throws DataAccessException {
+        String query = "SET NOCOUNT ON;" +
+                "DECLARE @warehouse int = ?, @product int = ?, @difference int;" +
+                "SET @difference = ? - ISNULL((SELECT quantity FROM Stock WITH (UPDLOCK, HOLDLOCK) " +
+                "  WHERE warehouseID = @warehouse AND productID = @product), 0);" +
+                "IF @difference <> 0" +
+                "  BEGIN" +
+                "    INSERT INTO StockMovement (warehouseID, productID, quantity, reason, referenceID, date) " +
+                "    VALUES (@warehouse, @product, @difference, ?, NULL, ?);" +
+                "    MERGE Stock AS s USING (VALUES (@warehouse, @product)) AS d (warehouseID, productID) " +
+                "    ON s.warehouseID = d.warehouseID AND s.productID = d.productID " +
+                "    WHEN MATCHED THEN UPDATE SET s.quantity = s.quantity + @difference " +
+                "    WHEN NOT MATCHED THEN INSERT (warehouseID, productID, quantity, minQuantity) " +
+                "    VALUES (d.warehouseID, d.productID, @difference, 0);" +
+                "  END;" +
+                "SELECT @difference AS difference;";
+        try {
+            connection().setAutoCommit(false);
+            int difference;
+            try (PreparedStatement s = connection().prepareStatement(query)) {
+                s.setInt(1, warehouseId);
+                s.setInt(2, productId);
+                s.setInt(3, quantity);
+                s.setString(4, MovementReason.CORRECTION.name());
+                s.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+                ResultSet rs = s.executeQuery();
+                rs.next();
+                difference = rs.getInt("difference");
+            }
+            if (difference != 0) {
+                OutboxDB.append(connection(), DomainEvent.stockAdjusted(warehouseId, productId, difference));
+            }
+            connection().commit();
+            return difference;
+        } catch (SQLException e) {
+            rollback();
+            throw new DataAccessException(e.getMessage());
+        } finally {
+            autoCommit();
+        }
+    }
+
+    /**
+     * The ledger is locked while the snapshot is taken, so a movement can't commit behind the last movement
+     * the snapshot includes.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public void takeSnapshot() throws DataAccessException {
+        String query = "DECLARE @last bigint;" +
+                "SELECT @last = ISNULL(MAX(id), 0) FROM StockMovement WITH (TABLOCKX, HOLDLOCK);" +
+                "MERGE StockSnapshot AS t USING (SELECT m.warehouseID, m.productID, SUM(CAST(m.quantity AS bigint)) AS quantity " +
+                "  FROM StockMovement m LEFT JOIN StockSnapshot ss ON ss.warehouseID = m.warehouseID AND ss.productID = m.productID " +
+                "  WHERE m.id > ISNULL(ss.movementID, 0) AND m.id <= @last GROUP BY m.warehouseID, m.productID) AS d " +
+                "ON t.warehouseID = d.warehouseID AND t.productID = d.productID " +
+                "WHEN MATCHED THEN UPDATE SET t.quantity = t.quantity + d.quantity, t.movementID = @last, t.date = SYSDATETIME() " +
+                "WHEN NOT MATCHED THEN INSERT (warehouseID, productID, quantity, movementID, date) " +
+                "VALUES (d.warehouseID, d.productID, d.quantity, @last, SYSDATETIME());";
+        try (PreparedStatement s = connection().prepareStatement(query)) {
+            connection().setAutoCommit(false);
+            s.execute();
+            connection().commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new DataAccessException(e.getMessage());
+        } finally {
+            autoCommit();
+        }
+    }
+
+    @Override
+    public List<Integer> getWarehouseIds() throws DataAccessException {
+        String query = "SELECT DISTINCT warehouseID FROM Stock;";
+        try (PreparedStatement s = connection().prepareStatement(query)) {
+            ResultSet rs = s.executeQuery();
+            List<Integer> ids = new ArrayList<>();
+            while (rs.next()) {
+                ids.add(rs.getInt("warehouseID"));
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public List<StockDiscrepancy> verify(int warehouseId) throws DataAccessException {
+        String query = "SELECT * FROM (" + LEDGER_QUANTITIES + ") l WHERE l.stockQuantity <> l.ledgerQuantity;";
+        try (PreparedStatement s = connection().prepareStatement(query)) {
+            s.setInt(1, warehouseId);
+            s.setInt(2, warehouseId);
+            ResultSet rs = s.executeQuery();
+            List<StockDiscrepancy> discrepancies = new ArrayList<>();
+            while (rs.next()) {
+                discrepancies.add(new StockDiscrepancy(
+                        rs.getInt("warehouseID"),
+                        rs.getInt("productID"),
+                        rs.getInt("stockQuantity"),
+                        rs.getLong("ledgerQuantity")));
+            }
+            return discrepancies;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public int rebuild(int warehouseId) throws DataAccessException {
+        String query = "UPDATE s SET s.quantity = l.ledgerQuantity FROM Stock s JOIN (" + LEDGER_QUANTITIES + ") l " +
+                "ON l.warehouseID = s.warehouseID AND l.productID = s.productID WHERE s.quantity <> l.ledgerQuantity;";
+        try (PreparedStatement s = connection().prepareStatement(query)) {
+            s.setInt(1, warehouseId);
+            s.setInt(2, warehouseId);
+            return s.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    private void rollback() throws DataAccessException {
+        try {
+            connection().rollback();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    private void autoCommit() throws DataAccessException {
+        try {
+            connection().setAutoCommit(true);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package database;
+
+import model.StockReservation;
+
+/**
+ * This DAO interface is used by the StockReservationController
+ *
+ * @see controller.StockReservationController
+ */
+public interface StockReservationDAO extends DAOInterface<StockReservation> {
+
+    /**
+     * Inserts the reservation only if its quantity is still available, checked and written in one statement,
+     * so clients reserving the same Stock at the same time can't both take the last units
+     *
+     * @param value       the reservation, gets its ID and expiry when it is made
+     * @param holdSeconds how long the reservation lasts, counted by the clock of the DB
+     * @return false when there isn't enough stock left
+     */
+    boolean reserve(StockReservation value, int holdSeconds) throws DataAccessException;
+
+    /**
+     * Changes the quantity of an unexpired reservation and renews its expiry, checked and written in one statement.
+     * Growing needs the extra quantity to be available, shrinking always works.
+     *
+     * @param value       the reservation, gets its new quantity and expiry when it is changed
+     * @param quantity    the new quantity
+     * @param holdSeconds how long the reservation lasts from now on, counted by the clock of the DB
+     * @return false when there isn't enough stock left or the reservation expired or was released
+     */
+    boolean resize(StockReservation value, int quantity, int holdSeconds) throws DataAccessException;
+
+    int deleteExpired() throws DataAccessException;
+
+}
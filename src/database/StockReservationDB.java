@@ -0,0 +1,222 @@
+package database;
+
+import model.Status;
+import model.StockReservation;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO class for StockReservation via StockReservationDAO
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class StockReservationDB implements StockReservationDAO {
+    // Units of the Stock row s held by unexpired reservations, the rows are locked until the end of the statement
+    static final String RESERVED = "(SELECT ISNULL(SUM(r.quantity), 0) FROM StockReservation r WITH (UPDLOCK, HOLDLOCK) " +
+            "WHERE r.warehouseID = s.warehouseID AND r.productID = s.productID AND r.expires > SYSDATETIME())";
+    // Units of the Stock row s promised to pending orders, the Stock quantity only drops when they are approved
+    static final String PENDING = "(SELECT ISNULL(SUM(oi.quantity), 0) FROM [Order] o " +
+            "JOIN OrderItem oi ON oi.orderDate = o.date AND oi.orderID = o.id " +
+            "WHERE o.warehouseID = s.warehouseID AND o.status = " + Status.PENDING.code + " AND oi.productID = s.productID)";
+
+    DBConnection db = DBConnection.getInstance();
+
+    /**
+     * Default constructor so we can pass along the DataAccessException from the DBConnection
+     *
+     * @throws DataAccessException when DBConnection throws a DataAccessException is thrown forward
+     */
+    public StockReservationDB() throws DataAccessException {
+        //This constructor is empty because it only exists to pass along DataAccessException from DBConnection.getInstance()
+    }
+
+    /**
+     * Inserts a new reservation into the DB
+     *
+     * @param value it's the given StockReservation object
+     * @return the generated ID of the reservation
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public int create(StockReservation value) throws DataAccessException {
+        String query = "INSERT INTO StockReservation (storeID, warehouseID, productID, quantity, expires) VALUES (?, ?, ?, ?, ?);";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            s.setInt(1, value.getStore().getId());
+            s.setInt(2, value.getWarehouse().getId());
+            s.setInt(3, value.getProduct().getId());
+            s.setInt(4, value.getQuantity());
+            s.setTimestamp(5, Timestamp.valueOf(value.getExpires()));
+            return db.executeInsertWithID(s);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * The Stock row is read WITH (UPDLOCK, HOLDLOCK), so a second client reserving the same Stock waits
+     * for this insert and then counts it.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public boolean reserve(StockReservation value, int holdSeconds) throws DataAccessException {
+        String query = "INSERT INTO StockReservation (storeID, warehouseID, productID, quantity, expires) " +
+                "OUTPUT INSERTED.id, INSERTED.expires " +
+                "SELECT ?, s.warehouseID, s.productID, ?, DATEADD(SECOND, ?, SYSDATETIME()) FROM Stock s WITH (UPDLOCK, HOLDLOCK) " +
+                "WHERE s.warehouseID = ? AND s.productID = ? AND ? <= s.quantity - " + PENDING + " - " + RESERVED + ";";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, value.getStore().getId());
+            s.setInt(2, value.getQuantity());
+            s.setInt(3, holdSeconds);
+            s.setInt(4, value.getWarehouse().getId());
+            s.setInt(5, value.getProduct().getId());
+            s.setInt(6, value.getQuantity());
+            ResultSet rs = db.executeSelect(s);
+            if (!rs.next()) {
+                return false;
+            }
+            value.setId(rs.getInt("id"));
+            value.setExpires(rs.getTimestamp("expires").toLocalDateTime());
+            return true;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean resize(StockReservation value, int quantity, int holdSeconds) throws DataAccessException {
+        // The reservation being changed is part of RESERVED, so only the growth has to fit in what's left
+        String query = "UPDATE res SET res.quantity = ?, res.expires = DATEADD(SECOND, ?, SYSDATETIME()) " +
+                "OUTPUT INSERTED.expires " +
+                "FROM StockReservation res JOIN Stock s WITH (UPDLOCK, HOLDLOCK) " +
+                "ON s.warehouseID = res.warehouseID AND s.productID = res.productID " +
+                "WHERE res.id = ? AND res.expires > SYSDATETIME() AND (? <= res.quantity OR ? - res.quantity <= s.quantity - " +
+                PENDING + " - " + RESERVED + ");";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, quantity);
+            s.setInt(2, holdSeconds);
+            s.setInt(3, value.getId());
+            s.setInt(4, quantity);
+            s.setInt(5, quantity);
+            ResultSet rs = db.executeSelect(s);
+            if (!rs.next()) {
+                return false;
+            }
+            value.setQuantity(quantity);
+            value.setExpires(rs.getTimestamp("expires").toLocalDateTime());
+            return true;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * @param id is the ID which we want to search for in the database
+     * @return the unexpired reservation with the given ID or null if it doesn't exist (anymore)
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public StockReservation selectByID(int id) throws DataAccessException {
+        String query = "SELECT TOP 1 * FROM StockReservation WHERE id=? AND expires > SYSDATETIME();";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, id);
+            ResultSet rs = db.executeSelect(s);
+            if (rs.next()) {
+                return buildObject(rs);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * @return List of all reservations which haven't expired yet
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<StockReservation> all() throws DataAccessException {
+        String query = "SELECT * FROM StockReservation WHERE expires > SYSDATETIME();";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            ResultSet rs = db.executeSelect(s);
+            List<StockReservation> resultList = new ArrayList<>();
+            DataLoader loader = new DataLoader();
+            while (rs.next()) {
+                StockReservation reservation = new StockReservation(rs.getInt("id"), null, null, null,
+                        rs.getInt("quantity"), rs.getTimestamp("expires").toLocalDateTime());
+                loader.store(rs.getInt("storeID")).thenAccept(reservation::setStore);
+                loader.warehouse(rs.getInt("warehouseID")).thenAccept(reservation::setWarehouse);
+                loader.product(rs.getInt("productID")).thenAccept(reservation::setProduct);
+                resultList.add(reservation);
+            }
+            loader.dispatch();
+            return resultList;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Changes the quantity and the expiry of a reservation
+     *
+     * @param value it's the given StockReservation object
+     * @return the number of rows affected by the update, 0 if the reservation was already released
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public int update(StockReservation value) throws DataAccessException {
+        String query = "UPDATE StockReservation SET quantity=?, expires=? WHERE id=?;";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, value.getQuantity());
+            s.setTimestamp(2, Timestamp.valueOf(value.getExpires()));
+            s.setInt(3, value.getId());
+            return db.executeQuery(s);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * @param value it's the given StockReservation object
+     * @return the number of rows deleted from the table (1 or 0)
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public int delete(StockReservation value) throws DataAccessException {
+        String query = "DELETE FROM StockReservation WHERE id=?;";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            s.setInt(1, value.getId());
+            return db.executeQuery(s);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes every expired reservation, including the ones made by other clients
+     *
+     * @return the number of rows deleted from the table
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public int deleteExpired() throws DataAccessException {
+        String query = "DELETE FROM StockReservation WHERE expires <= SYSDATETIME();";
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            return db.executeQuery(s);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    private StockReservation buildObject(ResultSet rs) throws SQLException, DataAccessException {
+        return new StockReservation(
+                rs.getInt("id"),
+                new StoreDB().selectByID(rs.getInt("storeID")),
+                new WarehouseDB().selectByID(rs.getInt("warehouseID")),
+                new ProductDB().selectByID(rs.getInt("productID")),
+                rs.getInt("quantity"),
+                rs.getTimestamp("expires").toLocalDateTime());
+    }
+}
@@ -56,13 +56,10 @@ public class StoreDB implements DAOInterface<Store> {
             ResultSet rs = db.executeSelect(s);
             AddressDB addressDB = new AddressDB();
             if (rs.next()) {
-                return new Store(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("password"),
-                        rs.getString("email"),
-                        addressDB.selectByID(rs.getInt("addressID"))
-                );
+                RowMapper.Reader<Store> reader = Mappers.STORE.reader(rs);
+                Store store = reader.read();
+                store.setAddress(addressDB.selectByID(reader.row().getInt("addressID")));
+                return store;
             }
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -78,19 +75,18 @@ public class StoreDB implements DAOInterface<Store> {
     public List<Store> all() throws DataAccessException {
         String query = "SELECT * FROM Store;";
         try {
-            AddressDB addressDB = new AddressDB();
+            DataLoader loader = new DataLoader();
             PreparedStatement s = db.getDBConn().prepareStatement(query);
             ResultSet rs = db.executeSelect(s);
             List<Store> resultList = new ArrayList<>();
+            RowMapper.Reader<Store> reader = Mappers.STORE.reader(rs);
 
             while (rs.next()) {
-                resultList.add(new Store(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("password"),
-                        rs.getString("email"),
-                        addressDB.selectByID(rs.getInt("addressID"))));
+                Store store = reader.read();
+                loader.address(reader.row().getInt("addressID")).thenAccept(store::setAddress);
+                resultList.add(store);
             }
+            loader.dispatch();
             return resultList;
 
         } catch (SQLException e) {
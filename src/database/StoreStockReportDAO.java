@@ -3,8 +3,22 @@ package database;
 import model.Store;
 import model.StoreStockReport;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface StoreStockReportDAO extends DAOInterface<StoreStockReport> {
     List<StoreStockReport> getByStore(Store store) throws DataAccessException;
+
+    /**
+     * Reads one page of the reports of a store, newest first, with their items
+     *
+     * @param store the store
+     * @param from  the earliest date of the reports, null for no lower bound
+     * @param to    the reports are older than this date, null for no upper bound
+     * @param after the last report of the previous page, null for the first page
+     * @param limit the maximum number of reports, 0 for every report
+     * @return the reports of the page
+     */
+    List<StoreStockReport> getByStore(Store store, LocalDateTime from, LocalDateTime to, StoreStockReport after, int limit)
+            throws DataAccessException;
 }
@@ -1,15 +1,28 @@
 package database;
 
+import model.DomainEvent;
 import model.Product;
 import model.Store;
 import model.StoreStockReport;
 import model.StoreStockReportItem;
 
 import java.sql.*;
-import java.util.LinkedList;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class StoreStockReportDB implements StoreStockReportDAO {
+    /**
+     * The reports selected by the given query joined with their items and products, newest report first.
+     * The query must select the id, storeID, date and note of the reports.
+     */
+    private static final String REPORT_ITEMS = "SELECT r.id, r.storeID, r.date, r.note, i.quantity, "
+            + "p.id AS product_id, p.name AS product_name, p.price AS product_price, p.weight AS product_weight "
+            + "FROM (%s) r "
+            + "LEFT JOIN StoreStockReportItem i ON i.storeStockReportID = r.id "
+            + "LEFT JOIN Product p ON p.id = i.productID "
+            + "ORDER BY r.date DESC, r.id DESC, i.productID;";
+
     DBConnection db = DBConnection.getInstance();
 
     public StoreStockReportDB() throws DataAccessException {
@@ -26,17 +39,9 @@ public class StoreStockReportDB implements StoreStockReportDAO {
      */
     @Override
     public int create(StoreStockReport value) throws DataAccessException {
-        // TODO : Test and remove
-        System.out.println("######################################");
-        List<StoreStockReportItem> l = value.getItems();
-        for (int i = 0; i < l.size(); i++) {
-            System.out.print(value.getItems().get(i) + " , ");
-        }
-        System.out.println();
-
-
         String queryReport = "INSERT INTO StoreStockReport (storeID, date, note) VALUES (?, ?, ?);";
         String queryItem = "INSERT INTO StoreStockReportItem (storeStockReportID, quantity, productID) VALUES (?, ?, ?);";
+        db.setAutoCommit(false);
         try (PreparedStatement s = db.getDBConn().prepareStatement(queryReport, Statement.RETURN_GENERATED_KEYS)) {
             s.setInt(1, value.getStore().getId());
             s.setTimestamp(2, Timestamp.valueOf(value.getDate()));
@@ -50,8 +55,13 @@ public class StoreStockReportDB implements StoreStockReportDAO {
                     db.executeInsertWithID(ps);
                 }
             }
+            OutboxDB.append(db.getDBConn(), DomainEvent.reportFiled(reportId, value.getStore().getId()));
+            db.getDBConn().commit();
+            db.setAutoCommit(true);
             return reportId;
-        } catch (SQLException e) {
+        } catch (SQLException | DataAccessException e) {
+            db.rollback();
+            db.setAutoCommit(true);
             throw new DataAccessException(e.getMessage());
         }
     }
@@ -66,39 +76,17 @@ public class StoreStockReportDB implements StoreStockReportDAO {
      */
     @Override
     public StoreStockReport selectByID(int id) throws DataAccessException {
-        StoreStockReport report = null;
-        String queryReport = "SELECT TOP 1 * FROM StoreStockReport WHERE id=?";
-        String queryItem = "SELECT * FROM StoreStockReportItem WHERE storeStockReportID=?;";
-        ProductDB productDB = new ProductDB();
-        List<StoreStockReportItem> items = new LinkedList<>();
-        try (PreparedStatement s = db.getDBConn().prepareStatement(queryReport)) {
+        String query = String.format(REPORT_ITEMS, "SELECT id, storeID, date, note FROM StoreStockReport WHERE id = ?");
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
             s.setInt(1, id);
-            ResultSet rsStore = db.executeSelect(s);
-            try (PreparedStatement ps = db.getDBConn().prepareStatement(queryItem)) {
-                ps.setInt(1, id);
-                ResultSet rsItem = db.executeSelect(ps);
-                while (rsItem.next()) {
-                    items.add(new StoreStockReportItem(
-                            productDB.selectByID(rsItem.getInt("productID")),
-                            rsItem.getInt("quantity")
-                    ));
-                }
+            List<StoreStockReport> reports = readReports(db.executeSelect(s), null);
+            if (reports.isEmpty()) {
+                throw new DataAccessException("There are no reports with the given ID");
             }
-            if (rsStore.next()) {
-                //TODO
-                /*report = new StoreStockReport(
-                        rsStore.getInt("id"),
-                        rsStore.getDate("date").toLocalDate(),
-                        rsStore.getString("note"),
-                        (Store) userDB.selectByID(rsStore.getInt("date")),
-                        items
-                );
-                return report;*/
-            } else throw new DataAccessException("There are no reports with the given ID");
+            return reports.get(0);
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
-        return report;
     }
 
     /**
@@ -151,13 +139,20 @@ public class StoreStockReportDB implements StoreStockReportDAO {
         }
     }
 
+    /**
+     * @return all the reports of every store, newest first
+     * @throws DataAccessException
+     */
     @Override
     public List<StoreStockReport> all() throws DataAccessException {
-        //TODO FIX
-        return new LinkedList<>();
+        String query = String.format(REPORT_ITEMS, "SELECT id, storeID, date, note FROM StoreStockReport");
+        try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
+            return readReports(db.executeSelect(s), null);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
     }
 
-
     /**
      * This method give a list of all report of a store
      *
@@ -166,58 +161,83 @@ public class StoreStockReportDB implements StoreStockReportDAO {
      */
     @Override
     public List<StoreStockReport> getByStore(Store store) throws DataAccessException {
-        String queryReport = "SELECT "
-                + "[StoreStockReport].id as storestockreport_id,"
-                + "[StoreStockReport].note, [StoreStockReport].date "
-                + "FROM [StoreStockReport] "
-                + "WHERE [StoreStockReport].storeID= ? "
-                + "ORDER BY [StoreStockReport].id DESC;";
-
-        String queryItem = "SELECT "
-                + "[StoreStockReportItem].quantity,"
-                + "[Product].id as product_id, [Product].name, [Product].price, [Product].weight "
-                + "FROM [StoreStockReportItem] "
-                + "  JOIN [Product] ON [StoreStockReportItem].productID = [product].id "
-                + "WHERE [StoreStockReportItem].storeStockReportID = ?";
-
-        List<StoreStockReport> resultList = new LinkedList<>();
+        return getByStore(store, null, null, null, 0);
+    }
 
-        try (PreparedStatement sReport = db.getDBConn().prepareStatement(queryReport)) {
-            sReport.setInt(1, store.getId());
-            ResultSet rsReport = db.executeSelect(sReport);
-            while (rsReport.next()) {
-                int reportId = rsReport.getInt("storestockreport_id");
-                StoreStockReport report = new StoreStockReport(
-                        reportId,
-                        rsReport.getTimestamp("date").toLocalDateTime(),
-                        rsReport.getString("note"),
-                        store,
-                        new LinkedList<>()
-                );
+    /**
+     * Pages are read by keyset: the next page starts right after the last report of the previous one,
+     * so a page costs the same no matter how deep the warehouse browses.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public List<StoreStockReport> getByStore(Store store, LocalDateTime from, LocalDateTime to, StoreStockReport after, int limit)
+            throws DataAccessException {
+        StringBuilder page = new StringBuilder("SELECT TOP (?) id, storeID, date, note FROM StoreStockReport WHERE storeID = ?");
+        if (from != null) {
+            page.append(" AND date >= ?");
+        }
+        if (to != null) {
+            page.append(" AND date < ?");
+        }
+        if (after != null) {
+            page.append(" AND (date < ? OR (date = ? AND id < ?))");
+        }
+        page.append(" ORDER BY date DESC, id DESC");
+
+        try (PreparedStatement s = db.getDBConn().prepareStatement(String.format(REPORT_ITEMS, page))) {
+            int index = 1;
+            s.setInt(index++, limit > 0 ? limit : Integer.MAX_VALUE);
+            s.setInt(index++, store.getId());
+            if (from != null) {
+                s.setTimestamp(index++, Timestamp.valueOf(from));
+            }
+            if (to != null) {
+                s.setTimestamp(index++, Timestamp.valueOf(to));
+            }
+            if (after != null) {
+                s.setTimestamp(index++, Timestamp.valueOf(after.getDate()));
+                s.setTimestamp(index++, Timestamp.valueOf(after.getDate()));
+                s.setInt(index, after.getId());
+            }
+            return readReports(db.executeSelect(s), store);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
 
-                try (PreparedStatement sItem = db.getDBConn().prepareStatement(queryItem)) {
-                    sItem.setInt(1, reportId);
-                    ResultSet rsItem = db.executeSelect(sItem);
-                    while (rsItem.next()) {
-                        Product product = new Product(
-                                rsItem.getInt("product_id"),
-                                rsItem.getString("name"),
-                                rsItem.getInt("weight"),
-                                rsItem.getDouble("price")
-                        );
+    /**
+     * Groups the rows of a {@link #REPORT_ITEMS} query into reports, the rows of a report follow each other
+     *
+     * @param rs    the rows
+     * @param store the store of every report, null to load the store of each report
+     * @return the reports in the order of the rows
+     */
+    private List<StoreStockReport> readReports(ResultSet rs, Store store) throws SQLException, DataAccessException {
+        List<StoreStockReport> reports = new ArrayList<>();
+        DataLoader loader = new DataLoader();
+        RowMapper.Reader<StoreStockReport> reportReader = Mappers.STORE_STOCK_REPORT.reader(rs);
+        RowMapper.Reader<Product> productReader = Mappers.PRODUCT.reader(rs, "product_");
+        RowMapper.Row row = reportReader.row();
+        StoreStockReport report = null;
 
-                        // Add StoreStockReportItem to StoreStockReport
-                        report.addItem(new StoreStockReportItem(
-                                product,
-                                rsItem.getInt("quantity")
-                        ));
-                    }
+        while (rs.next()) {
+            if (report == null || report.getId() != row.getInt("id")) {
+                report = reportReader.read();
+                if (store != null) {
+                    report.setStore(store);
+                } else {
+                    loader.store(row.getInt("storeID")).thenAccept(report::setStore);
                 }
-                resultList.add(report);
+                reports.add(report);
+            }
+            // A report without items comes back as one row without a product
+            Product product = productReader.read();
+            if (product != null) {
+                report.addItem(new StoreStockReportItem(product, row.getInt("quantity")));
             }
-            return resultList;
-        } catch (SQLException e) {
-            throw new DataAccessException(e.getMessage());
         }
+        loader.dispatch();
+        return reports;
     }
 }
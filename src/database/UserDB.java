@@ -67,25 +67,19 @@ public class UserDB implements DAOInterface<User> {
             ResultSet rs = db.executeSelect(s);
             AddressDB addressDB = new AddressDB();
             if (rs.next()) {
-                return new Store(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("password"),
-                        rs.getString("email"),
-                        addressDB.selectByID(rs.getInt("addressID"))
-                );
+                RowMapper.Reader<Store> reader = Mappers.STORE.reader(rs);
+                Store store = reader.read();
+                store.setAddress(addressDB.selectByID(reader.row().getInt("addressID")));
+                return store;
             } else {
                 try (PreparedStatement ps = db.getDBConn().prepareStatement(queryWarehouse)) {
                     ps.setInt(1, id);
                     rs = db.executeSelect(ps);
                     if (rs.next()) {
-                        return new Warehouse(
-                                rs.getInt("id"),
-                                rs.getString("name"),
-                                rs.getString("password"),
-                                rs.getString("email"),
-                                addressDB.selectByID(rs.getInt("addressID"))
-                        );
+                        RowMapper.Reader<Warehouse> reader = Mappers.WAREHOUSE.reader(rs);
+                        Warehouse warehouse = reader.read();
+                        warehouse.setAddress(addressDB.selectByID(reader.row().getInt("addressID")));
+                        return warehouse;
                     }
                 }
             }
@@ -0,0 +1,13 @@
+package database;
+
+/**
+ * This exception is thrown when a row was changed by someone else since it was read,
+ * so an update based on the old version would overwrite their changes
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class VersionConflictException extends DataAccessException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -56,13 +56,10 @@ public class WarehouseDB implements DAOInterface<Warehouse> {
             s.setInt(1, id);
             ResultSet rs = db.executeSelect(s);
             if (rs.next()) {
-                return new Warehouse(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("password"),
-                        rs.getString("email"),
-                        addressDB.selectByID(rs.getInt("addressID"))
-                );
+                RowMapper.Reader<Warehouse> reader = Mappers.WAREHOUSE.reader(rs);
+                Warehouse warehouse = reader.read();
+                warehouse.setAddress(addressDB.selectByID(reader.row().getInt("addressID")));
+                return warehouse;
             }
         } catch (SQLException e) {
             throw new DataAccessException();
@@ -78,18 +75,17 @@ public class WarehouseDB implements DAOInterface<Warehouse> {
     public List<Warehouse> all() throws DataAccessException {
         String query = "SELECT * FROM Warehouse";
         try (PreparedStatement s = db.getDBConn().prepareStatement(query)) {
-            AddressDB addressDB = new AddressDB();
+            DataLoader loader = new DataLoader();
             try (ResultSet rs = s.executeQuery()) {
                 List<Warehouse> resultList = new ArrayList<>();
+                RowMapper.Reader<Warehouse> reader = Mappers.WAREHOUSE.reader(rs);
 
                 while (rs.next()) {
-                    resultList.add(new Warehouse(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("password"),
-                            rs.getString("email"),
-                            addressDB.selectByID(rs.getInt("addressID"))));
+                    Warehouse warehouse = reader.read();
+                    loader.address(reader.row().getInt("addressID")).thenAccept(warehouse::setAddress);
+                    resultList.add(warehouse);
                 }
+                loader.dispatch();
                 return resultList;
             }
         } catch (SQLException e) {
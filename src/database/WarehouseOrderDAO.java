@@ -2,6 +2,7 @@ package database;
 
 import model.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface WarehouseOrderDAO extends DAOInterface<WarehouseOrder> {
@@ -10,6 +11,8 @@ public interface WarehouseOrderDAO extends DAOInterface<WarehouseOrder> {
 
     List<WarehouseOrder> getWarehouseOrders(Provider provider) throws DataAccessException;
 
+    List<WarehouseOrderSummary> getWarehouseOrderSummaries(Warehouse warehouse) throws DataAccessException;
+
     List<WarehouseOrderItem> getWarehouseOrderItems(int warehouseOrderID) throws DataAccessException;
 
     List<WarehouseOrderRevision> getWarehouseOrderRevisions(WarehouseOrder warehouseOrder) throws DataAccessException;
@@ -17,4 +20,12 @@ public interface WarehouseOrderDAO extends DAOInterface<WarehouseOrder> {
     int insertWarehouseOrderItems(List<WarehouseOrderItem> warehouseOrderItems, int warehouseOrderId) throws DataAccessException;
 
     int insertWarehouseOrderRevision(List<WarehouseOrderRevision> warehouseOrderRevisions, int warehouseOrderId) throws DataAccessException;
+
+    Status getWarehouseOrderStatus(int warehouseOrderId) throws DataAccessException;
+
+    List<Integer> verifyTotals() throws DataAccessException;
+
+    int rebuildTotals() throws DataAccessException;
+
+    List<Integer> createDrafts(List<ReplenishmentDraft> drafts, LocalDateTime date, String note) throws DataAccessException;
 }
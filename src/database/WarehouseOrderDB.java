@@ -3,13 +3,19 @@ package database;
 import model.*;
 
 import java.sql.*;
-import java.util.LinkedList;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
 
 /**
  * This class is used in connection with the DAO pattern
  */
 public class WarehouseOrderDB implements WarehouseOrderDAO {
+    // Totals of every WarehouseOrder calculated from its items
+    private static final String ITEM_TOTALS = "SELECT o.id, ISNULL(SUM(i.quantity * i.unitPrice), 0) AS totalPrice, " +
+            "ISNULL(SUM(i.quantity * p.weight), 0) AS totalWeight, COUNT(i.productID) AS lineCount FROM WarehouseOrder o " +
+            "LEFT JOIN WarehouseOrderItem i ON i.orderDate = o.date AND i.orderID = o.id LEFT JOIN Product p ON p.id = i.productID GROUP BY o.id";
+    private static final String TOTALS_DIFFER = "(o.totalPrice <> t.totalPrice OR ABS(o.totalWeight - t.totalWeight) > 0.001 " +
+            "OR o.lineCount <> t.lineCount)";
 
     /**
      * This method takes a WarehouseOrder and converts it to a valid SQL INSERT query, which is the executed
@@ -22,21 +28,27 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
         DBConnection dbConn = DBConnection.getInstance();
         Connection con = dbConn.getDBConn();
 
-        String pstmtString = "INSERT INTO WarehouseOrder (providerID, warehouseID, date, status) VALUES (?, ?, ?, ?) ;";
+        String pstmtString = "INSERT INTO WarehouseOrder (providerID, warehouseID, date, status, totalPrice, totalWeight, lineCount) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?) ;";
         dbConn.setAutoCommit(false);
         try (PreparedStatement pstmt = con.prepareStatement(pstmtString, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setInt(1, value.getProvider().getId());
             pstmt.setInt(2, value.getWarehouse().getId());
             pstmt.setTimestamp(3, Timestamp.valueOf(value.getDate()));
-            pstmt.setString(4, value.getStatus().name());
-
+            DBConnection.setStatus(pstmt, 4, value.getStatus());
+            OrderTotals totals = calculateTotals(value.getItems());
+            pstmt.setLong(5, totals.getTotalPrice());
+            pstmt.setDouble(6, totals.getTotalWeight());
+            pstmt.setInt(7, totals.getLineCount());
 
             int id = dbConn.executeInsertWithID(pstmt);
 
             insertWarehouseOrderItems(value.getItems(), id);
             insertWarehouseOrderRevision(value.getRevisions(), id);
+            OutboxDB.append(con, DomainEvent.warehouseOrderCreated(id, value.getWarehouse().getId(), value.getStatus()));
             dbConn.getDBConn().commit();
             dbConn.setAutoCommit(true);
+            value.setTotals(totals);
             return id;
         } catch (SQLException|DataAccessException e) {
             dbConn.setAutoCommit(true);
@@ -45,64 +57,107 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
     }
 
     /**
-     * This method takes an ID and converts it to a valid SQL SELECT query, which is the executed
+     * Finds a WarehouseOrder with its warehouse, provider, items and revisions.
+     * Everything is read with one batch of queries returning several result sets, so the whole WarehouseOrder
+     * costs a single round trip. The products of the items come from one IN lookup inside the batch.
+     * The items and revisions are looked up with the date of the order too, so only its month is read.
      *
      * @param id is the ID which we want to search for in the database
-     * @return the single WarehouseOrder with the given ID
-     * @see DBConnection executeSelect() method
+     * @return the single WarehouseOrder with the given ID or null if it doesn't exist
+     * @see DBConnection executeMultiSelect() method
      */
     public WarehouseOrder selectByID(int id) throws DataAccessException {
         DBConnection dbConn = DBConnection.getInstance();
         Connection con = dbConn.getDBConn();
 
-        String query = "SELECT * FROM WarehouseOrder WHERE id=?";
-        String itemQuery = "select * from WarehouseOrderItem where orderID=?";
+        String query = "SET NOCOUNT ON;" +
+                "DECLARE @date datetime2(7) = (SELECT date FROM WarehouseOrder WHERE id=?);" +
+                "SELECT * FROM Product WHERE id IN (SELECT productID FROM WarehouseOrderItem WHERE orderDate=@date AND orderID=?);" +
+                "SELECT a.* FROM Address a WHERE a.id IN (SELECT w.addressID FROM Warehouse w JOIN WarehouseOrder o ON o.warehouseID = w.id WHERE o.id=? " +
+                "UNION SELECT p.addressID FROM Provider p JOIN WarehouseOrder o ON o.providerID = p.id WHERE o.id=?);" +
+                "SELECT * FROM WarehouseOrder WHERE id=?;" +
+                "SELECT w.* FROM Warehouse w JOIN WarehouseOrder o ON o.warehouseID = w.id WHERE o.id=?;" +
+                "SELECT p.* FROM Provider p JOIN WarehouseOrder o ON o.providerID = p.id WHERE o.id=?;" +
+                "SELECT * FROM WarehouseOrderItem WHERE orderDate=@date AND orderID=?;" +
+                "SELECT * FROM WarehouseOrderRevision WHERE orderDate=@date AND orderID=? ORDER BY id;";
 
         try (PreparedStatement s = con.prepareStatement(query)) {
-            s.setInt(1, id);
+            for (int i = 1; i <= 9; i++) {
+                s.setInt(i, id);
+            }
 
-            ResultSet rs = dbConn.executeSelect(s);
+            Map<Integer, Product> products = new HashMap<>();
+            ResultSet rs = dbConn.executeMultiSelect(s);
+            RowMapper.Reader<Product> productReader = Mappers.PRODUCT.reader(rs);
+            while (rs.next()) {
+                Product product = productReader.read();
+                products.put(product.getId(), product);
+            }
+
+            Map<Integer, Address> addresses = new HashMap<>();
+            rs = dbConn.nextResultSet(s);
+            RowMapper.Reader<Address> addressReader = Mappers.ADDRESS.reader(rs);
+            while (rs.next()) {
+                Address address = addressReader.read();
+                addresses.put(address.getId(), address);
+            }
+
+            rs = dbConn.nextResultSet(s);
+            if (!rs.next()) {
+                return null;
+            }
+            int orderId = rs.getInt("id");
+            LocalDateTime date = rs.getTimestamp("date").toLocalDateTime();
+            Status status = DBConnection.getStatus(rs, "status");
+            OrderTotals totals = readTotals(rs);
+            long version = DBConnection.getVersion(rs);
+
+            rs = dbConn.nextResultSet(s);
+            RowMapper.Reader<Warehouse> warehouseReader = Mappers.WAREHOUSE.reader(rs);
+            Warehouse warehouse = null;
+            if (rs.next()) {
+                warehouse = warehouseReader.read();
+                warehouse.setAddress(addresses.get(warehouseReader.row().getInt("addressID")));
+            }
 
+            rs = dbConn.nextResultSet(s);
+            RowMapper.Reader<Provider> providerReader = Mappers.PROVIDER.reader(rs);
+            Provider provider = null;
             if (rs.next()) {
-                DAOInterface<Warehouse> warehouseDAO = new WarehouseDB();
-                DAOInterface<Provider> providerDAO = new ProviderDB();
-                Warehouse warehouse = warehouseDAO.selectByID(rs.getInt("warehouseID"));
-                Provider provider = providerDAO.selectByID(rs.getInt("providerID"));
+                provider = providerReader.read();
+                provider.setAddress(addresses.get(providerReader.row().getInt("addressID")));
+            }
 
-                List<WarehouseOrderItem> warehouseOrderItems = new LinkedList<>();
+            List<WarehouseOrderItem> warehouseOrderItems = new LinkedList<>();
+            rs = dbConn.nextResultSet(s);
+            while (rs.next()) {
+                warehouseOrderItems.add(new WarehouseOrderItem(
+                        rs.getInt("quantity"),
+                        rs.getLong("unitPrice"),
+                        products.get(rs.getInt("productID"))
+                ));
+            }
 
-                WarehouseOrder order = new WarehouseOrder(
+            WarehouseOrder order = new WarehouseOrder(orderId, date, status, warehouse, provider, warehouseOrderItems, null);
+            order.setTotals(totals);
+            order.setVersion(version);
+
+            List<WarehouseOrderRevision> revisions = new LinkedList<>();
+            rs = dbConn.nextResultSet(s);
+            while (rs.next()) {
+                revisions.add(new WarehouseOrderRevision(
                         rs.getInt("id"),
                         rs.getTimestamp("date").toLocalDateTime(),
-                        Status.valueOf(rs.getString("status")),
-                        warehouse,
-                        provider,
-                        warehouseOrderItems,
-                        new LinkedList<>()
-                );
-
-                try (PreparedStatement statement = con.prepareStatement(itemQuery)) {
-                    statement.setInt(1, order.getId());
-                    ProductDAO productDAO = new ProductDB();
-                    ResultSet resultSet = dbConn.executeSelect(statement);
-                    while (resultSet.next()) {
-                        WarehouseOrderItem orderItem = new WarehouseOrderItem(
-                                resultSet.getInt("quantity"),
-                                resultSet.getDouble("unitPrice"),
-                                productDAO.selectByID(resultSet.getInt("productID"))
-                        );
-                        warehouseOrderItems.add(orderItem);
-                    }
-                }
-                order.setRevisions(getWarehouseOrderRevisions(order));
-                order.setItems(warehouseOrderItems);
-                return order;
+                        rs.getString("note"),
+                        DBConnection.getStatus(rs, "status"),
+                        order
+                ));
             }
-        } catch (Exception e) {
+            order.setRevisions(revisions);
+            return order;
+        } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
-
-        return null;
     }
 
     @Override
@@ -111,25 +166,29 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
 
         String query = "SELECT * FROM WarehouseOrder";
         List<WarehouseOrder> orders = new LinkedList<>();
-        DAOInterface<Provider> providerDAO = new ProviderDB();
-        DAOInterface<Warehouse> warehouseDAO = new WarehouseDB();
+        DataLoader loader = new DataLoader();
         try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
             ResultSet rs = dbConn.executeSelect(s);
             while (rs.next()) {
                 WarehouseOrder order = new WarehouseOrder(
                         rs.getInt("id"),
                         rs.getTimestamp("date").toLocalDateTime(),
-                        Status.valueOf(rs.getString("status")),
-                        warehouseDAO.selectByID(rs.getInt("warehouseId")),
-                        providerDAO.selectByID(rs.getInt("providerId")),
+                        DBConnection.getStatus(rs, "status"),
+                        null,
+                        null,
                         new LinkedList<>(),
                         new LinkedList<>()
                 );
+                loader.warehouse(rs.getInt("warehouseID")).thenAccept(order::setWarehouse);
+                loader.provider(rs.getInt("providerID")).thenAccept(order::setProvider);
                 // Leave commented for better preformance
                 //order.setRevisions(getWarehouseOrderRevisions(order));
                 //order.setItems(getWarehouseOrderItems(order.getId()));
+                order.setTotals(readTotals(rs));
+                order.setVersion(DBConnection.getVersion(rs));
                 orders.add(order);
             }
+            loader.dispatch();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -137,33 +196,58 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
     }
 
     /**
-     * This method takes an object and converts it to a valid SQL UPDATE query, which is the executed
+     * This method takes an object and converts it to a valid SQL UPDATE query, which is the executed.
+     * The row is only updated when it still has the version the WarehouseOrder was read with,
+     * after the update the WarehouseOrder gets the new version.
+     * The date of a WarehouseOrder is the key of its partition and is never changed.
      *
      * @param value it's the given T type object
-     * @return the number of rows affected by the update
+     * @return the number of rows affected by the update, 0 when the order doesn't exist anymore
+     * @throws VersionConflictException when the order was changed by someone else since it was read
      * @see DBConnection executeQuery() method
      */
     public int update(WarehouseOrder value) throws DataAccessException {
         DBConnection dbConn = DBConnection.getInstance();
         Connection con = dbConn.getDBConn();
 
-        String query = "UPDATE WarehouseOrder SET date = ?, status = ? WHERE id=?;";
+        String query = "UPDATE WarehouseOrder SET status = ? OUTPUT DELETED.status, INSERTED.warehouseID WHERE id=? AND version=?;";
         dbConn.setAutoCommit(false);
         try (PreparedStatement pstmt = con.prepareStatement(query)) {
-            pstmt.setTimestamp(1, Timestamp.valueOf(value.getDate()));
-            pstmt.setString(2, value.getStatus().name());
-            pstmt.setInt(3, value.getId());
+            DBConnection.setStatus(pstmt, 1, value.getStatus());
+            pstmt.setInt(2, value.getId());
+            DBConnection.setVersion(pstmt, 3, value.getVersion());
 
-            int updated = dbConn.executeQuery(pstmt);
+            ResultSet rs = dbConn.executeSelect(pstmt);
+            Status oldStatus = null;
+            int warehouseId = 0;
+            if (rs.next()) {
+                oldStatus = DBConnection.getStatus(rs, "status");
+                warehouseId = rs.getInt("warehouseID");
+            }
+            int updated = oldStatus == null ? 0 : 1;
+            if (updated == 0 && dbConn.rowVersion("WarehouseOrder", value.getId()) != null) {
+                throw new VersionConflictException("The warehouse order was changed by someone else");
+            }
             if (updated == 1) {
-                insertWarehouseOrderItems(value.getItems(), value.getId());
+                boolean itemsAdded = insertWarehouseOrderItems(value.getItems(), value.getId()) > 0;
+                if (itemsAdded) {
+                    refreshTotals(value.getId());
+                }
                 insertWarehouseOrderRevision(value.getRevisions(), value.getId());
+                if (oldStatus != value.getStatus() || itemsAdded) {
+                    OutboxDB.append(con, DomainEvent.warehouseOrderStatusChanged(value.getId(), warehouseId, value.getStatus()));
+                }
+                value.setVersion(dbConn.rowVersion("WarehouseOrder", value.getId()));
             }
             dbConn.getDBConn().commit();
             dbConn.setAutoCommit(true);
             return updated;
         } catch (SQLException|DataAccessException e) {
+            dbConn.rollback();
             dbConn.setAutoCommit(true);
+            if (e instanceof VersionConflictException) {
+                throw (VersionConflictException) e;
+            }
             throw new DataAccessException();
         }
     }
@@ -179,13 +263,27 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
         DBConnection dbConn = DBConnection.getInstance();
         Connection con = dbConn.getDBConn();
 
-        String pstmtString = "DELETE FROM WarehouseOrder WHERE id=?;";
+        // Nothing cascades between the partitioned order tables, the items and revisions are deleted first
+        String pstmtString = "SET NOCOUNT ON;" +
+                "DECLARE @date datetime2(7) = (SELECT date FROM WarehouseOrder WHERE id=?);" +
+                "DELETE FROM WarehouseOrderItem WHERE orderDate=@date AND orderID=?;" +
+                "DELETE FROM WarehouseOrderRevision WHERE orderDate=@date AND orderID=?;" +
+                "SET NOCOUNT OFF;" +
+                "DELETE FROM WarehouseOrder WHERE date=@date AND id=?;";
 
+        dbConn.setAutoCommit(false);
         try (PreparedStatement pstmt = con.prepareStatement(pstmtString)) {
-            pstmt.setInt(1, value.getId());
+            for (int i = 1; i <= 4; i++) {
+                pstmt.setInt(i, value.getId());
+            }
 
-            return dbConn.executeQuery(pstmt);
+            int deleted = dbConn.executeQuery(pstmt);
+            con.commit();
+            dbConn.setAutoCommit(true);
+            return deleted;
         } catch (SQLException e) {
+            dbConn.rollback();
+            dbConn.setAutoCommit(true);
             throw new DataAccessException();
         }
     }
@@ -197,7 +295,7 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
         String query = "SELECT * FROM WarehouseOrder " +
                 "WHERE warehouseID=?;";
         List<WarehouseOrder> orders = new LinkedList<>();
-        DAOInterface<Provider> providerDAO = new ProviderDB();
+        DataLoader loader = new DataLoader();
         try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
             s.setInt(1, warehouse.getId());
 
@@ -206,17 +304,21 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
                 WarehouseOrder order = new WarehouseOrder(
                         rs.getInt("id"),
                         rs.getTimestamp("date").toLocalDateTime(),
-                        Status.valueOf(rs.getString("status")),
+                        DBConnection.getStatus(rs, "status"),
                         warehouse,
-                        providerDAO.selectByID(rs.getInt("providerId")),
+                        null,
                         new LinkedList<>(),
                         new LinkedList<>()
                 );
+                loader.provider(rs.getInt("providerID")).thenAccept(order::setProvider);
                 // Leave commented for better preformance
                 //order.setRevisions(getWarehouseOrderRevisions(order));
                 //order.setItems(getWarehouseOrderItems(order.getId()));
+                order.setTotals(readTotals(rs));
+                order.setVersion(DBConnection.getVersion(rs));
                 orders.add(order);
             }
+            loader.dispatch();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -230,7 +332,7 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
         String query = "SELECT * FROM WarehouseOrder " +
                 "WHERE providerID=?;";
         List<WarehouseOrder> orders = new LinkedList<>();
-        DAOInterface<Warehouse> warehouseDAO = new WarehouseDB();
+        DataLoader loader = new DataLoader();
         try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
             s.setInt(1, provider.getId());
 
@@ -239,41 +341,83 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
                 WarehouseOrder order = new WarehouseOrder(
                         rs.getInt("id"),
                         rs.getTimestamp("date").toLocalDateTime(),
-                        Status.valueOf(rs.getString("status")),
-                        warehouseDAO.selectByID(rs.getInt("warehouseID")),
+                        DBConnection.getStatus(rs, "status"),
+                        null,
                         provider,
                         new LinkedList<>(),
                         new LinkedList<>()
                 );
+                loader.warehouse(rs.getInt("warehouseID")).thenAccept(order::setWarehouse);
                 // Leave commented for better preformance
                 //order.setRevisions(getWarehouseOrderRevisions(order));
                 //order.setItems(getWarehouseOrderItems(order.getId()));
+                order.setTotals(readTotals(rs));
+                order.setVersion(DBConnection.getVersion(rs));
                 orders.add(order);
             }
+            loader.dispatch();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
         return orders;
     }
 
+    /**
+     * Gets the list rows of all WarehouseOrders of a Warehouse, reading only the columns shown in the list
+     *
+     * @param warehouse the Warehouse whose WarehouseOrders we are searching for
+     * @return a List containing all results, newest first
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<WarehouseOrderSummary> getWarehouseOrderSummaries(Warehouse warehouse) throws DataAccessException {
+        DBConnection dbConn = DBConnection.getInstance();
+
+        String query = "SELECT o.id, o.date, o.status, o.totalPrice, o.totalWeight, o.lineCount, " +
+                "p.name, p.available, a.city, a.street FROM WarehouseOrder o " +
+                "JOIN Provider p ON p.id = o.providerID JOIN Address a ON a.id = p.addressID " +
+                "WHERE o.warehouseID=? ORDER BY o.date DESC;";
+        List<WarehouseOrderSummary> summaries = new ArrayList<>();
+        try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
+            s.setInt(1, warehouse.getId());
+
+            ResultSet rs = dbConn.executeSelect(s);
+            while (rs.next()) {
+                String provider = rs.getString("name") + " (" + rs.getString("city") + ", " + rs.getString("street") + ")";
+                if (!rs.getBoolean("available")) {
+                    provider += " - [Not available]";
+                }
+                summaries.add(new WarehouseOrderSummary(
+                        rs.getInt("id"),
+                        rs.getTimestamp("date").toLocalDateTime(),
+                        DBConnection.getStatus(rs, "status"),
+                        provider,
+                        readTotals(rs)
+                ));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+        return summaries;
+    }
+
     @Override
     public List<WarehouseOrderItem> getWarehouseOrderItems(int warehouseOrderID) throws DataAccessException {
         DBConnection dbConn = DBConnection.getInstance();
 
-        String query = "SELECT * FROM WarehouseOrderItem WHERE orderID=?";
-        ProductDB productDB = new ProductDB();
+        String query = "SELECT i.* FROM WarehouseOrder o " +
+                "JOIN WarehouseOrderItem i ON i.orderDate = o.date AND i.orderID = o.id WHERE o.id=?";
         List<WarehouseOrderItem> items = new LinkedList<>();
+        DataLoader loader = new DataLoader();
         try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
             s.setInt(1, warehouseOrderID);
             ResultSet rs = dbConn.executeSelect(s);
             while (rs.next()) {
-                WarehouseOrderItem item = new WarehouseOrderItem(
-                        rs.getInt("quantity"),
-                        rs.getDouble("unitPrice"),
-                        productDB.selectByID(rs.getInt("productID"))
-                );
+                WarehouseOrderItem item = new WarehouseOrderItem(rs.getInt("quantity"), rs.getLong("unitPrice"), null);
+                loader.product(rs.getInt("productID")).thenAccept(item::setProduct);
                 items.add(item);
             }
+            loader.dispatch();
             return items;
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
@@ -284,7 +428,8 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
     public List<WarehouseOrderRevision> getWarehouseOrderRevisions(WarehouseOrder warehouseOrder) throws DataAccessException {
         DBConnection dbConn = DBConnection.getInstance();
 
-        String query = "SELECT * FROM WarehouseOrderRevision WHERE orderID=?";
+        String query = "SELECT r.* FROM WarehouseOrder o " +
+                "JOIN WarehouseOrderRevision r ON r.orderDate = o.date AND r.orderID = o.id WHERE o.id=?";
         List<WarehouseOrderRevision> items = new LinkedList<>();
         try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
             s.setInt(1, warehouseOrder.getId());
@@ -294,7 +439,7 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
                         rs.getInt("id"),
                         rs.getTimestamp("date").toLocalDateTime(),
                         rs.getString("note"),
-                        Status.valueOf(rs.getString("status")),
+                        DBConnection.getStatus(rs, "status"),
                         warehouseOrder
                 );
                 items.add(item);
@@ -311,9 +456,11 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
         DBConnection dbConn = DBConnection.getInstance();
         int changes = 0;
 
-        String countQuery = "select count(*) as count from WarehouseOrderItem where orderID=? and productID=?";
-        String insertQuery = "insert into WarehouseOrderItem (orderID, productID, quantity, unitPrice) " +
-                "VALUES (?, ?, ?, ?);";
+        String countQuery = "select count(*) as count from WarehouseOrder o " +
+                "join WarehouseOrderItem i on i.orderDate = o.date and i.orderID = o.id where o.id=? and i.productID=?";
+        // The item takes the date of its order, the key of its partition
+        String insertQuery = "insert into WarehouseOrderItem (orderID, productID, quantity, unitPrice, orderDate) " +
+                "select id, ?, ?, ?, date from WarehouseOrder where id=?;";
 
         try {
             for (WarehouseOrderItem warehouseOrderItem : warehouseOrderItems) {
@@ -326,10 +473,10 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
                     int count = rs.getInt("count");
                     if (count == 0)  {
                         statement = dbConn.getDBConn().prepareStatement(insertQuery);
-                        statement.setInt(1, warehouseOrderId);
-                        statement.setInt(2, warehouseOrderItem.getProduct().getId());
-                        statement.setInt(3, warehouseOrderItem.getQuantity());
-                        statement.setDouble(4, warehouseOrderItem.getUnitPrice());
+                        statement.setInt(1, warehouseOrderItem.getProduct().getId());
+                        statement.setInt(2, warehouseOrderItem.getQuantity());
+                        statement.setLong(3, warehouseOrderItem.getUnitPrice());
+                        statement.setInt(4, warehouseOrderId);
 
                         changes += dbConn.executeQuery(statement);
                     }
@@ -347,17 +494,17 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
     public int insertWarehouseOrderRevision(List<WarehouseOrderRevision> warehouseOrderRevisions, int warehouseOrderId) throws DataAccessException {
         DBConnection dbConn = DBConnection.getInstance();
 
-        String insertQuery = "insert into WarehouseOrderRevision (orderID, status, date, note)" +
-                "VALUES (?, ?, ?, ?);";
+        String insertQuery = "insert into WarehouseOrderRevision (orderID, status, date, note, orderDate) " +
+                "select id, ?, ?, ?, date from WarehouseOrder where id=?;";
 
         for (WarehouseOrderRevision orderRevision : warehouseOrderRevisions) {
             if (orderRevision.getId() == 0) {
                 try (PreparedStatement statement = dbConn.getDBConn().prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
 
-                    statement.setInt(1, warehouseOrderId);
-                    statement.setString(2, orderRevision.getStatus().toString());
-                    statement.setTimestamp(3, Timestamp.valueOf(orderRevision.getDate()));
-                    statement.setString(4, orderRevision.getNote());
+                    DBConnection.setStatus(statement, 1, orderRevision.getStatus());
+                    statement.setTimestamp(2, Timestamp.valueOf(orderRevision.getDate()));
+                    statement.setString(3, orderRevision.getNote());
+                    statement.setInt(4, warehouseOrderId);
                     return dbConn.executeInsertWithID(statement);
                 } catch (SQLException e) {
                     e.printStackTrace();
@@ -370,4 +517,197 @@ public class WarehouseOrderDB implements WarehouseOrderDAO {
 
     }
 
+    @Override
+    public Status getWarehouseOrderStatus(int warehouseOrderId) throws DataAccessException {
+        DBConnection dbConn = DBConnection.getInstance();
+
+        String query = "SELECT status FROM WarehouseOrder WHERE id=?;";
+        try (PreparedStatement statement = dbConn.getDBConn().prepareStatement(query)) {
+            statement.setInt(1, warehouseOrderId);
+
+            ResultSet resultSet = dbConn.executeSelect(statement);
+            if (resultSet.next()) {
+                return DBConnection.getStatus(resultSet, "status");
+            }
+            return null;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the warehouse orders whose stored totals don't match their items
+     *
+     * @return the IDs of the warehouse orders with wrong totals
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public List<Integer> verifyTotals() throws DataAccessException {
+        DBConnection dbConn = DBConnection.getInstance();
+
+        String query = "SELECT o.id FROM WarehouseOrder o JOIN (" + ITEM_TOTALS + ") t ON t.id = o.id WHERE " + TOTALS_DIFFER + ";";
+        List<Integer> ids = new LinkedList<>();
+        try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
+            ResultSet rs = dbConn.executeSelect(s);
+            while (rs.next()) {
+                ids.add(rs.getInt("id"));
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Calculates the stored totals of every warehouse order again from its items
+     *
+     * @return the number of warehouse orders whose totals were wrong and got fixed
+     * @throws DataAccessException when there is an SQLException caught inside the method
+     */
+    @Override
+    public int rebuildTotals() throws DataAccessException {
+        DBConnection dbConn = DBConnection.getInstance();
+
+        String query = "UPDATE o SET o.totalPrice = t.totalPrice, o.totalWeight = t.totalWeight, o.lineCount = t.lineCount " +
+                "FROM WarehouseOrder o JOIN (" + ITEM_TOTALS + ") t ON t.id = o.id WHERE " + TOTALS_DIFFER + ";";
+        try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
+            return dbConn.executeQuery(s);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Calculates the stored totals of one warehouse order again from its items, used after items were added to it
+     */
+    private void refreshTotals(int warehouseOrderId) throws DataAccessException {
+        DBConnection dbConn = DBConnection.getInstance();
+
+        String query = "UPDATE o SET " +
+                "totalPrice = (SELECT ISNULL(SUM(i.quantity * i.unitPrice), 0) FROM WarehouseOrderItem i " +
+                "WHERE i.orderDate = o.date AND i.orderID = o.id), " +
+                "totalWeight = (SELECT ISNULL(SUM(i.quantity * p.weight), 0) FROM WarehouseOrderItem i " +
+                "JOIN Product p ON p.id = i.productID WHERE i.orderDate = o.date AND i.orderID = o.id), " +
+                "lineCount = (SELECT COUNT(*) FROM WarehouseOrderItem i WHERE i.orderDate = o.date AND i.orderID = o.id) " +
+                "FROM WarehouseOrder o WHERE o.id = ?;";
+        try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
+            s.setInt(1, warehouseOrderId);
+            dbConn.executeQuery(s);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Saves many warehouse orders in one transaction, with multi-row inserts instead of a statement per row.
+     * The orders are inserted in chunks which return their generated IDs, then the items and the first revision
+     * of every order are inserted the same way. A draft is identified by its Warehouse and Provider,
+     * so there can't be two drafts for the same pair.
+     *
+     * @param drafts the orders to be saved, all of them in PENDING status
+     * @param date   the date of the orders and their revisions
+     * @param note   the note of the first revision of every order
+     * @return the IDs of the new orders, in the order of the drafts
+     * @throws DataAccessException when there is an SQLException caught inside the method, nothing is saved then
+     */
+    @Override
+    public List<Integer> createDrafts(List<ReplenishmentDraft> drafts, LocalDateTime date, String note) throws DataAccessException {
+        DBConnection dbConn = DBConnection.getInstance();
+        Timestamp timestamp = Timestamp.valueOf(date);
+        Status status = Status.PENDING;
+        // (Warehouse ID, Provider ID) -> new order ID
+        Map<Long, Integer> ids = new HashMap<>();
+
+        dbConn.setAutoCommit(false);
+        try {
+            int chunkSize = DBConnection.MAX_PARAMETERS / 7;
+            for (int from = 0; from < drafts.size(); from += chunkSize) {
+                List<ReplenishmentDraft> chunk = drafts.subList(from, Math.min(from + chunkSize, drafts.size()));
+                String query = "INSERT INTO WarehouseOrder (providerID, warehouseID, date, status, totalPrice, totalWeight, lineCount) " +
+                        "OUTPUT INSERTED.id, INSERTED.warehouseID, INSERTED.providerID VALUES " + DBConnection.valueRows(chunk.size(), 7) + ";";
+                try (PreparedStatement s = dbConn.getDBConn().prepareStatement(query)) {
+                    int index = 1;
+                    for (ReplenishmentDraft draft : chunk) {
+                        OrderTotals totals = draft.getTotals();
+                        s.setInt(index++, draft.getProviderId());
+                        s.setInt(index++, draft.getWarehouseId());
+                        s.setTimestamp(index++, timestamp);
+                        DBConnection.setStatus(s, index++, status);
+                        s.setLong(index++, totals.getTotalPrice());
+                        s.setDouble(index++, totals.getTotalWeight());
+                        s.setInt(index++, totals.getLineCount());
+                    }
+                    ResultSet rs = s.executeQuery();
+                    while (rs.next()) {
+                        ids.put(draftKey(rs.getInt("warehouseID"), rs.getInt("providerID")), rs.getInt("id"));
+                    }
+                }
+            }
+
+            List<Integer> orderIds = new ArrayList<>(drafts.size());
+            List<ReplenishmentLine> lines = new ArrayList<>();
+            List<Integer> lineOrderIds = new ArrayList<>();
+            for (ReplenishmentDraft draft : drafts) {
+                int orderId = ids.get(draftKey(draft.getWarehouseId(), draft.getProviderId()));
+                orderIds.add(orderId);
+                for (ReplenishmentLine line : draft.getLines()) {
+                    lines.add(line);
+                    lineOrderIds.add(orderId);
+                }
+            }
+
+            Connection con = dbConn.getDBConn();
+            // The drafts all have the given date, so their items and revisions are in the same partition
+            DBConnection.writeRows(con, "INSERT INTO WarehouseOrderItem (orderID, productID, quantity, unitPrice, orderDate) VALUES ", ";",
+                    5, lines.size(),
+                    (s, index, row) -> {
+                        ReplenishmentLine line = lines.get(row);
+                        s.setInt(index, lineOrderIds.get(row));
+                        s.setInt(index + 1, line.getProductId());
+                        s.setInt(index + 2, line.getQuantity());
+                        s.setLong(index + 3, line.getUnitPrice());
+                        s.setTimestamp(index + 4, timestamp);
+                    });
+            DBConnection.writeRows(con, "INSERT INTO WarehouseOrderRevision (orderID, status, date, note, orderDate) VALUES ", ";",
+                    5, orderIds.size(),
+                    (s, index, row) -> {
+                        s.setInt(index, orderIds.get(row));
+                        DBConnection.setStatus(s, index + 1, status);
+                        s.setTimestamp(index + 2, timestamp);
+                        s.setString(index + 3, note);
+                        s.setTimestamp(index + 4, timestamp);
+                    });
+            List<DomainEvent> events = new ArrayList<>(drafts.size());
+            for (int i = 0; i < drafts.size(); i++) {
+                events.add(DomainEvent.warehouseOrderCreated(orderIds.get(i), drafts.get(i).getWarehouseId(), Status.PENDING));
+            }
+            OutboxDB.append(con, events);
+
+            dbConn.getDBConn().commit();
+            dbConn.setAutoCommit(true);
+            return orderIds;
+        } catch (SQLException | DataAccessException e) {
+            dbConn.rollback();
+            dbConn.setAutoCommit(true);
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    private static long draftKey(int warehouseId, int providerId) {
+        return ((long) warehouseId << 32) | (providerId & 0xFFFFFFFFL);
+    }
+
+    private static OrderTotals calculateTotals(List<WarehouseOrderItem> items) {
+        long price = 0;
+        double weight = 0;
+        for (WarehouseOrderItem item : items) {
+            price += item.getUnitPrice() * item.getQuantity();
+            weight += item.getProduct().getWeight() * item.getQuantity();
+        }
+        return new OrderTotals(price, weight, items.size());
+    }
+
+    private static OrderTotals readTotals(ResultSet rs) throws SQLException {
+        return new OrderTotals(rs.getLong("totalPrice"), rs.getDouble("totalWeight"), rs.getInt("lineCount"));
+    }
 }
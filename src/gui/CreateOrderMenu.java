@@ -1,10 +1,12 @@
 package gui;
 
+import controller.AvailableToPromiseController;
 import controller.ControlException;
 import controller.OrderController;
 import controller.ProductController;
 import database.DataAccessException;
 import gui.PopUp.PopUpType;
+import model.Money;
 import model.OrderItem;
 import model.Product;
 import model.Warehouse;
@@ -89,7 +91,7 @@ public class CreateOrderMenu extends JPanel {
 
     public void updateOrderStatus() {
         if (orderController.getOrder() != null) {
-            lblOrderStatus.setText("Total price: " + orderController.getOrder().calculateTotalPrice());
+            lblOrderStatus.setText("Total price: " + Money.format(orderController.getOrder().calculateTotalPrice()));
         } else {
             lblOrderStatus.setText("Choose a warehouse");
         }
@@ -97,6 +99,19 @@ public class CreateOrderMenu extends JPanel {
 
     private void showControlsFor(Product product) {
         optionsPanel.removeAll();
+        if (product == null) {
+            optionsPanel.revalidate();
+            optionsPanel.repaint();
+            return;
+        }
+
+        try {
+            int available = AvailableToPromiseController.getInstance()
+                    .getAvailableToPromise(orderController.getOrder().getWarehouse(), product);
+            optionsPanel.add(new JLabel("Available: " + available + " pcs"));
+        } catch (ControlException e) {
+            PopUp.newPopUp(this, e.getMessage(), "Warning", PopUpType.WARNING);
+        }
 
         JLabel lblAmountLabel = new JLabel("Amount:");
         optionsPanel.add(lblAmountLabel);
@@ -211,7 +226,7 @@ public class CreateOrderMenu extends JPanel {
     }
 
     private void cancelOrder() {
-        orderController.setOrder(null);
+        orderController.cancelOrder();
         this.setVisible(false);
     }
 
@@ -5,6 +5,7 @@ import controller.ProductController;
 import controller.StoreStockReportController;
 import database.DataAccessException;
 import gui.PopUp.PopUpType;
+import model.Money;
 import model.Product;
 import model.StoreStockReport;
 import model.StoreStockReportItem;
@@ -89,7 +90,7 @@ public class CreateStoreStockReportMenu extends JPanel {
     }
 
     public void updateReportStatus() {
-        lblOrderStatus.setText("Total price: " + storeStockReportController.getReport().calculateTotalPrice());
+        lblOrderStatus.setText("Total price: " + Money.format(storeStockReportController.getReport().calculateTotalPrice()));
     }
 
     private void showControlsFor(Product product) {
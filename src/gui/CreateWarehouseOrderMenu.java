@@ -6,6 +6,7 @@ import controller.LoginController;
 import controller.ProductController;
 import controller.WarehouseOrderController;
 import database.DataAccessException;
+import model.Money;
 import model.Product;
 import model.Warehouse;
 import model.WarehouseOrderItem;
@@ -91,7 +92,7 @@ public class CreateWarehouseOrderMenu extends JPanel {
 
     public void updateWarehouseOrderStatus() {
         if (warehouseOrderController.getWarehouseOrder() != null) {
-            lblProvider.setText("Total price: " + warehouseOrderController.getWarehouseOrder().calculateTotalPrice());
+            lblProvider.setText("Total price: " + Money.format(warehouseOrderController.getWarehouseOrder().calculateTotalPrice()));
         }
     }
 
@@ -108,7 +109,7 @@ public class CreateWarehouseOrderMenu extends JPanel {
 
         JLabel lblUnitPrice = new JLabel("Unit price: ");
         optionsPanel.add(lblUnitPrice);
-        JTextField inputUnitPrice = new JTextField(product.getPrice() + "");
+        JTextField inputUnitPrice = new JTextField(Money.format(product.getPrice()));
         inputUnitPrice.setColumns(10);
         optionsPanel.add(inputUnitPrice);
 
@@ -116,7 +117,7 @@ public class CreateWarehouseOrderMenu extends JPanel {
         btnAddProduct.addActionListener(event -> {
             try {
                 int amount = Integer.parseInt(productAmount.getText());
-                double unitPrice = Double.parseDouble(inputUnitPrice.getText());
+                long unitPrice = Money.parse(inputUnitPrice.getText());
                 try {
                     warehouseOrderController.addProduct(product, unitPrice, amount);
                 } catch (ControlException e) {
@@ -168,7 +169,7 @@ public class CreateWarehouseOrderMenu extends JPanel {
 
         JLabel lblUnitPrice = new JLabel("Unit price: ");
         optionsPanel.add(lblUnitPrice);
-        JTextField inputUnitPrice = new JTextField(warehouseOrderItem.getUnitPrice() + "");
+        JTextField inputUnitPrice = new JTextField(Money.format(warehouseOrderItem.getUnitPrice()));
         inputUnitPrice.setColumns(10);
         optionsPanel.add(inputUnitPrice);
 
@@ -176,7 +177,7 @@ public class CreateWarehouseOrderMenu extends JPanel {
         btnConfirmAmount.addActionListener(event -> {
             try {
                 int quantity = Integer.parseInt(warehouseOrderItemAmount.getText());
-                double unitPrice = Double.parseDouble(inputUnitPrice.getText());
+                long unitPrice = Money.parse(inputUnitPrice.getText());
                 if (startQuantity < quantity) {
                     warehouseOrderController.addProduct(warehouseOrderItem.getProduct(), unitPrice, quantity - startQuantity);
                 } else {
@@ -0,0 +1,37 @@
+package gui;
+
+import javax.swing.table.DefaultTableModel;
+import java.util.Objects;
+
+/**
+ * Updates the rows of an open table in place, by the ID in their first column, when the ChangeFeed reports changes
+ */
+class LiveRows {
+
+    private LiveRows() {/* Only holds the helpers */}
+
+    /**
+     * Replaces the row with the same ID, or adds it when the table doesn't have it yet
+     *
+     * @param model    the model of the table
+     * @param row      the new values of the row, the ID first
+     * @param newFirst whether new rows go to the top instead of the bottom
+     */
+    static void put(DefaultTableModel model, Object[] row, boolean newFirst) {
+        for (int i = 0; i < model.getRowCount(); i++) {
+            if (Objects.equals(model.getValueAt(i, 0), row[0])) {
+                for (int column = 0; column < row.length; column++) {
+                    if (!Objects.equals(model.getValueAt(i, column), row[column])) {
+                        model.setValueAt(row[column], i, column);
+                    }
+                }
+                return;
+            }
+        }
+        if (newFirst) {
+            model.insertRow(0, row);
+        } else {
+            model.addRow(row);
+        }
+    }
+}
@@ -2,14 +2,15 @@ package gui;
 
 import controller.ControlException;
 import controller.OrderController;
+import database.DAOFactory;
 import database.DataAccessException;
 import database.OrderDAO;
-import database.OrderDB;
 import gui.PopUp.PopUpType;
 import model.Order;
 import model.OrderItem;
 import model.OrderRevision;
 import model.Status;
+import model.TransitionOutcome;
 
 import javax.swing.*;
 import java.awt.*;
@@ -78,7 +79,11 @@ public class OrderDeliveryConfirm extends JPanel {
 
             order.addRevision(orderRevision);
             OrderController controller = new OrderController();
-            controller.updateOrder(order);
+            TransitionOutcome outcome = controller.updateOrder(order);
+            if (outcome != TransitionOutcome.UPDATED) {
+                PopUp.newPopUp(this, outcome.value, "Order " + order.getId(),
+                        outcome == TransitionOutcome.MERGED ? PopUpType.INFORMATION : PopUpType.WARNING);
+            }
             quit();
         } catch (DataAccessException | ControlException e) {
             PopUp.newPopUp(this, e.getMessage(), "Error", PopUpType.ERROR);
@@ -159,7 +164,7 @@ public class OrderDeliveryConfirm extends JPanel {
         @Override
         public void run() {
             try {
-                OrderDAO orderDAO = new OrderDB();
+                OrderDAO orderDAO = DAOFactory.orderDAO();
                 order = orderDAO.selectByID(orderId);
 
                 orderRevision = new OrderRevision(order);
@@ -2,6 +2,7 @@ package gui;
 
 import controller.OrderController;
 import database.DataAccessException;
+import model.Money;
 import model.Order;
 import model.OrderItem;
 
@@ -39,7 +40,7 @@ public class OrderFinishedScreen extends JPanel {
         JPanel footerPanel = new JPanel();
         add(footerPanel, BorderLayout.SOUTH);
 
-        JLabel lblTotalPrice = new JLabel("Total price " + order.calculateTotalPrice() + " €");
+        JLabel lblTotalPrice = new JLabel("Total price " + Money.format(order.calculateTotalPrice()) + " €");
         footerPanel.add(lblTotalPrice);
     }
 
@@ -151,7 +151,7 @@ public class OrderInformationMenu extends JPanel {
 		}
 		
 		
-		JLabel price = new JLabel("Total Price: " + order.calculateTotalPrice());
+		JLabel price = new JLabel("Total Price: " + Money.format(order.calculateTotalPrice()));
 		details.add(price);
 		
 		return details;
@@ -186,7 +186,7 @@ public class OrderInformationMenu extends JPanel {
 				Object[] data = {
 						row.getProduct().toString(),
 						row.getQuantity(),
-						row.getUnitPrice()
+						Money.format(row.getUnitPrice())
 				};
 
 				alldata[i] = data;
@@ -3,6 +3,7 @@ package gui;
 import controller.ProductController;
 import database.DataAccessException;
 import gui.PopUp.PopUpType;
+import model.Money;
 import model.Product;
 
 import javax.swing.*;
@@ -97,7 +98,7 @@ public class ProductMenu extends JPanel {
     private void showInfoFor(Product selectedValue) {
         String info = "";
         info += "<html><h1><b>Product name: </b>" + selectedValue.getName() + " (ID: " + selectedValue.getId() + ")</h1></br>";
-        info += "<h2>Price: " + selectedValue.getPrice() + " EUR</h2></br>";
+        info += "<h2>Price: " + Money.format(selectedValue.getPrice()) + " EUR</h2></br>";
         info += "<h2>Weight: " + selectedValue.getWeight() + "Kg</h2>";
         productInfo.setFont(new Font("Tahoma", Font.PLAIN, 14));
         productInfo.setEditable(false);
@@ -1,15 +1,28 @@
 package gui;
 
+import controller.AvailableToPromiseController;
+import controller.ChangeFeed;
 import controller.ControlException;
+import controller.LoginController;
 import controller.StockController;
+import model.ChangeSet;
+import model.Money;
 import model.Stock;
+import model.Warehouse;
 
 import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
+import java.util.Map;
 
 // TODO: Quantity Min should be changable
 public class StockMenu extends JScrollPane {
+    private static final int AVAILABLE_TO_PROMISE_COLUMN = 4;
+
+    // Rows of the stock list, updated in place when stocks or orders change
+    private DefaultTableModel model;
+    private final ChangeFeed.Listener feedListener = this::stockChanged;
 
     /**
      * Create the panel.
@@ -18,6 +31,62 @@ public class StockMenu extends JScrollPane {
         new Loader().start();
     }
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        ChangeFeed.getInstance().subscribe(feedListener);
+    }
+
+    @Override
+    public void removeNotify() {
+        ChangeFeed.getInstance().unsubscribe(feedListener);
+        super.removeNotify();
+    }
+
+    /*
+     * Reloads the changed stocks, and the available to promise amounts when orders changed,
+     * called by the ChangeFeed on its own thread
+     */
+    private void stockChanged(ChangeSet changes) {
+        if (changes.getStocks().isEmpty() && changes.getOrders().isEmpty()) {
+            return;
+        }
+        try {
+            List<Stock> stocks = changes.getStocks().isEmpty() ? List.of() : StockController.getStocks(changes.getStocks());
+            Warehouse warehouse = (Warehouse) LoginController.getLoggedInUser();
+            AvailableToPromiseController.getInstance().changed(warehouse, changes);
+            Map<Integer, Integer> availableToPromise = AvailableToPromiseController.getInstance().getAvailableToPromise(warehouse);
+            EventQueue.invokeLater(() -> {
+                if (model == null) {
+                    return;
+                }
+                for (Stock stock : stocks) {
+                    LiveRows.put(model, row(stock, availableToPromise), false);
+                }
+                for (int i = 0; i < model.getRowCount(); i++) {
+                    Object productId = model.getValueAt(i, 0);
+                    Integer available = availableToPromise.get(productId);
+                    if (available != null && !available.equals(model.getValueAt(i, AVAILABLE_TO_PROMISE_COLUMN))) {
+                        model.setValueAt(available, i, AVAILABLE_TO_PROMISE_COLUMN);
+                    }
+                }
+            });
+        } catch (ControlException e) {
+            // The next change or opening the list again shows them
+        }
+    }
+
+    private static Object[] row(Stock row, Map<Integer, Integer> availableToPromise) {
+        return new Object[]{
+                row.getProduct().getId(),
+                row.getProduct().getName(),
+                row.getQuantity(),
+                row.getMinQuantity(),
+                availableToPromise.getOrDefault(row.getProduct().getId(), row.getQuantity()),
+                Money.format(row.getProduct().getPrice()) + " €",
+        };
+    }
+
     // TODO: Mark low amount stocks with some color
     private JTable stocksTable() {
         // Column names
@@ -25,6 +94,7 @@ public class StockMenu extends JScrollPane {
                 "Product",
                 "Quantity",
                 "Quantity Min",
+                "Available to promise",
                 "Price",
         };
 
@@ -32,21 +102,16 @@ public class StockMenu extends JScrollPane {
         try {
             // Convert data to 3d array
             List<Stock> stocks = StockController.getStocks();
+            Map<Integer, Integer> availableToPromise = AvailableToPromiseController.getInstance()
+                    .getAvailableToPromise((Warehouse) LoginController.getLoggedInUser());
             Object[][] alldata = new Object[stocks.size()][];
             int i = 0;
             for (Stock row : stocks) {
-                Object[] data = {
-                        row.getProduct().getId(),
-                        row.getProduct().getName(),
-                        row.getQuantity(),
-                        row.getMinQuantity(),
-                        row.getProduct().getPrice() + " €",
-                };
-                alldata[i] = data;
+                alldata[i] = row(row, availableToPromise);
                 i++;
             }
 
-            JTable table = new JTable(alldata, columnNames) {
+            JTable table = new JTable(new DefaultTableModel(alldata, columnNames)) {
                 @Override
                 public boolean editCellAt(int row, int column, java.util.EventObject e) {
                     return false;
@@ -70,7 +135,12 @@ public class StockMenu extends JScrollPane {
         public void run() {
             JTable table = stocksTable();
 
-            EventQueue.invokeLater(() -> setViewportView(table));
+            EventQueue.invokeLater(() -> {
+                if (table != null) {
+                    model = (DefaultTableModel) table.getModel();
+                }
+                setViewportView(table);
+            });
         }
     }
 
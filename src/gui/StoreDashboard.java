@@ -1,18 +1,22 @@
 package gui;
 
+import controller.ChangeFeed;
 import controller.LoginController;
+import database.DAOFactory;
 import database.DataAccessException;
 import database.OrderDAO;
-import database.OrderDB;
+import model.ChangeSet;
 import model.User;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
 
 public class StoreDashboard extends JPanel {
 
     private JLabel lblPendingOrders;
     private JLabel lblTotalOrders;
+    private final ChangeFeed.Listener feedListener = this::changed;
 
     /**
      * Create the panel.
@@ -36,16 +40,40 @@ public class StoreDashboard extends JPanel {
         new InfoLoader().run();
     }
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        ChangeFeed.getInstance().subscribe(feedListener);
+    }
+
+    @Override
+    public void removeNotify() {
+        ChangeFeed.getInstance().unsubscribe(feedListener);
+        super.removeNotify();
+    }
+
+    /*
+     * Counts again when something counted changed, called by the ChangeFeed on its own thread
+     */
+    private void changed(ChangeSet changes) {
+        if (!changes.getOrders().isEmpty()) {
+            new InfoLoader().run();
+        }
+    }
+
     private class InfoLoader implements Runnable {
 
         @Override
         public void run() {
             try {
-                OrderDAO orderDAO = new OrderDB();
+                OrderDAO orderDAO = DAOFactory.orderDAO();
 
                 User user = LoginController.getLoggedInUser();
-                int pendingOrders = orderDAO.getPendingOrdersAmount(user);
-                int totalOrders = orderDAO.getOrdersAmount(user);
+                List<Integer> amounts = DAOFactory.together(
+                        () -> orderDAO.getPendingOrdersAmount(user),
+                        () -> orderDAO.getOrdersAmount(user));
+                int pendingOrders = amounts.get(0);
+                int totalOrders = amounts.get(1);
 
                 EventQueue.invokeLater(() -> {
                     lblPendingOrders.setText("Pending Orders: " + pendingOrders);
@@ -1,16 +1,20 @@
 package gui;
 
+import controller.ChangeFeed;
 import controller.ControlException;
 import controller.LoginController;
 import controller.OrderController;
 import database.DataAccessException;
 import gui.PopUp.PopUpType;
-import model.Order;
+import model.ChangeSet;
+import model.Money;
+import model.OrderSummary;
 import model.Store;
 
 import javax.swing.*;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -24,6 +28,11 @@ public class StoreOrderMenu extends JPanel {
     JComponent orderInfo;
     // Controllers
     private OrderController orderController;
+    // Rows of the order list, updated in place when orders change
+    private DefaultTableModel model;
+    private final ChangeFeed.Listener feedListener = this::ordersChanged;
+    // Closed orders moved to the archive are only listed when asked for
+    private volatile boolean showArchived;
 
     /*
      * Create the panel.
@@ -41,14 +50,19 @@ public class StoreOrderMenu extends JPanel {
         setLayout(new BorderLayout());
 
         // Button header
+        options = new JPanel();
+        add(options, BorderLayout.NORTH);
         if (LoginController.getLoggedInUser() instanceof Store) {
-            options = new JPanel();
-            add(options, BorderLayout.NORTH);
-
             JButton btnCreateOrder = ColorStyle.newButton("Create Order");
             options.add(btnCreateOrder);
             btnCreateOrder.addActionListener(actionEvent -> createOrder());
         }
+        JCheckBox chkArchived = new JCheckBox("Show archived orders");
+        options.add(chkArchived);
+        chkArchived.addActionListener(actionEvent -> {
+            showArchived = chkArchived.isSelected();
+            new Loader().start();
+        });
 
         // Content panel
         content = new JPanel();
@@ -68,6 +82,52 @@ public class StoreOrderMenu extends JPanel {
         new Loader().start();
     }
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        ChangeFeed.getInstance().subscribe(feedListener);
+    }
+
+    @Override
+    public void removeNotify() {
+        ChangeFeed.getInstance().unsubscribe(feedListener);
+        super.removeNotify();
+    }
+
+    /*
+     * Reloads only the changed orders, called by the ChangeFeed on its own thread
+     */
+    private void ordersChanged(ChangeSet changes) {
+        if (changes.getOrders().isEmpty() || orderController == null) {
+            return;
+        }
+        try {
+            List<OrderSummary> orders = orderController.getOrderSummaries(changes.getOrders());
+            EventQueue.invokeLater(() -> {
+                if (model != null) {
+                    // Newest last, so it ends up on top
+                    for (int i = orders.size() - 1; i >= 0; i--) {
+                        LiveRows.put(model, row(orders.get(i)), true);
+                    }
+                }
+            });
+        } catch (ControlException e) {
+            // The next change or opening the list again shows them
+        }
+    }
+
+    private static Object[] row(OrderSummary row) {
+        return new Object[]{
+                row.getId(),
+                row.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy - H:m")),
+                row.getCounterpart(),
+                row.getStatus(),
+                Money.format(row.getTotals().getTotalPrice()) + " EUR",
+                String.format("%.2f kg", row.getTotals().getTotalWeight()),
+                "See more"
+        };
+    }
+
     private void createOrder() {
         CreateOrderMenu component = new CreateOrderMenu();
         LayoutChangeMonitor.getInstance().setLayout(component, "create_order_menu");
@@ -82,33 +142,28 @@ public class StoreOrderMenu extends JPanel {
                 "Date",
                 "Warehouse",
                 "Status",
+                "Total",
+                "Weight",
                 ""};
 
         // Create table with row edit disable
         try {
             // Convert data to 3d array
-            List<Order> orders = null;
+            List<OrderSummary> orders = null;
             try {
-                orders = new OrderController().getOrders();
+                orders = new OrderController().getOrderSummaries(LoginController.getLoggedInUser(), showArchived);
             } catch (DataAccessException e1) {
                 PopUp.newPopUp(getParent(), e1.getMessage(), "Error", PopUpType.ERROR);
             }
             Object[][] alldata = new Object[orders.size()][];
             int i = 0;
-            for (Order row : orders) {
-                Object[] data = {
-                        row.getId(),
-                        row.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy - H:m")),
-                        row.getWarehouse(),
-                        row.getStatus(),
-                        "See more"
-                };
-
-                alldata[i] = data;
+            for (OrderSummary row : orders) {
+                alldata[i] = row(row);
                 i++;
             }
 
-            JTable table = new JTable(alldata, columnNames) {
+            DefaultTableModel tableModel = new DefaultTableModel(alldata, columnNames);
+            JTable table = new JTable(tableModel) {
                 @Override
                 public boolean editCellAt(int row, int column, java.util.EventObject e) {
                     return false;
@@ -133,7 +188,7 @@ public class StoreOrderMenu extends JPanel {
                     for (int i = 0; i < selectedRow.length; i++) {
                         for (int j = 0; j < selectedColumns.length; j++) {
                             // Get click listener at column "see more"
-                            if (selectedColumns[j] == 4) {
+                            if (selectedColumns[j] == 6) {
                                 // Set values adjust to true
                                 if (!arg0.getValueIsAdjusting()) {
                                     // Get id of order and open details
@@ -177,7 +232,12 @@ public class StoreOrderMenu extends JPanel {
         @Override
         public void run() {
             JTable table = ordersTable();
-            EventQueue.invokeLater(() -> scroll_orders.setViewportView(table));
+            EventQueue.invokeLater(() -> {
+                if (table != null) {
+                    model = (DefaultTableModel) table.getModel();
+                }
+                scroll_orders.setViewportView(table);
+            });
         }
     }
 }
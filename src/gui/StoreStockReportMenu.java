@@ -2,19 +2,22 @@ package gui;
 
 import controller.ControlException;
 import controller.StoreStockReportController;
+import model.Money;
 import model.Store;
 import model.StoreStockReport;
 import model.StoreStockReportItem;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 
 public abstract class StoreStockReportMenu extends JPanel {
+    // Number of reports loaded at once, older ones are loaded with the "Older reports" button
+    private static final int PAGE_SIZE = 50;
 
-    protected List<StoreStockReport> reports = new LinkedList<>();
+    protected List<StoreStockReport> reports = new ArrayList<>();
     protected JPanel optionsPanel;
     protected JSplitPane reportPanel;
     protected JList<StoreStockReport> reportList;
@@ -35,6 +38,11 @@ public abstract class StoreStockReportMenu extends JPanel {
         JButton btnActualize = ColorStyle.newButton("Actualize");
         optionsPanel.add(btnActualize);
         btnActualize.addActionListener(actionEvent -> reloadDataAndGui());
+
+        // Button Older reports
+        JButton btnOlder = ColorStyle.newButton("Older reports");
+        optionsPanel.add(btnOlder);
+        btnOlder.addActionListener(actionEvent -> loadOlderReports());
     }
 
 
@@ -46,7 +54,8 @@ public abstract class StoreStockReportMenu extends JPanel {
         // List Reports
         reportList = getReportJList();
         reportList.addListSelectionListener(e -> {
-            if (!e.getValueIsAdjusting()) {
+            // The selection is cleared when older reports are added to the list
+            if (!e.getValueIsAdjusting() && reportList.getSelectedValue() != null) {
                 JTable itemTable = getStoreStockReportTable(reportList.getSelectedValue());
                 JScrollPane itemScroll = new JScrollPane(itemTable);
                 reportPanel.setRightComponent(itemScroll);
@@ -79,7 +88,7 @@ public abstract class StoreStockReportMenu extends JPanel {
                     row.getProduct().getId(),
                     row.getProduct().getName(),
                     row.getQuantity(),
-                    row.getProduct().getPrice(),
+                    Money.format(row.getProduct().getPrice()),
                     row.getProduct().getWeight(),
             };
             alldata[i] = data;
@@ -105,9 +114,33 @@ public abstract class StoreStockReportMenu extends JPanel {
 
     protected abstract void reloadDataAndGui();
 
+    /**
+     * Loads the newest page of reports of the current store
+     */
     protected void loadReports() {
         try {
-            reports = StoreStockReportController.getReportStoreStockReportByStore(currentStore);
+            reports = new ArrayList<>(StoreStockReportController.getReportPage(currentStore, null, null, null, PAGE_SIZE));
+        } catch (ControlException e) {
+            PopUp.newPopUp(this, e.getMessage(), "Error", PopUp.PopUpType.WARNING);
+        }
+    }
+
+    /**
+     * Adds the next page of reports after the ones already shown
+     */
+    protected void loadOlderReports() {
+        if (currentStore == null || reportList == null) {
+            return;
+        }
+        try {
+            StoreStockReport last = reports.isEmpty() ? null : reports.get(reports.size() - 1);
+            List<StoreStockReport> page = StoreStockReportController.getReportPage(currentStore, null, null, last, PAGE_SIZE);
+            if (page.isEmpty()) {
+                PopUp.newPopUp(this, "There are no older reports", "Reports", PopUp.PopUpType.INFORMATION);
+                return;
+            }
+            reports.addAll(page);
+            reportList.setListData(reports.toArray(new StoreStockReport[0]));
         } catch (ControlException e) {
             PopUp.newPopUp(this, e.getMessage(), "Error", PopUp.PopUpType.WARNING);
         }
@@ -1,12 +1,20 @@
 package gui;
 
+import controller.ConsumptionController;
+import controller.ControlException;
+import controller.ProductController;
 import controller.StoreController;
 import database.DataAccessException;
+import model.Consumption;
+import model.Product;
 import model.Store;
 
 import javax.swing.*;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public class StoreStockReportMenuWarehouse extends StoreStockReportMenu {
     protected JList<Store> storeList;
@@ -18,6 +26,11 @@ public class StoreStockReportMenuWarehouse extends StoreStockReportMenu {
         super();
         this.currentStore = null;
 
+        // Button Consumption
+        JButton btnConsumption = ColorStyle.newButton("Consumption");
+        optionsPanel.add(btnConsumption);
+        btnConsumption.addActionListener(actionEvent -> showConsumption());
+
         reloadDataAndGui();
         refreshStoreSplitPanel();
 
@@ -63,6 +76,52 @@ public class StoreStockReportMenuWarehouse extends StoreStockReportMenu {
         });
     }
 
+    /**
+     * Shows how fast the selected store uses up each of its products, fastest first
+     */
+    private void showConsumption() {
+        if (currentStore == null) {
+            PopUp.newPopUp(this, "Select a store first", "Consumption", PopUp.PopUpType.INFORMATION);
+            return;
+        }
+        try {
+            List<Consumption> figures = ConsumptionController.getInstance().getConsumption(currentStore);
+            figures.sort(Comparator.comparingDouble(Consumption::getVelocity).reversed());
+            Map<Integer, Product> products = new HashMap<>();
+            for (Product product : new ProductController().all()) {
+                products.put(product.getId(), product);
+            }
+
+            String[] columnNames = {"ProductID", "Product", "Last reported", "Delivered since", "Per day (avg)",
+                    "Per day (recent)", "Days of cover"};
+            Object[][] data = new Object[figures.size()][];
+            for (int i = 0; i < figures.size(); i++) {
+                Consumption consumption = figures.get(i);
+                Product product = products.get(consumption.getProductId());
+                data[i] = new Object[]{
+                        consumption.getProductId(),
+                        product == null ? "" : product.getName(),
+                        consumption.getLastQuantity(),
+                        consumption.getDeliveredSince(),
+                        String.format("%.2f", consumption.getAverageDailyConsumption()),
+                        String.format("%.2f", consumption.getVelocity()),
+                        consumption.getDaysOfCover() < 0 ? "-" : String.format("%.1f", consumption.getDaysOfCover())
+                };
+            }
+            JTable table = new JTable(data, columnNames) {
+                @Override
+                public boolean editCellAt(int row, int column, java.util.EventObject e) {
+                    return false;
+                }
+            };
+            table.setRowSelectionAllowed(false);
+            storePanel.setRightComponent(new JScrollPane(table));
+            this.revalidate();
+        } catch (ControlException | DataAccessException e) {
+            PopUp.newPopUp(this, e.getMessage(), "Error", PopUp.PopUpType.WARNING);
+        }
+    }
+
     private void loadStores() {
         try {
             StoreController storeController = new StoreController();
@@ -8,6 +8,7 @@ import model.Order;
 import model.OrderItem;
 import model.OrderRevision;
 import model.Status;
+import model.TransitionOutcome;
 
 import javax.swing.*;
 import java.awt.*;
@@ -102,7 +103,12 @@ public class UpdateOrderMenu extends JPanel {
             revision.setDate(LocalDateTime.now());
             order.addRevision(revision);
             order.setStatus(status);
-            controller.updateOrder(order);
+            TransitionOutcome outcome = controller.updateOrder(order);
+            if (outcome != TransitionOutcome.UPDATED) {
+                // The menu below shows the order as it is saved now
+                PopUp.newPopUp(this, outcome.value, "Order " + order.getId(),
+                        outcome == TransitionOutcome.MERGED ? PopUpType.INFORMATION : PopUpType.WARNING);
+            }
             OrderInformationMenu informationMenu = new OrderInformationMenu(order.getId());
             LayoutChangeMonitor.getInstance().setLayout(informationMenu, "order_info");
         } catch (ControlException e) {
@@ -2,6 +2,7 @@ package gui;
 
 import controller.ProductController;
 import database.DataAccessException;
+import model.Money;
 import model.Product;
 
 import javax.swing.*;
@@ -109,7 +110,7 @@ public class UpdateProductMenu extends JPanel {
         lblProductView.setText("Edit Product");
         this.name.setText("" + product.getName());
         this.weight.setText("" + product.getWeight());
-        this.price.setText("" + product.getPrice());
+        this.price.setText(Money.format(product.getPrice()));
     }
 
     private void goBack() {
@@ -121,7 +122,7 @@ public class UpdateProductMenu extends JPanel {
             Product product2 = new Product(
                     this.name.getText(),
                     Double.parseDouble(this.weight.getText()),
-                    Double.parseDouble(this.price.getText()));
+                    Money.parse(this.price.getText()));
             ProductController productController = new ProductController();
             if (product != null) {
                 product2.setId(product.getId());
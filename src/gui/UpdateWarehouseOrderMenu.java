@@ -4,6 +4,7 @@ import controller.ControlException;
 import controller.WarehouseOrderController;
 import database.DataAccessException;
 import model.Status;
+import model.TransitionOutcome;
 import model.WarehouseOrder;
 import model.WarehouseOrderItem;
 import model.WarehouseOrderRevision;
@@ -94,7 +95,12 @@ public class UpdateWarehouseOrderMenu extends JPanel {
             revision.setDate(LocalDateTime.now());
             order.addRevision(revision);
             order.setStatus(status);
-            controller.updateWarehouseOrder(order);
+            TransitionOutcome outcome = controller.updateWarehouseOrder(order);
+            if (outcome != TransitionOutcome.UPDATED) {
+                // The menu below shows the order as it is saved now
+                PopUp.newPopUp(this, outcome.value, "Warehouse order " + order.getId(),
+                        outcome == TransitionOutcome.MERGED ? PopUp.PopUpType.INFORMATION : PopUp.PopUpType.WARNING);
+            }
             WarehouseOrderInformationMenu informationMenu = new WarehouseOrderInformationMenu(order.getId());
             LayoutChangeMonitor.getInstance().setLayout(informationMenu, "warehouse_order_info");
         } catch (ControlException e) {
@@ -1,12 +1,15 @@
 package gui;
 
+import controller.ChangeFeed;
 import controller.LoginController;
 import database.*;
+import model.ChangeSet;
 import model.User;
 import model.Warehouse;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
 
 public class WarehouseDashboard extends JPanel {
 
@@ -14,6 +17,7 @@ public class WarehouseDashboard extends JPanel {
     private JLabel lblTotalOrders;
     private JLabel lblTotalStocks;
     private JLabel lblLowStocks;
+    private final ChangeFeed.Listener feedListener = this::changed;
 
     /**
      * Create the panel.
@@ -50,19 +54,45 @@ public class WarehouseDashboard extends JPanel {
         new InfoLoader().run();
     }
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        ChangeFeed.getInstance().subscribe(feedListener);
+    }
+
+    @Override
+    public void removeNotify() {
+        ChangeFeed.getInstance().unsubscribe(feedListener);
+        super.removeNotify();
+    }
+
+    /*
+     * Counts again when something counted changed, called by the ChangeFeed on its own thread
+     */
+    private void changed(ChangeSet changes) {
+        if (!changes.getOrders().isEmpty() || !changes.getStocks().isEmpty()) {
+            new InfoLoader().run();
+        }
+    }
+
     private class InfoLoader implements Runnable {
 
         @Override
         public void run() {
             try {
-                OrderDAO orderDAO = new OrderDB();
-                StockDAO stockDAO = new StockDB();
+                OrderDAO orderDAO = DAOFactory.orderDAO();
+                StockDAO stockDAO = DAOFactory.stockDAO();
 
                 User user = LoginController.getLoggedInUser();
-                int pendingOrders = orderDAO.getPendingOrdersAmount(user);
-                int totalOrders = orderDAO.getOrdersAmount(user);
-                int lowStocks = stockDAO.getStocksBelowMinQuantityAmount((Warehouse) user);
-                int totalStocks = stockDAO.getStocksAmount((Warehouse) user);
+                List<Integer> amounts = DAOFactory.together(
+                        () -> orderDAO.getPendingOrdersAmount(user),
+                        () -> orderDAO.getOrdersAmount(user),
+                        () -> stockDAO.getStocksBelowMinQuantityAmount((Warehouse) user),
+                        () -> stockDAO.getStocksAmount((Warehouse) user));
+                int pendingOrders = amounts.get(0);
+                int totalOrders = amounts.get(1);
+                int lowStocks = amounts.get(2);
+                int totalStocks = amounts.get(3);
 
                 EventQueue.invokeLater(() -> {
                     lblPendingOrders.setText("Pending Orders: " + pendingOrders);
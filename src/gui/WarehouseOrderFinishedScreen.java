@@ -2,6 +2,7 @@ package gui;
 
 import controller.WarehouseOrderController;
 import database.DataAccessException;
+import model.Money;
 import model.WarehouseOrder;
 import model.WarehouseOrderItem;
 
@@ -39,7 +40,7 @@ public class WarehouseOrderFinishedScreen extends JPanel {
         JPanel footerPanel = new JPanel();
         add(footerPanel, BorderLayout.SOUTH);
 
-        JLabel lblTotalPrice = new JLabel("Total price " + warehouseOrder.calculateTotalPrice() + " €");
+        JLabel lblTotalPrice = new JLabel("Total price " + Money.format(warehouseOrder.calculateTotalPrice()) + " €");
         footerPanel.add(lblTotalPrice);
 
         loadWarehouseOrderItems();
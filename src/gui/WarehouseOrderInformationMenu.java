@@ -110,7 +110,7 @@ public class WarehouseOrderInformationMenu extends JPanel {
         details.add(warehouse);
         JLabel provider = new JLabel("Provider: " + warehouseOrder.getProvider());
         details.add(provider);
-        JLabel price = new JLabel("Total Price: " + warehouseOrder.calculateTotalPrice() + " €");
+        JLabel price = new JLabel("Total Price: " + Money.format(warehouseOrder.calculateTotalPrice()) + " €");
         details.add(price);
 
         return details;
@@ -142,7 +142,7 @@ public class WarehouseOrderInformationMenu extends JPanel {
                 Object[] data = {
                         row.getProduct(),
                         row.getQuantity(),
-                        row.getUnitPrice()
+                        Money.format(row.getUnitPrice())
                 };
 
                 alldata[i] = data;
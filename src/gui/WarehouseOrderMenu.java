@@ -1,21 +1,32 @@
 package gui;
 
+import controller.ChangeFeed;
 import controller.ControlException;
 import controller.OrderController;
 import database.DataAccessException;
 import gui.PopUp.PopUpType;
-import model.Order;
+import model.ChangeSet;
+import model.Money;
+import model.OrderSummary;
+import model.Status;
+import model.TransitionOutcome;
 
 import javax.swing.*;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class WarehouseOrderMenu extends JPanel {
     JScrollPane scrollOrders;
     JComponent orderInfo;
+    JTable table;
+    JComboBox<String> bulkStatusBox;
+    private final ChangeFeed.Listener feedListener = this::ordersChanged;
 
     /*
      * Create the panel.
@@ -26,9 +37,23 @@ public class WarehouseOrderMenu extends JPanel {
         gridLayout.setHgap(10);
         setLayout(gridLayout);
 
-        // List of orders
+        // List of orders with the bulk status controls above it
+        JPanel ordersPanel = new JPanel(new BorderLayout(0, 5));
+        add(ordersPanel);
+
         scrollOrders = new JScrollPane();
-        add(scrollOrders);
+        ordersPanel.add(scrollOrders, BorderLayout.CENTER);
+
+        JPanel bulkPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        ordersPanel.add(bulkPanel, BorderLayout.NORTH);
+
+        bulkPanel.add(new JLabel("Selected orders:"));
+        bulkStatusBox = new JComboBox<>(loadStatuses());
+        bulkPanel.add(bulkStatusBox);
+
+        JButton btnApply = ColorStyle.newButton("Apply");
+        btnApply.addActionListener(actionEvent -> updateSelectedOrders());
+        bulkPanel.add(btnApply);
 
         orderInfo = new OrderInformationMenu();
         add(orderInfo);
@@ -36,6 +61,59 @@ public class WarehouseOrderMenu extends JPanel {
         new Loader().start();
     }
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        ChangeFeed.getInstance().subscribe(feedListener);
+    }
+
+    @Override
+    public void removeNotify() {
+        ChangeFeed.getInstance().unsubscribe(feedListener);
+        super.removeNotify();
+    }
+
+    /*
+     * Reloads only the changed orders, called by the ChangeFeed on its own thread
+     */
+    private void ordersChanged(ChangeSet changes) {
+        if (!changes.getOrders().isEmpty()) {
+            refreshOrders(changes.getOrders());
+        }
+    }
+
+    /*
+     * Updates the rows of the given orders, a background thread should call it
+     */
+    private void refreshOrders(List<Integer> orderIds) {
+        try {
+            List<OrderSummary> orders = new OrderController().getOrderSummaries(orderIds);
+            EventQueue.invokeLater(() -> {
+                if (table != null) {
+                    DefaultTableModel model = (DefaultTableModel) table.getModel();
+                    // Newest last, so it ends up on top
+                    for (int i = orders.size() - 1; i >= 0; i--) {
+                        LiveRows.put(model, row(orders.get(i)), true);
+                    }
+                }
+            });
+        } catch (ControlException | DataAccessException e) {
+            // The next change or opening the list again shows them
+        }
+    }
+
+    private static Object[] row(OrderSummary row) {
+        return new Object[]{
+                row.getId(),
+                row.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy - H:m")),
+                row.getCounterpart(),
+                row.getStatus().value,
+                Money.format(row.getTotals().getTotalPrice()) + " EUR",
+                String.format("%.2f kg", row.getTotals().getTotalWeight()),
+                "See more"
+        };
+    }
+
     /*
      * Create table and fetch data
      */
@@ -45,33 +123,27 @@ public class WarehouseOrderMenu extends JPanel {
                 "Date",
                 "Store",
                 "Status",
+                "Total",
+                "Weight",
                 ""};
 
         // Create table with row edit disable
         try {
             // Convert data to 3d array
-            List<Order> orders = null;
+            List<OrderSummary> orders = null;
             try {
-                orders = new OrderController().getOrders();
+                orders = new OrderController().getOrderSummaries();
             } catch (DataAccessException e1) {
                 PopUp.newPopUp(getParent(), e1.getMessage(), "Error", PopUpType.ERROR);
             }
             Object[][] alldata = new Object[orders.size()][];
             int i = 0;
-            for (Order row : orders) {
-                Object[] data = {
-                        row.getId(),
-                        row.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy - H:m")),
-                        row.getStore(),
-                        row.getStatus().value,
-                        "See more"
-                };
-
-                alldata[i] = data;
+            for (OrderSummary row : orders) {
+                alldata[i] = row(row);
                 i++;
             }
 
-            JTable table = new JTable(alldata, columnNames) {
+            JTable ordersTable = new JTable(new DefaultTableModel(alldata, columnNames)) {
                 @Override
                 public boolean editCellAt(int row, int column, java.util.EventObject e) {
                     return false;
@@ -80,30 +152,24 @@ public class WarehouseOrderMenu extends JPanel {
 
             // Activation selection
             //table.setRowSelectionAllowed(false);
-            table.setCellSelectionEnabled(true);
+            ordersTable.setCellSelectionEnabled(true);
 
-            ListSelectionModel cellSelectionModel = table.getSelectionModel();
-            cellSelectionModel.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            ListSelectionModel cellSelectionModel = ordersTable.getSelectionModel();
+            cellSelectionModel.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
 
             cellSelectionModel.addListSelectionListener(new ListSelectionListener() {
                 @Override
                 public void valueChanged(ListSelectionEvent arg0) {
                     String selected = null;
 
-                    int[] selectedRow = table.getSelectedRows();
-                    int[] selectedColumns = table.getSelectedColumns();
-
-                    for (int i = 0; i < selectedRow.length; i++) {
-                        for (int j = 0; j < selectedColumns.length; j++) {
-                            // Get click listener at column "see more"
-                            if (selectedColumns[j] == 4) {
-                                // Set values adjust to true
-                                if (!arg0.getValueIsAdjusting()) {
-                                    // Get id of order and open details
-                                    openOrder(table.getValueAt(selectedRow[i], 0));
-                                }
-                            }
-                        }
+                    int[] selectedRow = ordersTable.getSelectedRows();
+                    int[] selectedColumns = ordersTable.getSelectedColumns();
+
+                    // Only open the details when a single "see more" cell is clicked, not while selecting many orders
+                    if (selectedRow.length == 1 && selectedColumns.length == 1 && selectedColumns[0] == 6
+                            && !arg0.getValueIsAdjusting()) {
+                        // Get id of order and open details
+                        openOrder(ordersTable.getValueAt(selectedRow[0], 0));
                     }
                 }
 
@@ -126,9 +192,9 @@ public class WarehouseOrderMenu extends JPanel {
             });
 
             // Set border
-            table.setBorder(BorderFactory.createLineBorder(Color.blue));
+            ordersTable.setBorder(BorderFactory.createLineBorder(Color.blue));
 
-            return table;
+            return ordersTable;
 
         } catch (ControlException e) {
             PopUp.newPopUp(this, e.getMessage(), "Error", PopUp.PopUpType.WARNING);
@@ -136,11 +202,58 @@ public class WarehouseOrderMenu extends JPanel {
         return null;
     }
 
+    /*
+     * Moves every selected order to the status chosen in the combo box and shows what happened to each of them
+     */
+    private void updateSelectedOrders() {
+        if (table == null || table.getSelectedRows().length == 0) {
+            PopUp.newPopUp(this, "Please select the orders first", "Cannot continue", PopUpType.WARNING);
+            return;
+        }
+        List<Integer> orderIds = new ArrayList<>();
+        for (int row : table.getSelectedRows()) {
+            orderIds.add((int) table.getValueAt(row, 0));
+        }
+        Status status = Status.get((String) bulkStatusBox.getSelectedItem());
+
+        try {
+            Map<Integer, TransitionOutcome> outcomes = new OrderController().updateOrders(orderIds, status, "Bulk update");
+            int updated = 0;
+            StringBuilder skipped = new StringBuilder();
+            for (Map.Entry<Integer, TransitionOutcome> outcome : outcomes.entrySet()) {
+                if (outcome.getValue() == TransitionOutcome.UPDATED) {
+                    updated++;
+                } else {
+                    skipped.append("\nOrder ").append(outcome.getKey()).append(": ").append(outcome.getValue().value);
+                }
+            }
+            PopUp.newPopUp(this, updated + " order(s) updated." + skipped, "Bulk update", PopUpType.INFORMATION);
+        } catch (ControlException | DataAccessException e) {
+            PopUp.newPopUp(this, e.getMessage(), "Can't update orders", PopUpType.ERROR);
+        }
+        // Only the updated rows change, the rest of the list stays as it is
+        new Thread(() -> refreshOrders(orderIds)).start();
+    }
+
+    private String[] loadStatuses() {
+        List<String> options = new ArrayList<>();
+        for (Status status : Status.values()) {
+            // Orders are never moved back to pending
+            if (status != Status.PENDING) {
+                options.add(status.value);
+            }
+        }
+        return options.toArray(new String[0]);
+    }
+
     private class Loader extends Thread {
         @Override
         public void run() {
-            JTable table = ordersTable();
-            EventQueue.invokeLater(() -> scrollOrders.setViewportView(table));
+            JTable ordersTable = ordersTable();
+            EventQueue.invokeLater(() -> {
+                table = ordersTable;
+                scrollOrders.setViewportView(ordersTable);
+            });
         }
     }
 }
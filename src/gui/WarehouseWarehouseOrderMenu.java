@@ -3,7 +3,8 @@ package gui;
 import controller.ControlException;
 import controller.WarehouseOrderController;
 import database.DataAccessException;
-import model.WarehouseOrder;
+import model.Money;
+import model.WarehouseOrderSummary;
 
 import javax.swing.*;
 import javax.swing.event.ListSelectionEvent;
@@ -59,25 +60,29 @@ public class WarehouseWarehouseOrderMenu extends JPanel {
                 "Date",
                 "Provider",
                 "Status",
+                "Total",
+                "Weight",
                 ""};
 
         // Create table with row edit disable
         try {
             // Convert data to 3d array
-            List<WarehouseOrder> warehouseOrders = null;
+            List<WarehouseOrderSummary> warehouseOrders = null;
             try {
-                warehouseOrders = new WarehouseOrderController().getWarehouseOrders();
+                warehouseOrders = new WarehouseOrderController().getWarehouseOrderSummaries();
             } catch (DataAccessException e1) {
                 PopUp.newPopUp(getParent(), e1.getMessage(), "Error", PopUp.PopUpType.ERROR);
             }
             Object[][] alldata = new Object[warehouseOrders.size()][];
             int i = 0;
-            for (WarehouseOrder row : warehouseOrders) {
+            for (WarehouseOrderSummary row : warehouseOrders) {
                 Object[] data = {
                         row.getId(),
                         row.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy - H:m")),
                         row.getProvider(),
                         row.getStatus(),
+                        Money.format(row.getTotals().getTotalPrice()) + " EUR",
+                        String.format("%.2f kg", row.getTotals().getTotalWeight()),
                         "See more"
                 };
 
@@ -110,7 +115,7 @@ public class WarehouseWarehouseOrderMenu extends JPanel {
                     for (int i = 0; i < selectedRow.length; i++) {
                         for (int j = 0; j < selectedColumns.length; j++) {
                             // Get click listener at column "see more"
-                            if (selectedColumns[j] == 4) {
+                            if (selectedColumns[j] == 6) {
                                 // Set values adjust to true
                                 if (!arg0.getValueIsAdjusting()) {
                                     // Get id of order and open details
@@ -0,0 +1,24 @@
+package main;
+
+import controller.ControlException;
+import controller.EventBus;
+
+/**
+ * Delivers the domain events of the outbox without a window, for applications working on the database
+ * without an order server. Run exactly one of it or the order server, it runs until it is stopped.
+ */
+public class EventBusTool {
+    public static void main(String[] args) {
+        try {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> EventBus.getInstance().stop()));
+            EventBus.getInstance().start();
+            System.out.println("Delivering the events of the outbox.");
+            Thread.currentThread().join();
+        } catch (ControlException e) {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
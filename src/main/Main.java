@@ -1,9 +1,17 @@
 package main;
 
+import database.DAOFactory;
+import database.HttpTransport;
 import gui.LoginMenu;
 
 public class Main {
     public static void main(String[] args) {
+        // With -Dtevos.server=http://host:port the application works through that order server instead of the database
+        String server = System.getProperty("tevos.server");
+        if (server != null && !server.isBlank()) {
+            DAOFactory.useRemote(new HttpTransport(server));
+        }
+        // The domain events of the outbox are delivered by the order server or the EventBusTool, never by a window
         LoginMenu.main(args);
     }
 }
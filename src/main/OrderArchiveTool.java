@@ -0,0 +1,49 @@
+package main;
+
+import database.DBConnection;
+import database.DataAccessException;
+import database.OrderDAO;
+import database.OrderDB;
+
+import java.time.LocalDateTime;
+
+/**
+ * Moves the DELIVERED and REJECTED orders closed longer ago than a number of days to the archive tables,
+ * a small batch per transaction with a pause in between, so the job can run next to the normal work.
+ * The arguments are the age in days, the batch size and the pause in milliseconds, by default 365, 500 and 500.
+ */
+public class OrderArchiveTool {
+    public static void main(String[] args) {
+        try {
+            int days = args.length > 0 ? Integer.parseInt(args[0]) : 365;
+            int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+            long pauseMillis = args.length > 2 ? Long.parseLong(args[2]) : 500;
+            if (days < 1 || batchSize < 1 || pauseMillis < 0) {
+                throw new NumberFormatException();
+            }
+
+            OrderDAO orderDAO = new OrderDB();
+            LocalDateTime closedBefore = LocalDateTime.now().minusDays(days);
+            int total = 0;
+            int moved;
+            do {
+                moved = orderDAO.archiveOrders(closedBefore, batchSize);
+                total += moved;
+                if (moved == batchSize) {
+                    Thread.sleep(pauseMillis);
+                }
+            } while (moved == batchSize);
+            System.out.println("Archived " + total + " orders closed before " + closedBefore.toLocalDate() + ".");
+            DBConnection.getInstance().closeConnection();
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: OrderArchiveTool [days] [batch size] [pause in ms]");
+            System.exit(2);
+        } catch (DataAccessException e) {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(-1);
+        }
+    }
+}
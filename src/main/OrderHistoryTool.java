@@ -0,0 +1,68 @@
+package main;
+
+import database.DBConnection;
+import database.DataAccessException;
+import database.PartitionDAO;
+import database.PartitionDB;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * Looks after the monthly partitions of the order history.
+ * "months" lists the months with their number of orders, "extend [n]" adds the months up to n months ahead,
+ * by default 3, and "remove yyyy-MM" moves a closed month to the archive tables and drops its partition.
+ * Extending is meant to run every month, before orders of a month without a partition come in.
+ */
+public class OrderHistoryTool {
+    public static void main(String[] args) {
+        try {
+            if (args.length == 0) {
+                throw new IllegalArgumentException();
+            }
+            PartitionDAO partitionDAO = new PartitionDB();
+            switch (args[0]) {
+                case "months":
+                    for (Map.Entry<LocalDate, Long> month : partitionDAO.getMonths().entrySet()) {
+                        System.out.println(YearMonth.from(month.getKey()) + "  " + month.getValue() + " orders");
+                    }
+                    break;
+                case "extend":
+                    int ahead = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+                    if (ahead < 0) {
+                        throw new IllegalArgumentException();
+                    }
+                    Map<LocalDate, Long> months = partitionDAO.getMonths();
+                    LocalDate last = LocalDate.now().withDayOfMonth(1).plusMonths(ahead);
+                    LocalDate month = months.keySet().stream().reduce((a, b) -> b)
+                            .map(newest -> newest.plusMonths(1)).orElse(LocalDate.now().withDayOfMonth(1));
+                    int added = 0;
+                    for (; !month.isAfter(last); month = month.plusMonths(1)) {
+                        partitionDAO.addMonth(month);
+                        added++;
+                    }
+                    System.out.println("Added " + added + " months, the partitions reach " + YearMonth.from(last) + ".");
+                    break;
+                case "remove":
+                    if (args.length < 2) {
+                        throw new IllegalArgumentException();
+                    }
+                    YearMonth removed = YearMonth.parse(args[1]);
+                    int moved = partitionDAO.removeMonth(removed.atDay(1));
+                    System.out.println("Archived " + moved + " orders and warehouse orders of " + removed + ".");
+                    break;
+                default:
+                    throw new IllegalArgumentException();
+            }
+            DBConnection.getInstance().closeConnection();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println("Usage: OrderHistoryTool months | extend [months ahead] | remove yyyy-MM");
+            System.exit(2);
+        } catch (DataAccessException e) {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package main;
+
+import controller.ControlException;
+import controller.EventBus;
+import controller.StockLedger;
+import database.DataAccessException;
+import server.OrderServer;
+
+import java.io.IOException;
+
+/**
+ * Runs the order server without a window.
+ * The arguments are the port, the number of DB connections and the number of worker threads, by default 8080, 8 and 32.
+ */
+public class OrderServerTool {
+    public static void main(String[] args) {
+        try {
+            int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+            int connections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+            OrderServer server = new OrderServer(port, connections, threads);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                EventBus.getInstance().stop();
+            }));
+            server.start();
+            EventBus.getInstance().start();
+            // Only one server gets past the lock of the event bus, so the ledger snapshots are taken once
+            StockLedger.getInstance().scheduleSnapshots();
+            System.out.println("Order server listening on port " + server.getPort() + " with " + connections + " connections.");
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: OrderServerTool [port] [connections] [threads]");
+            System.exit(2);
+        } catch (IOException | DataAccessException | ControlException e) {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package main;
+
+import database.*;
+
+import java.util.List;
+
+/**
+ * Checks the totals stored on the Order and WarehouseOrder rows against their items.
+ * Run it with "verify" to only list the orders with wrong totals, or with "rebuild" to fix them.
+ */
+public class OrderTotalsTool {
+    public static void main(String[] args) {
+        boolean rebuild = args.length > 0 && args[0].equalsIgnoreCase("rebuild");
+        if (args.length > 0 && !rebuild && !args[0].equalsIgnoreCase("verify")) {
+            System.err.println("Usage: OrderTotalsTool [verify|rebuild]");
+            System.exit(2);
+        }
+        try {
+            OrderDAO orderDAO = new OrderDB();
+            WarehouseOrderDAO warehouseOrderDAO = new WarehouseOrderDB();
+
+            List<Integer> orders = orderDAO.verifyTotals();
+            List<Integer> warehouseOrders = warehouseOrderDAO.verifyTotals();
+            System.out.println("Orders with wrong totals: " + orders);
+            System.out.println("Warehouse orders with wrong totals: " + warehouseOrders);
+
+            if (rebuild) {
+                System.out.println("Fixed " + orderDAO.rebuildTotals() + " orders and "
+                        + warehouseOrderDAO.rebuildTotals() + " warehouse orders.");
+            } else if (!orders.isEmpty() || !warehouseOrders.isEmpty()) {
+                System.exit(1);
+            }
+            DBConnection.getInstance().closeConnection();
+        } catch (DataAccessException e) {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        }
+    }
+}
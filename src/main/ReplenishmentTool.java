@@ -0,0 +1,41 @@
+package main;
+
+import controller.ControlException;
+import controller.ReplenishmentController;
+import database.DBConnection;
+import database.DataAccessException;
+import model.ReplenishmentResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the warehouse orders reordering the low Stock of every Warehouse.
+ * Run it without arguments to replenish once, or with a number of minutes to keep replenishing at that interval.
+ */
+public class ReplenishmentTool {
+    public static void main(String[] args) {
+        try {
+            if (args.length == 0) {
+                ReplenishmentResult result = ReplenishmentController.getInstance().run();
+                System.out.println(result);
+                DBConnection.getInstance().closeConnection();
+                return;
+            }
+            long minutes = Long.parseLong(args[0]);
+            ReplenishmentController controller = ReplenishmentController.getInstance();
+            controller.start(minutes, TimeUnit.MINUTES);
+            while (true) {
+                TimeUnit.MINUTES.sleep(minutes);
+                System.out.println(controller.getLastError() != null ? controller.getLastError().getMessage() : controller.getLastResult());
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: ReplenishmentTool [interval in minutes]");
+            System.exit(2);
+        } catch (ControlException | DataAccessException e) {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
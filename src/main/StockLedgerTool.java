@@ -0,0 +1,47 @@
+package main;
+
+import controller.ControlException;
+import controller.StockLedger;
+import database.DBConnection;
+import database.DataAccessException;
+import model.StockDiscrepancy;
+
+import java.util.List;
+
+/**
+ * Checks the Stock table against the stock ledger.
+ * Run it with "verify" to only list the Stock which doesn't match, "rebuild" to fix it from the ledger,
+ * or "snapshot" to fold the latest movements into the snapshot.
+ */
+public class StockLedgerTool {
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0].toLowerCase() : "verify";
+        try {
+            StockLedger ledger = StockLedger.getInstance();
+            switch (command) {
+                case "verify":
+                    List<StockDiscrepancy> discrepancies = ledger.verify();
+                    discrepancies.forEach(System.out::println);
+                    System.out.println(discrepancies.size() + " stock rows don't match the ledger.");
+                    if (!discrepancies.isEmpty()) {
+                        System.exit(1);
+                    }
+                    break;
+                case "rebuild":
+                    System.out.println("Fixed " + ledger.rebuild() + " stock rows.");
+                    break;
+                case "snapshot":
+                    ledger.takeSnapshot();
+                    System.out.println("Snapshot taken.");
+                    break;
+                default:
+                    System.err.println("Usage: StockLedgerTool [verify|rebuild|snapshot]");
+                    System.exit(2);
+            }
+            DBConnection.getInstance().closeConnection();
+        } catch (ControlException | DataAccessException e) {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package model;
+
+import java.util.List;
+
+/**
+ * The products, warehouses and providers changed or deleted since a change version of the catalog.
+ * Changes since version 0 are the whole catalog, which is also how the local copy of the catalog is stored.
+ */
+public class CatalogChanges {
+    private final long version;
+    private final List<Product> products;
+    private final List<Warehouse> warehouses;
+    private final List<Provider> providers;
+    private final List<Integer> deletedProducts;
+    private final List<Integer> deletedWarehouses;
+    private final List<Integer> deletedProviders;
+
+    /**
+     * @param version the change version the catalog is up to date with after applying these changes
+     */
+    public CatalogChanges(long version, List<Product> products, List<Warehouse> warehouses, List<Provider> providers,
+                          List<Integer> deletedProducts, List<Integer> deletedWarehouses, List<Integer> deletedProviders) {
+        this.version = version;
+        this.products = products;
+        this.warehouses = warehouses;
+        this.providers = providers;
+        this.deletedProducts = deletedProducts;
+        this.deletedWarehouses = deletedWarehouses;
+        this.deletedProviders = deletedProviders;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public List<Warehouse> getWarehouses() {
+        return warehouses;
+    }
+
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    public List<Integer> getDeletedProducts() {
+        return deletedProducts;
+    }
+
+    public List<Integer> getDeletedWarehouses() {
+        return deletedWarehouses;
+    }
+
+    public List<Integer> getDeletedProviders() {
+        return deletedProviders;
+    }
+
+    public boolean isEmpty() {
+        return products.isEmpty() && warehouses.isEmpty() && providers.isEmpty()
+                && deletedProducts.isEmpty() && deletedWarehouses.isEmpty() && deletedProviders.isEmpty();
+    }
+}
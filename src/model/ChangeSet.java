@@ -0,0 +1,50 @@
+package model;
+
+import java.util.List;
+
+/**
+ * The IDs of the rows of a Store or Warehouse changed since a version: its orders, warehouse orders,
+ * stocks (by product ID) and stock reports
+ */
+public class ChangeSet {
+    private final long version;
+    private final List<Integer> orders;
+    private final List<Integer> warehouseOrders;
+    private final List<Integer> stocks;
+    private final List<Integer> reports;
+
+    /**
+     * @param version the version to ask for the next changes from
+     */
+    public ChangeSet(long version, List<Integer> orders, List<Integer> warehouseOrders, List<Integer> stocks, List<Integer> reports) {
+        this.version = version;
+        this.orders = orders;
+        this.warehouseOrders = warehouseOrders;
+        this.stocks = stocks;
+        this.reports = reports;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Integer> getOrders() {
+        return orders;
+    }
+
+    public List<Integer> getWarehouseOrders() {
+        return warehouseOrders;
+    }
+
+    public List<Integer> getStocks() {
+        return stocks;
+    }
+
+    public List<Integer> getReports() {
+        return reports;
+    }
+
+    public boolean isEmpty() {
+        return orders.isEmpty() && warehouseOrders.isEmpty() && stocks.isEmpty() && reports.isEmpty();
+    }
+}
@@ -0,0 +1,81 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * How fast a Store uses up a Product, worked out from its consecutive StoreStockReports.
+ * The consumption of the period between two reports is the earlier quantity, plus what was delivered in between,
+ * minus the later quantity.
+ */
+public class Consumption {
+    private final int storeId;
+    private final int productId;
+    // Quantity in the last report, and when it was filed (null before the first report)
+    private final int lastQuantity;
+    private final LocalDateTime lastReport;
+    // Quantity delivered to the store since the last report
+    private final int deliveredSince;
+    // Consumption and length in days of every period between reports added up
+    private final long consumed;
+    private final double observedDays;
+    // Consumption per day, weighted towards the recent periods
+    private final double velocity;
+
+    public Consumption(int storeId, int productId, int lastQuantity, LocalDateTime lastReport, int deliveredSince,
+                       long consumed, double observedDays, double velocity) {
+        this.storeId = storeId;
+        this.productId = productId;
+        this.lastQuantity = lastQuantity;
+        this.lastReport = lastReport;
+        this.deliveredSince = deliveredSince;
+        this.consumed = consumed;
+        this.observedDays = observedDays;
+        this.velocity = velocity;
+    }
+
+    public int getStoreId() {
+        return storeId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getLastQuantity() {
+        return lastQuantity;
+    }
+
+    public LocalDateTime getLastReport() {
+        return lastReport;
+    }
+
+    public int getDeliveredSince() {
+        return deliveredSince;
+    }
+
+    public long getConsumed() {
+        return consumed;
+    }
+
+    public double getObservedDays() {
+        return observedDays;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * @return the average consumption per day over every report, 0 before the second report
+     */
+    public double getAverageDailyConsumption() {
+        return observedDays > 0 ? consumed / observedDays : 0;
+    }
+
+    /**
+     * @return the number of days the stock of the store lasts at the current velocity, -1 if it isn't used up
+     */
+    public double getDaysOfCover() {
+        return velocity > 0 ? (lastQuantity + deliveredSince) / velocity : -1;
+    }
+}
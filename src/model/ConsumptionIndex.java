@@ -0,0 +1,229 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the consumption figures of every (Store, Product) pair in primitive arrays.
+ * A pair is found through an open addressing table keyed by the two IDs packed in one long, so updating a pair
+ * neither boxes nor allocates, and thousands of stores times products fit in a few arrays.
+ * Not thread safe, the owner has to synchronize.
+ */
+public class ConsumptionIndex {
+    // Weight of the newest period in the velocity
+    private static final double SMOOTHING = 0.3;
+    private static final double SECONDS_PER_DAY = 86_400d;
+    private static final long NO_REPORT = Long.MIN_VALUE;
+    private static final int EMPTY = -1;
+
+    // Key -> slot, EMPTY where unused. The length is always a power of two
+    private int[] table;
+    // Slot -> figures
+    private long[] keys;
+    private int[] lastQuantity;
+    private long[] lastReport;
+    private int[] deliveredSince;
+    private long[] consumed;
+    private double[] observedDays;
+    private double[] velocity;
+    private int size;
+
+    public ConsumptionIndex() {
+        this(64);
+    }
+
+    public ConsumptionIndex(int capacity) {
+        int slots = Math.max(16, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        table = new int[slots * 2];
+        Arrays.fill(table, EMPTY);
+        keys = new long[slots];
+        lastQuantity = new int[slots];
+        lastReport = new long[slots];
+        deliveredSince = new int[slots];
+        consumed = new long[slots];
+        observedDays = new double[slots];
+        velocity = new double[slots];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Records the quantity a store reported, closing the period since its previous report
+     *
+     * @param storeId   the ID of the Store
+     * @param productId the ID of the Product
+     * @param date      when the report was filed
+     * @param quantity  the quantity the store has
+     */
+    public void report(int storeId, int productId, LocalDateTime date, int quantity) {
+        int slot = slot(storeId, productId);
+        long seconds = date.toEpochSecond(ZoneOffset.UTC);
+        if (lastReport[slot] != NO_REPORT && seconds > lastReport[slot]) {
+            double days = (seconds - lastReport[slot]) / SECONDS_PER_DAY;
+            // Stock can grow without a recorded delivery, that period is counted as no consumption
+            long used = Math.max(0, (long) lastQuantity[slot] + deliveredSince[slot] - quantity);
+            double rate = used / days;
+            velocity[slot] = observedDays[slot] > 0 ? SMOOTHING * rate + (1 - SMOOTHING) * velocity[slot] : rate;
+            consumed[slot] += used;
+            observedDays[slot] += days;
+        }
+        lastQuantity[slot] = quantity;
+        lastReport[slot] = seconds;
+        deliveredSince[slot] = 0;
+    }
+
+    /**
+     * Records a quantity delivered to a store, it's counted in the period of its next report
+     */
+    public void deliver(int storeId, int productId, int quantity) {
+        int slot = slot(storeId, productId);
+        // Deliveries before the first report don't belong to any period
+        if (lastReport[slot] != NO_REPORT) {
+            deliveredSince[slot] += quantity;
+        }
+    }
+
+    /**
+     * Puts back the figures of a pair read from a snapshot, replacing the current ones
+     */
+    public void restore(Consumption consumption) {
+        int slot = slot(consumption.getStoreId(), consumption.getProductId());
+        lastQuantity[slot] = consumption.getLastQuantity();
+        lastReport[slot] = consumption.getLastReport() == null
+                ? NO_REPORT : consumption.getLastReport().toEpochSecond(ZoneOffset.UTC);
+        deliveredSince[slot] = consumption.getDeliveredSince();
+        consumed[slot] = consumption.getConsumed();
+        observedDays[slot] = consumption.getObservedDays();
+        velocity[slot] = consumption.getVelocity();
+    }
+
+    /**
+     * @return the figures of the pair, null if nothing was recorded for it
+     */
+    public Consumption get(int storeId, int productId) {
+        int slot = find(key(storeId, productId));
+        return slot == EMPTY ? null : toConsumption(slot);
+    }
+
+    /**
+     * @return the figures of every Product of a Store
+     */
+    public List<Consumption> getByStore(int storeId) {
+        List<Consumption> result = new ArrayList<>();
+        for (int slot = 0; slot < size; slot++) {
+            if ((int) (keys[slot] >>> 32) == storeId) {
+                result.add(toConsumption(slot));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the figures of a Store, for example before its history is replayed again
+     */
+    public void removeStore(int storeId) {
+        int kept = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if ((int) (keys[slot] >>> 32) != storeId) {
+                copy(slot, kept++);
+            }
+        }
+        size = kept;
+        rehash(table.length);
+    }
+
+    private Consumption toConsumption(int slot) {
+        long key = keys[slot];
+        LocalDateTime date = lastReport[slot] == NO_REPORT
+                ? null : LocalDateTime.ofEpochSecond(lastReport[slot], 0, ZoneOffset.UTC);
+        return new Consumption((int) (key >>> 32), (int) key, lastQuantity[slot], date, deliveredSince[slot],
+                consumed[slot], observedDays[slot], velocity[slot]);
+    }
+
+    private static long key(int storeId, int productId) {
+        return ((long) storeId << 32) | (productId & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(long key) {
+        int mask = table.length - 1;
+        for (int i = hash(key) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[table[i]] == key) {
+                return table[i];
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * @return the slot of the pair, a new empty one if it wasn't recorded yet
+     */
+    private int slot(int storeId, int productId) {
+        long key = key(storeId, productId);
+        int slot = find(key);
+        if (slot != EMPTY) {
+            return slot;
+        }
+        if (size == keys.length) {
+            grow();
+        }
+        slot = size++;
+        keys[slot] = key;
+        lastQuantity[slot] = 0;
+        lastReport[slot] = NO_REPORT;
+        deliveredSince[slot] = 0;
+        consumed[slot] = 0;
+        observedDays[slot] = 0;
+        velocity[slot] = 0;
+        insert(key, slot);
+        return slot;
+    }
+
+    private void insert(long key, int slot) {
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (table[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot;
+    }
+
+    private void copy(int from, int to) {
+        keys[to] = keys[from];
+        lastQuantity[to] = lastQuantity[from];
+        lastReport[to] = lastReport[from];
+        deliveredSince[to] = deliveredSince[from];
+        consumed[to] = consumed[from];
+        observedDays[to] = observedDays[from];
+        velocity[to] = velocity[from];
+    }
+
+    private void grow() {
+        int slots = keys.length * 2;
+        keys = Arrays.copyOf(keys, slots);
+        lastQuantity = Arrays.copyOf(lastQuantity, slots);
+        lastReport = Arrays.copyOf(lastReport, slots);
+        deliveredSince = Arrays.copyOf(deliveredSince, slots);
+        consumed = Arrays.copyOf(consumed, slots);
+        observedDays = Arrays.copyOf(observedDays, slots);
+        velocity = Arrays.copyOf(velocity, slots);
+        rehash(slots * 2);
+    }
+
+    private void rehash(int tableLength) {
+        table = new int[tableLength];
+        Arrays.fill(table, EMPTY);
+        for (int slot = 0; slot < size; slot++) {
+            insert(keys[slot], slot);
+        }
+    }
+}
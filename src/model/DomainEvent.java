@@ -0,0 +1,117 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Something which happened to the orders, stocks or reports, written to the outbox in the same transaction as the
+ * change itself. Events are delivered at least once: a subscriber may get an event again after a failure,
+ * {@link #isRedelivery()} tells when that can be the case.
+ */
+public class DomainEvent {
+    // 0 until the event is read from the outbox
+    private final long id;
+    private final EventType type;
+    private final int subjectId;
+    // The IDs of the Store, Warehouse and Product the event is about, 0 when it's about none
+    private final int storeId;
+    private final int warehouseId;
+    private final int productId;
+    private final int quantity;
+    // Null when the event isn't about a status
+    private final Status status;
+    private final LocalDateTime date;
+    private final int attempts;
+
+    public DomainEvent(long id, EventType type, int subjectId, int storeId, int warehouseId, int productId,
+                       int quantity, Status status, LocalDateTime date, int attempts) {
+        this.id = id;
+        this.type = type;
+        this.subjectId = subjectId;
+        this.storeId = storeId;
+        this.warehouseId = warehouseId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.status = status;
+        this.date = date;
+        this.attempts = attempts;
+    }
+
+    public static DomainEvent orderCreated(int orderId, int storeId, int warehouseId, Status status) {
+        return new DomainEvent(0, EventType.ORDER_CREATED, orderId, storeId, warehouseId, 0, 0, status, LocalDateTime.now(), 0);
+    }
+
+    public static DomainEvent orderStatusChanged(int orderId, int storeId, int warehouseId, Status status) {
+        return new DomainEvent(0, EventType.ORDER_STATUS_CHANGED, orderId, storeId, warehouseId, 0, 0, status, LocalDateTime.now(), 0);
+    }
+
+    public static DomainEvent warehouseOrderCreated(int orderId, int warehouseId, Status status) {
+        return new DomainEvent(0, EventType.WAREHOUSE_ORDER_CREATED, orderId, 0, warehouseId, 0, 0, status, LocalDateTime.now(), 0);
+    }
+
+    public static DomainEvent warehouseOrderStatusChanged(int orderId, int warehouseId, Status status) {
+        return new DomainEvent(0, EventType.WAREHOUSE_ORDER_STATUS_CHANGED, orderId, 0, warehouseId, 0, 0, status, LocalDateTime.now(), 0);
+    }
+
+    public static DomainEvent stockAdjusted(int warehouseId, int productId, int quantity) {
+        return new DomainEvent(0, EventType.STOCK_ADJUSTED, productId, 0, warehouseId, productId, quantity, null, LocalDateTime.now(), 0);
+    }
+
+    public static DomainEvent reportFiled(int reportId, int storeId) {
+        return new DomainEvent(0, EventType.REPORT_FILED, reportId, storeId, 0, 0, 0, null, LocalDateTime.now(), 0);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public int getSubjectId() {
+        return subjectId;
+    }
+
+    public int getStoreId() {
+        return storeId;
+    }
+
+    public int getWarehouseId() {
+        return warehouseId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    /**
+     * @return how often the event was handed out by the outbox, including this time
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return true when a subscriber may have handled the event before
+     */
+    public boolean isRedelivery() {
+        return attempts > 1;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + subjectId;
+    }
+}
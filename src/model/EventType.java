@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * What a DomainEvent tells happened, stored with every event of the outbox
+ */
+public enum EventType {
+    // The subject is the new Order
+    ORDER_CREATED,
+    // The subject is the Order, the status is its new status. Also written when the items of a PENDING order change
+    ORDER_STATUS_CHANGED,
+    // The subject is the new WarehouseOrder
+    WAREHOUSE_ORDER_CREATED,
+    // The subject is the WarehouseOrder, the status is its new status. Also written when items were added to it
+    WAREHOUSE_ORDER_STATUS_CHANGED,
+    // The subject is the Product, the quantity is the change of the quantity, 0 when only the minimum changed
+    STOCK_ADJUSTED,
+    // The subject is the new StoreStockReport
+    REPORT_FILED
+}
@@ -0,0 +1,128 @@
+package model;
+
+import java.util.*;
+
+/**
+ * Holds the items of an Order, WarehouseOrder or StoreStockReport keyed by the ID of their Product.
+ * Items keep the order they were added in, and adding, changing or removing a line doesn't need to walk the others.
+ * The total price and weight are kept up to date on every change, so they are never recalculated from every line.
+ * Quantities must be changed through {@link #setQuantity(int, int)}, otherwise the totals get out of date.
+ *
+ * @param <T> the type of the items
+ */
+public class ItemIndex<T extends LineItem> implements Iterable<T> {
+    private final Map<Integer, T> items = new LinkedHashMap<>();
+    // In cents, sums of longs stay exact however often lines change
+    private long totalPrice;
+    private double totalWeight;
+    // Read only copy handed out by asList(), dropped on every change
+    private List<T> view;
+
+    public ItemIndex() {
+        // Empty index
+    }
+
+    public ItemIndex(Collection<T> items) {
+        if (items != null) {
+            for (T item : items) {
+                add(item);
+            }
+        }
+    }
+
+    /**
+     * Adds a new line, or adds the quantity to the existing line of the same Product
+     *
+     * @param item the item to be added
+     * @return true as the collection always changes
+     */
+    public boolean add(T item) {
+        T existing = items.get(item.getProduct().getId());
+        if (existing != null) {
+            return setQuantity(item.getProduct().getId(), existing.getQuantity() + item.getQuantity());
+        }
+        items.put(item.getProduct().getId(), item);
+        count(item, item.getQuantity());
+        view = null;
+        return true;
+    }
+
+    public T get(int productId) {
+        return items.get(productId);
+    }
+
+    public boolean contains(int productId) {
+        return items.containsKey(productId);
+    }
+
+    /**
+     * @param productId the ID of the Product whose line should be removed
+     * @return the removed item or null if there was no line for the Product
+     */
+    public T remove(int productId) {
+        T item = items.remove(productId);
+        if (item != null) {
+            count(item, -item.getQuantity());
+            view = null;
+        }
+        return item;
+    }
+
+    /**
+     * @param productId the ID of the Product whose line should be changed
+     * @param quantity  the new quantity of the line
+     * @return false if there is no line for the Product
+     */
+    public boolean setQuantity(int productId, int quantity) {
+        T item = items.get(productId);
+        if (item == null) {
+            return false;
+        }
+        count(item, quantity - item.getQuantity());
+        item.setQuantity(quantity);
+        return true;
+    }
+
+    public void clear() {
+        items.clear();
+        totalPrice = 0;
+        totalWeight = 0;
+        view = null;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return a read only List of the items in the order they were added
+     */
+    public List<T> asList() {
+        if (view == null) {
+            view = Collections.unmodifiableList(new ArrayList<>(items.values()));
+        }
+        return view;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return asList().iterator();
+    }
+
+    private void count(T item, int quantity) {
+        totalPrice += item.getProduct().getPrice() * quantity;
+        totalWeight += item.getProduct().getWeight() * quantity;
+    }
+}
@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * A line of an Order, WarehouseOrder or StoreStockReport: some quantity of a single Product
+ */
+public interface LineItem {
+
+    Product getProduct();
+
+    int getQuantity();
+
+    void setQuantity(int quantity);
+}
@@ -0,0 +1,45 @@
+package model;
+
+import java.math.BigDecimal;
+
+/**
+ * Prices are kept as whole cents in a long, from the bigint columns of the database to the totals, so adding them up
+ * is exact. This turns them into the euros shown to the users and back.
+ */
+public final class Money {
+
+    private Money() {
+        // Only static methods
+    }
+
+    /**
+     * @param cents an amount of cents
+     * @return the amount in euros with two decimals, like "12.50"
+     */
+    public static String format(long cents) {
+        long euros = Math.abs(cents / 100);
+        int rest = (int) Math.abs(cents % 100);
+        return (cents < 0 ? "-" : "") + euros + (rest < 10 ? ".0" : ".") + rest;
+    }
+
+    /**
+     * @param cents an amount of cents
+     * @return the amount in euros as an exact decimal, for JSON
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * @param euros an amount in euros with at most two decimals, like "12.5"
+     * @return the amount in cents
+     * @throws NumberFormatException when the text isn't a number or has more than two decimals
+     */
+    public static long parse(String euros) {
+        try {
+            return new BigDecimal(euros.trim()).movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException(euros + " is not an amount of euros with at most two decimals");
+        }
+    }
+}
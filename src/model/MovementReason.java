@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Why the quantity of a Stock changed, stored with every StockMovement
+ */
+public enum MovementReason {
+    // The quantity a Stock had when the ledger was introduced
+    OPENING,
+    ORDER_APPROVED,
+    ORDER_REJECTED,
+    ORDER_REVISION,
+    WAREHOUSE_ORDER_DELIVERED,
+    CORRECTION
+}
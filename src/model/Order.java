@@ -13,15 +13,19 @@ public class Order {
     private Warehouse warehouse;
     private LocalDateTime date;
     private Status status;
-    // Items in order
-    private List<OrderItem> items;
+    // Items in order, by product ID
+    private final ItemIndex<OrderItem> items;
     // Revisions for order
     private List<OrderRevision> revisions;
+    // Totals as stored on the order row, null while the order isn't saved
+    private OrderTotals totals;
+    // Version of the row this object was read from, updates fail when the row changed since
+    private long version;
 
     public Order(Store store, Warehouse warehouse) {
         this.store = store;
         this.warehouse = warehouse;
-        items = new LinkedList<>();
+        items = new ItemIndex<>();
         revisions = new LinkedList<>();
     }
 
@@ -32,7 +36,7 @@ public class Order {
         this.revisions = revisions;
         this.warehouse = warehouse;
         this.store = store;
-        items = new LinkedList<>();
+        items = new ItemIndex<>();
     }
 
     public Order(int id, LocalDateTime date, Status status, Warehouse warehouse, Store store, List<OrderItem> items, List<OrderRevision> revisions) {
@@ -42,7 +46,7 @@ public class Order {
         this.status = status;
         this.warehouse = warehouse;
         this.store = store;
-        this.items = items;
+        this.items = new ItemIndex<>(items);
         this.revisions = revisions;
     }
 
@@ -55,7 +59,7 @@ public class Order {
         this.date = date;
 
         // Inicialize lists
-        this.items = new LinkedList<>();
+        this.items = new ItemIndex<>();
         this.revisions = new LinkedList<>();
     }
 
@@ -99,36 +103,52 @@ public class Order {
         this.store = store;
     }
 
+    /**
+     * @return a read only List of the items, use the methods of Order to change them
+     */
     public List<OrderItem> getItems() {
-        return items;
+        return items.asList();
     }
 
     public void setItems(List<OrderItem> orderItems) {
-        this.items = orderItems;
+        items.clear();
+        for (OrderItem orderItem : orderItems) {
+            items.add(orderItem);
+        }
+    }
+
+    public OrderItem getItem(Product product) {
+        return items.get(product.getId());
     }
 
+    /**
+     * Adds an item to the order, if there is already an item with the same product the quantities are added together
+     */
     public boolean addOrderItem(OrderItem orderItem) {
         return items.add(orderItem);
     }
 
     public boolean removeOrderItem(OrderItem orderItem) {
-        for (OrderItem item : items) {
-            if (item.getProduct().getId() == orderItem.getProduct().getId()) {
-                items.remove(item);
-                return true;
-            }
-        }
-        return items.remove(orderItem);
+        return items.remove(orderItem.getProduct().getId()) != null;
     }
 
     public boolean setItemQuantity(Product product, int quantity) {
-        for (OrderItem orderItem : items) {
-            if (product.getId() == orderItem.getProduct().getId()) {
-                orderItem.setQuantity(quantity);
-                return true;
-            }
+        return items.setQuantity(product.getId(), quantity);
+    }
+
+    /**
+     * Gives the totals stored in the DB, which are there even when the items weren't loaded.
+     * For an order which isn't saved yet, the totals are taken from its items.
+     */
+    public OrderTotals getTotals() {
+        if (totals == null) {
+            return new OrderTotals(items.getTotalPrice(), items.getTotalWeight(), items.size());
         }
-        return false;
+        return totals;
+    }
+
+    public void setTotals(OrderTotals totals) {
+        this.totals = totals;
     }
 
     public List<OrderRevision> getRevisions() {
@@ -144,33 +164,23 @@ public class Order {
     }
 
     public boolean setQuantity(OrderItem orderItem, int quantity) {
-        for (OrderItem item : items) {
-            if (item.getProduct().getId() == orderItem.getProduct().getId()) {
-                item.setQuantity(quantity);
-                return true;
-            }
-        }
-        return false;
+        return items.setQuantity(orderItem.getProduct().getId(), quantity);
     }
 
-    public double calculateTotalPrice() {
-        double price = 0;
-
-        for (OrderItem orderItem : items) {
-            price += orderItem.getProduct().getPrice() * orderItem.getQuantity();
-        }
-
-        return price;
+    public long calculateTotalPrice() {
+        return items.getTotalPrice();
     }
 
     public double calculateTotalWeight() {
-        double weight = 0;
+        return items.getTotalWeight();
+    }
 
-        for (OrderItem orderItem : items) {
-            weight += orderItem.getProduct().getWeight() * orderItem.getQuantity();
-        }
+    public long getVersion() {
+        return version;
+    }
 
-        return weight;
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     @Override
@@ -187,7 +197,7 @@ public class Order {
             string.append("\t- ").append(orderItem.toString()).append("\n");
         }
 
-        string.append("\nTotal Price: ").append(calculateTotalPrice()).append(" EUR");
+        string.append("\nTotal Price: ").append(Money.format(calculateTotalPrice())).append(" EUR");
 
         return string.toString();
     }
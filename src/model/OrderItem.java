@@ -1,12 +1,13 @@
 package model;
 
-public class OrderItem {
+public class OrderItem implements LineItem {
 
     private int quantity;
     private Product product;
-    private double unitPrice;
+    // In cents
+    private long unitPrice;
 
-    public OrderItem(Product product, double unitPrice, int quantity) {
+    public OrderItem(Product product, long unitPrice, int quantity) {
         this.product = product;
         this.unitPrice = unitPrice;
         this.quantity = quantity;
@@ -28,11 +29,11 @@ public class OrderItem {
         this.product = product;
     }
 
-    public double getUnitPrice() {
+    public long getUnitPrice() {
         return unitPrice;
     }
 
-    public void setUnitPrice(double unitPrice) {
+    public void setUnitPrice(long unitPrice) {
         this.unitPrice = unitPrice;
     }
 
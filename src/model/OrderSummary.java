@@ -0,0 +1,44 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read only row of an order list. It holds only what the list screens show,
+ * the whole Order is loaded when the row is opened.
+ */
+public final class OrderSummary {
+    private final int id;
+    private final LocalDateTime date;
+    private final Status status;
+    // The Store for a Warehouse and the Warehouse for a Store, as "name (city, street)"
+    private final String counterpart;
+    private final OrderTotals totals;
+
+    public OrderSummary(int id, LocalDateTime date, Status status, String counterpart, OrderTotals totals) {
+        this.id = id;
+        this.date = date;
+        this.status = status;
+        this.counterpart = counterpart;
+        this.totals = totals;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getCounterpart() {
+        return counterpart;
+    }
+
+    public OrderTotals getTotals() {
+        return totals;
+    }
+}
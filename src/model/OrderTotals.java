@@ -0,0 +1,35 @@
+package model;
+
+/**
+ * The total price, total weight and number of lines of an Order or WarehouseOrder.
+ * These are stored on the order row itself, so lists of orders can show them without loading any items.
+ */
+public class OrderTotals {
+    // In cents
+    private final long totalPrice;
+    private final double totalWeight;
+    private final int lineCount;
+
+    public OrderTotals(long totalPrice, double totalWeight, int lineCount) {
+        this.totalPrice = totalPrice;
+        this.totalWeight = totalWeight;
+        this.lineCount = lineCount;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s EUR, %.2f kg, %d lines", Money.format(totalPrice), totalWeight, lineCount);
+    }
+}
@@ -5,16 +5,17 @@ public class Product {
     private int id;
     private String name;
     private double weight;
-    private double price;
+    // In cents
+    private long price;
 
-    public Product(int id, String name, double weight, Double price) {
+    public Product(int id, String name, double weight, long price) {
         this.id = id;
         this.name = name;
         this.weight = weight;
         this.price = price;
     }
 
-    public Product(String name, double weight, double price) {
+    public Product(String name, double weight, long price) {
         this.name = name;
         this.weight = weight;
         this.price = price;
@@ -44,17 +45,17 @@ public class Product {
         this.weight = weight;
     }
 
-    public double getPrice() {
+    public long getPrice() {
         return price;
     }
 
-    public void setPrice(double price) {
+    public void setPrice(long price) {
         this.price = price;
     }
 
     @Override
     public String toString() {
-        return name + " (" + price + " EUR)";
+        return name + " (" + Money.format(price) + " EUR)";
     }
 
 }
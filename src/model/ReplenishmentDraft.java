@@ -0,0 +1,43 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The lines one Warehouse reorders from one Provider, saved as a single WarehouseOrder
+ */
+public class ReplenishmentDraft {
+    private final int warehouseId;
+    private final int providerId;
+    private final List<ReplenishmentLine> lines = new ArrayList<>();
+    // In cents
+    private long totalPrice;
+    private double totalWeight;
+
+    public ReplenishmentDraft(int warehouseId, int providerId) {
+        this.warehouseId = warehouseId;
+        this.providerId = providerId;
+    }
+
+    public void addLine(ReplenishmentLine line) {
+        lines.add(line);
+        totalPrice += line.getQuantity() * line.getUnitPrice();
+        totalWeight += line.getQuantity() * line.getWeight();
+    }
+
+    public int getWarehouseId() {
+        return warehouseId;
+    }
+
+    public int getProviderId() {
+        return providerId;
+    }
+
+    public List<ReplenishmentLine> getLines() {
+        return lines;
+    }
+
+    public OrderTotals getTotals() {
+        return new OrderTotals(totalPrice, totalWeight, lines.size());
+    }
+}
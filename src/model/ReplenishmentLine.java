@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * One Product a Warehouse has to reorder, with the Provider selling it the cheapest.
+ * Only IDs are kept, so a scan of every Warehouse doesn't build a Product object per line.
+ */
+public class ReplenishmentLine {
+    private final int warehouseId;
+    private final int productId;
+    // 0 when no available Provider sells the Product
+    private final int providerId;
+    // In cents
+    private final long unitPrice;
+    private final double weight;
+    private final int quantity;
+
+    public ReplenishmentLine(int warehouseId, int productId, int providerId, long unitPrice, double weight, int quantity) {
+        this.warehouseId = warehouseId;
+        this.productId = productId;
+        this.providerId = providerId;
+        this.unitPrice = unitPrice;
+        this.weight = weight;
+        this.quantity = quantity;
+    }
+
+    public int getWarehouseId() {
+        return warehouseId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getProviderId() {
+        return providerId;
+    }
+
+    public long getUnitPrice() {
+        return unitPrice;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,42 @@
+package model;
+
+import java.util.List;
+
+/**
+ * What one run of the replenishment did
+ */
+public class ReplenishmentResult {
+    private final List<Integer> orderIds;
+    private final int lineCount;
+    // Lines left out because no available Provider sells their Product
+    private final int unsourcedCount;
+    private final long elapsedMillis;
+
+    public ReplenishmentResult(List<Integer> orderIds, int lineCount, int unsourcedCount, long elapsedMillis) {
+        this.orderIds = orderIds;
+        this.lineCount = lineCount;
+        this.unsourcedCount = unsourcedCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Integer> getOrderIds() {
+        return orderIds;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getUnsourcedCount() {
+        return unsourcedCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String toString() {
+        return "Created " + orderIds.size() + " warehouse orders with " + lineCount + " lines in " + elapsedMillis + " ms, "
+                + unsourcedCount + " products have no provider";
+    }
+}
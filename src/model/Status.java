@@ -1,32 +1,91 @@
 package model;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public enum Status {
-    PENDING("Pending"),
-    APPROVED("Approved"),
-    REJECTED("Rejected"),
-    PROCESSING("Processing"),
-    PROCESSED("Processed"),
-    IN_TRANSIT("In transit"),
-    DELIVERED("Delivered");
+    // The codes are stored in the database, a code is never changed or used again
+    PENDING("Pending", 1),
+    APPROVED("Approved", 2),
+    REJECTED("Rejected", 3),
+    PROCESSING("Processing", 4),
+    PROCESSED("Processed", 5),
+    IN_TRANSIT("In transit", 6),
+    DELIVERED("Delivered", 7);
 
     private static final Map<String, Status> lookup = new HashMap<>();
+    // The status of every code, 0 is no status
+    private static final Status[] byCode = new Status[8];
+    // Allowed next statuses for every status, used to validate bulk updates
+    private static final Map<Status, Set<Status>> transitions = new EnumMap<>(Status.class);
 
     static {
         for (Status status : Status.values()) {
             lookup.put(status.value, status);
+            byCode[status.code] = status;
         }
+
+        transitions.put(PENDING, EnumSet.of(APPROVED, REJECTED));
+        transitions.put(APPROVED, EnumSet.of(PROCESSING, IN_TRANSIT, REJECTED));
+        transitions.put(PROCESSING, EnumSet.of(PROCESSED, REJECTED));
+        transitions.put(PROCESSED, EnumSet.of(IN_TRANSIT, REJECTED));
+        transitions.put(IN_TRANSIT, EnumSet.of(DELIVERED));
+        transitions.put(DELIVERED, EnumSet.noneOf(Status.class));
+        transitions.put(REJECTED, EnumSet.noneOf(Status.class));
     }
 
     public final String value;
+    public final int code;
 
-    Status(String value) {
+    Status(String value, int code) {
         this.value = value;
+        this.code = code;
     }
 
     public static Status get(String value) {
         return lookup.get(value);
     }
+
+    /**
+     * @param code the code of a status, 0 for none
+     * @return the status with the code, null for 0
+     * @throws IllegalArgumentException when no status has the code
+     */
+    public static Status of(int code) {
+        if (code < 0 || code >= byCode.length || (code != 0 && byCode[code] == null)) {
+            throw new IllegalArgumentException("Unknown status code " + code);
+        }
+        return byCode[code];
+    }
+
+    /**
+     * Checks if an order in this status can be moved to the given status
+     *
+     * @param target the status we want to move to
+     * @return true if the transition is allowed
+     */
+    public boolean canTransitionTo(Status target) {
+        return transitions.get(this).contains(target);
+    }
+
+    /**
+     * Tells how the stock of the warehouse changes when an order moves between two statuses.
+     * Stock is taken when an order leaves PENDING and given back when an already accepted order is rejected.
+     *
+     * @param from the current status of the order
+     * @param to   the new status of the order
+     * @return -1 if the stock has to be decreased, 1 if it has to be increased, 0 if it doesn't change
+     */
+    public static int stockEffect(Status from, Status to) {
+        if (from == PENDING && to != PENDING && to != REJECTED) {
+            return -1;
+        }
+        if (from != PENDING && from != REJECTED && to == REJECTED) {
+            return 1;
+        }
+        return 0;
+    }
 }
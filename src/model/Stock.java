@@ -5,6 +5,8 @@ public class Stock {
     private int minQuantity;
     private Product product;
     private Warehouse warehouse;
+    // Version of the row this object was read from, updates fail when the row changed since
+    private long version;
 
     public Stock(int quantity, int minQuantity, Product product, Warehouse warehouse) {
         this.quantity = quantity;
@@ -45,6 +47,14 @@ public class Stock {
         this.warehouse = warehouse;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return warehouse.toString() + " / " + product.toString() + "(" + quantity + " pcs)";
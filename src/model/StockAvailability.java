@@ -0,0 +1,53 @@
+package model;
+
+/**
+ * The figures needed to tell how much of a Product a Warehouse can still promise to Stores
+ */
+public class StockAvailability {
+    private final int productId;
+    // Quantity physically in the warehouse (Stock.quantity)
+    private int onHand;
+    // Quantity in orders which are still pending, these are not taken from the stock yet
+    private int pending;
+    // Quantity in warehouse orders which are not delivered yet
+    private int inbound;
+
+    public StockAvailability(int productId, int onHand, int pending, int inbound) {
+        this.productId = productId;
+        this.onHand = onHand;
+        this.pending = pending;
+        this.inbound = inbound;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getOnHand() {
+        return onHand;
+    }
+
+    public void addOnHand(int amount) {
+        this.onHand += amount;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public void addPending(int amount) {
+        this.pending += amount;
+    }
+
+    public int getInbound() {
+        return inbound;
+    }
+
+    public void addInbound(int amount) {
+        this.inbound += amount;
+    }
+
+    public int getAvailableToPromise() {
+        return onHand - pending + inbound;
+    }
+}
@@ -0,0 +1,38 @@
+package model;
+
+/**
+ * A Stock whose quantity doesn't match the sum of its movements
+ */
+public class StockDiscrepancy {
+    private final int warehouseId;
+    private final int productId;
+    private final int stockQuantity;
+    private final long ledgerQuantity;
+
+    public StockDiscrepancy(int warehouseId, int productId, int stockQuantity, long ledgerQuantity) {
+        this.warehouseId = warehouseId;
+        this.productId = productId;
+        this.stockQuantity = stockQuantity;
+        this.ledgerQuantity = ledgerQuantity;
+    }
+
+    public int getWarehouseId() {
+        return warehouseId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public long getLedgerQuantity() {
+        return ledgerQuantity;
+    }
+
+    public String toString() {
+        return "Warehouse " + warehouseId + ", product " + productId + ": stock " + stockQuantity + ", ledger " + ledgerQuantity;
+    }
+}
@@ -0,0 +1,55 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change of the quantity of a Stock. Movements are only ever added, the quantity of a Stock is the sum of its
+ * movements, so the ledger tells how every Stock got to its current quantity.
+ */
+public class StockMovement {
+    private final int warehouseId;
+    private final int productId;
+    // Positive when stock comes in, negative when it goes out
+    private final int quantity;
+    private final MovementReason reason;
+    // The ID of the Order or WarehouseOrder which caused the movement, 0 if there is none
+    private final int referenceId;
+    private final LocalDateTime date;
+
+    public StockMovement(int warehouseId, int productId, int quantity, MovementReason reason, int referenceId, LocalDateTime date) {
+        this.warehouseId = warehouseId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.reason = reason;
+        this.referenceId = referenceId;
+        this.date = date;
+    }
+
+    public StockMovement(int warehouseId, int productId, int quantity, MovementReason reason, int referenceId) {
+        this(warehouseId, productId, quantity, reason, referenceId, LocalDateTime.now());
+    }
+
+    public int getWarehouseId() {
+        return warehouseId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public MovementReason getReason() {
+        return reason;
+    }
+
+    public int getReferenceId() {
+        return referenceId;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+}
@@ -0,0 +1,85 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A time limited hold on some amount of a Product in a Warehouse, created while a Store is building an Order
+ */
+public class StockReservation {
+    private int id;
+    private Store store;
+    private Warehouse warehouse;
+    private Product product;
+    private int quantity;
+    private LocalDateTime expires;
+
+    public StockReservation(Store store, Warehouse warehouse, Product product, int quantity, LocalDateTime expires) {
+        this.store = store;
+        this.warehouse = warehouse;
+        this.product = product;
+        this.quantity = quantity;
+        this.expires = expires;
+    }
+
+    public StockReservation(int id, Store store, Warehouse warehouse, Product product, int quantity, LocalDateTime expires) {
+        this.id = id;
+        this.store = store;
+        this.warehouse = warehouse;
+        this.product = product;
+        this.quantity = quantity;
+        this.expires = expires;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public Store getStore() {
+        return store;
+    }
+
+    public void setStore(Store store) {
+        this.store = store;
+    }
+
+    public Warehouse getWarehouse() {
+        return warehouse;
+    }
+
+    public void setWarehouse(Warehouse warehouse) {
+        this.warehouse = warehouse;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public LocalDateTime getExpires() {
+        return expires;
+    }
+
+    public void setExpires(LocalDateTime expires) {
+        this.expires = expires;
+    }
+
+    @Override
+    public String toString() {
+        return product.getName() + " (" + quantity + " pcs reserved)";
+    }
+}
@@ -2,7 +2,6 @@ package model;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.LinkedList;
 import java.util.List;
 
 public class StoreStockReport {
@@ -11,28 +10,29 @@ public class StoreStockReport {
     private LocalDateTime date;
     private String note;
     private Store store;
-    private List<StoreStockReportItem> items;
+    // Items by product ID
+    private final ItemIndex<StoreStockReportItem> items;
 
     public StoreStockReport(int id, LocalDateTime date, String note, Store store, List<StoreStockReportItem> items) {
         this.id = id;
         this.date = date;
         this.note = note;
         this.store = store;
-        this.items = items;
+        this.items = new ItemIndex<>(items);
     }
 
     public StoreStockReport(LocalDateTime date, String note, Store store, List<StoreStockReportItem> items) {
         this.date = date;
         this.note = note;
         this.store = store;
-        this.items = items;
+        this.items = new ItemIndex<>(items);
     }
 
     public StoreStockReport(Store store) {
         this.date = null;
         this.note = "";
         this.store = store;
-        this.items = new LinkedList<>();
+        this.items = new ItemIndex<>();
     }
 
     public int getId() {
@@ -63,16 +63,33 @@ public class StoreStockReport {
         this.store = store;
     }
 
+    /**
+     * Adds an item to the report, if there is already an item with the same product the quantities are added together
+     */
     public boolean addItem(StoreStockReportItem item) {
         return items.add(item);
     }
 
+    public StoreStockReportItem getItem(Product product) {
+        return items.get(product.getId());
+    }
+
+    /**
+     * @return a read only List of the items, use the methods of StoreStockReport to change them
+     */
     public List<StoreStockReportItem> getItems() {
-        return items;
+        return items.asList();
     }
 
     public void setItems(List<StoreStockReportItem> items) {
-        this.items = items;
+        this.items.clear();
+        for (StoreStockReportItem item : items) {
+            this.items.add(item);
+        }
+    }
+
+    public boolean setItemQuantity(Product product, int quantity) {
+        return items.setQuantity(product.getId(), quantity);
     }
 
     public String toString() {
@@ -80,23 +97,10 @@ public class StoreStockReport {
     }
 
     public boolean removeReportItem(StoreStockReportItem reportItem) {
-        for (StoreStockReportItem item : items) {
-            if (item.getProduct().getId() == reportItem.getProduct().getId()) {
-                items.remove(item);
-                return true;
-            }
-        }
-        return items.remove(reportItem);
+        return items.remove(reportItem.getProduct().getId()) != null;
     }
 
-    public double calculateTotalPrice() {
-        double price = 0;
-
-        for (StoreStockReportItem reportItem : items) {
-            price += reportItem.getProduct().getPrice() * reportItem.getQuantity();
-        }
-
-        return price;
+    public long calculateTotalPrice() {
+        return items.getTotalPrice();
     }
 }
-
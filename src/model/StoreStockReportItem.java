@@ -1,6 +1,6 @@
 package model;
 
-public class StoreStockReportItem {
+public class StoreStockReportItem implements LineItem {
 
     private int quantity;
     private Product product;
@@ -0,0 +1,18 @@
+package model;
+
+/**
+ * The result of trying to move a single order to a new status, alone or during a bulk update
+ */
+public enum TransitionOutcome {
+    UPDATED("Updated"),
+    MERGED("Updated on top of changes made by someone else"),
+    NOT_FOUND("Order not found"),
+    INVALID_TRANSITION("Status change not allowed"),
+    CONFLICT("Changed by someone else");
+
+    public final String value;
+
+    TransitionOutcome(String value) {
+        this.value = value;
+    }
+}
@@ -13,12 +13,17 @@ public class WarehouseOrder {
     private Status status;
     private Warehouse warehouse;
     private Provider provider;
-    private List<WarehouseOrderItem> items;
+    // Items by product ID
+    private final ItemIndex<WarehouseOrderItem> items;
     private List<WarehouseOrderRevision> revisions;
+    // Totals as stored on the order row, null while the order isn't saved
+    private OrderTotals totals;
+    // Version of the row this object was read from, updates fail when the row changed since
+    private long version;
 
     public WarehouseOrder(Warehouse warehouse) {
         this.warehouse = warehouse;
-        items = new LinkedList<>();
+        items = new ItemIndex<>();
         revisions = new LinkedList<>();
     }
 
@@ -28,7 +33,7 @@ public class WarehouseOrder {
         this.status = status;
         this.warehouse = warehouse;
         this.provider = provider;
-        this.items = items;
+        this.items = new ItemIndex<>(items);
         this.revisions = revisions;
     }
 
@@ -37,7 +42,7 @@ public class WarehouseOrder {
         this.status = status;
         this.warehouse = warehouse;
         this.provider = provider;
-        this.items = items;
+        this.items = new ItemIndex<>(items);
         this.revisions = revisions;
     }
 
@@ -61,12 +66,22 @@ public class WarehouseOrder {
         this.status = status;
     }
 
+    /**
+     * @return a read only List of the items, use the methods of WarehouseOrder to change them
+     */
     public List<WarehouseOrderItem> getItems() {
-        return items;
+        return items.asList();
     }
 
     public void setItems(List<WarehouseOrderItem> items) {
-        this.items = items;
+        this.items.clear();
+        for (WarehouseOrderItem item : items) {
+            this.items.add(item);
+        }
+    }
+
+    public WarehouseOrderItem getItem(Product product) {
+        return items.get(product.getId());
     }
 
     public Warehouse getWarehouse() {
@@ -85,6 +100,21 @@ public class WarehouseOrder {
         this.provider = provider;
     }
 
+    /**
+     * Gives the totals stored in the DB, which are there even when the items weren't loaded.
+     * For an order which isn't saved yet, the totals are taken from its items.
+     */
+    public OrderTotals getTotals() {
+        if (totals == null) {
+            return new OrderTotals(items.getTotalPrice(), items.getTotalWeight(), items.size());
+        }
+        return totals;
+    }
+
+    public void setTotals(OrderTotals totals) {
+        this.totals = totals;
+    }
+
     public List<WarehouseOrderRevision> getRevisions() {
         return revisions;
     }
@@ -97,28 +127,35 @@ public class WarehouseOrder {
         return revisions.add(revision);
     }
 
+    /**
+     * Adds an item to the warehouse order, if there is already an item with the same product the quantities are added together
+     */
     public boolean addWarehouseOrderItem(WarehouseOrderItem warehouseOrderItem) {
         return items.add(warehouseOrderItem);
     }
 
     public boolean removeWarehouseOrderItem(WarehouseOrderItem warehouseOrderItem) {
-        for (WarehouseOrderItem item : items) {
-            if (item.getProduct().getId() == warehouseOrderItem.getProduct().getId()) {
-                items.remove(item);
-                return true;
-            }
-        }
-        return items.remove(warehouseOrderItem);
+        return items.remove(warehouseOrderItem.getProduct().getId()) != null;
     }
 
-    public double calculateTotalPrice() {
-        double price = 0;
+    public boolean setItemQuantity(Product product, int quantity) {
+        return items.setQuantity(product.getId(), quantity);
+    }
 
-        for (WarehouseOrderItem warehouseOrderItem : items) {
-            price += warehouseOrderItem.getProduct().getPrice() * warehouseOrderItem.getQuantity();
-        }
+    public long calculateTotalPrice() {
+        return items.getTotalPrice();
+    }
+
+    public double calculateTotalWeight() {
+        return items.getTotalWeight();
+    }
+
+    public long getVersion() {
+        return version;
+    }
 
-        return price;
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     @Override
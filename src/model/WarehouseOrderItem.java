@@ -1,12 +1,13 @@
 package model;
 
-public class WarehouseOrderItem {
+public class WarehouseOrderItem implements LineItem {
 
     private int quantity;
-    private double unitPrice;
+    // In cents
+    private long unitPrice;
     private Product product;
 
-    public WarehouseOrderItem(int quantity, double unitPrice, Product product) {
+    public WarehouseOrderItem(int quantity, long unitPrice, Product product) {
         this.quantity = quantity;
         this.unitPrice = unitPrice;
         this.product = product;
@@ -20,11 +21,11 @@ public class WarehouseOrderItem {
         this.quantity = quantity;
     }
 
-    public double getUnitPrice() {
+    public long getUnitPrice() {
         return unitPrice;
     }
 
-    public void setUnitPrice(double unitPrice) {
+    public void setUnitPrice(long unitPrice) {
         this.unitPrice = unitPrice;
     }
 
@@ -0,0 +1,44 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read only row of a warehouse order list. It holds only what the list screen shows,
+ * the whole WarehouseOrder is loaded when the row is opened.
+ */
+public final class WarehouseOrderSummary {
+    private final int id;
+    private final LocalDateTime date;
+    private final Status status;
+    // The Provider as "name (city, street)"
+    private final String provider;
+    private final OrderTotals totals;
+
+    public WarehouseOrderSummary(int id, LocalDateTime date, Status status, String provider, OrderTotals totals) {
+        this.id = id;
+        this.date = date;
+        this.status = status;
+        this.provider = provider;
+        this.totals = totals;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public OrderTotals getTotals() {
+        return totals;
+    }
+}
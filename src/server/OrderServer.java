@@ -0,0 +1,532 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import controller.*;
+import database.ConnectionPool;
+import database.DAOEndpoint;
+import database.DBConnection;
+import database.DataAccessException;
+import model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the order, stock, product and report operations of the controllers as a small HTTP/JSON API,
+ * so many clients share a few DB connections and the caches of the controllers instead of each opening its own.
+ * Every request is run by one of a fixed number of worker threads and borrows a connection of the pool for its
+ * whole duration. Clients log in with HTTP Basic authentication, using the credentials of their Store or Warehouse.
+ *
+ * <pre>
+ * GET  /health                   open and busy connections, and the sessions SQL Server has open for this process
+ * GET  /products                 every product
+ * GET  /stock                    the stock of the warehouse
+ * GET  /orders?archive=true      the order list of the store or warehouse, with the archived orders when asked
+ * GET  /orders?from=&amp;to=         the orders made from the first up to the second date-time, e.g. 2024-01-01T00:00
+ * GET  /orders/{id}              one order with its items
+ * POST /orders/status            {"orderIds": [1, 2], "status": "APPROVED", "note": "..."} for a warehouse
+ * GET  /warehouse-orders         the warehouse order list of the warehouse
+ * GET  /warehouse-orders/{id}    one warehouse order with its items
+ * GET  /reports?limit=&amp;afterId=&amp;afterDate=   a page of the stock reports of the store
+ * POST /dao                      a batch of encoded DAO calls of the desktop application, see DAOEndpoint
+ * </pre>
+ *
+ * @author dmai0919-group3@UCNDK.onmicrosoft.com
+ */
+public class OrderServer {
+    // Logging in costs two queries, clients send their credentials with every request
+    private static final SingleFlight<String, User> users = new SingleFlight<>("Server users", Duration.ofMinutes(1));
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final HttpServer server;
+    private final ConnectionPool pool;
+    private final DAOEndpoint endpoint;
+    private final ExecutorService workers;
+    private final List<Route> routes = new ArrayList<>();
+
+    /**
+     * A handler of one route, the returned value is sent back as JSON
+     */
+    private interface Handler {
+        Object handle(Request request) throws ControlException, DataAccessException;
+    }
+
+    private static final class Route {
+        private final String method;
+        private final String[] segments;
+        private final boolean open;
+        private final Handler handler;
+
+        private Route(String method, String path, boolean open, Handler handler) {
+            this.method = method;
+            this.segments = path.substring(1).split("/");
+            this.open = open;
+            this.handler = handler;
+        }
+
+        /**
+         * @return the numbers in place of the {id} segments, null when the path doesn't match
+         */
+        private List<Integer> match(String method, String[] path) {
+            if (!this.method.equals(method) || path.length != segments.length) {
+                return null;
+            }
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].equals("{id}")) {
+                    try {
+                        ids.add(Integer.parseInt(path[i]));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                } else if (!segments[i].equals(path[i])) {
+                    return null;
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * What a handler gets to know about a request
+     */
+    private static final class Request {
+        private final User user;
+        private final List<Integer> ids;
+        private final Map<String, String> query;
+        private final byte[] body;
+
+        private Request(User user, List<Integer> ids, Map<String, String> query, byte[] body) {
+            this.user = user;
+            this.ids = ids;
+            this.query = query;
+            this.body = body;
+        }
+
+        private int id() {
+            return ids.get(0);
+        }
+
+        private Warehouse warehouse() {
+            if (!(user instanceof Warehouse)) {
+                throw new HttpError(403, "Only a warehouse can do this");
+            }
+            return (Warehouse) user;
+        }
+
+        private Store store() {
+            if (!(user instanceof Store)) {
+                throw new HttpError(403, "Only a store can do this");
+            }
+            return (Store) user;
+        }
+
+        private Map<String, Object> json() {
+            try {
+                return Json.readObject(new String(body, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new HttpError(400, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ends a request with the given HTTP status
+     */
+    private static final class HttpError extends RuntimeException {
+        private final int status;
+
+        private HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * @param port        the TCP port to listen on
+     * @param connections the number of DB connections shared by all requests
+     * @param threads     the number of requests run at the same time
+     * @throws IOException         when the port can't be opened
+     * @throws DataAccessException when the connections can't be opened
+     */
+    public OrderServer(int port, int connections, int threads) throws IOException, DataAccessException {
+        pool = new ConnectionPool(connections);
+        endpoint = DAOEndpoint.jdbc();
+        workers = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(workers);
+        server.createContext("/", this::serve);
+
+        routes.add(new Route("GET", "/health", true, request -> health()));
+        routes.add(new Route("GET", "/products", false, request -> products()));
+        routes.add(new Route("GET", "/stock", false, OrderServer::stock));
+        routes.add(new Route("GET", "/orders", false, OrderServer::orders));
+        routes.add(new Route("GET", "/orders/{id}", false, OrderServer::order));
+        routes.add(new Route("POST", "/orders/status", false, OrderServer::updateOrderStatuses));
+        routes.add(new Route("GET", "/warehouse-orders", false, OrderServer::warehouseOrders));
+        routes.add(new Route("GET", "/warehouse-orders/{id}", false, OrderServer::warehouseOrder));
+        routes.add(new Route("GET", "/reports", false, OrderServer::reports));
+        routes.add(new Route("POST", "/dao", false, this::dao));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits a moment for the running ones and closes the connections
+     */
+    public void stop() {
+        server.stop(1);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        int status = 200;
+        Object result;
+        try {
+            result = dispatch(exchange);
+        } catch (HttpError e) {
+            status = e.status;
+            result = error(e.getMessage());
+        } catch (ControlException e) {
+            status = 400;
+            result = error(e.getMessage());
+        } catch (DataAccessException | RuntimeException e) {
+            status = 500;
+            result = error(e.getMessage());
+        }
+        byte[] response;
+        if (result instanceof byte[]) {
+            response = (byte[]) result;
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        } else {
+            response = Json.write(result).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        }
+        if (status == 401) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"orders\"");
+        }
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private Object dispatch(HttpExchange exchange) throws IOException, ControlException, DataAccessException {
+        String path = exchange.getRequestURI().getPath();
+        String[] segments = path.length() > 1 ? path.substring(1).split("/") : new String[]{""};
+        for (Route route : routes) {
+            List<Integer> ids = route.match(exchange.getRequestMethod(), segments);
+            if (ids == null) {
+                continue;
+            }
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            if (route.open) {
+                return route.handler.handle(new Request(null, ids, Map.of(), body));
+            }
+            pool.borrow();
+            try {
+                User user = authenticate(exchange.getRequestHeaders().getFirst("Authorization"));
+                return route.handler.handle(new Request(user, ids, query(exchange.getRequestURI().getRawQuery()), body));
+            } finally {
+                pool.release();
+            }
+        }
+        throw new HttpError(404, "No such resource");
+    }
+
+    private static User authenticate(String header) throws DataAccessException {
+        if (header == null || !header.startsWith("Basic ")) {
+            throw new HttpError(401, "Log in with the name and password of your store or warehouse");
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(401, "Malformed credentials");
+        }
+        int colon = credentials.indexOf(':');
+        if (colon < 0) {
+            throw new HttpError(401, "Malformed credentials");
+        }
+        User user = users.get(credentials, () -> {
+            try {
+                return LoginController.checkCredentials(credentials.substring(0, colon), credentials.substring(colon + 1));
+            } catch (ControlException e) {
+                return null;
+            }
+        });
+        if (user == null) {
+            throw new HttpError(401, "The entered username or password doesn't match our records.");
+        }
+        return user;
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    // HERE START THE HANDLERS
+
+    private Object health() throws DataAccessException {
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("connections", pool.size());
+        health.put("connectionsInUse", pool.inUse());
+        health.put("sessions", DBConnection.getInstance().countSessions());
+        return health;
+    }
+
+    private static Object products() throws DataAccessException {
+        List<Object> products = new ArrayList<>();
+        for (Product product : new ProductController().all()) {
+            products.add(product(product));
+        }
+        return products;
+    }
+
+    private static Object stock(Request request) throws ControlException {
+        List<Object> stocks = new ArrayList<>();
+        for (Stock stock : StockController.getStocks(request.warehouse())) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("product", product(stock.getProduct()));
+            json.put("quantity", stock.getQuantity());
+            json.put("minQuantity", stock.getMinQuantity());
+            stocks.add(json);
+        }
+        return stocks;
+    }
+
+    private static Object orders(Request request) throws ControlException, DataAccessException {
+        List<Object> orders = new ArrayList<>();
+        boolean archive = Boolean.parseBoolean(request.query.get("archive"));
+        List<OrderSummary> summaries;
+        if (request.query.containsKey("from") || request.query.containsKey("to")) {
+            if (!request.query.containsKey("from") || !request.query.containsKey("to")) {
+                throw new HttpError(400, "A period needs both from and to");
+            }
+            LocalDateTime from;
+            LocalDateTime to;
+            try {
+                from = LocalDateTime.parse(request.query.get("from"));
+                to = LocalDateTime.parse(request.query.get("to"));
+            } catch (DateTimeParseException e) {
+                throw new HttpError(400, "Malformed period");
+            }
+            summaries = new OrderController().getOrderSummaries(request.user, from, to, archive);
+        } else {
+            summaries = new OrderController().getOrderSummaries(request.user, archive);
+        }
+        for (OrderSummary summary : summaries) {
+            Map<String, Object> json = summary(summary.getId(), summary.getDate(), summary.getStatus(), summary.getTotals());
+            json.put("counterpart", summary.getCounterpart());
+            orders.add(json);
+        }
+        return orders;
+    }
+
+    private static Object order(Request request) throws DataAccessException {
+        Order order = new OrderController().getOrder(request.id());
+        boolean own = order != null && (request.user instanceof Store
+                ? order.getStore() != null && order.getStore().getId() == request.user.getId()
+                : order.getWarehouse() != null && order.getWarehouse().getId() == request.user.getId());
+        if (!own) {
+            throw new HttpError(404, "Order not found");
+        }
+        Map<String, Object> json = summary(order.getId(), order.getDate(), order.getStatus(), order.getTotals());
+        json.put("storeId", order.getStore().getId());
+        json.put("warehouseId", order.getWarehouse().getId());
+        List<Object> items = new ArrayList<>();
+        for (OrderItem item : order.getItems()) {
+            items.add(item(item.getProduct(), item.getQuantity(), item.getUnitPrice()));
+        }
+        json.put("items", items);
+        return json;
+    }
+
+    private static Object updateOrderStatuses(Request request) throws ControlException, DataAccessException {
+        Warehouse warehouse = request.warehouse();
+        Map<String, Object> body = request.json();
+        Status status;
+        try {
+            status = Status.valueOf(String.valueOf(body.get("status")));
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Unknown status " + body.get("status"));
+        }
+        if (!(body.get("orderIds") instanceof List)) {
+            throw new HttpError(400, "orderIds must be a list");
+        }
+        OrderController controller = new OrderController();
+        // Orders of other warehouses are reported as not found, like orders which don't exist
+        Set<Integer> own = new HashSet<>();
+        for (OrderSummary summary : controller.getOrderSummaries(warehouse)) {
+            own.add(summary.getId());
+        }
+        List<Integer> orderIds = new ArrayList<>();
+        Map<Integer, TransitionOutcome> outcomes = new LinkedHashMap<>();
+        for (Object id : (List<?>) body.get("orderIds")) {
+            if (!(id instanceof Number)) {
+                throw new HttpError(400, "orderIds must be numbers");
+            }
+            int orderId = ((Number) id).intValue();
+            if (own.contains(orderId)) {
+                orderIds.add(orderId);
+            } else {
+                outcomes.put(orderId, TransitionOutcome.NOT_FOUND);
+            }
+        }
+        Object note = body.get("note");
+        outcomes.putAll(controller.updateOrders(orderIds, status, note == null ? "Bulk update" : note.toString()));
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (Map.Entry<Integer, TransitionOutcome> outcome : outcomes.entrySet()) {
+            json.put(String.valueOf(outcome.getKey()), outcome.getValue());
+        }
+        return json;
+    }
+
+    private static Object warehouseOrders(Request request) throws ControlException, DataAccessException {
+        List<Object> orders = new ArrayList<>();
+        for (WarehouseOrderSummary summary : new WarehouseOrderController().getWarehouseOrderSummaries(request.warehouse())) {
+            Map<String, Object> json = summary(summary.getId(), summary.getDate(), summary.getStatus(), summary.getTotals());
+            json.put("provider", summary.getProvider());
+            orders.add(json);
+        }
+        return orders;
+    }
+
+    private static Object warehouseOrder(Request request) throws DataAccessException {
+        Warehouse warehouse = request.warehouse();
+        WarehouseOrder order = new WarehouseOrderController().getWarehouseOrder(request.id());
+        if (order == null || order.getWarehouse() == null || order.getWarehouse().getId() != warehouse.getId()) {
+            throw new HttpError(404, "Warehouse order not found");
+        }
+        Map<String, Object> json = summary(order.getId(), order.getDate(), order.getStatus(), order.getTotals());
+        json.put("providerId", order.getProvider() == null ? null : order.getProvider().getId());
+        List<Object> items = new ArrayList<>();
+        for (WarehouseOrderItem item : order.getItems()) {
+            items.add(item(item.getProduct(), item.getQuantity(), item.getUnitPrice()));
+        }
+        json.put("items", items);
+        return json;
+    }
+
+    private static Object reports(Request request) throws ControlException {
+        Store store = request.store();
+        int limit = DEFAULT_PAGE_SIZE;
+        StoreStockReport after = null;
+        try {
+            if (request.query.containsKey("limit")) {
+                limit = Math.max(1, Integer.parseInt(request.query.get("limit")));
+            }
+            if (request.query.containsKey("afterId") && request.query.containsKey("afterDate")) {
+                after = new StoreStockReport(Integer.parseInt(request.query.get("afterId")),
+                        LocalDateTime.parse(request.query.get("afterDate")), null, store, null);
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new HttpError(400, "Malformed paging parameters");
+        }
+        List<Object> reports = new ArrayList<>();
+        for (StoreStockReport report : StoreStockReportController.getReportPage(store, null, null, after, limit)) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", report.getId());
+            json.put("date", report.getDate());
+            json.put("note", report.getNote());
+            List<Object> items = new ArrayList<>();
+            for (StoreStockReportItem item : report.getItems()) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("product", product(item.getProduct()));
+                line.put("quantity", item.getQuantity());
+                items.add(line);
+            }
+            json.put("items", items);
+            reports.add(json);
+        }
+        return reports;
+    }
+
+    /**
+     * Runs a batch of DAO calls of a desktop application working through this server, the results are sent as they are
+     */
+    private Object dao(Request request) {
+        try {
+            return endpoint.handle(request.user, request.body);
+        } catch (IOException e) {
+            throw new HttpError(400, "Malformed DAO calls: " + e.getMessage());
+        }
+    }
+
+    // HERE START THE JSON SHAPES
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("error", message);
+        return json;
+    }
+
+    private static Map<String, Object> product(Product product) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        if (product == null) {
+            return json;
+        }
+        json.put("id", product.getId());
+        json.put("name", product.getName());
+        json.put("weight", product.getWeight());
+        json.put("price", Money.toDecimal(product.getPrice()));
+        return json;
+    }
+
+    private static Map<String, Object> item(Product product, int quantity, long unitPrice) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("product", product(product));
+        json.put("quantity", quantity);
+        json.put("unitPrice", Money.toDecimal(unitPrice));
+        return json;
+    }
+
+    private static Map<String, Object> summary(int id, LocalDateTime date, Status status, OrderTotals totals) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", id);
+        json.put("date", date);
+        json.put("status", status);
+        json.put("totalPrice", Money.toDecimal(totals.getTotalPrice()));
+        json.put("totalWeight", totals.getTotalWeight());
+        json.put("lineCount", totals.getLineCount());
+        return json;
+    }
+}
@@ -28,7 +28,7 @@ class OrderControllerTest {
             orderController = new OrderController();
             orderController.createOrder(store, warehouse);
 
-            Product p = new Product("shampoo", 200, 5.99);
+            Product p = new Product("shampoo", 200, 599);
             int amount = 5;
 
             orderController.addProduct(p, amount);
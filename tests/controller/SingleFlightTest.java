@@ -0,0 +1,74 @@
+package controller;
+
+import database.DataAccessException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentCallersShareOneQuery() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", Duration.ZERO);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread first = new Thread(() -> {
+            try {
+                flight.get("key", () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    awaitQuietly(release);
+                    return 42;
+                });
+            } catch (DataAccessException e) {
+                Assertions.fail(e);
+            }
+        });
+        first.start();
+        started.await();
+
+        Thread second = new Thread(() -> {
+            try {
+                Assertions.assertEquals(42, flight.get("key", () -> runs.incrementAndGet() + 100));
+            } catch (DataAccessException e) {
+                Assertions.fail(e);
+            }
+        });
+        second.start();
+        // Give the second caller time to join the running query
+        while (flight.getJoined() == 0 && second.isAlive()) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        first.join();
+        second.join();
+
+        Assertions.assertEquals(1, runs.get(), "Expects the query to run once for both callers");
+        Assertions.assertEquals(1, flight.getSaved(), "Expects one saved query");
+    }
+
+    @Test
+    void testReuseAndInvalidate() throws DataAccessException {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", Duration.ofMinutes(1));
+        AtomicInteger runs = new AtomicInteger();
+
+        flight.get("key", runs::incrementAndGet);
+        Assertions.assertEquals(1, flight.get("key", runs::incrementAndGet), "Expects the finished result to be reused");
+        flight.invalidate("key");
+        Assertions.assertEquals(2, flight.get("key", runs::incrementAndGet), "Expects a new query after invalidation");
+        Assertions.assertEquals(1, flight.getReused());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
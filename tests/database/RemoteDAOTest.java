@@ -0,0 +1,142 @@
+package database;
+
+import model.Address;
+import model.Product;
+import model.Store;
+import model.User;
+import model.Warehouse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class RemoteDAOTest {
+    private static final Warehouse WAREHOUSE = new Warehouse(1, "Warehouse1", "password", "email",
+            new Address(1, "1", null, "street", "city", "9000", "region", "country"));
+
+    /**
+     * Answers from memory, so the calls only go through the encoding and the batching
+     */
+    private static class StubProductDAO implements ProductDAO {
+        private final List<Product> products = List.of(new Product(1, "Milk", 1.0, 995), new Product(2, "Bread", 0.5, 350));
+
+        @Override
+        public List<Product> getProducts(Warehouse warehouse) {
+            return products;
+        }
+
+        @Override
+        public List<Integer> getProductIds(Warehouse warehouse) {
+            return List.of(1, 2);
+        }
+
+        @Override
+        public boolean checkAvailability(Warehouse warehouse, Product product, int amount) {
+            return amount <= 10;
+        }
+
+        @Override
+        public Map<Integer, Integer> getShortfalls(Warehouse warehouse, Map<Integer, Integer> amounts) {
+            Map<Integer, Integer> shortfalls = new HashMap<>();
+            amounts.forEach((productId, amount) -> shortfalls.put(productId, Math.max(0, amount - 10)));
+            return shortfalls;
+        }
+
+        @Override
+        public int create(Product value) throws DataAccessException {
+            throw new DataAccessException("Products can't be created");
+        }
+
+        @Override
+        public Product selectByID(int id) {
+            return products.stream().filter(product -> product.getId() == id).findFirst().orElse(null);
+        }
+
+        @Override
+        public List<Product> all() {
+            return products;
+        }
+
+        @Override
+        public int update(Product value) {
+            return 1;
+        }
+
+        @Override
+        public int delete(Product value) {
+            return 0;
+        }
+    }
+
+    private static LoopbackTransport transport() {
+        return transport(WAREHOUSE);
+    }
+
+    private static LoopbackTransport transport(User user) {
+        return new LoopbackTransport(new DAOEndpoint(Map.of(ProductDAO.class, new StubProductDAO())), user);
+    }
+
+    @Test
+    void testResultsComeBackDecoded() throws DataAccessException {
+        ProductDAO productDAO = RemoteDAO.create(ProductDAO.class, new RemoteBatcher(transport(), 0, TimeUnit.MILLISECONDS));
+
+        List<Product> products = productDAO.getProducts(WAREHOUSE);
+        Assertions.assertEquals(2, products.size());
+        Assertions.assertEquals("Milk", products.get(0).getName());
+        Assertions.assertEquals(995, products.get(0).getPrice());
+        Assertions.assertEquals(350, products.get(1).getPrice());
+        Assertions.assertTrue(productDAO.checkAvailability(WAREHOUSE, products.get(0), 5));
+        Assertions.assertEquals(Map.of(1, 2, 2, 0), productDAO.getShortfalls(WAREHOUSE, Map.of(1, 12, 2, 3)));
+        Assertions.assertNull(productDAO.selectByID(3));
+    }
+
+    @Test
+    void testErrorsReachTheCaller() {
+        ProductDAO productDAO = RemoteDAO.create(ProductDAO.class, new RemoteBatcher(transport(), 0, TimeUnit.MILLISECONDS));
+
+        DataAccessException e = Assertions.assertThrows(DataAccessException.class,
+                () -> productDAO.create(new Product("Cheese", 1, 2000)));
+        Assertions.assertEquals("Products can't be created", e.getMessage());
+    }
+
+    @Test
+    void testStoresCantChangeProducts() {
+        Store store = new Store(1, "Store1", "password", "email", WAREHOUSE.getAddress());
+        ProductDAO productDAO = RemoteDAO.create(ProductDAO.class, new RemoteBatcher(transport(store), 0, TimeUnit.MILLISECONDS));
+
+        DataAccessException e = Assertions.assertThrows(DataAccessException.class,
+                () -> productDAO.update(new Product(1, "Milk", 1.0, 1)));
+        Assertions.assertEquals("Not allowed for this user", e.getMessage());
+    }
+
+    @Test
+    void testConcurrentCallsShareOneRoundTrip() throws Exception {
+        LoopbackTransport transport = transport();
+        ProductDAO productDAO = RemoteDAO.create(ProductDAO.class, new RemoteBatcher(transport, 500, TimeUnit.MILLISECONDS));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 1; i <= 5; i++) {
+            int amount = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    Assertions.assertTrue(productDAO.checkAvailability(WAREHOUSE, null, amount));
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertEquals(List.of(), failures);
+        Assertions.assertEquals(1, transport.getRoundTrips());
+    }
+}
@@ -0,0 +1,53 @@
+package model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+class ConsumptionIndexTest {
+    private static final LocalDateTime DAY_0 = LocalDateTime.of(2020, 5, 1, 8, 0);
+
+    @Test
+    void testConsumptionBetweenReports() {
+        ConsumptionIndex index = new ConsumptionIndex();
+        index.report(1, 10, DAY_0, 50);
+        index.deliver(1, 10, 30);
+        index.report(1, 10, DAY_0.plusDays(4), 40);
+
+        Consumption consumption = index.get(1, 10);
+        Assertions.assertEquals(40, consumption.getConsumed(), "Expects 50 + 30 delivered - 40 to be consumed");
+        Assertions.assertEquals(4, consumption.getObservedDays(), 1e-9, "Expects the period to be 4 days");
+        Assertions.assertEquals(10, consumption.getVelocity(), 1e-9, "Expects 10 a day after the first period");
+        Assertions.assertEquals(0, consumption.getDeliveredSince(), "Expects the deliveries to be counted in the period");
+    }
+
+    @Test
+    void testVelocityFavoursRecentPeriods() {
+        ConsumptionIndex index = new ConsumptionIndex();
+        index.report(1, 10, DAY_0, 100);
+        index.report(1, 10, DAY_0.plusDays(1), 90);
+        index.report(1, 10, DAY_0.plusDays(2), 60);
+
+        Consumption consumption = index.get(1, 10);
+        Assertions.assertEquals(20, consumption.getAverageDailyConsumption(), 1e-9, "Expects the plain average of both periods");
+        Assertions.assertTrue(consumption.getVelocity() > 10 && consumption.getVelocity() < 30, "Expects the velocity between both rates");
+    }
+
+    @Test
+    void testManyPairs() {
+        ConsumptionIndex index = new ConsumptionIndex(4);
+        for (int store = 1; store <= 50; store++) {
+            for (int product = 1; product <= 40; product++) {
+                index.report(store, product, DAY_0, store * product);
+            }
+        }
+        Assertions.assertEquals(2000, index.size(), "Expects one entry per pair");
+        Assertions.assertEquals(40, index.getByStore(7).size(), "Expects every product of the store");
+        Assertions.assertEquals(7 * 13, index.get(7, 13).getLastQuantity(), "Expects the figures of the right pair");
+
+        index.removeStore(7);
+        Assertions.assertNull(index.get(7, 13), "Expects the removed store to be gone");
+        Assertions.assertEquals(8 * 13, index.get(8, 13).getLastQuantity(), "Expects the other stores to be kept");
+    }
+}
@@ -0,0 +1,31 @@
+package model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    @Test
+    void testFormat() {
+        Assertions.assertEquals("12.50", Money.format(1250), "Expects two decimals");
+        Assertions.assertEquals("0.05", Money.format(5), "Expects a leading zero below one euro");
+        Assertions.assertEquals("-0.05", Money.format(-5), "Expects the sign of negative amounts below one euro");
+    }
+
+    @Test
+    void testParse() {
+        Assertions.assertEquals(1250, Money.parse("12.5"), "Expects one decimal to be read as tens of cents");
+        Assertions.assertEquals(599, Money.parse(" 5.99 "), "Expects surrounding spaces to be ignored");
+        Assertions.assertThrows(NumberFormatException.class, () -> Money.parse("1.005"), "Expects fractions of cents to be refused");
+        Assertions.assertThrows(NumberFormatException.class, () -> Money.parse("abc"), "Expects text to be refused");
+    }
+
+    @Test
+    void testTotalsAreExact() {
+        ItemIndex<OrderItem> items = new ItemIndex<>();
+        Product product = new Product(1, "Milk", 1.0, 10);
+        items.add(new OrderItem(product, 10, 3));
+        items.setQuantity(1, 10);
+        Assertions.assertEquals(100, items.getTotalPrice(), "Expects ten times 0.10 to be exactly 1.00");
+    }
+}
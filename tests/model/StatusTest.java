@@ -0,0 +1,34 @@
+package model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class StatusTest {
+
+    @Test
+    void testCanTransitionTo() {
+        Assertions.assertTrue(Status.PENDING.canTransitionTo(Status.APPROVED), "Expects pending orders to be approvable");
+        Assertions.assertTrue(Status.APPROVED.canTransitionTo(Status.IN_TRANSIT), "Expects approved orders to be sendable");
+        Assertions.assertFalse(Status.PENDING.canTransitionTo(Status.DELIVERED), "Expects pending orders not to be deliverable");
+        Assertions.assertFalse(Status.DELIVERED.canTransitionTo(Status.REJECTED), "Expects delivered orders to be final");
+        Assertions.assertFalse(Status.REJECTED.canTransitionTo(Status.APPROVED), "Expects rejected orders to be final");
+    }
+
+    @Test
+    void testStockEffect() {
+        Assertions.assertEquals(-1, Status.stockEffect(Status.PENDING, Status.APPROVED), "Expects stock to be taken on approval");
+        Assertions.assertEquals(0, Status.stockEffect(Status.PENDING, Status.REJECTED), "Expects no stock change when rejecting a pending order");
+        Assertions.assertEquals(1, Status.stockEffect(Status.APPROVED, Status.REJECTED), "Expects stock to be given back when rejecting an approved order");
+        Assertions.assertEquals(0, Status.stockEffect(Status.APPROVED, Status.IN_TRANSIT), "Expects no stock change after approval");
+    }
+
+    @Test
+    void testCodes() {
+        for (Status status : Status.values()) {
+            Assertions.assertSame(status, Status.of(status.code), "Expects every status to be found by its code");
+        }
+        Assertions.assertEquals(7, Status.DELIVERED.code, "Expects the stored codes not to change");
+        Assertions.assertNull(Status.of(0), "Expects code 0 to be no status");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Status.of(8), "Expects unknown codes to be refused");
+    }
+}